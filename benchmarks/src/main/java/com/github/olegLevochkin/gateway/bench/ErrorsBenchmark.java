@@ -0,0 +1,47 @@
+package com.github.olegLevochkin.gateway.bench;
+
+import com.github.olegLevochkin.gateway.rpc.JsonRpcErrors;
+import com.github.olegLevochkin.gateway.rpc.JsonRpcReply;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/** Error replies: {@code JsonObject} encoding (HTTP error paths) and the pre-encoded per-call reply. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ErrorsBenchmark {
+
+    private static final String RAW_ID = "42";
+
+    @Benchmark
+    public String invalidRequest() {
+        return JsonRpcErrors.invalidRequest(null).encode();
+    }
+
+    @Benchmark
+    public String upstreamUnavailable() {
+        return JsonRpcErrors.upstreamUnavailable(42).encode();
+    }
+
+    @Benchmark
+    public String limitExceeded() {
+        return JsonRpcErrors.limitExceeded(null).encode();
+    }
+
+    @Benchmark
+    public JsonRpcReply upstreamUnavailableReply() {
+        return JsonRpcErrors.upstreamUnavailableReply(RAW_ID);
+    }
+}
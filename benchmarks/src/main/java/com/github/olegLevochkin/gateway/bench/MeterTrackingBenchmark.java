@@ -0,0 +1,61 @@
+package com.github.olegLevochkin.gateway.bench;
+
+import com.github.olegLevochkin.gateway.config.ConfigLoader;
+import com.github.olegLevochkin.gateway.metrics.RpcMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.github.olegLevochkin.gateway.metrics.MetricsNames.JSONRPC_CALLS_TOTAL;
+import static com.github.olegLevochkin.gateway.metrics.MetricsNames.TAG_METHOD;
+
+/** Per-call meter tracking: a registry lookup with tags against the cached {@link RpcMetrics} meters. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class MeterTrackingBenchmark {
+
+    private static final String METHOD = "eth_getBalance";
+    private static final long LATENCY_NANOS = 1_500_000;
+
+    private MeterRegistry registry;
+    private RpcMetrics metrics;
+
+    @Setup
+    public void setUp() {
+        registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        metrics = RpcMetrics.create(ConfigLoader.load(), registry);
+    }
+
+    @Benchmark
+    public void registryLookup() {
+        registry.counter(JSONRPC_CALLS_TOTAL, TAG_METHOD, METHOD).increment();
+    }
+
+    @Benchmark
+    public void cachedCall() {
+        metrics.method(METHOD).recordCall();
+    }
+
+    @Benchmark
+    public void cachedLatency() {
+        metrics.method(METHOD).recordLatency(LATENCY_NANOS);
+    }
+}
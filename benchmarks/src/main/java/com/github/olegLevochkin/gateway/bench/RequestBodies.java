@@ -0,0 +1,29 @@
+package com.github.olegLevochkin.gateway.bench;
+
+/** JSON-RPC request bodies shaped like typical client traffic. */
+final class RequestBodies {
+
+    private static final String CALL =
+            "{\"jsonrpc\":\"2.0\",\"id\":%d,\"method\":\"eth_getBalance\","
+                    + "\"params\":[\"0x%040x\",\"latest\"]}";
+
+    private RequestBodies() {
+    }
+
+    /** A single call for {@code size == 1}, otherwise a batch of {@code size} calls. */
+    static String of(int size) {
+        if (size == 1) {
+            return call(1);
+        }
+        StringBuilder body = new StringBuilder(size * 100).append('[');
+        for (int i = 1; i <= size; i++) {
+            if (i > 1) body.append(',');
+            body.append(call(i));
+        }
+        return body.append(']').toString();
+    }
+
+    private static String call(int id) {
+        return String.format(CALL, id, id);
+    }
+}
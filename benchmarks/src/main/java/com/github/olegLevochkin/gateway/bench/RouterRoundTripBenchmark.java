@@ -0,0 +1,159 @@
+package com.github.olegLevochkin.gateway.bench;
+
+import com.github.olegLevochkin.gateway.SharedComponents;
+import com.github.olegLevochkin.gateway.config.AppConfig;
+import com.github.olegLevochkin.gateway.config.ConfigLoader;
+import com.github.olegLevochkin.gateway.http.HttpServerVerticle;
+import io.vertx.core.Context;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.http.HttpClientResponse;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServer;
+import io.vertx.core.http.RequestOptions;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.micrometer.MicrometerMetricsOptions;
+import io.vertx.micrometer.VertxPrometheusOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full {@code POST /rpc} round trip through the deployed {@link HttpServerVerticle} (router, validation, dispatcher
+ * chain, upstream pool) against an in-process stub upstream that answers every call without delay.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class RouterRoundTripBenchmark {
+
+    private static final String HOST = "127.0.0.1";
+    private static final String PATH_RPC = "/rpc";
+    private static final String CONTENT_TYPE_JSON = "application/json";
+    private static final String RESULT = "0x1bc16d674ec80000";
+
+    @Param({"1", "100"})
+    private int batchSize;
+
+    @Param({"false", "true"})
+    private boolean streaming;
+
+    private Vertx vertx;
+    private Context clientContext;
+    private SharedComponents shared;
+    private HttpServer upstream;
+    private HttpClient client;
+    private RequestOptions request;
+    private Buffer body;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        body = Buffer.buffer(RequestBodies.of(batchSize));
+        Buffer upstreamResponse = answer(body);
+        vertx = Vertx.vertx(new VertxOptions().setMetricsOptions(new MicrometerMetricsOptions()
+                .setEnabled(true)
+                .setPrometheusOptions(new VertxPrometheusOptions().setEnabled(true))));
+        upstream = vertx.createHttpServer()
+                .requestHandler(req -> req.body().onSuccess(buf ->
+                        req.response().putHeader("content-type", CONTENT_TYPE_JSON).end(upstreamResponse.copy())))
+                .listen(0, HOST)
+                .toCompletionStage().toCompletableFuture().get();
+
+        int port = freePort();
+        Properties overrides = new Properties();
+        overrides.setProperty("http.port", Integer.toString(port));
+        overrides.setProperty("http.instances", "1");
+        overrides.setProperty("tls.enabled", "false");
+        overrides.setProperty("upstream.urls", "http://" + HOST + ":" + upstream.actualPort());
+        overrides.setProperty("cache.enabled", "false");
+        overrides.setProperty("coalescing.enabled", "false");
+        overrides.setProperty("websocket.enabled", "false");
+        overrides.setProperty("access.log.enabled", "false");
+        overrides.setProperty("streaming.enabled", Boolean.toString(streaming));
+        AppConfig config = ConfigLoader.load(overrides);
+
+        shared = SharedComponents.create(vertx, config);
+        vertx.deployVerticle(() -> new HttpServerVerticle(config, shared), new DeploymentOptions())
+                .toCompletionStage().toCompletableFuture().get();
+
+        clientContext = vertx.getOrCreateContext();
+        client = vertx.createHttpClient(new HttpClientOptions().setKeepAlive(true));
+        request = new RequestOptions()
+                .setMethod(HttpMethod.POST)
+                .setHost(HOST)
+                .setPort(port)
+                .setURI(PATH_RPC)
+                .putHeader("content-type", CONTENT_TYPE_JSON);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        vertx.close().toCompletionStage().toCompletableFuture().get();
+        shared.close();
+    }
+
+    /**
+     * The request is issued on a Vert.x context: driving the client from the benchmark thread races the response
+     * against the handler registration and occasionally loses a response.
+     */
+    @Benchmark
+    public Buffer roundTrip() throws Exception {
+        CompletableFuture<Buffer> response = new CompletableFuture<>();
+        clientContext.runOnContext(v -> client.request(request)
+                .compose(req -> req.send(body))
+                .compose(HttpClientResponse::body)
+                .onSuccess(response::complete)
+                .onFailure(response::completeExceptionally));
+        return response.get();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /** What the stub upstream answers: every call of {@code request} gets the same result, ids and batch shape kept. */
+    private static Buffer answer(Buffer request) {
+        Object parsed = request.toJson();
+        if (parsed instanceof JsonObject call) {
+            return reply(call).toBuffer();
+        }
+        JsonArray replies = new JsonArray();
+        for (Object call : (JsonArray) parsed) {
+            replies.add(reply((JsonObject) call));
+        }
+        return replies.toBuffer();
+    }
+
+    private static JsonObject reply(JsonObject call) {
+        return new JsonObject()
+                .put("jsonrpc", "2.0")
+                .put("id", call.getValue("id"))
+                .put("result", RESULT);
+    }
+}
@@ -0,0 +1,51 @@
+package com.github.olegLevochkin.gateway.bench;
+
+import com.github.olegLevochkin.gateway.rpc.JsonRpcValidator;
+import com.github.olegLevochkin.gateway.rpc.StreamingJsonRpcValidator;
+import io.vertx.core.buffer.Buffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/** Request validation: the {@code JsonObject} tree validator against the single-pass byte-level one. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidatorBenchmark {
+
+    @Param({"1", "100", "5000"})
+    private int batchSize;
+
+    private String text;
+    private Buffer bytes;
+
+    @Setup
+    public void setUp() {
+        text = RequestBodies.of(batchSize);
+        bytes = Buffer.buffer(text);
+    }
+
+    @Benchmark
+    public boolean treeValidator(Blackhole blackhole) {
+        return JsonRpcValidator.forEachValid(text, blackhole::consume);
+    }
+
+    @Benchmark
+    public boolean streamingValidator(Blackhole blackhole) {
+        return StreamingJsonRpcValidator.forEachValid(bytes, blackhole::consume);
+    }
+}
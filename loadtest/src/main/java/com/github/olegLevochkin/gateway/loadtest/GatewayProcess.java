@@ -0,0 +1,166 @@
+package com.github.olegLevochkin.gateway.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * The proxy under test, forked into its own JVM so that its CPU time and heap are measured in isolation from the
+ * mock node and the load generator. It runs from a scratch directory whose {@code application.properties} shadows
+ * the bundled one on the class path; keys not set there fall back to the proxy's defaults.
+ */
+final class GatewayProcess implements AutoCloseable {
+
+    private static final String MAIN_CLASS = "com.github.olegLevochkin.gateway.GatewayRpcProxyApplication";
+    private static final String PROPERTIES_FILE = "application.properties";
+    private static final String LOG_FILE = "gateway.log";
+    private static final String HEALTH_PATH = "/health";
+    private static final String PROMETHEUS_PATH = "/prometheus";
+    private static final String HEAP_USED_SERIES = "jvm_memory_used_bytes{area=\"heap\"";
+    private static final String RSS_FIELD = "VmRSS:";
+    private static final Duration STARTUP_TIMEOUT = Duration.ofSeconds(60);
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(200);
+
+    private final Process process;
+    private final URI baseUri;
+    private final Path workDir;
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+
+    private GatewayProcess(Process process, URI baseUri, Path workDir) {
+        this.process = process;
+        this.baseUri = baseUri;
+        this.workDir = workDir;
+    }
+
+    static GatewayProcess start(LoadTestOptions options, int port, URI mockUri) throws IOException {
+        Path workDir = Files.createTempDirectory("gateway-loadtest");
+        Properties properties = new Properties();
+        properties.setProperty("http.port", String.valueOf(port));
+        properties.setProperty("tls.enabled", "false");
+        properties.setProperty("upstream.urls", mockUri.toString());
+        properties.setProperty("websocket.enabled", "false");
+        properties.setProperty("access.log.file", workDir.resolve("access.log").toString());
+        if (!options.gatewayProperties().isEmpty()) {
+            try (InputStream in = Files.newInputStream(Path.of(options.gatewayProperties()))) {
+                properties.load(in);
+            }
+        }
+        try (OutputStream out = Files.newOutputStream(workDir.resolve(PROPERTIES_FILE))) {
+            properties.store(out, "generated by the load test");
+        }
+
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        if (!options.gatewayJvmOptions().isEmpty()) {
+            command.addAll(Arrays.asList(options.gatewayJvmOptions().split("\\s+")));
+        }
+        command.add("-cp");
+        command.add(classPath(workDir));
+        command.add(MAIN_CLASS);
+
+        Process process = new ProcessBuilder(command)
+                .directory(workDir.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(workDir.resolve(LOG_FILE).toFile())
+                .start();
+        return new GatewayProcess(process, URI.create("http://127.0.0.1:" + port), workDir);
+    }
+
+    /** The scratch directory first, then this JVM's class path made absolute since the fork runs elsewhere. */
+    private static String classPath(Path workDir) {
+        String separator = System.getProperty("path.separator");
+        StringBuilder classPath = new StringBuilder(workDir.toString());
+        for (String entry : System.getProperty("java.class.path").split(Pattern.quote(separator))) {
+            classPath.append(separator).append(Path.of(entry).toAbsolutePath());
+        }
+        return classPath.toString();
+    }
+
+    URI rpcUri() {
+        return baseUri.resolve("/rpc");
+    }
+
+    Path workDir() {
+        return workDir;
+    }
+
+    long pid() {
+        return process.pid();
+    }
+
+    void awaitHealthy() throws InterruptedException {
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        HttpRequest health = HttpRequest.newBuilder(baseUri.resolve(HEALTH_PATH)).build();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Proxy exited with " + process.exitValue() + ", see " + workDir.resolve(LOG_FILE));
+            }
+            try {
+                if (http.send(health, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) return;
+            } catch (IOException e) {
+                // not listening yet
+            }
+            Thread.sleep(POLL_INTERVAL.toMillis());
+        }
+        throw new IllegalStateException("Proxy not healthy within " + STARTUP_TIMEOUT + ", see " + workDir.resolve(LOG_FILE));
+    }
+
+    /** Total CPU time consumed by the proxy JVM so far, or -1 when the platform does not report it. */
+    long cpuNanos() {
+        return process.toHandle().info().totalCpuDuration().map(Duration::toNanos).orElse(-1L);
+    }
+
+    /** Resident set size from {@code /proc}, or -1 off Linux. */
+    long rssBytes() {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc", String.valueOf(process.pid()), "status"))) {
+                if (line.startsWith(RSS_FIELD)) {
+                    return Long.parseLong(line.substring(RSS_FIELD.length()).replace("kB", "").trim()) * 1024;
+                }
+            }
+        } catch (IOException | UncheckedIOException | NumberFormatException e) {
+            // not available
+        }
+        return -1;
+    }
+
+    /** Heap in use across all pools, scraped from the proxy's Prometheus endpoint; -1 if unavailable. */
+    long heapUsedBytes() {
+        try {
+            HttpRequest scrape = HttpRequest.newBuilder(baseUri.resolve(PROMETHEUS_PATH)).build();
+            String body = http.send(scrape, HttpResponse.BodyHandlers.ofString()).body();
+            double sum = body.lines()
+                    .filter(line -> line.startsWith(HEAP_USED_SERIES))
+                    .mapToDouble(line -> Double.parseDouble(line.substring(line.lastIndexOf(' ') + 1)))
+                    .sum();
+            return (long) sum;
+        } catch (IOException | NumberFormatException e) {
+            return -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        process.destroy();
+        if (!process.waitFor(10, TimeUnit.SECONDS)) {
+            process.destroyForcibly().waitFor();
+        }
+    }
+}
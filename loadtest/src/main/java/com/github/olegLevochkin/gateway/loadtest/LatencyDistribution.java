@@ -0,0 +1,52 @@
+package com.github.olegLevochkin.gateway.loadtest;
+
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Response delay of the mock node, all values in milliseconds:
+ * {@code fixed:<ms>}, {@code uniform:<min>:<max>}, {@code exponential:<mean>} or {@code lognormal:<median>:<sigma>}.
+ */
+record LatencyDistribution(Kind kind, double first, double second) {
+
+    private static final String SEPARATOR = ":";
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    enum Kind { FIXED, UNIFORM, EXPONENTIAL, LOGNORMAL }
+
+    static LatencyDistribution parse(String raw) {
+        String[] parts = raw.trim().split(SEPARATOR);
+        Kind kind = Kind.valueOf(parts[0].toUpperCase(Locale.ROOT));
+        int expected = kind == Kind.UNIFORM || kind == Kind.LOGNORMAL ? 3 : 2;
+        if (parts.length != expected) {
+            throw new IllegalArgumentException("Expected " + (expected - 1) + " parameter(s) for " + raw);
+        }
+        double first = Double.parseDouble(parts[1]);
+        double second = expected == 3 ? Double.parseDouble(parts[2]) : 0;
+        if (first < 0 || second < 0) {
+            throw new IllegalArgumentException("Latency parameters must not be negative: " + raw);
+        }
+        return new LatencyDistribution(kind, first, second);
+    }
+
+    long sampleNanos() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double millis = switch (kind) {
+            case FIXED -> first;
+            case UNIFORM -> first + random.nextDouble() * Math.max(0, second - first);
+            case EXPONENTIAL -> -first * Math.log(1 - random.nextDouble());
+            case LOGNORMAL -> first * Math.exp(second * random.nextGaussian());
+        };
+        return (long) (millis * NANOS_PER_MILLI);
+    }
+
+    @Override
+    public String toString() {
+        return switch (kind) {
+            case FIXED -> "fixed " + first + "ms";
+            case UNIFORM -> "uniform " + first + ".." + second + "ms";
+            case EXPONENTIAL -> "exponential mean " + first + "ms";
+            case LOGNORMAL -> "lognormal median " + first + "ms sigma " + second;
+        };
+    }
+}
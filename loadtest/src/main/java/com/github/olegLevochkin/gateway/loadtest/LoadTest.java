@@ -0,0 +1,79 @@
+package com.github.olegLevochkin.gateway.loadtest;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.net.URI;
+
+/**
+ * End-to-end load test of the proxy that needs no network access: an embedded mock Ethereum node, the proxy forked
+ * in its own JVM and pointed at the mock, and an open-model load generator. Prints latency percentiles,
+ * throughput and the proxy's CPU and memory for the measured phase. Options are {@code --name=value}, see
+ * {@link LoadTestOptions}; {@code --gateway=http://host:port/rpc} targets an already running proxy instead.
+ */
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options;
+        try {
+            options = LoadTestOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Options: " + LoadTestOptions.names());
+            System.exit(2);
+            return;
+        }
+
+        Vertx vertx = Vertx.vertx(new VertxOptions().setEventLoopPoolSize(options.mockEventLoops() + 1));
+        GatewayProcess gateway = null;
+        try {
+            MockEthNode mock = null;
+            URI target;
+            if (options.embeddedGateway()) {
+                int mockPort = freePort();
+                mock = new MockEthNode(options);
+                await(mock.start(vertx, mockPort));
+                gateway = GatewayProcess.start(options, freePort(), URI.create("http://127.0.0.1:" + mockPort));
+                System.out.println("proxy pid " + gateway.pid() + ", logs in " + gateway.workDir());
+                gateway.awaitHealthy();
+                target = gateway.rpcUri();
+            } else {
+                target = URI.create(options.gateway());
+            }
+
+            OpenLoadGenerator generator = new OpenLoadGenerator(vertx, options, target);
+            if (options.warmupSeconds() > 0) {
+                System.out.println("warming up for " + options.warmupSeconds() + "s");
+                await(generator.run(options.warmupSeconds()));
+            }
+            System.out.println("measuring for " + options.durationSeconds() + "s");
+            ResourceSampler sampler = gateway != null ? new ResourceSampler(gateway) : null;
+            PhaseResult result = await(generator.run(options.durationSeconds()));
+            ResourceSampler.Usage usage = sampler != null ? sampler.finish() : null;
+            Report.print(System.out, options, result, usage, mock);
+            await(generator.close());
+        } finally {
+            if (gateway != null) gateway.close();
+            vertx.close().toCompletionStage().toCompletableFuture().join();
+        }
+    }
+
+    private static <T> T await(Future<T> future) {
+        return future.toCompletionStage().toCompletableFuture().join();
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
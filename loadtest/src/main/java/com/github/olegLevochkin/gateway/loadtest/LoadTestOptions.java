@@ -0,0 +1,113 @@
+package com.github.olegLevochkin.gateway.loadtest;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/** Command line options, given as {@code --name=value}. */
+record LoadTestOptions(
+        int rate,
+        int durationSeconds,
+        int warmupSeconds,
+        int connections,
+        int maxInFlight,
+        double batchRatio,
+        int batchSize,
+        List<String> methods,
+        LatencyDistribution mockLatency,
+        double mockErrorRate,
+        int mockResultBytes,
+        int mockEventLoops,
+        String gateway,
+        String gatewayJvmOptions,
+        String gatewayProperties
+) {
+    static final String GATEWAY_EMBEDDED = "embedded";
+
+    private static final String PREFIX = "--";
+    private static final char ASSIGN = '=';
+    private static final String LIST_SEPARATOR = ",";
+
+    private static final Map<String, String> DEFAULTS = Map.ofEntries(
+            Map.entry("rate", "1000"),
+            Map.entry("duration", "30"),
+            Map.entry("warmup", "5"),
+            Map.entry("connections", "64"),
+            Map.entry("max-in-flight", "10000"),
+            Map.entry("batch-ratio", "0.1"),
+            Map.entry("batch-size", "20"),
+            Map.entry("methods", "eth_getBalance,eth_call,eth_blockNumber,eth_getTransactionReceipt"),
+            Map.entry("mock-latency", "lognormal:2:0.5"),
+            Map.entry("mock-error-rate", "0"),
+            Map.entry("mock-result-bytes", "66"),
+            Map.entry("mock-event-loops", "2"),
+            Map.entry("gateway", GATEWAY_EMBEDDED),
+            Map.entry("gateway-jvm-options", "-Xms256m -Xmx256m"),
+            Map.entry("gateway-properties", ""));
+
+    LoadTestOptions {
+        requirePositive(rate, "rate");
+        requirePositive(durationSeconds, "duration");
+        requirePositive(connections, "connections");
+        requirePositive(maxInFlight, "max-in-flight");
+        requirePositive(batchSize, "batch-size");
+        requirePositive(mockEventLoops, "mock-event-loops");
+        if (warmupSeconds < 0) throw new IllegalArgumentException("warmup must not be negative");
+        if (mockResultBytes < 0) throw new IllegalArgumentException("mock-result-bytes must not be negative");
+        requireFraction(batchRatio, "batch-ratio");
+        requireFraction(mockErrorRate, "mock-error-rate");
+        if (methods.isEmpty()) throw new IllegalArgumentException("methods must not be empty");
+    }
+
+    static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>(DEFAULTS);
+        for (String arg : args) {
+            int assign = arg.indexOf(ASSIGN);
+            if (!arg.startsWith(PREFIX) || assign < 0) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            String name = arg.substring(PREFIX.length(), assign);
+            if (!DEFAULTS.containsKey(name)) {
+                throw new IllegalArgumentException("Unknown option --" + name + ", known: " + names());
+            }
+            values.put(name, arg.substring(assign + 1));
+        }
+        return new LoadTestOptions(
+                Integer.parseInt(values.get("rate")),
+                Integer.parseInt(values.get("duration")),
+                Integer.parseInt(values.get("warmup")),
+                Integer.parseInt(values.get("connections")),
+                Integer.parseInt(values.get("max-in-flight")),
+                Double.parseDouble(values.get("batch-ratio")),
+                Integer.parseInt(values.get("batch-size")),
+                Arrays.stream(values.get("methods").split(LIST_SEPARATOR))
+                        .map(String::trim)
+                        .filter(method -> !method.isEmpty())
+                        .toList(),
+                LatencyDistribution.parse(values.get("mock-latency")),
+                Double.parseDouble(values.get("mock-error-rate")),
+                Integer.parseInt(values.get("mock-result-bytes")),
+                Integer.parseInt(values.get("mock-event-loops")),
+                values.get("gateway").trim(),
+                values.get("gateway-jvm-options").trim(),
+                values.get("gateway-properties").trim());
+    }
+
+    boolean embeddedGateway() {
+        return GATEWAY_EMBEDDED.equals(gateway);
+    }
+
+    static Set<String> names() {
+        return DEFAULTS.keySet();
+    }
+
+    private static void requirePositive(int value, String name) {
+        if (value <= 0) throw new IllegalArgumentException(name + " must be > 0");
+    }
+
+    private static void requireFraction(double value, String name) {
+        if (value < 0 || value > 1) throw new IllegalArgumentException(name + " must be within [0, 1]");
+    }
+}
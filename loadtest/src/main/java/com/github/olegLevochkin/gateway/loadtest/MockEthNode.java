@@ -0,0 +1,131 @@
+package com.github.olegLevochkin.gateway.loadtest;
+
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerOptions;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.Json;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import static io.netty.handler.codec.http.HttpHeaderValues.APPLICATION_JSON;
+import static io.netty.handler.codec.http.HttpResponseStatus.BAD_REQUEST;
+import static io.vertx.core.http.HttpHeaders.CONTENT_TYPE;
+
+/**
+ * In-process stand-in for an Ethereum node. Answers every JSON-RPC call, single or batched, with a hex string of
+ * the configured size after a delay drawn from the latency distribution; a configurable fraction of calls fails
+ * with a server error instead. One delay is drawn per HTTP request, as a real node answers a batch at once.
+ */
+final class MockEthNode {
+
+    static final int SERVER_ERROR_CODE = -32000;
+    private static final String SERVER_ERROR_MESSAGE = "mock failure";
+
+    private final LoadTestOptions options;
+    private final String result;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private int port;
+
+    MockEthNode(LoadTestOptions options) {
+        this.options = options;
+        this.result = hexResult(options.mockResultBytes());
+    }
+
+    /** Deploys one server verticle per event loop, all sharing the given port. */
+    Future<String> start(Vertx vertx, int port) {
+        this.port = port;
+        return vertx.deployVerticle(Server::new, new DeploymentOptions().setInstances(options.mockEventLoops()));
+    }
+
+    long requests() {
+        return requests.sum();
+    }
+
+    long calls() {
+        return calls.sum();
+    }
+
+    long errors() {
+        return errors.sum();
+    }
+
+    private void handle(Vertx vertx, HttpServerRequest request) {
+        request.body().onSuccess(body -> {
+            requests.increment();
+            Buffer response;
+            try {
+                response = respond(body);
+            } catch (DecodeException | ClassCastException e) {
+                request.response().setStatusCode(BAD_REQUEST.code()).end();
+                return;
+            }
+            long delayMs = Math.round(options.mockLatency().sampleNanos() / 1_000_000.0);
+            if (delayMs <= 0) {
+                send(request, response);
+            } else {
+                vertx.setTimer(delayMs, id -> send(request, response));
+            }
+        });
+    }
+
+    private Buffer respond(Buffer body) {
+        Object decoded = Json.decodeValue(body);
+        if (decoded instanceof JsonArray batch) {
+            JsonArray replies = new JsonArray();
+            for (Object call : batch) {
+                replies.add(reply((JsonObject) call));
+            }
+            return replies.toBuffer();
+        }
+        return reply((JsonObject) decoded).toBuffer();
+    }
+
+    private JsonObject reply(JsonObject call) {
+        calls.increment();
+        JsonObject reply = new JsonObject().put("jsonrpc", "2.0").put("id", call.getValue("id"));
+        double errorRate = options.mockErrorRate();
+        if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+            errors.increment();
+            return reply.put("error", new JsonObject().put("code", SERVER_ERROR_CODE).put("message", SERVER_ERROR_MESSAGE));
+        }
+        return reply.put("result", result);
+    }
+
+    private static void send(HttpServerRequest request, Buffer response) {
+        request.response()
+                .putHeader(CONTENT_TYPE, APPLICATION_JSON)
+                .end(response);
+    }
+
+    private static String hexResult(int bytes) {
+        int digits = Math.max(0, bytes - 2);
+        StringBuilder hex = new StringBuilder(digits + 2).append("0x");
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < digits; i++) {
+            hex.append(Character.forDigit(random.nextInt(16), 16));
+        }
+        return hex.toString();
+    }
+
+    private final class Server extends AbstractVerticle {
+        @Override
+        public void start(Promise<Void> startPromise) {
+            vertx.createHttpServer(new HttpServerOptions().setPort(port))
+                    .requestHandler(request -> handle(vertx, request))
+                    .listen()
+                    .<Void>mapEmpty()
+                    .onComplete(startPromise);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.github.olegLevochkin.gateway.loadtest;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.http.HttpClientResponse;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.PoolOptions;
+import io.vertx.core.http.RequestOptions;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static io.netty.handler.codec.http.HttpHeaderValues.APPLICATION_JSON;
+import static io.netty.handler.codec.http.HttpResponseStatus.OK;
+import static io.vertx.core.http.HttpHeaders.CONTENT_TYPE;
+
+/**
+ * Open-model load: requests are scheduled at a fixed arrival rate regardless of how fast responses come back, and
+ * each response time is measured from the moment the request was due rather than when it was actually written.
+ * A stalled proxy therefore shows up as queueing delay in the percentiles instead of silently lowering the offered
+ * load (coordinated omission). Requests that would exceed {@code max-in-flight} are counted as dropped.
+ */
+final class OpenLoadGenerator {
+
+    private static final long TICK_MS = 1;
+    private static final long DRAIN_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private static final String ERROR_MEMBER = "\"error\"";
+
+    private final LoadTestOptions options;
+    private final Context context;
+    private final HttpClient client;
+    private final RequestOptions requestOptions;
+    private final List<String> methods;
+    private long sequence;
+
+    OpenLoadGenerator(Vertx vertx, LoadTestOptions options, URI target) {
+        this.options = options;
+        this.context = vertx.getOrCreateContext();
+        this.client = vertx.createHttpClient(
+                new HttpClientOptions().setKeepAlive(true).setTcpNoDelay(true),
+                new PoolOptions().setHttp1MaxSize(options.connections()).setMaxWaitQueueSize(-1));
+        this.requestOptions = new RequestOptions()
+                .setMethod(HttpMethod.POST)
+                .setHost(target.getHost())
+                .setPort(target.getPort())
+                .setURI(target.getRawPath())
+                .putHeader(CONTENT_TYPE, APPLICATION_JSON);
+        this.methods = options.methods();
+    }
+
+    /** Offers load for the given number of seconds, then waits for outstanding responses. */
+    Future<PhaseResult> run(int seconds) {
+        Promise<PhaseResult> promise = Promise.promise();
+        context.runOnContext(v -> new Phase(seconds, promise).start());
+        return promise.future();
+    }
+
+    Future<Void> close() {
+        return client.close();
+    }
+
+    private Buffer body(boolean batch) {
+        if (!batch) {
+            return Buffer.buffer(call(new StringBuilder(128)).toString());
+        }
+        StringBuilder json = new StringBuilder(128 * options.batchSize()).append('[');
+        for (int i = 0; i < options.batchSize(); i++) {
+            if (i > 0) json.append(',');
+            call(json);
+        }
+        return Buffer.buffer(json.append(']').toString());
+    }
+
+    /** Every call carries a unique parameter so that the proxy's cache and coalescing do not absorb the load. */
+    private StringBuilder call(StringBuilder json) {
+        long id = ++sequence;
+        String method = methods.get(ThreadLocalRandom.current().nextInt(methods.size()));
+        return json.append("{\"jsonrpc\":\"2.0\",\"id\":").append(id)
+                .append(",\"method\":\"").append(method)
+                .append("\",\"params\":[\"0x").append(Long.toHexString(id)).append("\",\"latest\"]}");
+    }
+
+    private static int countErrors(Buffer body) {
+        String text = body.toString();
+        int count = 0;
+        for (int at = text.indexOf(ERROR_MEMBER); at >= 0; at = text.indexOf(ERROR_MEMBER, at + 1)) {
+            count++;
+        }
+        return count;
+    }
+
+    private final class Phase {
+        private final long total;
+        private final long intervalNanos;
+        private final Promise<PhaseResult> promise;
+        private final PhaseResult result;
+        private long startedAt;
+        private long issued;
+        private long inFlight;
+        private long timerId;
+
+        private Phase(int seconds, Promise<PhaseResult> promise) {
+            this.total = (long) options.rate() * seconds;
+            this.intervalNanos = TimeUnit.SECONDS.toNanos(1) / options.rate();
+            this.promise = promise;
+            this.result = new PhaseResult();
+        }
+
+        void start() {
+            startedAt = System.nanoTime();
+            timerId = context.owner().setPeriodic(TICK_MS, id -> tick());
+        }
+
+        private void tick() {
+            long now = System.nanoTime();
+            long due = Math.min(total, (now - startedAt) / intervalNanos + 1);
+            while (issued < due) {
+                long intendedAt = startedAt + issued * intervalNanos;
+                issued++;
+                if (inFlight >= options.maxInFlight()) {
+                    result.dropped++;
+                    continue;
+                }
+                send(intendedAt);
+            }
+            if (issued == total && (inFlight == 0 || now - startedAt - total * intervalNanos > DRAIN_TIMEOUT_NANOS)) {
+                context.owner().cancelTimer(timerId);
+                result.elapsedNanos = System.nanoTime() - startedAt;
+                result.outstanding = inFlight;
+                promise.complete(result);
+            }
+        }
+
+        private void send(long intendedAt) {
+            boolean batch = options.batchRatio() > 0 && ThreadLocalRandom.current().nextDouble() < options.batchRatio();
+            Buffer body = body(batch);
+            int calls = batch ? options.batchSize() : 1;
+            inFlight++;
+            long sentAt = System.nanoTime();
+            client.request(requestOptions)
+                    .compose(request -> request.send(body))
+                    .compose(response -> response.body().map(payload -> check(response, payload)))
+                    .onComplete(ar -> {
+                        long now = System.nanoTime();
+                        inFlight--;
+                        if (promise.future().isComplete()) return;
+                        if (ar.failed()) {
+                            result.failed++;
+                            return;
+                        }
+                        result.record(batch, calls, now - intendedAt, now - sentAt, ar.result());
+                    });
+        }
+
+        private int check(HttpClientResponse response, Buffer payload) {
+            return response.statusCode() == OK.code() ? countErrors(payload) : PhaseResult.HTTP_ERROR;
+        }
+    }
+}
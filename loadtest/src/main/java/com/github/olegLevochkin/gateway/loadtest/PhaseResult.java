@@ -0,0 +1,53 @@
+package com.github.olegLevochkin.gateway.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.TimeUnit;
+
+/** Counters and latency histograms (microseconds) of one load phase; only touched from the generator's context. */
+final class PhaseResult {
+
+    static final int HTTP_ERROR = -1;
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(5);
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    final Histogram single = newHistogram();
+    final Histogram batch = newHistogram();
+    final Histogram all = newHistogram();
+    final Histogram service = newHistogram();
+    long ok;
+    long httpErrors;
+    long failed;
+    long dropped;
+    long calls;
+    long rpcErrors;
+    long outstanding;
+    long elapsedNanos;
+
+    void record(boolean isBatch, int callCount, long responseNanos, long serviceNanos, int errors) {
+        if (errors == HTTP_ERROR) {
+            httpErrors++;
+            return;
+        }
+        ok++;
+        calls += callCount;
+        rpcErrors += errors;
+        long responseMicros = TimeUnit.NANOSECONDS.toMicros(responseNanos);
+        (isBatch ? batch : single).recordValue(Math.min(responseMicros, HIGHEST_TRACKABLE_MICROS));
+        all.recordValue(Math.min(responseMicros, HIGHEST_TRACKABLE_MICROS));
+        service.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(serviceNanos), HIGHEST_TRACKABLE_MICROS));
+    }
+
+    long requests() {
+        return ok + httpErrors + failed + dropped + outstanding;
+    }
+
+    double throughput() {
+        return ok / (elapsedNanos / 1e9);
+    }
+
+    private static Histogram newHistogram() {
+        return new Histogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+    }
+}
@@ -0,0 +1,66 @@
+package com.github.olegLevochkin.gateway.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.util.Locale;
+
+/** Plain-text summary of a measured phase. */
+final class Report {
+
+    private static final double MICROS_PER_MILLI = 1000.0;
+    private static final double BYTES_PER_MIB = 1024.0 * 1024.0;
+
+    private Report() {
+    }
+
+    static void print(PrintStream out, LoadTestOptions options, PhaseResult result, ResourceSampler.Usage usage,
+                      MockEthNode mock) {
+        double seconds = result.elapsedNanos / 1e9;
+        out.println();
+        out.printf(Locale.ROOT, "offered   %d req/s for %ds, %.0f%% batches of %d, %d connections%n",
+                options.rate(), options.durationSeconds(), options.batchRatio() * 100, options.batchSize(),
+                options.connections());
+        out.printf(Locale.ROOT, "mock      %s, error rate %.2f%%, %d-byte results%n",
+                options.mockLatency(), options.mockErrorRate() * 100, options.mockResultBytes());
+        out.printf(Locale.ROOT, "requests  %d total, %d ok, %d http errors, %d failed, %d dropped, %d outstanding%n",
+                result.requests(), result.ok, result.httpErrors, result.failed, result.dropped, result.outstanding);
+        out.printf(Locale.ROOT, "calls     %d (%.0f calls/s), %d json-rpc errors%n",
+                result.calls, result.calls / seconds, result.rpcErrors);
+        out.printf(Locale.ROOT, "achieved  %.1f req/s over %.1fs%n", result.throughput(), seconds);
+        out.println();
+        out.printf(Locale.ROOT, "%-22s %9s %9s %9s %9s %9s %9s%n", "latency (ms)", "count", "p50", "p90", "p99", "p99.9", "max");
+        row(out, "response, all", result.all);
+        row(out, "response, single", result.single);
+        row(out, "response, batch", result.batch);
+        row(out, "service, all", result.service);
+        if (usage != null) {
+            out.println();
+            out.printf(Locale.ROOT, "proxy     cpu %s, peak heap %s, peak rss %s%n",
+                    usage.cpuCores() < 0 ? "n/a" : String.format(Locale.ROOT, "%.2f cores", usage.cpuCores()),
+                    mebibytes(usage.peakHeapBytes()), mebibytes(usage.peakRssBytes()));
+        }
+        if (mock != null) {
+            out.printf(Locale.ROOT, "mock      %d requests, %d calls, %d injected errors (whole run)%n",
+                    mock.requests(), mock.calls(), mock.errors());
+        }
+    }
+
+    private static void row(PrintStream out, String label, Histogram histogram) {
+        if (histogram.getTotalCount() == 0) {
+            out.printf(Locale.ROOT, "%-22s %9d%n", label, 0);
+            return;
+        }
+        out.printf(Locale.ROOT, "%-22s %9d %9.2f %9.2f %9.2f %9.2f %9.2f%n", label, histogram.getTotalCount(),
+                millis(histogram, 50), millis(histogram, 90), millis(histogram, 99), millis(histogram, 99.9),
+                histogram.getMaxValue() / MICROS_PER_MILLI);
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / MICROS_PER_MILLI;
+    }
+
+    private static String mebibytes(long bytes) {
+        return bytes < 0 ? "n/a" : String.format(Locale.ROOT, "%.1f MiB", bytes / BYTES_PER_MIB);
+    }
+}
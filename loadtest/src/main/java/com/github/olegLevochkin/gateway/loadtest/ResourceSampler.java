@@ -0,0 +1,53 @@
+package com.github.olegLevochkin.gateway.loadtest;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/** Samples the forked proxy once a second while a phase runs and keeps the CPU delta and peak memory. */
+final class ResourceSampler implements AutoCloseable {
+
+    private static final long SAMPLE_INTERVAL_MS = 1000;
+
+    private final GatewayProcess gateway;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "resource-sampler");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final long cpuAtStart;
+    private final long startedAt = System.nanoTime();
+    private volatile long peakHeapBytes = -1;
+    private volatile long peakRssBytes = -1;
+
+    ResourceSampler(GatewayProcess gateway) {
+        this.gateway = gateway;
+        this.cpuAtStart = gateway.cpuNanos();
+        scheduler.scheduleAtFixedRate(this::sample, 0, SAMPLE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /** Stops sampling and returns the usage over the sampled window. */
+    Usage finish() throws InterruptedException {
+        scheduler.shutdown();
+        scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        sample();
+        long cpuNow = gateway.cpuNanos();
+        long wall = System.nanoTime() - startedAt;
+        double cpuCores = cpuAtStart < 0 || cpuNow < 0 ? -1 : (double) (cpuNow - cpuAtStart) / wall;
+        return new Usage(cpuCores, peakHeapBytes, peakRssBytes);
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private void sample() {
+        peakHeapBytes = Math.max(peakHeapBytes, gateway.heapUsedBytes());
+        peakRssBytes = Math.max(peakRssBytes, gateway.rssBytes());
+    }
+
+    /** CPU as average busy cores (1.0 = one core fully used); byte values are -1 when not measurable. */
+    record Usage(double cpuCores, long peakHeapBytes, long peakRssBytes) {
+    }
+}
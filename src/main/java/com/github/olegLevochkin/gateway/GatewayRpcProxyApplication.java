@@ -1,8 +1,10 @@
 package com.github.olegLevochkin.gateway;
 
+import com.github.olegLevochkin.gateway.cluster.ClusterPeers;
 import com.github.olegLevochkin.gateway.config.AppConfig;
 import com.github.olegLevochkin.gateway.config.ConfigLoader;
-import com.github.olegLevochkin.gateway.http.HttpServerFactory;
+import com.github.olegLevochkin.gateway.http.HttpServerVerticle;
+import io.vertx.core.DeploymentOptions;
 import io.vertx.core.Vertx;
 import io.vertx.core.VertxOptions;
 import io.vertx.micrometer.MicrometerMetricsOptions;
@@ -11,44 +13,76 @@ import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.concurrent.TimeUnit;
+
 @Slf4j
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public final class GatewayRpcProxyApplication {
 
+    private static final String SCHEME_HTTP = "http";
+    private static final String SCHEME_HTTPS = "https";
+
     public static void main(String[] args) {
         AppConfig config = ConfigLoader.load();
 
-        Vertx vertx = createVertxWithMetrics();
-        HttpServerFactory httpServerFactory = new HttpServerFactory(vertx, config);
+        Vertx vertx = createVertxWithMetrics(config);
+        SharedComponents shared = SharedComponents.create(vertx, config);
 
-        addShutdownHook(httpServerFactory, vertx);
+        addShutdownHook(shared, vertx);
 
-        httpServerFactory.start(config.httpPort());
-        log.info("Starting Gateway RPC Proxy on port {} -> {} (timeout={}ms, maxBody={})",
-                config.httpPort(), config.targetRpcUrl(), config.requestTimeoutMs(), config.maxBodyBytes());
+        log.info("Starting Gateway RPC Proxy on port {} -> {} (timeout={}ms, maxBody={}, instances={}, nativeTransport={})",
+                config.httpPort(), config.upstreams(), config.requestTimeoutMs(), config.maxBodyBytes(),
+                config.httpInstances(), vertx.isNativeTransportEnabled());
+
+        vertx.deployVerticle(() -> new HttpServerVerticle(config, shared),
+                        new DeploymentOptions().setInstances(config.httpInstances()))
+                .onSuccess(id -> log.info("HTTP server started on {}://localhost:{}",
+                        config.tlsEnabled() ? SCHEME_HTTPS : SCHEME_HTTP, config.httpPort()))
+                .onFailure(err -> log.error("Failed to start HTTP server on port {}", config.httpPort(), err));
     }
 
-    private static Vertx createVertxWithMetrics() {
+    private static Vertx createVertxWithMetrics(AppConfig config) {
         VertxOptions options = new VertxOptions()
+                .setPreferNativeTransport(config.nativeTransportEnabled())
+                .setMaxEventLoopExecuteTime(config.eventLoopBlockedThresholdMs())
+                .setMaxEventLoopExecuteTimeUnit(TimeUnit.MILLISECONDS)
+                .setBlockedThreadCheckInterval(config.eventLoopBlockedThresholdMs())
                 .setMetricsOptions(new MicrometerMetricsOptions()
                         .setEnabled(true)
+                        .setJvmMetricsEnabled(true)
                         .setPrometheusOptions(new VertxPrometheusOptions().setEnabled(true)));
-        return Vertx.vertx(options);
+        Vertx vertx;
+        if (config.clusterEnabled()) {
+            // the event bus listens on cluster.host:cluster.port, which is also this node's id among cluster.peers
+            options.getEventBusOptions().setHost(config.clusterHost()).setPort(config.clusterPort());
+            vertx = Vertx.builder()
+                    .with(options)
+                    .withClusterManager(ClusterPeers.clusterManager(config))
+                    .buildClustered()
+                    .toCompletionStage().toCompletableFuture().join();
+            log.info("Joined cluster as {}:{} with peers {}", config.clusterHost(), config.clusterPort(),
+                    config.clusterPeers());
+        } else {
+            vertx = Vertx.vertx(options);
+        }
+
+        if (config.nativeTransportEnabled() && !vertx.isNativeTransportEnabled()) {
+            log.warn("Native transport requested but unavailable, falling back to NIO: {}",
+                    String.valueOf(vertx.unavailableNativeTransportCause()));
+        }
+        return vertx;
     }
 
-    private static void addShutdownHook(HttpServerFactory httpServerFactory, Vertx vertx) {
+    private static void addShutdownHook(SharedComponents shared, Vertx vertx) {
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             log.info("Shutting down...");
             try {
-                httpServerFactory.stop();
-            } catch (Exception e) {
-                log.warn("HTTP server stop failed", e);
-            }
-            try {
-                vertx.close();
+                vertx.close().toCompletionStage().toCompletableFuture().join();
             } catch (Exception e) {
                 log.warn("Vert.x close failed", e);
             }
+            shared.close();
+            log.info("HTTP server stopped");
         }, "shutdown-hook"));
     }
 }
@@ -0,0 +1,105 @@
+package com.github.olegLevochkin.gateway;
+
+import com.github.olegLevochkin.gateway.accesslog.AccessLogWriter;
+import com.github.olegLevochkin.gateway.cluster.ClusterPeers;
+import com.github.olegLevochkin.gateway.config.AppConfig;
+import com.github.olegLevochkin.gateway.metrics.EventLoopMonitor;
+import com.github.olegLevochkin.gateway.metrics.RpcMetrics;
+import com.github.olegLevochkin.gateway.ratelimit.FairScheduler;
+import com.github.olegLevochkin.gateway.ratelimit.RateLimiter;
+import com.github.olegLevochkin.gateway.rpc.DiskCache;
+import com.github.olegLevochkin.gateway.rpc.HeadCache;
+import com.github.olegLevochkin.gateway.rpc.HedgePolicy;
+import com.github.olegLevochkin.gateway.rpc.InFlightCalls;
+import com.github.olegLevochkin.gateway.rpc.MethodRouter;
+import com.github.olegLevochkin.gateway.rpc.ResponseCache;
+import com.github.olegLevochkin.gateway.rpc.SubscriptionHub;
+import com.github.olegLevochkin.gateway.rpc.UpstreamNode;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.vertx.circuitbreaker.CircuitBreaker;
+import io.vertx.core.Vertx;
+import io.vertx.micrometer.backends.BackendRegistries;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+
+/**
+ * State shared by every deployed {@link com.github.olegLevochkin.gateway.http.HttpServerVerticle} instance.
+ * Meters live in the global Micrometer backend registry; everything else that must not be duplicated
+ * per event loop is created once here.
+ */
+@Slf4j
+public record SharedComponents(
+        List<UpstreamNode> upstreams,
+        MethodRouter methodRouter,
+        RpcMetrics rpcMetrics,
+        ResponseCache responseCache,
+        HeadCache headCache,
+        InFlightCalls inFlightCalls,
+        HedgePolicy hedgePolicy,
+        SubscriptionHub subscriptionHub,
+        RateLimiter rateLimiter,
+        FairScheduler fairScheduler,
+        ClusterPeers clusterPeers,
+        AccessLogWriter accessLogWriter,
+        EventLoopMonitor eventLoopMonitor
+) implements AutoCloseable {
+
+    public static SharedComponents create(Vertx vertx, AppConfig config) {
+        MeterRegistry meterRegistry = BackendRegistries.getDefaultNow();
+        List<UpstreamNode> upstreams = UpstreamNode.createAll(vertx, config, meterRegistry);
+        HeadCache headCache = config.headTrackingEnabled()
+                ? HeadCache.create(vertx, config, upstreams, meterRegistry)
+                : null;
+        DiskCache diskCache = config.diskCacheEnabled()
+                ? DiskCache.open(vertx, config, headCache.tracker(), meterRegistry)
+                : null;
+        RpcMetrics rpcMetrics = RpcMetrics.create(config, meterRegistry);
+        return new SharedComponents(
+                upstreams,
+                config.upstreamGroups().isEmpty() ? null : MethodRouter.create(vertx, config, meterRegistry),
+                rpcMetrics,
+                config.cacheEnabled() ? ResponseCache.create(config, diskCache, meterRegistry) : null,
+                headCache,
+                config.coalescingEnabled() ? InFlightCalls.create(config, meterRegistry) : null,
+                config.hedgingEnabled() ? HedgePolicy.create(config, meterRegistry) : null,
+                config.websocketEnabled() ? SubscriptionHub.create(vertx, config, meterRegistry) : null,
+                config.rateLimitEnabled() ? RateLimiter.create(config, meterRegistry) : null,
+                config.fairEnabled() ? FairScheduler.create(vertx, config, meterRegistry) : null,
+                config.clusterEnabled() ? ClusterPeers.create(vertx, config, rpcMetrics, meterRegistry) : null,
+                config.accessLogEnabled() ? AccessLogWriter.create(config, meterRegistry) : null,
+                EventLoopMonitor.start(vertx, config, meterRegistry));
+    }
+
+    @Override
+    public void close() {
+        eventLoopMonitor.close();
+        for (UpstreamNode upstream : upstreams) {
+            CircuitBreaker circuitBreaker = upstream.circuitBreaker();
+            if (circuitBreaker == null) continue;
+            try {
+                circuitBreaker.close();
+            } catch (Exception e) {
+                log.warn("Circuit breaker close failed", e);
+            }
+        }
+        if (methodRouter != null) {
+            methodRouter.close();
+        }
+        if (clusterPeers != null) {
+            clusterPeers.close();
+        }
+        if (headCache != null) {
+            headCache.close();
+        }
+        if (responseCache != null) {
+            responseCache.close();
+        }
+        if (subscriptionHub != null) {
+            subscriptionHub.close();
+        }
+        if (accessLogWriter != null) {
+            accessLogWriter.close();
+        }
+    }
+}
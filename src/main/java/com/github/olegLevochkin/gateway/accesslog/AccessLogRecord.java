@@ -0,0 +1,26 @@
+package com.github.olegLevochkin.gateway.accesslog;
+
+import java.util.List;
+
+/**
+ * One finished HTTP exchange. Built on the event loop from values that are already at hand; all formatting
+ * happens on the writer thread.
+ *
+ * @param rpcMethods     JSON-RPC methods of the request in order, empty for non-RPC requests
+ * @param upstreamMicros time spent waiting for the upstream (or the dispatcher chain), {@link #NONE} if not applicable
+ */
+public record AccessLogRecord(
+        long timestampMillis,
+        String requestId,
+        String httpMethod,
+        String path,
+        int status,
+        long durationMicros,
+        long bytes,
+        String userAgent,
+        String clientIp,
+        List<String> rpcMethods,
+        long upstreamMicros
+) {
+    public static final long NONE = -1;
+}
@@ -0,0 +1,218 @@
+package com.github.olegLevochkin.gateway.accesslog;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.github.olegLevochkin.gateway.config.AppConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static com.github.olegLevochkin.gateway.metrics.MetricsNames.JSONRPC_ACCESS_LOG_DROPPED_TOTAL;
+
+/**
+ * Writes {@link AccessLogRecord}s as JSON lines from a dedicated thread. Event loops only append to a bounded
+ * {@link MpscRingBuffer}; when it is full the record is dropped and counted rather than slowing the request down.
+ * The writer drains up to {@value #MAX_BATCH} records, encodes them into one buffer and writes it with a single
+ * call, rotating the file ({@code access.log.1} ... {@code access.log.N}) when it exceeds the configured size.
+ */
+@Slf4j
+public final class AccessLogWriter implements AutoCloseable {
+
+    private static final int MAX_BATCH = 1_024;
+    private static final int MAX_LOGGED_METHODS = 20;
+    private static final int INITIAL_BATCH_BYTES = 64 * 1024;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long CLOSE_TIMEOUT_MILLIS = 5_000;
+    private static final String THREAD_NAME = "access-log-writer";
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final String FIELD_TIME = "time";
+    private static final String FIELD_REQUEST_ID = "rid";
+    private static final String FIELD_HTTP_METHOD = "httpMethod";
+    private static final String FIELD_PATH = "path";
+    private static final String FIELD_STATUS = "status";
+    private static final String FIELD_DURATION_US = "durationUs";
+    private static final String FIELD_BYTES = "bytes";
+    private static final String FIELD_USER_AGENT = "ua";
+    private static final String FIELD_CLIENT_IP = "ip";
+    private static final String FIELD_CALLS = "calls";
+    private static final String FIELD_METHODS = "methods";
+    private static final String FIELD_UPSTREAM_US = "upstreamUs";
+    private static final char NEWLINE = '\n';
+
+    private final MpscRingBuffer<AccessLogRecord> buffer;
+    private final Path file;
+    private final long maxFileBytes;
+    private final int maxFiles;
+    private final Counter dropped;
+    private final ByteArrayOutputStream batch = new ByteArrayOutputStream(INITIAL_BATCH_BYTES);
+    private final Thread thread;
+
+    private OutputStream out;
+    private long fileBytes;
+    private volatile boolean running = true;
+
+    private AccessLogWriter(AppConfig config, MeterRegistry meterRegistry) {
+        this.buffer = new MpscRingBuffer<>(config.accessLogBufferSize());
+        this.file = Paths.get(config.accessLogFile());
+        this.maxFileBytes = config.accessLogMaxFileBytes();
+        this.maxFiles = config.accessLogMaxFiles();
+        this.dropped = meterRegistry.counter(JSONRPC_ACCESS_LOG_DROPPED_TOTAL);
+        try {
+            openFile();
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to open access log " + file, e);
+        }
+        this.thread = new Thread(this::run, THREAD_NAME);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    public static AccessLogWriter create(AppConfig config, MeterRegistry meterRegistry) {
+        return new AccessLogWriter(config, meterRegistry);
+    }
+
+    /** Never blocks; drops the record if the writer has fallen {@code access.log.buffer.size} records behind. */
+    public void append(AccessLogRecord record) {
+        if (!buffer.offer(record)) {
+            dropped.increment();
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                if (drainBatch() == 0) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+            }
+            while (drainBatch() > 0) {
+                // flush what was queued before close
+            }
+        } finally {
+            closeFile();
+        }
+    }
+
+    private int drainBatch() {
+        int count = 0;
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(batch)) {
+            generator.setRootValueSeparator(null);
+            AccessLogRecord record;
+            while (count < MAX_BATCH && (record = buffer.poll()) != null) {
+                writeRecord(generator, record);
+                generator.writeRaw(NEWLINE);
+                count++;
+            }
+        } catch (IOException e) {
+            log.warn("Access log encoding failed: {}", e.toString());
+        }
+        if (batch.size() > 0) {
+            writeBatch();
+        }
+        return count;
+    }
+
+    private void writeBatch() {
+        try {
+            if (out == null) {
+                openFile();
+            }
+            if (fileBytes > 0 && fileBytes + batch.size() > maxFileBytes) {
+                rotate();
+            }
+            batch.writeTo(out);
+            out.flush();
+            fileBytes += batch.size();
+        } catch (IOException e) {
+            log.warn("Access log write to {} failed: {}", file, e.toString());
+        } finally {
+            batch.reset();
+        }
+    }
+
+    private static void writeRecord(JsonGenerator generator, AccessLogRecord record) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField(FIELD_TIME, Instant.ofEpochMilli(record.timestampMillis()).toString());
+        generator.writeStringField(FIELD_REQUEST_ID, record.requestId());
+        generator.writeStringField(FIELD_HTTP_METHOD, record.httpMethod());
+        generator.writeStringField(FIELD_PATH, record.path());
+        generator.writeNumberField(FIELD_STATUS, record.status());
+        generator.writeNumberField(FIELD_DURATION_US, record.durationMicros());
+        generator.writeNumberField(FIELD_BYTES, record.bytes());
+        generator.writeStringField(FIELD_USER_AGENT, record.userAgent());
+        generator.writeStringField(FIELD_CLIENT_IP, record.clientIp());
+        List<String> methods = record.rpcMethods();
+        if (!methods.isEmpty()) {
+            generator.writeNumberField(FIELD_CALLS, methods.size());
+            generator.writeArrayFieldStart(FIELD_METHODS);
+            for (int i = 0; i < Math.min(methods.size(), MAX_LOGGED_METHODS); i++) {
+                generator.writeString(methods.get(i));
+            }
+            generator.writeEndArray();
+        }
+        if (record.upstreamMicros() != AccessLogRecord.NONE) {
+            generator.writeNumberField(FIELD_UPSTREAM_US, record.upstreamMicros());
+        }
+        generator.writeEndObject();
+    }
+
+    private void rotate() throws IOException {
+        closeFile();
+        for (int i = maxFiles - 1; i >= 1; i--) {
+            Path source = rotated(i);
+            if (Files.exists(source)) {
+                Files.move(source, rotated(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.move(file, rotated(1), StandardCopyOption.REPLACE_EXISTING);
+        openFile();
+    }
+
+    private Path rotated(int index) {
+        return file.resolveSibling(file.getFileName() + "." + index);
+    }
+
+    private void openFile() throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        out = new FileOutputStream(file.toFile(), true);
+        fileBytes = Files.size(file);
+    }
+
+    private void closeFile() {
+        if (out == null) return;
+        try {
+            out.close();
+        } catch (IOException e) {
+            log.warn("Access log close failed: {}", e.toString());
+        }
+        out = null;
+    }
+}
@@ -0,0 +1,45 @@
+package com.github.olegLevochkin.gateway.accesslog;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded multi-producer, single-consumer queue over a power-of-two array. Producers claim a slot with one CAS on
+ * the tail and publish the element with an ordered store; the single consumer frees slots the same way. A full
+ * buffer rejects instead of blocking, so producers (event loops) never wait for the consumer.
+ */
+final class MpscRingBuffer<E> {
+
+    private final AtomicReferenceArray<E> slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    MpscRingBuffer(int requestedCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(2, requestedCapacity - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    /** Returns {@code false} if the buffer is full. */
+    boolean offer(E element) {
+        long claimed;
+        do {
+            claimed = tail.get();
+            if (claimed - head.get() > mask) return false;
+        } while (!tail.compareAndSet(claimed, claimed + 1));
+        slots.lazySet((int) claimed & mask, element);
+        return true;
+    }
+
+    /** Consumer only. Returns {@code null} when empty or when the next slot is claimed but not yet published. */
+    E poll() {
+        long current = head.get();
+        int index = (int) current & mask;
+        E element = slots.get(index);
+        if (element == null) return null;
+        slots.lazySet(index, null);
+        head.lazySet(current + 1);
+        return element;
+    }
+}
@@ -0,0 +1,186 @@
+package com.github.olegLevochkin.gateway.cluster;
+
+import com.github.olegLevochkin.gateway.config.AppConfig;
+import com.github.olegLevochkin.gateway.metrics.RpcMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.eventbus.MessageConsumer;
+import io.vertx.core.eventbus.ReplyException;
+import io.vertx.core.eventbus.ReplyFailure;
+import io.vertx.core.json.JsonObject;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.github.olegLevochkin.gateway.metrics.MetricsNames.JSONRPC_CLUSTER_NODES_UP;
+import static com.github.olegLevochkin.gateway.metrics.MetricsNames.JSONRPC_CLUSTER_REQUESTS_TOTAL;
+import static com.github.olegLevochkin.gateway.metrics.MetricsNames.TAG_RESULT;
+
+/**
+ * This replica's view of the cluster, shared by all verticle instances: which node owns a key on the
+ * {@link HashRing}, and request/reply with other nodes over the clustered event bus. Every other node is pinged
+ * each {@code cluster.ping.interval.ms}; one that has not answered its last ping, or that failed a request since, is
+ * skipped, so its keys move to the next node on the ring until it answers again. The event bus does not fail a
+ * request when it cannot connect, so without the pings every call for a stopped node would wait out its timeout.
+ */
+@Slf4j
+public final class ClusterPeers implements AutoCloseable {
+
+    /** Address kind of the calls a node answers as their owner. */
+    public static final String CALLS = "gateway.cluster.calls";
+    /** Header carrying the requester's timeout, so the owner does not give up earlier or later. */
+    public static final String HEADER_TIMEOUT_MS = "timeoutMs";
+
+    private static final String PING = "gateway.cluster.ping";
+    private static final String COUNTS = "gateway.cluster.counts";
+    private static final String RESULT_OK = "ok";
+    private static final String RESULT_FAILED = "failed";
+
+    private final Vertx vertx;
+    private final String self;
+    private final List<String> nodes;
+    private final HashRing ring;
+    private final long pingIntervalMillis;
+    private final Set<String> up = ConcurrentHashMap.newKeySet();
+    private final Counter requestsOk;
+    private final Counter requestsFailed;
+    private long pingTimerId = -1;
+
+    private ClusterPeers(Vertx vertx, AppConfig config, MeterRegistry meterRegistry) {
+        this.vertx = vertx;
+        this.self = selfOf(config);
+        this.nodes = nodesOf(config);
+        this.ring = new HashRing(nodes, config.clusterVirtualNodes());
+        this.pingIntervalMillis = config.clusterPingIntervalMs();
+        this.requestsOk = meterRegistry.counter(JSONRPC_CLUSTER_REQUESTS_TOTAL, TAG_RESULT, RESULT_OK);
+        this.requestsFailed = meterRegistry.counter(JSONRPC_CLUSTER_REQUESTS_TOTAL, TAG_RESULT, RESULT_FAILED);
+        Gauge.builder(JSONRPC_CLUSTER_NODES_UP, this,
+                        peers -> peers.nodes.stream().filter(peers::isUp).count())
+                .register(meterRegistry);
+    }
+
+    /** Starts answering other nodes' pings and requests for this node's call counts, and pinging them. */
+    public static ClusterPeers create(Vertx vertx, AppConfig config, RpcMetrics rpcMetrics, MeterRegistry meterRegistry) {
+        ClusterPeers peers = new ClusterPeers(vertx, config, meterRegistry);
+        peers.consumer(PING, message -> message.reply(null));
+        peers.consumer(COUNTS, message -> message.reply(new JsonObject(new LinkedHashMap<>(rpcMetrics.callCounts()))));
+        peers.pingTimerId = vertx.setPeriodic(0, peers.pingIntervalMillis, id -> peers.pingAll());
+        return peers;
+    }
+
+    /** The cluster manager for the nodes of {@code cluster.peers}; this node is added when missing. */
+    public static StaticClusterManager clusterManager(AppConfig config) {
+        return new StaticClusterManager(selfOf(config), nodesOf(config));
+    }
+
+    private static String selfOf(AppConfig config) {
+        return StaticClusterManager.nodeIdOf(config.clusterHost(), config.clusterPort());
+    }
+
+    private static List<String> nodesOf(AppConfig config) {
+        List<String> nodes = new ArrayList<>(config.clusterPeers());
+        String self = selfOf(config);
+        if (!nodes.contains(self)) {
+            nodes.add(self);
+        }
+        return List.copyOf(nodes);
+    }
+
+    /** The node that answers calls with this key: this node itself when every other owner is down. */
+    public String ownerOf(String key) {
+        String owner = ring.owner(key, this::isUp);
+        return owner != null ? owner : self;
+    }
+
+    public boolean isSelf(String node) {
+        return self.equals(node);
+    }
+
+    /** Registers {@code handler} for messages of {@code kind} sent to this node. */
+    public <T> MessageConsumer<T> consumer(String kind, Handler<Message<T>> handler) {
+        return vertx.eventBus().consumer(StaticClusterManager.addressOf(kind, self), handler);
+    }
+
+    /**
+     * Sends {@code body} to the {@code kind} consumer of {@code node}. A node that has no consumer or does not answer
+     * in time is skipped until it answers a ping again.
+     */
+    public Future<Buffer> request(String kind, String node, Buffer body, int timeoutMillis) {
+        DeliveryOptions options = new DeliveryOptions()
+                .setSendTimeout(timeoutMillis)
+                .addHeader(HEADER_TIMEOUT_MS, Integer.toString(timeoutMillis));
+        return vertx.eventBus().<Buffer>request(StaticClusterManager.addressOf(kind, node), body, options)
+                .map(Message::body)
+                .onSuccess(reply -> requestsOk.increment())
+                .onFailure(err -> {
+                    requestsFailed.increment();
+                    if (!isRecipientFailure(err)) {
+                        markDown(node, err.toString());
+                    }
+                });
+    }
+
+    /** The call counts of every node that answered in time, summed per method, with this node's own counts. */
+    public Future<Map<String, Long>> callCounts(Map<String, Long> own) {
+        Map<String, Long> total = new LinkedHashMap<>(own);
+        List<Future<?>> pending = new ArrayList<>();
+        for (String node : nodes) {
+            if (isSelf(node) || !isUp(node)) continue;
+            pending.add(vertx.eventBus().<JsonObject>request(StaticClusterManager.addressOf(COUNTS, node), null,
+                            new DeliveryOptions().setSendTimeout(pingIntervalMillis))
+                    .onSuccess(reply -> reply.body().forEach(entry ->
+                            total.merge(entry.getKey(), ((Number) entry.getValue()).longValue(), Long::sum)))
+                    .otherwiseEmpty());
+        }
+        return Future.all(pending).map(all -> total);
+    }
+
+    /** Whether {@code error} says the request timed out, so the call's time is used up. */
+    public static boolean isTimeout(Throwable error) {
+        return error instanceof ReplyException reply && reply.failureType() == ReplyFailure.TIMEOUT;
+    }
+
+    private static boolean isRecipientFailure(Throwable error) {
+        return error instanceof ReplyException reply && reply.failureType() == ReplyFailure.RECIPIENT_FAILURE;
+    }
+
+    @Override
+    public void close() {
+        vertx.cancelTimer(pingTimerId);
+    }
+
+    private void pingAll() {
+        for (String node : nodes) {
+            if (isSelf(node)) continue;
+            vertx.eventBus().request(StaticClusterManager.addressOf(PING, node), null,
+                            new DeliveryOptions().setSendTimeout(pingIntervalMillis))
+                    .onSuccess(reply -> {
+                        if (up.add(node)) log.info("Cluster node {} is up", node);
+                    })
+                    .onFailure(err -> markDown(node, "no reply to ping"));
+        }
+    }
+
+    /** Nodes count as down until they answer a ping, so that keys stay local while peers are still starting. */
+    private boolean isUp(String node) {
+        return isSelf(node) || up.contains(node);
+    }
+
+    private void markDown(String node, String reason) {
+        if (up.remove(node)) {
+            log.warn("Cluster node {} is down, serving its keys elsewhere: {}", node, reason);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.github.olegLevochkin.gateway.cluster;
+
+import com.github.olegLevochkin.gateway.rpc.KeyHash;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Consistent hashing over the cluster nodes: each node is placed on a 64-bit ring at {@code virtualNodes} points,
+ * and a key belongs to the first node at or after its own hash. When a node is unavailable its keys move on to the
+ * next node clockwise, so every other key keeps its owner.
+ */
+final class HashRing {
+
+    private static final char VIRTUAL_NODE_SEPARATOR = '#';
+
+    private final long[] points;
+    private final String[] owners;
+
+    HashRing(List<String> nodes, int virtualNodes) {
+        int size = nodes.size() * virtualNodes;
+        long[][] entries = new long[size][];
+        int next = 0;
+        for (int n = 0; n < nodes.size(); n++) {
+            for (int v = 0; v < virtualNodes; v++) {
+                entries[next++] = new long[]{KeyHash.of(nodes.get(n) + VIRTUAL_NODE_SEPARATOR + v), n};
+            }
+        }
+        Arrays.sort(entries, Comparator.comparingLong(entry -> entry[0]));
+        this.points = new long[size];
+        this.owners = new String[size];
+        for (int i = 0; i < size; i++) {
+            points[i] = entries[i][0];
+            owners[i] = nodes.get((int) entries[i][1]);
+        }
+    }
+
+    /** The first node clockwise from {@code key} that is {@code available}, or {@code null} if none is. */
+    String owner(String key, Predicate<String> available) {
+        int index = Arrays.binarySearch(points, KeyHash.of(key));
+        if (index < 0) index = -index - 1;
+        for (int step = 0; step < points.length; step++) {
+            String owner = owners[(index + step) % points.length];
+            if (available.test(owner)) {
+                return owner;
+            }
+        }
+        return null;
+    }
+}
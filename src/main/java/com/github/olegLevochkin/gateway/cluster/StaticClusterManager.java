@@ -0,0 +1,158 @@
+package com.github.olegLevochkin.gateway.cluster;
+
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.shareddata.AsyncMap;
+import io.vertx.core.shareddata.Counter;
+import io.vertx.core.shareddata.Lock;
+import io.vertx.core.spi.cluster.ClusterManager;
+import io.vertx.core.spi.cluster.NodeInfo;
+import io.vertx.core.spi.cluster.NodeListener;
+import io.vertx.core.spi.cluster.NodeSelector;
+import io.vertx.core.spi.cluster.RegistrationInfo;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A {@link ClusterManager} for a fixed list of gateway replicas, so that the event bus can be clustered without an
+ * external membership service. A node is identified by the {@code host:port} of its event bus. Only point-to-point
+ * addresses ending in a node id ({@link #addressOf(String, String)}) reach other nodes; every other address stays
+ * local. Shared data (maps, locks, counters) is not supported.
+ */
+public final class StaticClusterManager implements ClusterManager {
+
+    private static final char HOST_PORT_SEPARATOR = ':';
+    private static final char ADDRESS_SEPARATOR = '@';
+
+    private final String nodeId;
+    private final List<String> nodes;
+    private final Map<String, List<RegistrationInfo>> localRegistrations = new ConcurrentHashMap<>();
+    private final Map<String, Map<?, ?>> syncMaps = new ConcurrentHashMap<>();
+
+    private NodeInfo nodeInfo;
+    private volatile boolean active;
+
+    /** {@code nodes} must contain {@code nodeId}. */
+    public StaticClusterManager(String nodeId, List<String> nodes) {
+        this.nodeId = nodeId;
+        this.nodes = List.copyOf(nodes);
+    }
+
+    public static String nodeIdOf(String host, int port) {
+        return host + HOST_PORT_SEPARATOR + port;
+    }
+
+    /** The address of {@code node} for messages of {@code kind}. */
+    public static String addressOf(String kind, String node) {
+        return kind + ADDRESS_SEPARATOR + node;
+    }
+
+    @Override
+    public void init(Vertx vertx, NodeSelector nodeSelector) {
+    }
+
+    @Override
+    public <K, V> void getAsyncMap(String name, Promise<AsyncMap<K, V>> promise) {
+        promise.fail(new UnsupportedOperationException("Cluster-wide maps are not supported"));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <K, V> Map<K, V> getSyncMap(String name) {
+        return (Map<K, V>) syncMaps.computeIfAbsent(name, key -> new ConcurrentHashMap<>());
+    }
+
+    @Override
+    public void getLockWithTimeout(String name, long timeout, Promise<Lock> promise) {
+        promise.fail(new UnsupportedOperationException("Cluster-wide locks are not supported"));
+    }
+
+    @Override
+    public void getCounter(String name, Promise<Counter> promise) {
+        promise.fail(new UnsupportedOperationException("Cluster-wide counters are not supported"));
+    }
+
+    @Override
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public List<String> getNodes() {
+        return nodes;
+    }
+
+    @Override
+    public void nodeListener(NodeListener listener) {
+        // membership is fixed
+    }
+
+    @Override
+    public void setNodeInfo(NodeInfo nodeInfo, Promise<Void> promise) {
+        this.nodeInfo = nodeInfo;
+        promise.complete();
+    }
+
+    @Override
+    public NodeInfo getNodeInfo() {
+        return nodeInfo;
+    }
+
+    @Override
+    public void getNodeInfo(String node, Promise<NodeInfo> promise) {
+        int separator = node.lastIndexOf(HOST_PORT_SEPARATOR);
+        if (separator < 0 || !nodes.contains(node)) {
+            promise.fail("Unknown node " + node);
+            return;
+        }
+        promise.complete(new NodeInfo(node.substring(0, separator),
+                Integer.parseInt(node.substring(separator + 1)), null));
+    }
+
+    @Override
+    public void join(Promise<Void> promise) {
+        active = true;
+        promise.complete();
+    }
+
+    @Override
+    public void leave(Promise<Void> promise) {
+        active = false;
+        promise.complete();
+    }
+
+    @Override
+    public boolean isActive() {
+        return active;
+    }
+
+    @Override
+    public void addRegistration(String address, RegistrationInfo registrationInfo, Promise<Void> promise) {
+        localRegistrations.computeIfAbsent(address, key -> new CopyOnWriteArrayList<>()).add(registrationInfo);
+        promise.complete();
+    }
+
+    @Override
+    public void removeRegistration(String address, RegistrationInfo registrationInfo, Promise<Void> promise) {
+        List<RegistrationInfo> registrations = localRegistrations.get(address);
+        if (registrations != null) {
+            registrations.remove(registrationInfo);
+        }
+        promise.complete();
+    }
+
+    /** A node address is assumed to have a consumer on its node; any other address only has the local ones. */
+    @Override
+    public void getRegistrations(String address, Promise<List<RegistrationInfo>> promise) {
+        int separator = address.lastIndexOf(ADDRESS_SEPARATOR);
+        String node = separator >= 0 ? address.substring(separator + 1) : null;
+        if (node != null && !node.equals(nodeId) && nodes.contains(node)) {
+            promise.complete(List.of(new RegistrationInfo(node, 0, false)));
+            return;
+        }
+        promise.complete(List.copyOf(localRegistrations.getOrDefault(address, List.of())));
+    }
+}
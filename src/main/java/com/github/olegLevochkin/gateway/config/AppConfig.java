@@ -1,6 +1,9 @@
 package com.github.olegLevochkin.gateway.config;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
 public record AppConfig(
         int httpPort,
@@ -8,20 +11,110 @@ public record AppConfig(
         String pkcs12Path,
         String pkcs12Password,
         String targetRpcUrl,
+        List<UpstreamTarget> upstreams,
         int requestTimeoutMs,
         int maxBodyBytes,
         boolean circuitBreakerEnabled,
         int circuitBreakerFailuresThreshold,
-        int circuitBreakerResetTimeoutMs
+        int circuitBreakerResetTimeoutMs,
+        int httpInstances,
+        boolean nativeTransportEnabled,
+        boolean tcpReusePort,
+        boolean tcpFastOpen,
+        boolean tcpNoDelay,
+        boolean http2Enabled,
+        boolean upstreamHttp2Enabled,
+        int upstreamHttp2MaxStreams,
+        int upstreamHttp2MaxConnections,
+        boolean streamingValidatorEnabled,
+        boolean cacheEnabled,
+        int cacheMaxBytes,
+        Set<String> cacheMethods,
+        boolean coalescingEnabled,
+        Set<String> coalescingMethods,
+        boolean batchSplitEnabled,
+        int batchChunkSize,
+        int batchMaxConcurrency,
+        boolean microBatchEnabled,
+        int microBatchWindowMs,
+        int microBatchMaxSize,
+        boolean hedgingEnabled,
+        Set<String> hedgingMethods,
+        int hedgingPercentile,
+        int hedgingMinDelayMs,
+        int hedgingBudgetPercent,
+        boolean websocketEnabled,
+        String websocketUpstreamUrl,
+        int websocketMaxQueueBytes,
+        int websocketMaxPendingRequests,
+        boolean streamingEnabled,
+        boolean rateLimitEnabled,
+        RateLimitKey rateLimitKey,
+        String rateLimitApiKeyHeader,
+        int rateLimitRequestsPerSecond,
+        int rateLimitBurst,
+        Map<String, Integer> rateLimitMethodWeights,
+        int rateLimitMaxKeys,
+        int metricsMaxMethods,
+        boolean accessLogEnabled,
+        String accessLogFile,
+        int accessLogBufferSize,
+        int accessLogMaxFileBytes,
+        int accessLogMaxFiles,
+        boolean compressionEnabled,
+        int compressionLevel,
+        int compressionMinBytes,
+        boolean upstreamLimitEnabled,
+        int upstreamLimitInitial,
+        int upstreamLimitMin,
+        int upstreamLimitMax,
+        int upstreamLimitQueueSize,
+        int upstreamLimitQueueTimeoutMs,
+        boolean headTrackingEnabled,
+        int headPollIntervalMs,
+        int headCacheMaxBytes,
+        Set<String> headCacheMethods,
+        boolean diskCacheEnabled,
+        String diskCacheDir,
+        int diskCacheSegmentBytes,
+        int diskCacheMaxSegments,
+        int diskCacheFinalityBlocks,
+        boolean offloadEnabled,
+        int offloadMinBytes,
+        int eventLoopLagIntervalMs,
+        int eventLoopBlockedThresholdMs,
+        boolean logsSplitEnabled,
+        int logsSplitWindowBlocks,
+        int logsSplitMaxConcurrency,
+        int logsSplitMaxWindows,
+        int logsSplitMaxBytes,
+        List<UpstreamGroup> upstreamGroups,
+        boolean fairEnabled,
+        int fairMaxInFlight,
+        int fairQuantum,
+        int fairQueueSize,
+        int fairQueueTimeoutMs,
+        int fairMetricsMaxTenants,
+        boolean clusterEnabled,
+        String clusterHost,
+        int clusterPort,
+        List<String> clusterPeers,
+        int clusterVirtualNodes,
+        int clusterPingIntervalMs
 ) {
     private static final int PORT_MIN = 1;
     private static final int PORT_MAX = 65_535;
+    private static final int MAX_UPSTREAMS = 64;
 
     public AppConfig {
-        requireInRange(httpPort);
+        requireInRange(httpPort, "httpPort");
         requirePositive(requestTimeoutMs, "requestTimeoutMs");
         requirePositive(maxBodyBytes, "maxBodyBytes");
         requireNonBlank(targetRpcUrl, "targetRpcUrl");
+        Objects.requireNonNull(upstreams, "upstreams must not be null");
+        if (upstreams.isEmpty() || upstreams.size() > MAX_UPSTREAMS) {
+            throw new IllegalArgumentException("upstreams must contain 1.." + MAX_UPSTREAMS + " entries");
+        }
 
         if (tlsEnabled) {
             requireNonBlank(pkcs12Path, "pkcs12Path");
@@ -30,11 +123,89 @@ public record AppConfig(
 
         requireAtLeast(circuitBreakerFailuresThreshold, 1, "circuitBreakerFailuresThreshold");
         requireAtLeast(circuitBreakerResetTimeoutMs, 0, "circuitBreakerResetTimeoutMs");
+        requirePositive(httpInstances, "httpInstances");
+        requirePositive(upstreamHttp2MaxStreams, "upstreamHttp2MaxStreams");
+        requirePositive(upstreamHttp2MaxConnections, "upstreamHttp2MaxConnections");
+        requirePositive(cacheMaxBytes, "cacheMaxBytes");
+        Objects.requireNonNull(cacheMethods, "cacheMethods must not be null");
+        Objects.requireNonNull(coalescingMethods, "coalescingMethods must not be null");
+        requirePositive(batchChunkSize, "batchChunkSize");
+        requirePositive(batchMaxConcurrency, "batchMaxConcurrency");
+        requirePositive(microBatchWindowMs, "microBatchWindowMs");
+        requireAtLeast(microBatchMaxSize, 2, "microBatchMaxSize");
+        Objects.requireNonNull(hedgingMethods, "hedgingMethods must not be null");
+        requireAtLeast(hedgingPercentile, 1, "hedgingPercentile");
+        if (hedgingPercentile > 99) {
+            throw new IllegalArgumentException("hedgingPercentile must be <= 99");
+        }
+        requireAtLeast(hedgingMinDelayMs, 1, "hedgingMinDelayMs");
+        requirePositive(hedgingBudgetPercent, "hedgingBudgetPercent");
+        if (websocketEnabled) {
+            requireNonBlank(websocketUpstreamUrl, "websocketUpstreamUrl");
+        }
+        requirePositive(websocketMaxQueueBytes, "websocketMaxQueueBytes");
+        requirePositive(websocketMaxPendingRequests, "websocketMaxPendingRequests");
+        Objects.requireNonNull(rateLimitKey, "rateLimitKey must not be null");
+        if (rateLimitKey == RateLimitKey.API_KEY) {
+            requireNonBlank(rateLimitApiKeyHeader, "rateLimitApiKeyHeader");
+        }
+        requirePositive(rateLimitRequestsPerSecond, "rateLimitRequestsPerSecond");
+        requirePositive(rateLimitBurst, "rateLimitBurst");
+        Objects.requireNonNull(rateLimitMethodWeights, "rateLimitMethodWeights must not be null");
+        requirePositive(rateLimitMaxKeys, "rateLimitMaxKeys");
+        requirePositive(metricsMaxMethods, "metricsMaxMethods");
+        requirePositive(accessLogBufferSize, "accessLogBufferSize");
+        requirePositive(accessLogMaxFileBytes, "accessLogMaxFileBytes");
+        requirePositive(accessLogMaxFiles, "accessLogMaxFiles");
+        if (accessLogEnabled && (accessLogFile == null || accessLogFile.isBlank())) {
+            throw new IllegalArgumentException("accessLogFile must not be blank");
+        }
+        if (compressionLevel < 1 || compressionLevel > 9) {
+            throw new IllegalArgumentException("compressionLevel must be in range 1..9");
+        }
+        requireAtLeast(compressionMinBytes, 0, "compressionMinBytes");
+        requirePositive(upstreamLimitMin, "upstreamLimitMin");
+        requireAtLeast(upstreamLimitInitial, upstreamLimitMin, "upstreamLimitInitial");
+        requireAtLeast(upstreamLimitMax, upstreamLimitInitial, "upstreamLimitMax");
+        requireAtLeast(upstreamLimitQueueSize, 0, "upstreamLimitQueueSize");
+        requirePositive(upstreamLimitQueueTimeoutMs, "upstreamLimitQueueTimeoutMs");
+        requirePositive(headPollIntervalMs, "headPollIntervalMs");
+        requirePositive(headCacheMaxBytes, "headCacheMaxBytes");
+        Objects.requireNonNull(headCacheMethods, "headCacheMethods must not be null");
+        if (diskCacheEnabled) {
+            requireNonBlank(diskCacheDir, "diskCacheDir");
+            if (!cacheEnabled || !headTrackingEnabled) {
+                throw new IllegalArgumentException("diskCacheEnabled requires cacheEnabled and headTrackingEnabled");
+            }
+        }
+        requirePositive(diskCacheSegmentBytes, "diskCacheSegmentBytes");
+        requirePositive(diskCacheMaxSegments, "diskCacheMaxSegments");
+        requireAtLeast(diskCacheFinalityBlocks, 0, "diskCacheFinalityBlocks");
+        requirePositive(offloadMinBytes, "offloadMinBytes");
+        requirePositive(eventLoopLagIntervalMs, "eventLoopLagIntervalMs");
+        requirePositive(eventLoopBlockedThresholdMs, "eventLoopBlockedThresholdMs");
+        requirePositive(logsSplitWindowBlocks, "logsSplitWindowBlocks");
+        requirePositive(logsSplitMaxConcurrency, "logsSplitMaxConcurrency");
+        requirePositive(logsSplitMaxWindows, "logsSplitMaxWindows");
+        requirePositive(logsSplitMaxBytes, "logsSplitMaxBytes");
+        Objects.requireNonNull(upstreamGroups, "upstreamGroups must not be null");
+        requirePositive(fairMaxInFlight, "fairMaxInFlight");
+        requirePositive(fairQuantum, "fairQuantum");
+        requireAtLeast(fairQueueSize, 0, "fairQueueSize");
+        requirePositive(fairQueueTimeoutMs, "fairQueueTimeoutMs");
+        requireAtLeast(fairMetricsMaxTenants, 0, "fairMetricsMaxTenants");
+        if (clusterEnabled) {
+            requireNonBlank(clusterHost, "clusterHost");
+        }
+        requireInRange(clusterPort, "clusterPort");
+        Objects.requireNonNull(clusterPeers, "clusterPeers must not be null");
+        requirePositive(clusterVirtualNodes, "clusterVirtualNodes");
+        requirePositive(clusterPingIntervalMs, "clusterPingIntervalMs");
     }
 
-    private static void requireInRange(int value) {
+    private static void requireInRange(int value, String field) {
         if (value < AppConfig.PORT_MIN || value > AppConfig.PORT_MAX) {
-            throw new IllegalArgumentException("httpPort" + " must be in range " + AppConfig.PORT_MIN + ".." + AppConfig.PORT_MAX);
+            throw new IllegalArgumentException(field + " must be in range " + AppConfig.PORT_MIN + ".." + AppConfig.PORT_MAX);
         }
     }
 
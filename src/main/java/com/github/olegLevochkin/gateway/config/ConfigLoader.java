@@ -4,13 +4,24 @@ import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 
 import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public final class ConfigLoader {
 
     private static final String RESOURCE_FILE = "application.properties";
+    private static final char UPSTREAM_WEIGHT_SEPARATOR = '|';
+    private static final int UPSTREAM_DEFAULT_WEIGHT = 1;
+    private static final String SCHEME_HTTP = "http";
+    private static final String SCHEME_WS = "ws";
+    private static final char METHOD_WEIGHT_SEPARATOR = ':';
+    private static final String UPSTREAM_GROUP_PREFIX = "upstream.group.";
 
     private static final class Keys {
         static final String HTTP_PORT = "http.port";
@@ -18,11 +29,100 @@ public final class ConfigLoader {
         static final String TLS_PKCS12_PATH = "tls.pkcs12.path";
         static final String TLS_PKCS12_PASSWORD = "tls.pkcs12.password";
         static final String TARGET_RPC_URL = "target.rpc.url";
+        static final String UPSTREAM_URLS = "upstream.urls";
         static final String REQUEST_TIMEOUT_MS = "request.timeout.ms";
         static final String MAX_BODY_BYTES = "max.body.bytes";
         static final String CB_ENABLED = "circuit.breaker.enabled";
         static final String CB_FAILURES_THRESHOLD = "circuit.breaker.failures.threshold";
         static final String CB_RESET_TIMEOUT_MS = "circuit.breaker.reset.timeout.ms";
+        static final String HTTP_INSTANCES = "http.instances";
+        static final String NATIVE_TRANSPORT_ENABLED = "native.transport.enabled";
+        static final String TCP_REUSE_PORT = "tcp.reuse.port";
+        static final String TCP_FAST_OPEN = "tcp.fast.open";
+        static final String TCP_NO_DELAY = "tcp.no.delay";
+        static final String HTTP2_ENABLED = "http2.enabled";
+        static final String UPSTREAM_HTTP2_ENABLED = "upstream.http2.enabled";
+        static final String UPSTREAM_HTTP2_MAX_STREAMS = "upstream.http2.max.streams";
+        static final String UPSTREAM_HTTP2_MAX_CONNECTIONS = "upstream.http2.max.connections";
+        static final String STREAMING_VALIDATOR_ENABLED = "jsonrpc.streaming.validator.enabled";
+        static final String CACHE_ENABLED = "cache.enabled";
+        static final String CACHE_MAX_BYTES = "cache.max.bytes";
+        static final String CACHE_METHODS = "cache.methods";
+        static final String COALESCING_ENABLED = "coalescing.enabled";
+        static final String COALESCING_METHODS = "coalescing.methods";
+        static final String BATCH_SPLIT_ENABLED = "batch.split.enabled";
+        static final String BATCH_CHUNK_SIZE = "batch.chunk.size";
+        static final String BATCH_MAX_CONCURRENCY = "batch.max.concurrency";
+        static final String MICRO_BATCH_ENABLED = "microbatch.enabled";
+        static final String MICRO_BATCH_WINDOW_MS = "microbatch.window.ms";
+        static final String MICRO_BATCH_MAX_SIZE = "microbatch.max.size";
+        static final String HEDGING_ENABLED = "hedging.enabled";
+        static final String HEDGING_METHODS = "hedging.methods";
+        static final String HEDGING_PERCENTILE = "hedging.percentile";
+        static final String HEDGING_MIN_DELAY_MS = "hedging.min.delay.ms";
+        static final String HEDGING_BUDGET_PERCENT = "hedging.budget.percent";
+        static final String WEBSOCKET_ENABLED = "websocket.enabled";
+        static final String WEBSOCKET_UPSTREAM_URL = "websocket.upstream.url";
+        static final String WEBSOCKET_MAX_QUEUE_BYTES = "websocket.max.queue.bytes";
+        static final String WEBSOCKET_MAX_PENDING_REQUESTS = "websocket.max.pending.requests";
+        static final String STREAMING_ENABLED = "streaming.enabled";
+        static final String RATE_LIMIT_ENABLED = "ratelimit.enabled";
+        static final String RATE_LIMIT_KEY = "ratelimit.key";
+        static final String RATE_LIMIT_API_KEY_HEADER = "ratelimit.api.key.header";
+        static final String RATE_LIMIT_REQUESTS_PER_SECOND = "ratelimit.requests.per.second";
+        static final String RATE_LIMIT_BURST = "ratelimit.burst";
+        static final String RATE_LIMIT_METHOD_WEIGHTS = "ratelimit.method.weights";
+        static final String RATE_LIMIT_MAX_KEYS = "ratelimit.max.keys";
+        static final String METRICS_MAX_METHODS = "metrics.max.methods";
+        static final String ACCESS_LOG_ENABLED = "access.log.enabled";
+        static final String ACCESS_LOG_FILE = "access.log.file";
+        static final String ACCESS_LOG_BUFFER_SIZE = "access.log.buffer.size";
+        static final String ACCESS_LOG_MAX_FILE_BYTES = "access.log.max.file.bytes";
+        static final String ACCESS_LOG_MAX_FILES = "access.log.max.files";
+        static final String COMPRESSION_ENABLED = "compression.enabled";
+        static final String COMPRESSION_LEVEL = "compression.level";
+        static final String COMPRESSION_MIN_BYTES = "compression.min.bytes";
+        static final String UPSTREAM_LIMIT_ENABLED = "upstream.limit.enabled";
+        static final String UPSTREAM_LIMIT_INITIAL = "upstream.limit.initial";
+        static final String UPSTREAM_LIMIT_MIN = "upstream.limit.min";
+        static final String UPSTREAM_LIMIT_MAX = "upstream.limit.max";
+        static final String UPSTREAM_LIMIT_QUEUE_SIZE = "upstream.limit.queue.size";
+        static final String UPSTREAM_LIMIT_QUEUE_TIMEOUT_MS = "upstream.limit.queue.timeout.ms";
+        static final String HEAD_TRACKING_ENABLED = "head.tracking.enabled";
+        static final String HEAD_POLL_INTERVAL_MS = "head.poll.interval.ms";
+        static final String HEAD_CACHE_MAX_BYTES = "head.cache.max.bytes";
+        static final String HEAD_CACHE_METHODS = "head.cache.methods";
+        static final String DISK_CACHE_ENABLED = "disk.cache.enabled";
+        static final String DISK_CACHE_DIR = "disk.cache.dir";
+        static final String DISK_CACHE_SEGMENT_BYTES = "disk.cache.segment.bytes";
+        static final String DISK_CACHE_MAX_SEGMENTS = "disk.cache.max.segments";
+        static final String DISK_CACHE_FINALITY_BLOCKS = "disk.cache.finality.blocks";
+        static final String OFFLOAD_ENABLED = "offload.enabled";
+        static final String OFFLOAD_MIN_BYTES = "offload.min.bytes";
+        static final String EVENTLOOP_LAG_INTERVAL_MS = "eventloop.lag.interval.ms";
+        static final String EVENTLOOP_BLOCKED_THRESHOLD_MS = "eventloop.blocked.threshold.ms";
+        static final String LOGS_SPLIT_ENABLED = "logs.split.enabled";
+        static final String LOGS_SPLIT_WINDOW_BLOCKS = "logs.split.window.blocks";
+        static final String LOGS_SPLIT_MAX_CONCURRENCY = "logs.split.max.concurrency";
+        static final String LOGS_SPLIT_MAX_WINDOWS = "logs.split.max.windows";
+        static final String LOGS_SPLIT_MAX_BYTES = "logs.split.max.bytes";
+        static final String UPSTREAM_GROUPS = "upstream.groups";
+        static final String UPSTREAM_GROUP_METHODS = ".methods";
+        static final String UPSTREAM_GROUP_URLS = ".urls";
+        static final String UPSTREAM_GROUP_POOL_SIZE = ".pool.size";
+        static final String UPSTREAM_GROUP_TIMEOUT_MS = ".timeout.ms";
+        static final String FAIR_ENABLED = "fair.enabled";
+        static final String FAIR_MAX_IN_FLIGHT = "fair.max.in.flight";
+        static final String FAIR_QUANTUM = "fair.quantum";
+        static final String FAIR_QUEUE_SIZE = "fair.queue.size";
+        static final String FAIR_QUEUE_TIMEOUT_MS = "fair.queue.timeout.ms";
+        static final String FAIR_METRICS_MAX_TENANTS = "fair.metrics.max.tenants";
+        static final String CLUSTER_ENABLED = "cluster.enabled";
+        static final String CLUSTER_HOST = "cluster.host";
+        static final String CLUSTER_PORT = "cluster.port";
+        static final String CLUSTER_PEERS = "cluster.peers";
+        static final String CLUSTER_VIRTUAL_NODES = "cluster.virtual.nodes";
+        static final String CLUSTER_PING_INTERVAL_MS = "cluster.ping.interval.ms";
 
         private Keys() {
         }
@@ -34,11 +134,127 @@ public final class ConfigLoader {
         static final String TLS_PKCS12_PATH = "/server.p12";
         static final String TLS_PKCS12_PASSWORD = "changeit";
         static final String TARGET_RPC_URL = "https://cloudflare-eth.com";
+        static final List<UpstreamTarget> UPSTREAM_URLS = List.of();
         static final int REQUEST_TIMEOUT_MS = 10_000;
         static final int MAX_BODY_BYTES = 10_485_760; // 10 MiB
         static final boolean CB_ENABLED = true;
         static final int CB_FAILURES_THRESHOLD = 5;
         static final int CB_RESET_TIMEOUT_MS = 30_000;
+        static final int HTTP_INSTANCES = Runtime.getRuntime().availableProcessors();
+        static final boolean NATIVE_TRANSPORT_ENABLED = false;
+        static final boolean TCP_REUSE_PORT = true;
+        static final boolean TCP_FAST_OPEN = false;
+        static final boolean TCP_NO_DELAY = true;
+        static final boolean HTTP2_ENABLED = true;
+        static final boolean UPSTREAM_HTTP2_ENABLED = false;
+        static final int UPSTREAM_HTTP2_MAX_STREAMS = 100;
+        static final int UPSTREAM_HTTP2_MAX_CONNECTIONS = 2;
+        static final boolean STREAMING_VALIDATOR_ENABLED = true;
+        static final boolean CACHE_ENABLED = true;
+        static final int CACHE_MAX_BYTES = 67_108_864; // 64 MiB
+        static final Set<String> CACHE_METHODS = Set.of(
+                "eth_chainId",
+                "eth_getBlockByHash",
+                "eth_getTransactionByHash",
+                "eth_getTransactionReceipt");
+        static final boolean COALESCING_ENABLED = true;
+        static final Set<String> COALESCING_METHODS = Set.of(
+                "eth_blockNumber",
+                "eth_call",
+                "eth_chainId",
+                "eth_gasPrice",
+                "eth_getBalance",
+                "eth_getBlockByNumber",
+                "eth_getCode");
+        static final boolean BATCH_SPLIT_ENABLED = true;
+        static final int BATCH_CHUNK_SIZE = 100;
+        static final int BATCH_MAX_CONCURRENCY = 8;
+        static final boolean MICRO_BATCH_ENABLED = false;
+        static final int MICRO_BATCH_WINDOW_MS = 2;
+        static final int MICRO_BATCH_MAX_SIZE = 50;
+        static final boolean HEDGING_ENABLED = false;
+        static final Set<String> HEDGING_METHODS = Set.of(
+                "eth_blockNumber",
+                "eth_call",
+                "eth_getBalance",
+                "eth_getBlockByNumber",
+                "eth_getCode",
+                "eth_getLogs",
+                "eth_getTransactionReceipt");
+        static final int HEDGING_PERCENTILE = 95;
+        static final int HEDGING_MIN_DELAY_MS = 20;
+        static final int HEDGING_BUDGET_PERCENT = 5;
+        static final boolean WEBSOCKET_ENABLED = true;
+        static final String WEBSOCKET_UPSTREAM_URL = "";
+        static final int WEBSOCKET_MAX_QUEUE_BYTES = 1_048_576;
+        static final int WEBSOCKET_MAX_PENDING_REQUESTS = 64;
+        static final boolean STREAMING_ENABLED = false;
+        static final boolean RATE_LIMIT_ENABLED = false;
+        static final RateLimitKey RATE_LIMIT_KEY = RateLimitKey.IP;
+        static final String RATE_LIMIT_API_KEY_HEADER = "X-Api-Key";
+        static final int RATE_LIMIT_REQUESTS_PER_SECOND = 100;
+        static final int RATE_LIMIT_BURST = 200;
+        static final Map<String, Integer> RATE_LIMIT_METHOD_WEIGHTS = Map.of(
+                "eth_getLogs", 10,
+                "debug_traceTransaction", 20,
+                "debug_traceBlockByNumber", 50,
+                "debug_traceBlockByHash", 50,
+                "trace_block", 50);
+        static final int RATE_LIMIT_MAX_KEYS = 1_000_000;
+        static final int METRICS_MAX_METHODS = 256;
+        static final boolean ACCESS_LOG_ENABLED = true;
+        static final String ACCESS_LOG_FILE = "logs/access.log";
+        static final int ACCESS_LOG_BUFFER_SIZE = 65_536;
+        static final int ACCESS_LOG_MAX_FILE_BYTES = 100 * 1024 * 1024;
+        static final int ACCESS_LOG_MAX_FILES = 5;
+        static final boolean COMPRESSION_ENABLED = true;
+        static final int COMPRESSION_LEVEL = 6;
+        static final int COMPRESSION_MIN_BYTES = 1024;
+        static final boolean UPSTREAM_LIMIT_ENABLED = true;
+        static final int UPSTREAM_LIMIT_INITIAL = 50;
+        static final int UPSTREAM_LIMIT_MIN = 8;
+        static final int UPSTREAM_LIMIT_MAX = 200;
+        static final int UPSTREAM_LIMIT_QUEUE_SIZE = 500;
+        static final int UPSTREAM_LIMIT_QUEUE_TIMEOUT_MS = 1000;
+        static final boolean HEAD_TRACKING_ENABLED = true;
+        static final int HEAD_POLL_INTERVAL_MS = 1000;
+        static final int HEAD_CACHE_MAX_BYTES = 33_554_432; // 32 MiB
+        static final Set<String> HEAD_CACHE_METHODS = Set.of(
+                "eth_blockNumber",
+                "eth_call",
+                "eth_getBalance",
+                "eth_getBlockByNumber",
+                "eth_getCode",
+                "eth_getStorageAt",
+                "eth_getTransactionCount");
+        static final boolean DISK_CACHE_ENABLED = false;
+        static final String DISK_CACHE_DIR = "cache";
+        static final int DISK_CACHE_SEGMENT_BYTES = 64 * 1024 * 1024;
+        static final int DISK_CACHE_MAX_SEGMENTS = 8;
+        static final int DISK_CACHE_FINALITY_BLOCKS = 64;
+        static final boolean OFFLOAD_ENABLED = true;
+        static final int OFFLOAD_MIN_BYTES = 256 * 1024;
+        static final int EVENTLOOP_LAG_INTERVAL_MS = 100;
+        static final int EVENTLOOP_BLOCKED_THRESHOLD_MS = 200;
+        static final boolean LOGS_SPLIT_ENABLED = true;
+        static final int LOGS_SPLIT_WINDOW_BLOCKS = 2000;
+        static final int LOGS_SPLIT_MAX_CONCURRENCY = 4;
+        static final int LOGS_SPLIT_MAX_WINDOWS = 50;
+        static final int LOGS_SPLIT_MAX_BYTES = 33_554_432; // 32 MiB
+        static final List<String> UPSTREAM_GROUPS = List.of();
+        static final int UPSTREAM_GROUP_POOL_SIZE = 50;
+        static final boolean FAIR_ENABLED = false;
+        static final int FAIR_MAX_IN_FLIGHT = 64;
+        static final int FAIR_QUANTUM = 100;
+        static final int FAIR_QUEUE_SIZE = 1000;
+        static final int FAIR_QUEUE_TIMEOUT_MS = 5000;
+        static final int FAIR_METRICS_MAX_TENANTS = 1000;
+        static final boolean CLUSTER_ENABLED = false;
+        static final String CLUSTER_HOST = "127.0.0.1";
+        static final int CLUSTER_PORT = 15701;
+        static final List<String> CLUSTER_PEERS = List.of();
+        static final int CLUSTER_VIRTUAL_NODES = 160;
+        static final int CLUSTER_PING_INTERVAL_MS = 1000;
 
         private Defaults() {
         }
@@ -61,6 +277,8 @@ public final class ConfigLoader {
             entry(Keys.TLS_PKCS12_PASSWORD, Defaults.TLS_PKCS12_PASSWORD, String::trim);
     private static final PropertyEntry<String> TARGET_RPC_URL =
             entry(Keys.TARGET_RPC_URL, Defaults.TARGET_RPC_URL, String::trim);
+    private static final PropertyEntry<List<UpstreamTarget>> UPSTREAM_URLS =
+            entry(Keys.UPSTREAM_URLS, Defaults.UPSTREAM_URLS, ConfigLoader::parseUpstreams);
     private static final PropertyEntry<Integer> REQUEST_TIMEOUT_MS =
             entry(Keys.REQUEST_TIMEOUT_MS, Defaults.REQUEST_TIMEOUT_MS, Integer::parseInt);
     private static final PropertyEntry<Integer> MAX_BODY_BYTES =
@@ -71,21 +289,291 @@ public final class ConfigLoader {
             entry(Keys.CB_FAILURES_THRESHOLD, Defaults.CB_FAILURES_THRESHOLD, Integer::parseInt);
     private static final PropertyEntry<Integer> CB_RESET_TIMEOUT_MS =
             entry(Keys.CB_RESET_TIMEOUT_MS, Defaults.CB_RESET_TIMEOUT_MS, Integer::parseInt);
+    private static final PropertyEntry<Integer> HTTP_INSTANCES =
+            entry(Keys.HTTP_INSTANCES, Defaults.HTTP_INSTANCES, Integer::parseInt);
+    private static final PropertyEntry<Boolean> NATIVE_TRANSPORT_ENABLED =
+            entry(Keys.NATIVE_TRANSPORT_ENABLED, Defaults.NATIVE_TRANSPORT_ENABLED, Boolean::parseBoolean);
+    private static final PropertyEntry<Boolean> TCP_REUSE_PORT =
+            entry(Keys.TCP_REUSE_PORT, Defaults.TCP_REUSE_PORT, Boolean::parseBoolean);
+    private static final PropertyEntry<Boolean> TCP_FAST_OPEN =
+            entry(Keys.TCP_FAST_OPEN, Defaults.TCP_FAST_OPEN, Boolean::parseBoolean);
+    private static final PropertyEntry<Boolean> TCP_NO_DELAY =
+            entry(Keys.TCP_NO_DELAY, Defaults.TCP_NO_DELAY, Boolean::parseBoolean);
+    private static final PropertyEntry<Boolean> HTTP2_ENABLED =
+            entry(Keys.HTTP2_ENABLED, Defaults.HTTP2_ENABLED, Boolean::parseBoolean);
+    private static final PropertyEntry<Boolean> UPSTREAM_HTTP2_ENABLED =
+            entry(Keys.UPSTREAM_HTTP2_ENABLED, Defaults.UPSTREAM_HTTP2_ENABLED, Boolean::parseBoolean);
+    private static final PropertyEntry<Integer> UPSTREAM_HTTP2_MAX_STREAMS =
+            entry(Keys.UPSTREAM_HTTP2_MAX_STREAMS, Defaults.UPSTREAM_HTTP2_MAX_STREAMS, Integer::parseInt);
+    private static final PropertyEntry<Integer> UPSTREAM_HTTP2_MAX_CONNECTIONS =
+            entry(Keys.UPSTREAM_HTTP2_MAX_CONNECTIONS, Defaults.UPSTREAM_HTTP2_MAX_CONNECTIONS, Integer::parseInt);
+    private static final PropertyEntry<Boolean> STREAMING_VALIDATOR_ENABLED =
+            entry(Keys.STREAMING_VALIDATOR_ENABLED, Defaults.STREAMING_VALIDATOR_ENABLED, Boolean::parseBoolean);
+    private static final PropertyEntry<Boolean> CACHE_ENABLED =
+            entry(Keys.CACHE_ENABLED, Defaults.CACHE_ENABLED, Boolean::parseBoolean);
+    private static final PropertyEntry<Integer> CACHE_MAX_BYTES =
+            entry(Keys.CACHE_MAX_BYTES, Defaults.CACHE_MAX_BYTES, Integer::parseInt);
+    private static final PropertyEntry<Set<String>> CACHE_METHODS =
+            entry(Keys.CACHE_METHODS, Defaults.CACHE_METHODS, ConfigLoader::parseSet);
+    private static final PropertyEntry<Boolean> COALESCING_ENABLED =
+            entry(Keys.COALESCING_ENABLED, Defaults.COALESCING_ENABLED, Boolean::parseBoolean);
+    private static final PropertyEntry<Set<String>> COALESCING_METHODS =
+            entry(Keys.COALESCING_METHODS, Defaults.COALESCING_METHODS, ConfigLoader::parseSet);
+    private static final PropertyEntry<Boolean> BATCH_SPLIT_ENABLED =
+            entry(Keys.BATCH_SPLIT_ENABLED, Defaults.BATCH_SPLIT_ENABLED, Boolean::parseBoolean);
+    private static final PropertyEntry<Integer> BATCH_CHUNK_SIZE =
+            entry(Keys.BATCH_CHUNK_SIZE, Defaults.BATCH_CHUNK_SIZE, Integer::parseInt);
+    private static final PropertyEntry<Integer> BATCH_MAX_CONCURRENCY =
+            entry(Keys.BATCH_MAX_CONCURRENCY, Defaults.BATCH_MAX_CONCURRENCY, Integer::parseInt);
+    private static final PropertyEntry<Boolean> MICRO_BATCH_ENABLED =
+            entry(Keys.MICRO_BATCH_ENABLED, Defaults.MICRO_BATCH_ENABLED, Boolean::parseBoolean);
+    private static final PropertyEntry<Integer> MICRO_BATCH_WINDOW_MS =
+            entry(Keys.MICRO_BATCH_WINDOW_MS, Defaults.MICRO_BATCH_WINDOW_MS, Integer::parseInt);
+    private static final PropertyEntry<Integer> MICRO_BATCH_MAX_SIZE =
+            entry(Keys.MICRO_BATCH_MAX_SIZE, Defaults.MICRO_BATCH_MAX_SIZE, Integer::parseInt);
+    private static final PropertyEntry<Boolean> HEDGING_ENABLED =
+            entry(Keys.HEDGING_ENABLED, Defaults.HEDGING_ENABLED, Boolean::parseBoolean);
+    private static final PropertyEntry<Set<String>> HEDGING_METHODS =
+            entry(Keys.HEDGING_METHODS, Defaults.HEDGING_METHODS, ConfigLoader::parseSet);
+    private static final PropertyEntry<Integer> HEDGING_PERCENTILE =
+            entry(Keys.HEDGING_PERCENTILE, Defaults.HEDGING_PERCENTILE, Integer::parseInt);
+    private static final PropertyEntry<Integer> HEDGING_MIN_DELAY_MS =
+            entry(Keys.HEDGING_MIN_DELAY_MS, Defaults.HEDGING_MIN_DELAY_MS, Integer::parseInt);
+    private static final PropertyEntry<Integer> HEDGING_BUDGET_PERCENT =
+            entry(Keys.HEDGING_BUDGET_PERCENT, Defaults.HEDGING_BUDGET_PERCENT, Integer::parseInt);
+    private static final PropertyEntry<Boolean> WEBSOCKET_ENABLED =
+            entry(Keys.WEBSOCKET_ENABLED, Defaults.WEBSOCKET_ENABLED, Boolean::parseBoolean);
+    private static final PropertyEntry<String> WEBSOCKET_UPSTREAM_URL =
+            entry(Keys.WEBSOCKET_UPSTREAM_URL, Defaults.WEBSOCKET_UPSTREAM_URL, String::trim);
+    private static final PropertyEntry<Integer> WEBSOCKET_MAX_QUEUE_BYTES =
+            entry(Keys.WEBSOCKET_MAX_QUEUE_BYTES, Defaults.WEBSOCKET_MAX_QUEUE_BYTES, Integer::parseInt);
+    private static final PropertyEntry<Integer> WEBSOCKET_MAX_PENDING_REQUESTS =
+            entry(Keys.WEBSOCKET_MAX_PENDING_REQUESTS, Defaults.WEBSOCKET_MAX_PENDING_REQUESTS, Integer::parseInt);
+    private static final PropertyEntry<Boolean> STREAMING_ENABLED =
+            entry(Keys.STREAMING_ENABLED, Defaults.STREAMING_ENABLED, Boolean::parseBoolean);
+    private static final PropertyEntry<Boolean> RATE_LIMIT_ENABLED =
+            entry(Keys.RATE_LIMIT_ENABLED, Defaults.RATE_LIMIT_ENABLED, Boolean::parseBoolean);
+    private static final PropertyEntry<RateLimitKey> RATE_LIMIT_KEY =
+            entry(Keys.RATE_LIMIT_KEY, Defaults.RATE_LIMIT_KEY, RateLimitKey::parse);
+    private static final PropertyEntry<String> RATE_LIMIT_API_KEY_HEADER =
+            entry(Keys.RATE_LIMIT_API_KEY_HEADER, Defaults.RATE_LIMIT_API_KEY_HEADER, String::trim);
+    private static final PropertyEntry<Integer> RATE_LIMIT_REQUESTS_PER_SECOND =
+            entry(Keys.RATE_LIMIT_REQUESTS_PER_SECOND, Defaults.RATE_LIMIT_REQUESTS_PER_SECOND, Integer::parseInt);
+    private static final PropertyEntry<Integer> RATE_LIMIT_BURST =
+            entry(Keys.RATE_LIMIT_BURST, Defaults.RATE_LIMIT_BURST, Integer::parseInt);
+    private static final PropertyEntry<Map<String, Integer>> RATE_LIMIT_METHOD_WEIGHTS =
+            entry(Keys.RATE_LIMIT_METHOD_WEIGHTS, Defaults.RATE_LIMIT_METHOD_WEIGHTS, ConfigLoader::parseWeights);
+    private static final PropertyEntry<Integer> RATE_LIMIT_MAX_KEYS =
+            entry(Keys.RATE_LIMIT_MAX_KEYS, Defaults.RATE_LIMIT_MAX_KEYS, Integer::parseInt);
+    private static final PropertyEntry<Integer> METRICS_MAX_METHODS =
+            entry(Keys.METRICS_MAX_METHODS, Defaults.METRICS_MAX_METHODS, Integer::parseInt);
+    private static final PropertyEntry<Boolean> ACCESS_LOG_ENABLED =
+            entry(Keys.ACCESS_LOG_ENABLED, Defaults.ACCESS_LOG_ENABLED, Boolean::parseBoolean);
+    private static final PropertyEntry<String> ACCESS_LOG_FILE =
+            entry(Keys.ACCESS_LOG_FILE, Defaults.ACCESS_LOG_FILE, String::trim);
+    private static final PropertyEntry<Integer> ACCESS_LOG_BUFFER_SIZE =
+            entry(Keys.ACCESS_LOG_BUFFER_SIZE, Defaults.ACCESS_LOG_BUFFER_SIZE, Integer::parseInt);
+    private static final PropertyEntry<Integer> ACCESS_LOG_MAX_FILE_BYTES =
+            entry(Keys.ACCESS_LOG_MAX_FILE_BYTES, Defaults.ACCESS_LOG_MAX_FILE_BYTES, Integer::parseInt);
+    private static final PropertyEntry<Integer> ACCESS_LOG_MAX_FILES =
+            entry(Keys.ACCESS_LOG_MAX_FILES, Defaults.ACCESS_LOG_MAX_FILES, Integer::parseInt);
+    private static final PropertyEntry<Boolean> COMPRESSION_ENABLED =
+            entry(Keys.COMPRESSION_ENABLED, Defaults.COMPRESSION_ENABLED, Boolean::parseBoolean);
+    private static final PropertyEntry<Integer> COMPRESSION_LEVEL =
+            entry(Keys.COMPRESSION_LEVEL, Defaults.COMPRESSION_LEVEL, Integer::parseInt);
+    private static final PropertyEntry<Integer> COMPRESSION_MIN_BYTES =
+            entry(Keys.COMPRESSION_MIN_BYTES, Defaults.COMPRESSION_MIN_BYTES, Integer::parseInt);
+    private static final PropertyEntry<Boolean> UPSTREAM_LIMIT_ENABLED =
+            entry(Keys.UPSTREAM_LIMIT_ENABLED, Defaults.UPSTREAM_LIMIT_ENABLED, Boolean::parseBoolean);
+    private static final PropertyEntry<Integer> UPSTREAM_LIMIT_INITIAL =
+            entry(Keys.UPSTREAM_LIMIT_INITIAL, Defaults.UPSTREAM_LIMIT_INITIAL, Integer::parseInt);
+    private static final PropertyEntry<Integer> UPSTREAM_LIMIT_MIN =
+            entry(Keys.UPSTREAM_LIMIT_MIN, Defaults.UPSTREAM_LIMIT_MIN, Integer::parseInt);
+    private static final PropertyEntry<Integer> UPSTREAM_LIMIT_MAX =
+            entry(Keys.UPSTREAM_LIMIT_MAX, Defaults.UPSTREAM_LIMIT_MAX, Integer::parseInt);
+    private static final PropertyEntry<Integer> UPSTREAM_LIMIT_QUEUE_SIZE =
+            entry(Keys.UPSTREAM_LIMIT_QUEUE_SIZE, Defaults.UPSTREAM_LIMIT_QUEUE_SIZE, Integer::parseInt);
+    private static final PropertyEntry<Integer> UPSTREAM_LIMIT_QUEUE_TIMEOUT_MS =
+            entry(Keys.UPSTREAM_LIMIT_QUEUE_TIMEOUT_MS, Defaults.UPSTREAM_LIMIT_QUEUE_TIMEOUT_MS, Integer::parseInt);
+    private static final PropertyEntry<Boolean> HEAD_TRACKING_ENABLED =
+            entry(Keys.HEAD_TRACKING_ENABLED, Defaults.HEAD_TRACKING_ENABLED, Boolean::parseBoolean);
+    private static final PropertyEntry<Integer> HEAD_POLL_INTERVAL_MS =
+            entry(Keys.HEAD_POLL_INTERVAL_MS, Defaults.HEAD_POLL_INTERVAL_MS, Integer::parseInt);
+    private static final PropertyEntry<Integer> HEAD_CACHE_MAX_BYTES =
+            entry(Keys.HEAD_CACHE_MAX_BYTES, Defaults.HEAD_CACHE_MAX_BYTES, Integer::parseInt);
+    private static final PropertyEntry<Set<String>> HEAD_CACHE_METHODS =
+            entry(Keys.HEAD_CACHE_METHODS, Defaults.HEAD_CACHE_METHODS, ConfigLoader::parseSet);
+    private static final PropertyEntry<Boolean> DISK_CACHE_ENABLED =
+            entry(Keys.DISK_CACHE_ENABLED, Defaults.DISK_CACHE_ENABLED, Boolean::parseBoolean);
+    private static final PropertyEntry<String> DISK_CACHE_DIR =
+            entry(Keys.DISK_CACHE_DIR, Defaults.DISK_CACHE_DIR, String::trim);
+    private static final PropertyEntry<Integer> DISK_CACHE_SEGMENT_BYTES =
+            entry(Keys.DISK_CACHE_SEGMENT_BYTES, Defaults.DISK_CACHE_SEGMENT_BYTES, Integer::parseInt);
+    private static final PropertyEntry<Integer> DISK_CACHE_MAX_SEGMENTS =
+            entry(Keys.DISK_CACHE_MAX_SEGMENTS, Defaults.DISK_CACHE_MAX_SEGMENTS, Integer::parseInt);
+    private static final PropertyEntry<Integer> DISK_CACHE_FINALITY_BLOCKS =
+            entry(Keys.DISK_CACHE_FINALITY_BLOCKS, Defaults.DISK_CACHE_FINALITY_BLOCKS, Integer::parseInt);
+    private static final PropertyEntry<Boolean> OFFLOAD_ENABLED =
+            entry(Keys.OFFLOAD_ENABLED, Defaults.OFFLOAD_ENABLED, Boolean::parseBoolean);
+    private static final PropertyEntry<Integer> OFFLOAD_MIN_BYTES =
+            entry(Keys.OFFLOAD_MIN_BYTES, Defaults.OFFLOAD_MIN_BYTES, Integer::parseInt);
+    private static final PropertyEntry<Integer> EVENTLOOP_LAG_INTERVAL_MS =
+            entry(Keys.EVENTLOOP_LAG_INTERVAL_MS, Defaults.EVENTLOOP_LAG_INTERVAL_MS, Integer::parseInt);
+    private static final PropertyEntry<Integer> EVENTLOOP_BLOCKED_THRESHOLD_MS =
+            entry(Keys.EVENTLOOP_BLOCKED_THRESHOLD_MS, Defaults.EVENTLOOP_BLOCKED_THRESHOLD_MS, Integer::parseInt);
+    private static final PropertyEntry<Boolean> LOGS_SPLIT_ENABLED =
+            entry(Keys.LOGS_SPLIT_ENABLED, Defaults.LOGS_SPLIT_ENABLED, Boolean::parseBoolean);
+    private static final PropertyEntry<Integer> LOGS_SPLIT_WINDOW_BLOCKS =
+            entry(Keys.LOGS_SPLIT_WINDOW_BLOCKS, Defaults.LOGS_SPLIT_WINDOW_BLOCKS, Integer::parseInt);
+    private static final PropertyEntry<Integer> LOGS_SPLIT_MAX_CONCURRENCY =
+            entry(Keys.LOGS_SPLIT_MAX_CONCURRENCY, Defaults.LOGS_SPLIT_MAX_CONCURRENCY, Integer::parseInt);
+    private static final PropertyEntry<Integer> LOGS_SPLIT_MAX_WINDOWS =
+            entry(Keys.LOGS_SPLIT_MAX_WINDOWS, Defaults.LOGS_SPLIT_MAX_WINDOWS, Integer::parseInt);
+    private static final PropertyEntry<Integer> LOGS_SPLIT_MAX_BYTES =
+            entry(Keys.LOGS_SPLIT_MAX_BYTES, Defaults.LOGS_SPLIT_MAX_BYTES, Integer::parseInt);
+    private static final PropertyEntry<List<String>> UPSTREAM_GROUPS =
+            entry(Keys.UPSTREAM_GROUPS, Defaults.UPSTREAM_GROUPS, ConfigLoader::parseList);
+    private static final PropertyEntry<Boolean> FAIR_ENABLED =
+            entry(Keys.FAIR_ENABLED, Defaults.FAIR_ENABLED, Boolean::parseBoolean);
+    private static final PropertyEntry<Integer> FAIR_MAX_IN_FLIGHT =
+            entry(Keys.FAIR_MAX_IN_FLIGHT, Defaults.FAIR_MAX_IN_FLIGHT, Integer::parseInt);
+    private static final PropertyEntry<Integer> FAIR_QUANTUM =
+            entry(Keys.FAIR_QUANTUM, Defaults.FAIR_QUANTUM, Integer::parseInt);
+    private static final PropertyEntry<Integer> FAIR_QUEUE_SIZE =
+            entry(Keys.FAIR_QUEUE_SIZE, Defaults.FAIR_QUEUE_SIZE, Integer::parseInt);
+    private static final PropertyEntry<Integer> FAIR_QUEUE_TIMEOUT_MS =
+            entry(Keys.FAIR_QUEUE_TIMEOUT_MS, Defaults.FAIR_QUEUE_TIMEOUT_MS, Integer::parseInt);
+    private static final PropertyEntry<Integer> FAIR_METRICS_MAX_TENANTS =
+            entry(Keys.FAIR_METRICS_MAX_TENANTS, Defaults.FAIR_METRICS_MAX_TENANTS, Integer::parseInt);
+    private static final PropertyEntry<Boolean> CLUSTER_ENABLED =
+            entry(Keys.CLUSTER_ENABLED, Defaults.CLUSTER_ENABLED, Boolean::parseBoolean);
+    private static final PropertyEntry<String> CLUSTER_HOST =
+            entry(Keys.CLUSTER_HOST, Defaults.CLUSTER_HOST, String::trim);
+    private static final PropertyEntry<Integer> CLUSTER_PORT =
+            entry(Keys.CLUSTER_PORT, Defaults.CLUSTER_PORT, Integer::parseInt);
+    private static final PropertyEntry<List<String>> CLUSTER_PEERS =
+            entry(Keys.CLUSTER_PEERS, Defaults.CLUSTER_PEERS, ConfigLoader::parseList);
+    private static final PropertyEntry<Integer> CLUSTER_VIRTUAL_NODES =
+            entry(Keys.CLUSTER_VIRTUAL_NODES, Defaults.CLUSTER_VIRTUAL_NODES, Integer::parseInt);
+    private static final PropertyEntry<Integer> CLUSTER_PING_INTERVAL_MS =
+            entry(Keys.CLUSTER_PING_INTERVAL_MS, Defaults.CLUSTER_PING_INTERVAL_MS, Integer::parseInt);
 
     public static AppConfig load() {
+        return load(new Properties());
+    }
+
+    /** Loads {@value #RESOURCE_FILE} with {@code overrides} applied on top (used by benchmarks and load tests). */
+    public static AppConfig load(Properties overrides) {
         Properties properties = loadProperties();
+        properties.putAll(overrides);
+
+        String targetRpcUrl = get(properties, TARGET_RPC_URL);
+        List<UpstreamTarget> upstreams = get(properties, UPSTREAM_URLS);
+        if (upstreams.isEmpty()) {
+            upstreams = List.of(new UpstreamTarget(targetRpcUrl, UPSTREAM_DEFAULT_WEIGHT));
+        }
+        String websocketUpstreamUrl = get(properties, WEBSOCKET_UPSTREAM_URL);
+        if (websocketUpstreamUrl.isEmpty()) {
+            websocketUpstreamUrl = toWebSocketUrl(upstreams.get(0).url());
+        }
+        int requestTimeoutMs = get(properties, REQUEST_TIMEOUT_MS);
 
         return new AppConfig(
                 get(properties, HTTP_PORT),
                 get(properties, TLS_ENABLED),
                 get(properties, TLS_PKCS12_PATH),
                 get(properties, TLS_PKCS12_PASSWORD),
-                get(properties, TARGET_RPC_URL),
-                get(properties, REQUEST_TIMEOUT_MS),
+                targetRpcUrl,
+                upstreams,
+                requestTimeoutMs,
                 get(properties, MAX_BODY_BYTES),
                 get(properties, CB_ENABLED),
                 get(properties, CB_FAILURES_THRESHOLD),
-                get(properties, CB_RESET_TIMEOUT_MS)
+                get(properties, CB_RESET_TIMEOUT_MS),
+                get(properties, HTTP_INSTANCES),
+                get(properties, NATIVE_TRANSPORT_ENABLED),
+                get(properties, TCP_REUSE_PORT),
+                get(properties, TCP_FAST_OPEN),
+                get(properties, TCP_NO_DELAY),
+                get(properties, HTTP2_ENABLED),
+                get(properties, UPSTREAM_HTTP2_ENABLED),
+                get(properties, UPSTREAM_HTTP2_MAX_STREAMS),
+                get(properties, UPSTREAM_HTTP2_MAX_CONNECTIONS),
+                get(properties, STREAMING_VALIDATOR_ENABLED),
+                get(properties, CACHE_ENABLED),
+                get(properties, CACHE_MAX_BYTES),
+                get(properties, CACHE_METHODS),
+                get(properties, COALESCING_ENABLED),
+                get(properties, COALESCING_METHODS),
+                get(properties, BATCH_SPLIT_ENABLED),
+                get(properties, BATCH_CHUNK_SIZE),
+                get(properties, BATCH_MAX_CONCURRENCY),
+                get(properties, MICRO_BATCH_ENABLED),
+                get(properties, MICRO_BATCH_WINDOW_MS),
+                get(properties, MICRO_BATCH_MAX_SIZE),
+                get(properties, HEDGING_ENABLED),
+                get(properties, HEDGING_METHODS),
+                get(properties, HEDGING_PERCENTILE),
+                get(properties, HEDGING_MIN_DELAY_MS),
+                get(properties, HEDGING_BUDGET_PERCENT),
+                get(properties, WEBSOCKET_ENABLED),
+                websocketUpstreamUrl,
+                get(properties, WEBSOCKET_MAX_QUEUE_BYTES),
+                get(properties, WEBSOCKET_MAX_PENDING_REQUESTS),
+                get(properties, STREAMING_ENABLED),
+                get(properties, RATE_LIMIT_ENABLED),
+                get(properties, RATE_LIMIT_KEY),
+                get(properties, RATE_LIMIT_API_KEY_HEADER),
+                get(properties, RATE_LIMIT_REQUESTS_PER_SECOND),
+                get(properties, RATE_LIMIT_BURST),
+                get(properties, RATE_LIMIT_METHOD_WEIGHTS),
+                get(properties, RATE_LIMIT_MAX_KEYS),
+                get(properties, METRICS_MAX_METHODS),
+                get(properties, ACCESS_LOG_ENABLED),
+                get(properties, ACCESS_LOG_FILE),
+                get(properties, ACCESS_LOG_BUFFER_SIZE),
+                get(properties, ACCESS_LOG_MAX_FILE_BYTES),
+                get(properties, ACCESS_LOG_MAX_FILES),
+                get(properties, COMPRESSION_ENABLED),
+                get(properties, COMPRESSION_LEVEL),
+                get(properties, COMPRESSION_MIN_BYTES),
+                get(properties, UPSTREAM_LIMIT_ENABLED),
+                get(properties, UPSTREAM_LIMIT_INITIAL),
+                get(properties, UPSTREAM_LIMIT_MIN),
+                get(properties, UPSTREAM_LIMIT_MAX),
+                get(properties, UPSTREAM_LIMIT_QUEUE_SIZE),
+                get(properties, UPSTREAM_LIMIT_QUEUE_TIMEOUT_MS),
+                get(properties, HEAD_TRACKING_ENABLED),
+                get(properties, HEAD_POLL_INTERVAL_MS),
+                get(properties, HEAD_CACHE_MAX_BYTES),
+                get(properties, HEAD_CACHE_METHODS),
+                get(properties, DISK_CACHE_ENABLED),
+                get(properties, DISK_CACHE_DIR),
+                get(properties, DISK_CACHE_SEGMENT_BYTES),
+                get(properties, DISK_CACHE_MAX_SEGMENTS),
+                get(properties, DISK_CACHE_FINALITY_BLOCKS),
+                get(properties, OFFLOAD_ENABLED),
+                get(properties, OFFLOAD_MIN_BYTES),
+                get(properties, EVENTLOOP_LAG_INTERVAL_MS),
+                get(properties, EVENTLOOP_BLOCKED_THRESHOLD_MS),
+                get(properties, LOGS_SPLIT_ENABLED),
+                get(properties, LOGS_SPLIT_WINDOW_BLOCKS),
+                get(properties, LOGS_SPLIT_MAX_CONCURRENCY),
+                get(properties, LOGS_SPLIT_MAX_WINDOWS),
+                get(properties, LOGS_SPLIT_MAX_BYTES),
+                loadUpstreamGroups(properties, upstreams, requestTimeoutMs),
+                get(properties, FAIR_ENABLED),
+                get(properties, FAIR_MAX_IN_FLIGHT),
+                get(properties, FAIR_QUANTUM),
+                get(properties, FAIR_QUEUE_SIZE),
+                get(properties, FAIR_QUEUE_TIMEOUT_MS),
+                get(properties, FAIR_METRICS_MAX_TENANTS),
+                get(properties, CLUSTER_ENABLED),
+                get(properties, CLUSTER_HOST),
+                get(properties, CLUSTER_PORT),
+                get(properties, CLUSTER_PEERS),
+                get(properties, CLUSTER_VIRTUAL_NODES),
+                get(properties, CLUSTER_PING_INTERVAL_MS)
         );
     }
 
@@ -103,6 +591,73 @@ public final class ConfigLoader {
         }
     }
 
+    private static List<UpstreamTarget> parseUpstreams(String raw) {
+        return Arrays.stream(raw.split(","))
+                .map(String::trim)
+                .filter(value -> !value.isEmpty())
+                .map(ConfigLoader::parseUpstream)
+                .toList();
+    }
+
+    private static UpstreamTarget parseUpstream(String value) {
+        int separator = value.lastIndexOf(UPSTREAM_WEIGHT_SEPARATOR);
+        if (separator < 0) {
+            return new UpstreamTarget(value, UPSTREAM_DEFAULT_WEIGHT);
+        }
+        return new UpstreamTarget(value.substring(0, separator).trim(),
+                Integer.parseInt(value.substring(separator + 1).trim()));
+    }
+
+    /**
+     * Reads the groups named by {@code upstream.groups} from their {@code upstream.group.<name>.*} keys. A group
+     * without its own urls uses the main upstreams, a group without a timeout uses {@code request.timeout.ms}.
+     */
+    private static List<UpstreamGroup> loadUpstreamGroups(Properties properties, List<UpstreamTarget> upstreams,
+                                                          int requestTimeoutMs) {
+        return get(properties, UPSTREAM_GROUPS).stream()
+                .map(name -> {
+                    String prefix = UPSTREAM_GROUP_PREFIX + name;
+                    List<UpstreamTarget> groupUpstreams =
+                            get(properties, entry(prefix + Keys.UPSTREAM_GROUP_URLS, upstreams, ConfigLoader::parseUpstreams));
+                    return new UpstreamGroup(name,
+                            get(properties, entry(prefix + Keys.UPSTREAM_GROUP_METHODS, List.of(), ConfigLoader::parseList)),
+                            groupUpstreams.isEmpty() ? upstreams : groupUpstreams,
+                            get(properties, entry(prefix + Keys.UPSTREAM_GROUP_POOL_SIZE,
+                                    Defaults.UPSTREAM_GROUP_POOL_SIZE, Integer::parseInt)),
+                            get(properties, entry(prefix + Keys.UPSTREAM_GROUP_TIMEOUT_MS,
+                                    requestTimeoutMs, Integer::parseInt)));
+                })
+                .toList();
+    }
+
+    private static String toWebSocketUrl(String httpUrl) {
+        return httpUrl.startsWith(SCHEME_HTTP) ? SCHEME_WS + httpUrl.substring(SCHEME_HTTP.length()) : httpUrl;
+    }
+
+    private static Map<String, Integer> parseWeights(String raw) {
+        return Arrays.stream(raw.split(","))
+                .map(String::trim)
+                .filter(value -> !value.isEmpty())
+                .collect(Collectors.toUnmodifiableMap(
+                        value -> value.substring(0, value.lastIndexOf(METHOD_WEIGHT_SEPARATOR)).trim(),
+                        value -> Integer.parseInt(value.substring(value.lastIndexOf(METHOD_WEIGHT_SEPARATOR) + 1).trim())));
+    }
+
+    private static List<String> parseList(String raw) {
+        return Arrays.stream(raw.split(","))
+                .map(String::trim)
+                .filter(value -> !value.isEmpty())
+                .distinct()
+                .toList();
+    }
+
+    private static Set<String> parseSet(String raw) {
+        return Set.copyOf(Arrays.stream(raw.split(","))
+                .map(String::trim)
+                .filter(value -> !value.isEmpty())
+                .toList());
+    }
+
     private static <T> T get(Properties properties, PropertyEntry<T> entry) {
         String raw = properties.getProperty(entry.key());
         if (raw == null || raw.isBlank()) {
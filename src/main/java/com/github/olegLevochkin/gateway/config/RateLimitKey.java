@@ -0,0 +1,15 @@
+package com.github.olegLevochkin.gateway.config;
+
+import java.util.Locale;
+
+/** What a rate-limit bucket is keyed by. */
+public enum RateLimitKey {
+    /** Client IP, preferring the first {@code X-Forwarded-For} entry. */
+    IP,
+    /** Value of the API key header; requests without one fall back to the client IP. */
+    API_KEY;
+
+    static RateLimitKey parse(String raw) {
+        return valueOf(raw.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,35 @@
+package com.github.olegLevochkin.gateway.config;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A named set of upstreams that serves the methods matching {@code methods}; a pattern is either an exact method
+ * name or a prefix followed by {@code *}.
+ */
+public record UpstreamGroup(String name, List<String> methods, List<UpstreamTarget> upstreams, int poolSize,
+                            int timeoutMs) {
+
+    public static final String WILDCARD = "*";
+
+    public UpstreamGroup {
+        Objects.requireNonNull(name, "name must not be null");
+        if (name.isBlank()) {
+            throw new IllegalArgumentException("name must not be blank");
+        }
+        if (methods == null || methods.isEmpty()) {
+            throw new IllegalArgumentException("methods of group " + name + " must not be empty");
+        }
+        if (upstreams == null || upstreams.isEmpty()) {
+            throw new IllegalArgumentException("upstreams of group " + name + " must not be empty");
+        }
+        if (poolSize <= 0) {
+            throw new IllegalArgumentException("poolSize of group " + name + " must be > 0");
+        }
+        if (timeoutMs <= 0) {
+            throw new IllegalArgumentException("timeoutMs of group " + name + " must be > 0");
+        }
+        methods = List.copyOf(methods);
+        upstreams = List.copyOf(upstreams);
+    }
+}
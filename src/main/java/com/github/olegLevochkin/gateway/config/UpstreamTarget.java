@@ -0,0 +1,16 @@
+package com.github.olegLevochkin.gateway.config;
+
+import java.util.Objects;
+
+public record UpstreamTarget(String url, int weight) {
+
+    public UpstreamTarget {
+        Objects.requireNonNull(url, "url must not be null");
+        if (url.isBlank()) {
+            throw new IllegalArgumentException("url must not be blank");
+        }
+        if (weight <= 0) {
+            throw new IllegalArgumentException("weight must be > 0");
+        }
+    }
+}
@@ -1,37 +1,50 @@
 package com.github.olegLevochkin.gateway.http;
 
+import com.github.olegLevochkin.gateway.accesslog.AccessLogRecord;
+import com.github.olegLevochkin.gateway.accesslog.AccessLogWriter;
+import com.github.olegLevochkin.gateway.rpc.RpcHandler;
 import io.vertx.core.Handler;
 import io.vertx.core.http.HttpHeaders;
 import io.vertx.ext.web.RoutingContext;
-import lombok.extern.slf4j.Slf4j;
+import lombok.RequiredArgsConstructor;
 
-@Slf4j
+import java.util.List;
+
+/**
+ * Captures one {@link AccessLogRecord} per request when its response has been written and hands it to the
+ * {@link AccessLogWriter}; nothing is formatted or written on the event loop.
+ */
+@RequiredArgsConstructor
 public final class AccessLogHandler implements Handler<RoutingContext> {
 
-    private static final long NANOS_PER_MILLI = 1_000_000L;
+    private static final long NANOS_PER_MICRO = 1_000L;
     private static final String HEADER_X_FORWARDED_FOR = "X-Forwarded-For";
     private static final String UNKNOWN = "-";
 
+    private final AccessLogWriter writer;
+
     @Override
     public void handle(RoutingContext context) {
         final long startedAtNanos = System.nanoTime();
 
         context.addBodyEndHandler(v -> {
-            long durationMillis = (System.nanoTime() - startedAtNanos) / NANOS_PER_MILLI;
-
-            String userAgent = getHeader(context);
-            String clientIp = resolveClientIp(context);
-            int status = context.response().getStatusCode();
-            long bytesWritten = context.response().bytesWritten();
+            long durationMicros = (System.nanoTime() - startedAtNanos) / NANOS_PER_MICRO;
+            List<String> methods = context.get(RpcHandler.CONTEXT_METHODS);
+            Long upstreamNanos = context.get(RpcHandler.CONTEXT_UPSTREAM_NANOS);
+            String requestId = context.get(RouterFactory.CONTEXT_REQUEST_ID);
 
-            log.info("{} {} {} {}ms bytes={} ua={} ip={}",
-                    context.request().method(),
+            writer.append(new AccessLogRecord(
+                    System.currentTimeMillis(),
+                    requestId != null ? requestId : UNKNOWN,
+                    context.request().method().name(),
                     context.request().path(),
-                    status,
-                    durationMillis,
-                    bytesWritten,
-                    userAgent,
-                    clientIp);
+                    context.response().getStatusCode(),
+                    durationMicros,
+                    context.response().bytesWritten(),
+                    getHeader(context),
+                    resolveClientIp(context),
+                    methods != null ? methods : List.of(),
+                    upstreamNanos != null ? upstreamNanos / NANOS_PER_MICRO : AccessLogRecord.NONE));
         });
 
         context.next();
@@ -42,7 +55,7 @@ public final class AccessLogHandler implements Handler<RoutingContext> {
         return value != null && !value.isBlank() ? value : UNKNOWN;
     }
 
-    private static String resolveClientIp(RoutingContext context) {
+    static String resolveClientIp(RoutingContext context) {
         String forwarded = context.request().headers().get(HEADER_X_FORWARDED_FOR);
         if (forwarded != null && !forwarded.isBlank()) {
             int comma = forwarded.indexOf(',');
@@ -0,0 +1,156 @@
+package com.github.olegLevochkin.gateway.http;
+
+import com.github.olegLevochkin.gateway.SharedComponents;
+import com.github.olegLevochkin.gateway.config.AppConfig;
+import com.github.olegLevochkin.gateway.rpc.BatchSplittingDispatcher;
+import com.github.olegLevochkin.gateway.rpc.CachingDispatcher;
+import com.github.olegLevochkin.gateway.rpc.ClusterDispatcher;
+import com.github.olegLevochkin.gateway.rpc.CoalescingDispatcher;
+import com.github.olegLevochkin.gateway.rpc.HeadCachingDispatcher;
+import com.github.olegLevochkin.gateway.rpc.HedgingDispatcher;
+import com.github.olegLevochkin.gateway.rpc.JsonRpcDispatcher;
+import com.github.olegLevochkin.gateway.rpc.LogsSplittingDispatcher;
+import com.github.olegLevochkin.gateway.rpc.MethodRouter;
+import com.github.olegLevochkin.gateway.rpc.MethodRoutingDispatcher;
+import com.github.olegLevochkin.gateway.rpc.MicroBatchingDispatcher;
+import com.github.olegLevochkin.gateway.rpc.UpstreamDispatcher;
+import com.github.olegLevochkin.gateway.rpc.UpstreamPool;
+import com.github.olegLevochkin.gateway.rpc.WebSocketRpcHandler;
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Promise;
+import io.vertx.core.http.HttpServer;
+import io.vertx.core.http.HttpServerOptions;
+import io.vertx.core.net.PfxOptions;
+import io.vertx.ext.web.Router;
+import io.vertx.micrometer.backends.BackendRegistries;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Slf4j
+@RequiredArgsConstructor
+public final class HttpServerVerticle extends AbstractVerticle {
+
+    private static final String BIND_HOST = "0.0.0.0";
+
+    private final AppConfig config;
+    private final SharedComponents shared;
+
+    private UpstreamPool pool;
+    private final List<UpstreamPool> groupPools = new ArrayList<>();
+
+    @Override
+    public void start(Promise<Void> startPromise) {
+        HttpServerOptions options = buildServerOptions(config.httpPort());
+
+        pool = UpstreamPool.create(vertx, config, shared.upstreams());
+        JsonRpcDispatcher dispatcher = createDispatcher();
+        Router router = RouterFactory.create(vertx, config, pool, dispatcher, shared.rpcMetrics(),
+                shared.rateLimiter(), shared.fairScheduler(), shared.clusterPeers(), shared.accessLogWriter());
+
+        HttpServer server = vertx.createHttpServer(options);
+        if (shared.subscriptionHub() != null) {
+            server.webSocketHandler(new WebSocketRpcHandler(
+                    dispatcher != null ? dispatcher : new UpstreamDispatcher(pool, shared.rpcMetrics()),
+                    shared.subscriptionHub(), shared.rpcMetrics(), BackendRegistries.getDefaultNow(), config.requestTimeoutMs(),
+                    config.websocketMaxQueueBytes(), config.websocketMaxPendingRequests()));
+        }
+        server.requestHandler(router)
+                .listen()
+                .<Void>mapEmpty()
+                .onComplete(startPromise);
+    }
+
+    @Override
+    public void stop() {
+        if (pool != null) {
+            pool.close();
+            pool = null;
+        }
+        groupPools.forEach(UpstreamPool::close);
+        groupPools.clear();
+    }
+
+    private JsonRpcDispatcher createDispatcher() {
+        JsonRpcDispatcher upstream = new UpstreamDispatcher(pool, shared.rpcMetrics());
+        JsonRpcDispatcher dispatcher = upstream;
+        if (shared.hedgePolicy() != null) {
+            dispatcher = new HedgingDispatcher(pool, shared.hedgePolicy(), shared.rpcMetrics());
+        }
+        MethodRouter router = shared.methodRouter();
+        if (router != null) {
+            List<JsonRpcDispatcher> groups = new ArrayList<>(router.groups().size());
+            for (int route = 0; route < router.groups().size(); route++) {
+                UpstreamPool groupPool = UpstreamPool.create(vertx, config, router.nodes(route),
+                        router.groups().get(route).poolSize());
+                groupPools.add(groupPool);
+                groups.add(shared.hedgePolicy() != null
+                        ? new HedgingDispatcher(groupPool, shared.hedgePolicy(), shared.rpcMetrics())
+                        : new UpstreamDispatcher(groupPool, shared.rpcMetrics()));
+            }
+            dispatcher = new MethodRoutingDispatcher(dispatcher, router, List.copyOf(groups));
+        }
+        if (config.microBatchEnabled()) {
+            dispatcher = new MicroBatchingDispatcher(dispatcher, vertx, config.microBatchWindowMs(),
+                    config.microBatchMaxSize(), BackendRegistries.getDefaultNow());
+        }
+        if (config.batchSplitEnabled()) {
+            dispatcher = new BatchSplittingDispatcher(dispatcher, config.batchChunkSize(), config.batchMaxConcurrency());
+        }
+        if (config.logsSplitEnabled()) {
+            dispatcher = new LogsSplittingDispatcher(dispatcher,
+                    shared.headCache() != null ? shared.headCache().tracker() : null,
+                    config.logsSplitWindowBlocks(), config.logsSplitMaxConcurrency(), config.logsSplitMaxWindows(),
+                    config.logsSplitMaxBytes());
+        }
+        if (shared.clusterPeers() != null) {
+            // calls other nodes ask for are answered from this node's cache and in-flight calls, never forwarded again
+            ClusterDispatcher.serve(shared.clusterPeers(), withCaching(withCoalescing(dispatcher)));
+            dispatcher = new ClusterDispatcher(dispatcher, shared.clusterPeers(), shared.responseCache(),
+                    shared.inFlightCalls());
+        }
+        dispatcher = withCaching(withCoalescing(dispatcher));
+        if (shared.headCache() != null) {
+            dispatcher = new HeadCachingDispatcher(dispatcher, shared.headCache());
+        }
+        return dispatcher == upstream ? null : dispatcher;
+    }
+
+    private JsonRpcDispatcher withCoalescing(JsonRpcDispatcher dispatcher) {
+        if (shared.inFlightCalls() != null) {
+            dispatcher = new CoalescingDispatcher(dispatcher, shared.inFlightCalls());
+        }
+        return dispatcher;
+    }
+
+    private JsonRpcDispatcher withCaching(JsonRpcDispatcher dispatcher) {
+        if (shared.responseCache() != null) {
+            dispatcher = new CachingDispatcher(dispatcher, shared.responseCache());
+        }
+        return dispatcher;
+    }
+
+    private HttpServerOptions buildServerOptions(int port) {
+        HttpServerOptions options = new HttpServerOptions()
+                .setHost(BIND_HOST)
+                .setPort(port)
+                .setReusePort(config.tcpReusePort())
+                .setTcpFastOpen(config.tcpFastOpen())
+                .setTcpNoDelay(config.tcpNoDelay())
+                .setHttp2ClearTextEnabled(config.http2Enabled())
+                .setMaxWebSocketMessageSize(config.maxBodyBytes())
+                .setCompressionSupported(config.compressionEnabled())
+                .setCompressionLevel(config.compressionLevel());
+
+        if (config.tlsEnabled()) {
+            options.setSsl(true)
+                    .setUseAlpn(config.http2Enabled())
+                    .setKeyCertOptions(new PfxOptions()
+                            .setPath(config.pkcs12Path())
+                            .setPassword(config.pkcs12Password()));
+        }
+        return options;
+    }
+}
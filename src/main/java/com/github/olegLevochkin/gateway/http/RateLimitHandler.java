@@ -0,0 +1,49 @@
+package com.github.olegLevochkin.gateway.http;
+
+import com.github.olegLevochkin.gateway.config.RateLimitKey;
+import com.github.olegLevochkin.gateway.ratelimit.RateLimiter;
+import com.github.olegLevochkin.gateway.rpc.JsonRpcErrors;
+import io.vertx.core.Handler;
+import io.vertx.ext.web.RoutingContext;
+
+import static io.netty.handler.codec.http.HttpHeaderValues.APPLICATION_JSON;
+import static io.netty.handler.codec.http.HttpResponseStatus.TOO_MANY_REQUESTS;
+import static io.vertx.core.http.HttpHeaders.CONTENT_TYPE;
+import static io.vertx.core.http.HttpHeaders.RETRY_AFTER;
+
+/**
+ * Charges one token per request before the body is read, so rejected requests cost neither a body buffer nor a
+ * JSON parse. Per-method weights beyond that first token are charged by the RPC handler once the methods are known.
+ */
+public record RateLimitHandler(RateLimiter limiter, RateLimitKey keyType, String apiKeyHeader)
+        implements Handler<RoutingContext> {
+
+    private static final long BASE_COST = 1;
+
+    @Override
+    public void handle(RoutingContext context) {
+        String key = clientKey(context, keyType, apiKeyHeader);
+        long waitNanos = limiter.tryAcquire(key, BASE_COST);
+        if (waitNanos != RateLimiter.ALLOWED) {
+            context.response()
+                    .setStatusCode(TOO_MANY_REQUESTS.code())
+                    .putHeader(RETRY_AFTER, Long.toString(RateLimiter.retryAfterSeconds(waitNanos)))
+                    .putHeader(CONTENT_TYPE.toString(), APPLICATION_JSON.toString())
+                    .end(JsonRpcErrors.limitExceeded(null).encode());
+            return;
+        }
+        context.put(RateLimiter.CONTEXT_KEY, key);
+        context.next();
+    }
+
+    /** The key a client is known by: its API key, or its IP when keyed by IP or when the header is missing. */
+    static String clientKey(RoutingContext context, RateLimitKey keyType, String apiKeyHeader) {
+        if (keyType == RateLimitKey.API_KEY) {
+            String apiKey = context.request().getHeader(apiKeyHeader);
+            if (apiKey != null && !apiKey.isBlank()) {
+                return RateLimiter.KEY_PREFIX_API_KEY + apiKey;
+            }
+        }
+        return RateLimiter.KEY_PREFIX_IP + AccessLogHandler.resolveClientIp(context);
+    }
+}
@@ -1,20 +1,29 @@
 package com.github.olegLevochkin.gateway.http;
 
+import com.github.olegLevochkin.gateway.accesslog.AccessLogWriter;
+import com.github.olegLevochkin.gateway.cluster.ClusterPeers;
 import com.github.olegLevochkin.gateway.config.AppConfig;
 import com.github.olegLevochkin.gateway.metrics.JsonRpcMetricsHandler;
+import com.github.olegLevochkin.gateway.metrics.RpcMetrics;
+import com.github.olegLevochkin.gateway.ratelimit.FairScheduler;
+import com.github.olegLevochkin.gateway.ratelimit.RateLimiter;
+import com.github.olegLevochkin.gateway.rpc.JsonRpcDispatcher;
+import com.github.olegLevochkin.gateway.rpc.ResponseCompression;
 import com.github.olegLevochkin.gateway.rpc.RpcHandler;
-import com.github.olegLevochkin.gateway.rpc.WebClientRpcForwarder;
-import io.micrometer.core.instrument.MeterRegistry;
+import com.github.olegLevochkin.gateway.rpc.StreamingRpcHandler;
+import com.github.olegLevochkin.gateway.rpc.UpstreamPool;
 import io.vertx.core.Vertx;
 import io.vertx.ext.web.Router;
 import io.vertx.ext.web.RoutingContext;
 import io.vertx.ext.web.handler.BodyHandler;
 import io.vertx.micrometer.PrometheusScrapingHandler;
-import io.vertx.micrometer.backends.BackendRegistries;
 import lombok.experimental.UtilityClass;
 
 import java.util.UUID;
 
+import static io.netty.handler.codec.http.HttpHeaderValues.IDENTITY;
+import static io.vertx.core.http.HttpHeaders.CONTENT_ENCODING;
+
 @UtilityClass
 public class RouterFactory {
 
@@ -23,25 +32,56 @@ public class RouterFactory {
     private static final String PATH_PROMETHEUS = "/prometheus";
     private static final String PATH_HEALTH = "/health";
 
-    private static final String CONTEXT_REQUEST_ID = "reqId";
+    static final String CONTEXT_REQUEST_ID = "reqId";
     private static final String HEADER_REQUEST_ID = "X-Request-Id";
     private static final String HEALTH_OK = "OK";
 
     public static Router create(Vertx vertx,
                                 AppConfig config,
-                                WebClientRpcForwarder forwarder) {
+                                UpstreamPool pool,
+                                JsonRpcDispatcher dispatcher,
+                                RpcMetrics metrics,
+                                RateLimiter rateLimiter,
+                                FairScheduler scheduler,
+                                ClusterPeers clusterPeers,
+                                AccessLogWriter accessLogWriter) {
         final Router router = Router.router(vertx);
-
-        router.route().handler(createBodyHandler(config));
-        router.route().handler(new AccessLogHandler());
+        if (accessLogWriter != null) {
+            router.route().handler(new AccessLogHandler(accessLogWriter));
+        }
         router.route().handler(RouterFactory::ensureRequestId);
+        ResponseCompression compression = config.compressionEnabled()
+                ? new ResponseCompression(config.compressionMinBytes())
+                : null;
 
-        final MeterRegistry meterRegistry = BackendRegistries.getDefaultNow();
-
-        router.post(PATH_RPC).handler(new RpcHandler(forwarder, meterRegistry, config.requestTimeoutMs()));
-        router.get(PATH_METRICS).handler(new JsonRpcMetricsHandler(meterRegistry));
+        if (rateLimiter != null) {
+            // rejects before the body is read or parsed; per-method weights are charged by RpcHandler
+            router.post(PATH_RPC).handler(new RateLimitHandler(rateLimiter, config.rateLimitKey(),
+                    config.rateLimitApiKeyHeader()));
+        } else if (scheduler != null) {
+            // the fair scheduler queues per client under the same key as the rate limiter would
+            router.post(PATH_RPC).handler(context -> {
+                context.put(RateLimiter.CONTEXT_KEY, RateLimitHandler.clientKey(context, config.rateLimitKey(),
+                        config.rateLimitApiKeyHeader()));
+                context.next();
+            });
+        }
+        if (config.streamingEnabled()) {
+            // registered ahead of the BodyHandler so that the body is never aggregated
+            router.post(PATH_RPC).handler(new StreamingRpcHandler(pool, metrics,
+                    config.requestTimeoutMs(), config.maxBodyBytes(), compression));
+        }
+        router.route().handler(createBodyHandler(config));
+        if (!config.streamingEnabled()) {
+            router.post(PATH_RPC).handler(new RpcHandler(pool, dispatcher, metrics,
+                    config.requestTimeoutMs(), config.streamingValidatorEnabled(),
+                    config.offloadEnabled() ? config.offloadMinBytes() : 0, rateLimiter, scheduler, compression));
+        }
+        router.get(PATH_METRICS).handler(new JsonRpcMetricsHandler(metrics, clusterPeers));
         router.get(PATH_PROMETHEUS).handler(PrometheusScrapingHandler.create());
-        router.get(PATH_HEALTH).handler(ctx -> ctx.response().end(HEALTH_OK));
+        router.get(PATH_HEALTH).handler(ctx -> ctx.response()
+                .putHeader(CONTENT_ENCODING, IDENTITY)
+                .end(HEALTH_OK));
 
         return router;
     }
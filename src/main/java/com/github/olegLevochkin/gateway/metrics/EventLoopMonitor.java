@@ -0,0 +1,132 @@
+package com.github.olegLevochkin.gateway.metrics;
+
+import com.github.olegLevochkin.gateway.config.AppConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.util.concurrent.EventExecutor;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxException;
+import io.vertx.core.impl.VertxInternal;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.olegLevochkin.gateway.metrics.MetricsNames.JSONRPC_BLOCKED_THREAD_DURATION;
+import static com.github.olegLevochkin.gateway.metrics.MetricsNames.JSONRPC_EVENT_LOOP_LAG;
+import static com.github.olegLevochkin.gateway.metrics.MetricsNames.TAG_THREAD;
+
+/**
+ * Shows when event loops are starved. Every {@code eventloop.lag.interval.ms} a probe task is scheduled on each
+ * event loop and the delay between its due time and the time it actually ran is recorded per loop thread. Vert.x'
+ * blocked-thread checker is pointed at {@code eventloop.blocked.threshold.ms} and logs, as Vert.x would, each time
+ * it finds a thread still busy with one task beyond that. It reports an ongoing stall again on every check, so a
+ * stall is recorded once, with the last time blocked it was reported with, when the checker stops reporting it.
+ */
+@Slf4j
+public final class EventLoopMonitor implements AutoCloseable {
+
+    private static final Duration MAX_EXPECTED_LAG = Duration.ofSeconds(10);
+
+    /** A stall the checker reported, and when it last did. */
+    private record Stall(long durationNanos, long reportedAtNanos) {
+    }
+
+    private final Vertx vertx;
+    private final MeterRegistry meterRegistry;
+    private final long intervalNanos;
+    private final long checkIntervalNanos;
+    private final Map<Thread, Stall> stalls = new ConcurrentHashMap<>();
+    private final long sweepTimerId;
+    private volatile boolean running = true;
+
+    private EventLoopMonitor(Vertx vertx, AppConfig config, MeterRegistry meterRegistry) {
+        this.vertx = vertx;
+        this.meterRegistry = meterRegistry;
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(config.eventLoopLagIntervalMs());
+        // the application runs the checker every eventloop.blocked.threshold.ms
+        this.checkIntervalNanos = TimeUnit.MILLISECONDS.toNanos(config.eventLoopBlockedThresholdMs());
+        this.sweepTimerId = vertx.setPeriodic(config.eventLoopBlockedThresholdMs(), id -> sweep());
+    }
+
+    public static EventLoopMonitor start(Vertx vertx, AppConfig config, MeterRegistry meterRegistry) {
+        EventLoopMonitor monitor = new EventLoopMonitor(vertx, config, meterRegistry);
+        hook(vertx, monitor);
+        return monitor;
+    }
+
+    /**
+     * The only use of Vert.x internals ({@link VertxInternal} and {@code io.vertx.core.impl.btc}), written against
+     * Vert.x 4.5.7. They are not public API and may change in any release; check them when upgrading Vert.x.
+     */
+    private static void hook(Vertx vertx, EventLoopMonitor monitor) {
+        VertxInternal internal = (VertxInternal) vertx;
+        for (EventExecutor loop : internal.getEventLoopGroup()) {
+            loop.execute(() -> monitor.probe(loop, monitor.timer(JSONRPC_EVENT_LOOP_LAG)));
+        }
+        internal.blockedThreadChecker().setThreadBlockedHandler(event -> monitor.blocked(event.thread(),
+                event.duration(), event.maxExecTime(), event.warningExceptionTime()));
+    }
+
+    private void probe(EventExecutor loop, Timer lag) {
+        if (!running) return;
+        long dueAt = System.nanoTime() + intervalNanos;
+        loop.schedule(() -> {
+            lag.record(Math.max(0, System.nanoTime() - dueAt), TimeUnit.NANOSECONDS);
+            probe(loop, lag);
+        }, intervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /** Called on the checker's thread with the time {@code thread} has been running its current task so far. */
+    private void blocked(Thread thread, long durationNanos, long maxExecTimeNanos, long warningExceptionTimeNanos) {
+        Stall previous = stalls.put(thread, new Stall(durationNanos, System.nanoTime()));
+        if (previous != null && durationNanos < previous.durationNanos()) {
+            // the previous stall ended between two checks, and this is a new one
+            record(thread, previous);
+        }
+        String message = "Thread " + thread.getName() + " has been blocked for "
+                + TimeUnit.NANOSECONDS.toMillis(durationNanos) + " ms, time limit is "
+                + TimeUnit.NANOSECONDS.toMillis(maxExecTimeNanos) + " ms";
+        if (durationNanos <= warningExceptionTimeNanos) {
+            log.warn(message);
+        } else {
+            VertxException stackTrace = new VertxException("Thread blocked");
+            stackTrace.setStackTrace(thread.getStackTrace());
+            log.warn(message, stackTrace);
+        }
+    }
+
+    /** Records the stalls the checker has not reported for two checks, as they have ended. */
+    private void sweep() {
+        long endedBefore = System.nanoTime() - 2 * checkIntervalNanos;
+        stalls.forEach((thread, stall) -> {
+            if (stall.reportedAtNanos() < endedBefore && stalls.remove(thread, stall)) {
+                record(thread, stall);
+            }
+        });
+    }
+
+    private void record(Thread thread, Stall stall) {
+        timer(JSONRPC_BLOCKED_THREAD_DURATION, thread).record(stall.durationNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    private Timer timer(String name) {
+        return timer(name, Thread.currentThread());
+    }
+
+    private Timer timer(String name, Thread thread) {
+        return Timer.builder(name)
+                .tag(TAG_THREAD, thread.getName())
+                .publishPercentileHistogram()
+                .maximumExpectedValue(MAX_EXPECTED_LAG)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        vertx.cancelTimer(sweepTimerId);
+    }
+}
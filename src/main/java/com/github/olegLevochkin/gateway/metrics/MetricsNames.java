@@ -7,4 +7,45 @@ import lombok.NoArgsConstructor;
 public final class MetricsNames {
     public static final String JSONRPC_CALLS_TOTAL = "jsonrpc_calls_total";
     public static final String TAG_METHOD = "method";
+    public static final String TAG_CODE = "code";
+    public static final String TAG_UPSTREAM = "upstream";
+    public static final String TAG_RESULT = "result";
+    public static final String TAG_THREAD = "thread";
+    public static final String TAG_TENANT = "tenant";
+    public static final String CACHE_JSONRPC_RESPONSES = "jsonrpc_responses";
+    public static final String CACHE_JSONRPC_LATEST_RESPONSES = "jsonrpc_latest_responses";
+    public static final String JSONRPC_DISK_CACHE_GETS_TOTAL = "jsonrpc_disk_cache_gets_total";
+    public static final String JSONRPC_DISK_CACHE_BYTES = "jsonrpc_disk_cache_bytes";
+    public static final String JSONRPC_DISK_CACHE_CORRUPT_TOTAL = "jsonrpc_disk_cache_corrupt_total";
+    public static final String JSONRPC_HEAD_BLOCK = "jsonrpc_head_block";
+    public static final String JSONRPC_HEAD_REORGS_TOTAL = "jsonrpc_head_reorgs_total";
+    public static final String JSONRPC_COALESCED_TOTAL = "jsonrpc_coalesced_total";
+    public static final String JSONRPC_UPSTREAM_BATCH_SIZE = "jsonrpc_upstream_batch_size";
+    public static final String JSONRPC_UPSTREAM_LATENCY = "jsonrpc_upstream_latency";
+    public static final String JSONRPC_UPSTREAM_SELECTIONS_TOTAL = "jsonrpc_upstream_selections_total";
+    public static final String JSONRPC_UPSTREAM_IN_FLIGHT = "jsonrpc_upstream_in_flight";
+    public static final String JSONRPC_UPSTREAM_CONCURRENCY_LIMIT = "jsonrpc_upstream_concurrency_limit";
+    public static final String JSONRPC_UPSTREAM_QUEUE_DEPTH = "jsonrpc_upstream_queue_depth";
+    public static final String JSONRPC_UPSTREAM_SHED_TOTAL = "jsonrpc_upstream_shed_total";
+    public static final String JSONRPC_HEDGES_TOTAL = "jsonrpc_hedges_total";
+    public static final String JSONRPC_HEDGE_WINS_TOTAL = "jsonrpc_hedge_wins_total";
+    public static final String JSONRPC_WS_CONNECTIONS = "jsonrpc_ws_connections";
+    public static final String JSONRPC_WS_UPSTREAM_SUBSCRIPTIONS = "jsonrpc_ws_upstream_subscriptions";
+    public static final String JSONRPC_WS_EVENTS_TOTAL = "jsonrpc_ws_events_total";
+    public static final String JSONRPC_WS_SLOW_CONSUMERS_TOTAL = "jsonrpc_ws_slow_consumers_total";
+    public static final String JSONRPC_RATE_LIMITED_TOTAL = "jsonrpc_rate_limited_total";
+    public static final String JSONRPC_RATE_LIMIT_KEYS = "jsonrpc_rate_limit_keys";
+    public static final String JSONRPC_FAIR_QUEUE_DEPTH = "jsonrpc_fair_queue_depth";
+    public static final String JSONRPC_FAIR_WAIT = "jsonrpc_fair_wait";
+    public static final String JSONRPC_FAIR_SHED_TOTAL = "jsonrpc_fair_shed_total";
+    public static final String JSONRPC_CLUSTER_REQUESTS_TOTAL = "jsonrpc_cluster_requests_total";
+    public static final String JSONRPC_CLUSTER_NODES_UP = "jsonrpc_cluster_nodes_up";
+    public static final String JSONRPC_METHOD_LATENCY = "jsonrpc_method_latency";
+    public static final String JSONRPC_ERRORS_TOTAL = "jsonrpc_errors_total";
+    public static final String JSONRPC_REQUEST_BATCH_SIZE = "jsonrpc_request_batch_size";
+    public static final String JSONRPC_REQUEST_BYTES = "jsonrpc_request_bytes";
+    public static final String JSONRPC_RESPONSE_BYTES = "jsonrpc_response_bytes";
+    public static final String JSONRPC_EVENT_LOOP_LAG = "jsonrpc_event_loop_lag";
+    public static final String JSONRPC_BLOCKED_THREAD_DURATION = "jsonrpc_blocked_thread_duration";
+    public static final String JSONRPC_ACCESS_LOG_DROPPED_TOTAL = "jsonrpc_access_log_dropped_total";
 }
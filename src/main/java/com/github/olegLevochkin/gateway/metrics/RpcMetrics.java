@@ -0,0 +1,161 @@
+package com.github.olegLevochkin.gateway.metrics;
+
+import com.github.olegLevochkin.gateway.config.AppConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.olegLevochkin.gateway.metrics.MetricsNames.JSONRPC_CALLS_TOTAL;
+import static com.github.olegLevochkin.gateway.metrics.MetricsNames.JSONRPC_ERRORS_TOTAL;
+import static com.github.olegLevochkin.gateway.metrics.MetricsNames.JSONRPC_METHOD_LATENCY;
+import static com.github.olegLevochkin.gateway.metrics.MetricsNames.JSONRPC_REQUEST_BATCH_SIZE;
+import static com.github.olegLevochkin.gateway.metrics.MetricsNames.JSONRPC_REQUEST_BYTES;
+import static com.github.olegLevochkin.gateway.metrics.MetricsNames.JSONRPC_RESPONSE_BYTES;
+import static com.github.olegLevochkin.gateway.metrics.MetricsNames.TAG_CODE;
+import static com.github.olegLevochkin.gateway.metrics.MetricsNames.TAG_METHOD;
+
+/**
+ * Per-method meters resolved once and then looked up by method name, so the hot path costs a map hit instead of a
+ * registry lookup with tag allocation. Only {@code metricsMaxMethods} distinct, well-formed method names get their
+ * own meters; anything beyond that (or anything that does not look like a method name) is counted as
+ * {@value #OTHER}, which keeps a client sending random method names from growing the registry.
+ */
+public final class RpcMetrics {
+
+    public static final String OTHER = "other";
+
+    private static final int MAX_METHOD_LENGTH = 64;
+    private static final int MAX_CODES_PER_METHOD = 32;
+    private static final double MAX_EXPECTED_BATCH_SIZE = 1_000;
+    private static final double MAX_EXPECTED_BYTES = 64 * 1024 * 1024;
+    private static final String BASE_UNIT_BYTES = "bytes";
+
+    private final MeterRegistry meterRegistry;
+    private final int maxMethods;
+    private final Duration maxExpectedLatency;
+    private final Map<String, MethodMeters> byMethod = new ConcurrentHashMap<>();
+    private final MethodMeters other;
+    private final DistributionSummary batchSizes;
+    private final DistributionSummary requestBytes;
+    private final DistributionSummary responseBytes;
+
+    private RpcMetrics(AppConfig config, MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.maxMethods = config.metricsMaxMethods();
+        this.maxExpectedLatency = Duration.ofMillis(config.requestTimeoutMs());
+        this.other = new MethodMeters(OTHER);
+        this.batchSizes = DistributionSummary.builder(JSONRPC_REQUEST_BATCH_SIZE)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(1.0)
+                .maximumExpectedValue(MAX_EXPECTED_BATCH_SIZE)
+                .register(meterRegistry);
+        this.requestBytes = bytesSummary(JSONRPC_REQUEST_BYTES);
+        this.responseBytes = bytesSummary(JSONRPC_RESPONSE_BYTES);
+    }
+
+    public static RpcMetrics create(AppConfig config, MeterRegistry meterRegistry) {
+        return new RpcMetrics(config, meterRegistry);
+    }
+
+    /** Meters of {@code method}, or of {@value #OTHER} once the cap is reached or the name is not plausible. */
+    public MethodMeters method(String method) {
+        MethodMeters meters = byMethod.get(method);
+        if (meters != null) return meters;
+        if (!isPlausibleMethod(method) || byMethod.size() >= maxMethods) return other;
+        return byMethod.computeIfAbsent(method, MethodMeters::new);
+    }
+
+    public void recordBatchSize(int calls) {
+        batchSizes.record(calls);
+    }
+
+    public void recordRequestBytes(long bytes) {
+        requestBytes.record(bytes);
+    }
+
+    public void recordResponseBytes(long bytes) {
+        responseBytes.record(bytes);
+    }
+
+    /** Calls seen per method, {@value #OTHER} last. */
+    public Map<String, Long> callCounts() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        byMethod.forEach((method, meters) -> result.put(method, (long) meters.calls.count()));
+        long others = (long) other.calls.count();
+        if (others > 0) result.put(OTHER, others);
+        return result;
+    }
+
+    private DistributionSummary bytesSummary(String name) {
+        return DistributionSummary.builder(name)
+                .baseUnit(BASE_UNIT_BYTES)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(1.0)
+                .maximumExpectedValue(MAX_EXPECTED_BYTES)
+                .register(meterRegistry);
+    }
+
+    private static boolean isPlausibleMethod(String method) {
+        if (method == null || method.isEmpty() || method.length() > MAX_METHOD_LENGTH) return false;
+        for (int i = 0; i < method.length(); i++) {
+            char c = method.charAt(i);
+            boolean allowed = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+            if (!allowed) return false;
+        }
+        return true;
+    }
+
+    public final class MethodMeters {
+        private final String method;
+        private final Counter calls;
+        private final Timer latency;
+        private final Map<Integer, Counter> errorsByCode = new ConcurrentHashMap<>();
+        private volatile Counter otherErrors;
+
+        private MethodMeters(String method) {
+            this.method = method;
+            this.calls = meterRegistry.counter(JSONRPC_CALLS_TOTAL, TAG_METHOD, method);
+            this.latency = Timer.builder(JSONRPC_METHOD_LATENCY)
+                    .tag(TAG_METHOD, method)
+                    .publishPercentileHistogram()
+                    .maximumExpectedValue(maxExpectedLatency)
+                    .register(meterRegistry);
+        }
+
+        public void recordCall() {
+            calls.increment();
+        }
+
+        /** Upstream round trip of the request this call travelled in. */
+        public void recordLatency(long nanos) {
+            latency.record(nanos, TimeUnit.NANOSECONDS);
+        }
+
+        public void recordError(int code) {
+            Counter counter = errorsByCode.get(code);
+            if (counter == null) {
+                counter = errorsByCode.size() < MAX_CODES_PER_METHOD
+                        ? errorsByCode.computeIfAbsent(code, c ->
+                                meterRegistry.counter(JSONRPC_ERRORS_TOTAL, TAG_METHOD, method, TAG_CODE, c.toString()))
+                        : otherErrors();
+            }
+            counter.increment();
+        }
+
+        private Counter otherErrors() {
+            Counter counter = otherErrors;
+            if (counter == null) {
+                counter = meterRegistry.counter(JSONRPC_ERRORS_TOTAL, TAG_METHOD, method, TAG_CODE, OTHER);
+                otherErrors = counter;
+            }
+            return counter;
+        }
+    }
+}
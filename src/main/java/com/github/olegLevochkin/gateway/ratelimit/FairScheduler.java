@@ -0,0 +1,261 @@
+package com.github.olegLevochkin.gateway.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.olegLevochkin.gateway.config.AppConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.github.olegLevochkin.gateway.metrics.MetricsNames.JSONRPC_FAIR_QUEUE_DEPTH;
+import static com.github.olegLevochkin.gateway.metrics.MetricsNames.JSONRPC_FAIR_SHED_TOTAL;
+import static com.github.olegLevochkin.gateway.metrics.MetricsNames.JSONRPC_FAIR_WAIT;
+import static com.github.olegLevochkin.gateway.metrics.MetricsNames.TAG_TENANT;
+
+/**
+ * Shares {@code fair.max.in.flight} upstream request slots between clients, shared by all verticle instances.
+ * A request that finds a free slot goes ahead at once; otherwise it waits in its client's queue and freed slots are
+ * handed out by deficit round robin: each turn adds {@code fair.quantum} to the client's deficit, and its queued
+ * requests are sent while their cost (the method weights of their calls) fits into it. A client sending
+ * 5,000-call batches thus gets the same cost per round as one sending single calls, not the same number of
+ * requests. A full client queue, or a wait longer than the queue timeout, rejects the request.
+ */
+public final class FairScheduler {
+
+    private static final Future<Void> ADMITTED = Future.succeededFuture();
+    private static final RejectedException REJECTED = new RejectedException();
+    private static final int DEFAULT_WEIGHT = 1;
+    private static final int TENANT_HASH_BYTES = 6;
+
+    private final Vertx vertx;
+    private final int maxInFlight;
+    private final long quantum;
+    private final int queueSize;
+    private final long queueTimeoutMillis;
+    private final Map<String, Integer> methodWeights;
+    private final Map<String, Tenant> tenants = new HashMap<>();
+    private final ArrayDeque<Tenant> active = new ArrayDeque<>();
+    private final MeterRegistry meterRegistry;
+    private final Cache<String, TenantMeters> meters;
+    private final Counter shed;
+
+    private int inFlight;
+
+    private FairScheduler(Vertx vertx, AppConfig config, MeterRegistry meterRegistry) {
+        this.vertx = vertx;
+        this.maxInFlight = config.fairMaxInFlight();
+        this.quantum = config.fairQuantum();
+        this.queueSize = config.fairQueueSize();
+        this.queueTimeoutMillis = config.fairQueueTimeoutMs();
+        this.methodWeights = config.rateLimitMethodWeights();
+        this.meterRegistry = meterRegistry;
+        this.meters = config.fairMetricsMaxTenants() > 0
+                ? Caffeine.newBuilder()
+                        .maximumSize(config.fairMetricsMaxTenants())
+                        .removalListener(this::unregister)
+                        .build()
+                : null;
+        this.shed = meterRegistry.counter(JSONRPC_FAIR_SHED_TOTAL);
+    }
+
+    public static FairScheduler create(Vertx vertx, AppConfig config, MeterRegistry meterRegistry) {
+        return new FairScheduler(vertx, config, meterRegistry);
+    }
+
+    /** What one call of {@code method} costs; methods without a configured weight cost one. */
+    public int weightOf(String method) {
+        return methodWeights.getOrDefault(method, DEFAULT_WEIGHT);
+    }
+
+    /** Whole seconds to announce in {@code Retry-After} when a request was rejected. */
+    public long retryAfterSeconds() {
+        return Math.max(1, TimeUnit.MILLISECONDS.toSeconds(queueTimeoutMillis));
+    }
+
+    /**
+     * Completes, on the caller's context, once a request of {@code cost} by {@code client} may be sent; fails with
+     * {@link RejectedException} when the client's queue is full or its turn did not come within the queue timeout.
+     * Every successful acquire must be paired with one {@link #release()}.
+     */
+    public Future<Void> acquire(String client, long cost) {
+        TenantMeters tenantMeters = meters != null ? meters.get(client, this::register) : null;
+        Waiter waiter;
+        synchronized (this) {
+            if (inFlight < maxInFlight && active.isEmpty()) {
+                inFlight++;
+                if (tenantMeters != null) tenantMeters.waitTime.record(0, TimeUnit.NANOSECONDS);
+                return ADMITTED;
+            }
+            Tenant tenant = tenants.computeIfAbsent(client, key -> new Tenant(tenantMeters));
+            if (tenant.queue.size() >= queueSize) {
+                if (tenant.queue.isEmpty()) tenants.remove(client);
+                shed.increment();
+                return Future.failedFuture(REJECTED);
+            }
+            waiter = new Waiter(vertx.getOrCreateContext(), client, cost);
+            tenant.queue.addLast(waiter);
+            if (tenant.queue.size() == 1) active.addLast(tenant);
+            tenant.updateDepth();
+            waiter.timerId = vertx.setTimer(queueTimeoutMillis, id -> expire(waiter));
+        }
+        return waiter.promise.future();
+    }
+
+    /** Frees the slot of a completed request and hands it to the next client in turn. */
+    public void release() {
+        synchronized (this) {
+            inFlight--;
+            grantWaiters();
+        }
+    }
+
+    private void grantWaiters() {
+        int turnsWithoutGrant = 0;
+        while (inFlight < maxInFlight && !active.isEmpty()) {
+            Tenant tenant = active.peekFirst();
+            Waiter next = tenant.queue.peekFirst();
+            if (tenant.deficit >= next.cost) {
+                tenant.deficit -= next.cost;
+                tenant.queue.pollFirst();
+                if (tenant.queue.isEmpty()) {
+                    active.pollFirst();
+                    tenants.remove(next.client);
+                }
+                tenant.updateDepth();
+                grant(tenant, next);
+                turnsWithoutGrant = 0;
+            } else if (++turnsWithoutGrant > active.size()) {
+                // a whole round went by without a grant: skip the rounds until the closest client can afford its request
+                skipRounds();
+                turnsWithoutGrant = 0;
+            } else {
+                tenant.deficit += quantum;
+                active.addLast(active.pollFirst());
+            }
+        }
+    }
+
+    private void skipRounds() {
+        long rounds = Long.MAX_VALUE;
+        for (Tenant tenant : active) {
+            long shortfall = Math.max(0, tenant.queue.peekFirst().cost - tenant.deficit);
+            rounds = Math.min(rounds, (shortfall + quantum - 1) / quantum);
+        }
+        for (Tenant tenant : active) {
+            tenant.deficit += rounds * quantum;
+        }
+    }
+
+    private void grant(Tenant tenant, Waiter waiter) {
+        vertx.cancelTimer(waiter.timerId);
+        inFlight++;
+        if (tenant.meters != null) {
+            tenant.meters.waitTime.record(System.nanoTime() - waiter.enqueuedAtNanos, TimeUnit.NANOSECONDS);
+        }
+        waiter.context.runOnContext(v -> waiter.promise.complete());
+    }
+
+    private void expire(Waiter waiter) {
+        synchronized (this) {
+            Tenant tenant = tenants.get(waiter.client);
+            if (tenant == null || !tenant.queue.remove(waiter)) return;
+            if (tenant.queue.isEmpty()) {
+                active.remove(tenant);
+                tenants.remove(waiter.client);
+            }
+            tenant.updateDepth();
+        }
+        shed.increment();
+        waiter.promise.fail(REJECTED);
+    }
+
+    private TenantMeters register(String client) {
+        String tag = tagOf(client);
+        AtomicInteger depth = new AtomicInteger();
+        return new TenantMeters(
+                Timer.builder(JSONRPC_FAIR_WAIT)
+                        .tag(TAG_TENANT, tag)
+                        .register(meterRegistry),
+                depth,
+                Gauge.builder(JSONRPC_FAIR_QUEUE_DEPTH, depth, AtomicInteger::get)
+                        .tag(TAG_TENANT, tag)
+                        .register(meterRegistry));
+    }
+
+    private void unregister(String client, TenantMeters tenantMeters, RemovalCause cause) {
+        if (tenantMeters != null) {
+            meterRegistry.remove(tenantMeters.waitTime);
+            meterRegistry.remove(tenantMeters.depthGauge);
+        }
+    }
+
+    /** API keys are secrets, so they are tagged by a short hash; IP clients by their address. */
+    private static String tagOf(String client) {
+        if (!client.startsWith(RateLimiter.KEY_PREFIX_API_KEY)) {
+            return client;
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(client.getBytes(StandardCharsets.UTF_8));
+            return RateLimiter.KEY_PREFIX_API_KEY + HexFormat.of().formatHex(digest, 0, TENANT_HASH_BYTES);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record TenantMeters(Timer waitTime, AtomicInteger depth, Gauge depthGauge) {
+    }
+
+    private static final class Tenant {
+        private final ArrayDeque<Waiter> queue = new ArrayDeque<>();
+        private final TenantMeters meters;
+        private long deficit;
+
+        private Tenant(TenantMeters meters) {
+            this.meters = meters;
+        }
+
+        private void updateDepth() {
+            if (meters != null) meters.depth.set(queue.size());
+        }
+    }
+
+    private static final class Waiter {
+        private final Context context;
+        private final String client;
+        private final long cost;
+        private final long enqueuedAtNanos = System.nanoTime();
+        private final Promise<Void> promise = Promise.promise();
+        private long timerId;
+
+        private Waiter(Context context, String client, long cost) {
+            this.context = context;
+            this.client = client;
+            this.cost = cost;
+        }
+    }
+
+    /** The client's queue was full or its turn did not come within the queue timeout. */
+    public static final class RejectedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private RejectedException() {
+            super("Fair scheduling queue full or timed out", null, false, false);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.github.olegLevochkin.gateway.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.olegLevochkin.gateway.config.AppConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static com.github.olegLevochkin.gateway.metrics.MetricsNames.JSONRPC_RATE_LIMITED_TOTAL;
+import static com.github.olegLevochkin.gateway.metrics.MetricsNames.JSONRPC_RATE_LIMIT_KEYS;
+
+/**
+ * Token buckets per client key, shared by all verticle instances. Each bucket is a single {@link AtomicLong}
+ * holding its theoretical arrival time (GCRA): a request of cost {@code n} pushes it {@code n} emission intervals
+ * forward and is rejected if that would run more than {@code burst} intervals ahead of now. A request costing more
+ * than {@code burst} is charged {@code burst}, so it is admitted from a full bucket instead of never. Updates are one
+ * CAS, without locks. An idle bucket expires once it would have refilled completely anyway, so expiry never changes
+ * a decision. {@code ratelimit.max.keys} bounds the number of tracked keys on top of that: with more active clients
+ * than that, the least recently used buckets are dropped, and such a client starts again from a full bucket.
+ */
+public final class RateLimiter {
+
+    public static final long ALLOWED = 0;
+    /** Routing context entry holding the bucket key the request was admitted under. */
+    public static final String CONTEXT_KEY = "rateLimitKey";
+    public static final String KEY_PREFIX_IP = "ip:";
+    public static final String KEY_PREFIX_API_KEY = "key:";
+
+    private static final int DEFAULT_WEIGHT = 1;
+
+    private final long burst;
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final Map<String, Integer> methodWeights;
+    private final Cache<String, AtomicLong> buckets;
+    private final Function<String, AtomicLong> newBucket = key -> new AtomicLong(Long.MIN_VALUE);
+    private final Counter rejected;
+
+    private RateLimiter(AppConfig config, MeterRegistry meterRegistry) {
+        this.intervalNanos = TimeUnit.SECONDS.toNanos(1) / config.rateLimitRequestsPerSecond();
+        this.burst = config.rateLimitBurst();
+        this.toleranceNanos = intervalNanos * burst;
+        this.methodWeights = config.rateLimitMethodWeights();
+        this.buckets = Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofNanos(toleranceNanos + intervalNanos))
+                .maximumSize(config.rateLimitMaxKeys())
+                .build();
+        this.rejected = meterRegistry.counter(JSONRPC_RATE_LIMITED_TOTAL);
+        Gauge.builder(JSONRPC_RATE_LIMIT_KEYS, buckets, Cache::estimatedSize).register(meterRegistry);
+    }
+
+    public static RateLimiter create(AppConfig config, MeterRegistry meterRegistry) {
+        return new RateLimiter(config, meterRegistry);
+    }
+
+    /** Tokens a request of {@code cost} is charged: its cost, but no more than the whole burst. */
+    public long chargeOf(long cost) {
+        return Math.min(cost, burst);
+    }
+
+    /**
+     * Takes {@link #chargeOf(long) chargeOf(cost)} tokens from the bucket of {@code key}.
+     *
+     * @return {@link #ALLOWED}, or the nanoseconds until the request would have been allowed
+     */
+    public long tryAcquire(String key, long cost) {
+        AtomicLong bucket = buckets.get(key, newBucket);
+        long increment = chargeOf(cost) * intervalNanos;
+        while (true) {
+            long now = System.nanoTime();
+            long arrival = bucket.get();
+            long next = Math.max(arrival, now) + increment;
+            long excess = next - now - toleranceNanos;
+            if (excess > 0) {
+                rejected.increment();
+                return excess;
+            }
+            if (bucket.compareAndSet(arrival, next)) {
+                return ALLOWED;
+            }
+        }
+    }
+
+    /** Whole seconds to announce in {@code Retry-After} for a rejection that has to wait {@code waitNanos}. */
+    public static long retryAfterSeconds(long waitNanos) {
+        return Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    /** Tokens one call of {@code method} costs; methods without a configured weight cost one. */
+    public int weightOf(String method) {
+        return methodWeights.getOrDefault(method, DEFAULT_WEIGHT);
+    }
+}
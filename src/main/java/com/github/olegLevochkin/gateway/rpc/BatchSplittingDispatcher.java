@@ -0,0 +1,77 @@
+package com.github.olegLevochkin.gateway.rpc;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Splits batches larger than {@code chunkSize} into sub-batches (or single calls when the chunk size is 1),
+ * keeps at most {@code maxConcurrency} of them in flight per batch and reassembles the replies in request order.
+ * A failed chunk only turns its own calls into JSON-RPC errors.
+ */
+public record BatchSplittingDispatcher(
+        JsonRpcDispatcher delegate,
+        int chunkSize,
+        int maxConcurrency
+) implements JsonRpcDispatcher {
+
+    @Override
+    public Future<List<JsonRpcReply>> dispatch(List<JsonRpcCall> calls, int timeoutMillis) {
+        if (calls.size() <= chunkSize) {
+            return delegate.dispatch(calls, timeoutMillis);
+        }
+        return new FanOut(calls, timeoutMillis).start();
+    }
+
+    private final class FanOut {
+
+        private final List<JsonRpcCall> calls;
+        private final int timeoutMillis;
+        private final int chunks;
+        private final JsonRpcReply[] replies;
+        private final Promise<List<JsonRpcReply>> promise = Promise.promise();
+
+        private int nextChunk;
+        private int completedChunks;
+
+        private FanOut(List<JsonRpcCall> calls, int timeoutMillis) {
+            this.calls = calls;
+            this.timeoutMillis = timeoutMillis;
+            this.chunks = (calls.size() + chunkSize - 1) / chunkSize;
+            this.replies = new JsonRpcReply[calls.size()];
+        }
+
+        private Future<List<JsonRpcReply>> start() {
+            int initial = Math.min(maxConcurrency, chunks);
+            for (int i = 0; i < initial; i++) {
+                launchNext();
+            }
+            return promise.future();
+        }
+
+        private void launchNext() {
+            int from = nextChunk++ * chunkSize;
+            int to = Math.min(from + chunkSize, calls.size());
+            delegate.dispatch(calls.subList(from, to), timeoutMillis)
+                    .onComplete(ar -> onChunkComplete(ar, from, to));
+        }
+
+        private void onChunkComplete(AsyncResult<List<JsonRpcReply>> ar, int from, int to) {
+            for (int i = from; i < to; i++) {
+                replies[i] = ar.succeeded() ? ar.result().get(i - from) : failedReply(calls.get(i));
+            }
+            if (++completedChunks == chunks) {
+                promise.complete(Arrays.asList(replies));
+            } else if (nextChunk < chunks) {
+                launchNext();
+            }
+        }
+
+        private static JsonRpcReply failedReply(JsonRpcCall call) {
+            return call.hasId() ? JsonRpcErrors.upstreamUnavailableReply(call.id()) : null;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.github.olegLevochkin.gateway.rpc;
+
+import io.vertx.core.Future;
+import io.vertx.core.buffer.Buffer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public record CachingDispatcher(JsonRpcDispatcher delegate, ResponseCache cache) implements JsonRpcDispatcher {
+
+    @Override
+    public Future<List<JsonRpcReply>> dispatch(List<JsonRpcCall> calls, int timeoutMillis) {
+        int size = calls.size();
+        JsonRpcReply[] replies = new JsonRpcReply[size];
+        String[] keys = new String[size];
+        int[] missIndexes = new int[size];
+        List<JsonRpcCall> misses = new ArrayList<>(size);
+
+        boolean keyedMiss = false;
+        for (int i = 0; i < size; i++) {
+            JsonRpcCall call = calls.get(i);
+            String key = cache.keyOf(call);
+            Buffer cached = key != null ? cache.get(key) : null;
+            if (cached != null) {
+                replies[i] = JsonRpcReply.ofResult(call.id(), cached);
+            } else {
+                keys[i] = key;
+                keyedMiss |= key != null;
+                missIndexes[misses.size()] = i;
+                misses.add(call);
+            }
+        }
+
+        if (misses.isEmpty()) {
+            return Future.succeededFuture(Arrays.asList(replies));
+        }
+        if (cache.disk() == null || !keyedMiss) {
+            return forward(misses.size() == size ? calls : misses, missIndexes, replies, keys, timeoutMillis);
+        }
+
+        List<String> missKeys = new ArrayList<>(misses.size());
+        for (int j = 0; j < misses.size(); j++) {
+            missKeys.add(keys[missIndexes[j]]);
+        }
+        return cache.getFromDisk(missKeys).compose(found -> {
+            int[] remainingIndexes = new int[misses.size()];
+            List<JsonRpcCall> remaining = new ArrayList<>(misses.size());
+            for (int j = 0; j < misses.size(); j++) {
+                int i = missIndexes[j];
+                if (found.get(j) != null) {
+                    replies[i] = JsonRpcReply.ofResult(misses.get(j).id(), found.get(j));
+                } else {
+                    remainingIndexes[remaining.size()] = i;
+                    remaining.add(misses.get(j));
+                }
+            }
+            if (remaining.isEmpty()) {
+                return Future.succeededFuture(Arrays.asList(replies));
+            }
+            return forward(remaining.size() == size ? calls : remaining, remainingIndexes, replies, keys, timeoutMillis);
+        });
+    }
+
+    private Future<List<JsonRpcReply>> forward(List<JsonRpcCall> misses, int[] missIndexes, JsonRpcReply[] replies,
+                                               String[] keys, int timeoutMillis) {
+        return delegate.dispatch(misses, timeoutMillis).map(missReplies -> {
+            for (int j = 0; j < missReplies.size(); j++) {
+                int i = missIndexes[j];
+                JsonRpcReply reply = missReplies.get(j);
+                replies[i] = reply;
+                if (keys[i] != null && reply != null) {
+                    cache.put(keys[i], reply);
+                }
+            }
+            return Arrays.asList(replies);
+        });
+    }
+}
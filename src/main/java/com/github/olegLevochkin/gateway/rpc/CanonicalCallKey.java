@@ -0,0 +1,65 @@
+package com.github.olegLevochkin.gateway.rpc;
+
+import io.vertx.core.json.Json;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Builds {@code method(params)} keys that do not depend on whitespace, object key order or the case of
+ * {@code 0x}-prefixed hex strings, so that equivalent calls share cache and coalescing entries.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class CanonicalCallKey {
+
+    private static final String HEX_PREFIX = "0x";
+
+    public static String of(JsonRpcCall call) {
+        StringBuilder key = new StringBuilder(call.method().length() + call.paramsEnd() - call.paramsStart() + 2)
+                .append(call.method())
+                .append('(');
+        if (call.hasParams()) {
+            appendCanonical(key, Json.decodeValue(call.params()));
+        }
+        return key.append(')').toString();
+    }
+
+    private static void appendCanonical(StringBuilder key, Object value) {
+        if (value instanceof JsonObject object) {
+            List<String> names = new ArrayList<>(object.fieldNames());
+            Collections.sort(names);
+            key.append('{');
+            for (int i = 0; i < names.size(); i++) {
+                if (i > 0) key.append(',');
+                key.append(Json.encode(names.get(i))).append(':');
+                appendCanonical(key, object.getValue(names.get(i)));
+            }
+            key.append('}');
+        } else if (value instanceof JsonArray array) {
+            key.append('[');
+            for (int i = 0; i < array.size(); i++) {
+                if (i > 0) key.append(',');
+                appendCanonical(key, array.getValue(i));
+            }
+            key.append(']');
+        } else if (value instanceof String text) {
+            key.append(Json.encode(isHex(text) ? text.toLowerCase(Locale.ROOT) : text));
+        } else {
+            key.append(value);
+        }
+    }
+
+    private static boolean isHex(String text) {
+        if (!text.startsWith(HEX_PREFIX)) return false;
+        for (int i = HEX_PREFIX.length(); i < text.length(); i++) {
+            if (Character.digit(text.charAt(i), 16) < 0) return false;
+        }
+        return true;
+    }
+}
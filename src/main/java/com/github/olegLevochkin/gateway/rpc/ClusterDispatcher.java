@@ -0,0 +1,123 @@
+package com.github.olegLevochkin.gateway.rpc;
+
+import com.github.olegLevochkin.gateway.cluster.ClusterPeers;
+import io.vertx.core.Future;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.eventbus.MessageConsumer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Clustered stage: each cacheable or coalescible call belongs to the node that its {@link CanonicalCallKey} hashes
+ * to, and calls owned by another node are asked from that node instead of upstream, so the owner's cache and
+ * in-flight calls serve the whole cluster. Other calls, and calls this node owns, go to {@code delegate}. Calls
+ * for one owner travel as one batch; when the owner cannot be reached they fall back to {@code delegate}, unless
+ * the request already used up its timeout, which turns those calls into JSON-RPC errors.
+ */
+public record ClusterDispatcher(
+        JsonRpcDispatcher delegate,
+        ClusterPeers peers,
+        ResponseCache cache,
+        InFlightCalls inFlight
+) implements JsonRpcDispatcher {
+
+    @Override
+    public Future<List<JsonRpcReply>> dispatch(List<JsonRpcCall> calls, int timeoutMillis) {
+        int size = calls.size();
+        Map<String, List<Integer>> remote = null;
+        int[] localIndexes = new int[size];
+        List<JsonRpcCall> local = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            JsonRpcCall call = calls.get(i);
+            String key = keyOf(call);
+            String owner = key != null ? peers.ownerOf(key) : null;
+            if (owner == null || peers.isSelf(owner)) {
+                localIndexes[local.size()] = i;
+                local.add(call);
+                continue;
+            }
+            if (remote == null) remote = new LinkedHashMap<>();
+            remote.computeIfAbsent(owner, node -> new ArrayList<>()).add(i);
+        }
+        if (remote == null) {
+            return delegate.dispatch(calls, timeoutMillis);
+        }
+
+        JsonRpcReply[] replies = new JsonRpcReply[size];
+        List<Future<?>> pending = new ArrayList<>(remote.size() + 1);
+        if (!local.isEmpty()) {
+            pending.add(delegate.dispatch(local, timeoutMillis).onSuccess(localReplies -> {
+                for (int j = 0; j < localReplies.size(); j++) {
+                    replies[localIndexes[j]] = localReplies.get(j);
+                }
+            }));
+        }
+        remote.forEach((owner, indexes) -> {
+            List<JsonRpcCall> part = new ArrayList<>(indexes.size());
+            for (int index : indexes) {
+                part.add(calls.get(index));
+            }
+            pending.add(ask(owner, part, timeoutMillis).onSuccess(partReplies -> {
+                for (int j = 0; j < partReplies.size(); j++) {
+                    replies[indexes.get(j)] = partReplies.get(j);
+                }
+            }));
+        });
+        return Future.all(pending).map(all -> Arrays.asList(replies));
+    }
+
+    /** Starts answering the calls other nodes ask this node for, with {@code owned}. */
+    public static MessageConsumer<Buffer> serve(ClusterPeers peers, JsonRpcDispatcher owned) {
+        return peers.consumer(ClusterPeers.CALLS, message -> serve(message, owned));
+    }
+
+    private static void serve(Message<Buffer> message, JsonRpcDispatcher owned) {
+        List<JsonRpcCall> calls = new ArrayList<>();
+        if (!StreamingJsonRpcValidator.forEachValid(message.body(), calls::add) || calls.isEmpty()) {
+            message.fail(JsonRpcErrors.CODE_INVALID_REQUEST, "Invalid JSON-RPC request");
+            return;
+        }
+        int timeoutMillis = Integer.parseInt(message.headers().get(ClusterPeers.HEADER_TIMEOUT_MS));
+        owned.dispatch(calls, timeoutMillis)
+                .onSuccess(replies -> message.reply(JsonRpcBodies.encodeResponse(true, replies)))
+                .onFailure(err -> message.fail(JsonRpcErrors.CODE_UPSTREAM_UNAVAILABLE, String.valueOf(err.getMessage())));
+    }
+
+    /** The ids are replaced by positions for the trip, so that duplicate ids in the client's batch stay apart. */
+    private Future<List<JsonRpcReply>> ask(String owner, List<JsonRpcCall> calls, int timeoutMillis) {
+        List<JsonRpcCall> numbered = new ArrayList<>(calls.size());
+        for (int j = 0; j < calls.size(); j++) {
+            numbered.add(calls.get(j).withId(Integer.toString(j)));
+        }
+        return peers.request(ClusterPeers.CALLS, owner, JsonRpcBodies.encodeRequest(numbered), timeoutMillis)
+                .map(body -> {
+                    List<JsonRpcReply> replies = JsonRpcBodies.alignReplies(numbered, body);
+                    List<JsonRpcReply> restored = new ArrayList<>(replies.size());
+                    for (int j = 0; j < replies.size(); j++) {
+                        restored.add(replies.get(j).withId(calls.get(j).id()));
+                    }
+                    return restored;
+                })
+                .recover(err -> ClusterPeers.isTimeout(err)
+                        ? Future.succeededFuture(unavailableReplies(calls))
+                        : delegate.dispatch(calls, timeoutMillis));
+    }
+
+    private static List<JsonRpcReply> unavailableReplies(List<JsonRpcCall> calls) {
+        List<JsonRpcReply> replies = new ArrayList<>(calls.size());
+        for (JsonRpcCall call : calls) {
+            replies.add(JsonRpcErrors.upstreamUnavailableReply(call.id()));
+        }
+        return replies;
+    }
+
+    private String keyOf(JsonRpcCall call) {
+        String key = cache != null ? cache.keyOf(call) : null;
+        return key != null || inFlight == null ? key : inFlight.keyOf(call);
+    }
+}
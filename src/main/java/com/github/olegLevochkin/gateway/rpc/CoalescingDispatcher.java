@@ -0,0 +1,102 @@
+package com.github.olegLevochkin.gateway.rpc;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Single-flight stage: while an identical call is in flight, followers attach to the leader's future and
+ * receive its reply under their own {@code id} instead of going upstream.
+ */
+public record CoalescingDispatcher(JsonRpcDispatcher delegate, InFlightCalls inFlight) implements JsonRpcDispatcher {
+
+    @Override
+    public Future<List<JsonRpcReply>> dispatch(List<JsonRpcCall> calls, int timeoutMillis) {
+        int size = calls.size();
+        Context context = Vertx.currentContext();
+
+        List<JsonRpcCall> leaders = new ArrayList<>(size);
+        int[] leaderIndexes = new int[size];
+        String[] leaderKeys = new String[size];
+        List<Promise<JsonRpcReply>> leaderPromises = new ArrayList<>(size);
+        int[] followerIndexes = new int[size];
+        List<Future<JsonRpcReply>> followers = new ArrayList<>();
+
+        for (int i = 0; i < size; i++) {
+            JsonRpcCall call = calls.get(i);
+            String key = inFlight.keyOf(call);
+            Promise<JsonRpcReply> promise = null;
+            if (key != null) {
+                promise = Promise.promise();
+                Future<JsonRpcReply> existing = inFlight.calls().putIfAbsent(key, promise.future());
+                if (existing != null) {
+                    followerIndexes[followers.size()] = i;
+                    followers.add(follow(existing, call.id(), context));
+                    inFlight.recordCoalesced(call.method());
+                    continue;
+                }
+                leaderKeys[leaders.size()] = key;
+            }
+            leaderPromises.add(promise);
+            leaderIndexes[leaders.size()] = i;
+            leaders.add(call);
+        }
+
+        Future<List<JsonRpcReply>> leaderReplies = leaders.isEmpty()
+                ? Future.succeededFuture(Collections.emptyList())
+                : delegate.dispatch(leaders.size() == size ? calls : leaders, timeoutMillis);
+        leaderReplies.onComplete(ar -> release(ar, leaderKeys, leaderPromises));
+
+        JsonRpcReply[] replies = new JsonRpcReply[size];
+        Future<List<JsonRpcReply>> result = leaderReplies.map(list -> {
+            for (int j = 0; j < list.size(); j++) {
+                replies[leaderIndexes[j]] = list.get(j);
+            }
+            return Arrays.asList(replies);
+        });
+        if (followers.isEmpty()) {
+            return result;
+        }
+
+        return result.compose(list -> Future.all(followers).map(done -> {
+            for (int j = 0; j < followers.size(); j++) {
+                replies[followerIndexes[j]] = followers.get(j).result();
+            }
+            return list;
+        }));
+    }
+
+    /** {@code promises} is aligned with the leaders; it holds {@code null} for leaders that are not coalescible. */
+    private void release(AsyncResult<List<JsonRpcReply>> ar, String[] keys, List<Promise<JsonRpcReply>> promises) {
+        for (int j = 0; j < promises.size(); j++) {
+            Promise<JsonRpcReply> promise = promises.get(j);
+            if (promise == null) continue;
+            inFlight.calls().remove(keys[j], promise.future());
+            if (ar.succeeded()) {
+                promise.complete(ar.result().get(j));
+            } else {
+                promise.fail(ar.cause());
+            }
+        }
+    }
+
+    private static Future<JsonRpcReply> follow(Future<JsonRpcReply> leader, String id, Context context) {
+        Promise<JsonRpcReply> promise = Promise.promise();
+        leader.onComplete(ar -> {
+            AsyncResult<JsonRpcReply> own = ar.map(reply -> reply.withId(id));
+            if (context == null) {
+                promise.handle(own);
+            } else {
+                context.runOnContext(v -> promise.handle(own));
+            }
+        });
+        return promise.future();
+    }
+}
@@ -0,0 +1,176 @@
+package com.github.olegLevochkin.gateway.rpc;
+
+import com.github.olegLevochkin.gateway.config.AppConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+
+import java.util.ArrayDeque;
+
+import static com.github.olegLevochkin.gateway.metrics.MetricsNames.JSONRPC_UPSTREAM_CONCURRENCY_LIMIT;
+import static com.github.olegLevochkin.gateway.metrics.MetricsNames.JSONRPC_UPSTREAM_QUEUE_DEPTH;
+import static com.github.olegLevochkin.gateway.metrics.MetricsNames.JSONRPC_UPSTREAM_SHED_TOTAL;
+import static com.github.olegLevochkin.gateway.metrics.MetricsNames.TAG_UPSTREAM;
+
+/**
+ * Adaptive cap on the requests in flight to one upstream, shared by all verticle instances. The limit follows the
+ * gradient between the long-term RTT and each new sample: while the upstream answers as fast as usual it grows by
+ * about its square root, once RTTs rise above {@code TOLERANCE} times the baseline it shrinks proportionally, and a
+ * failed request cuts it by {@code BACKOFF}. Requests over the limit wait in a bounded FIFO queue; a full queue or a
+ * wait longer than the queue timeout sheds the request at once instead of letting it age in the connection pool.
+ */
+public final class ConcurrencyLimiter {
+
+    private static final double TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+    private static final double BACKOFF = 0.9;
+    private static final double MIN_GRADIENT = 0.5;
+    private static final double LONG_RTT_WINDOW = 600;
+    private static final double DRIFT_RATIO = 2.0;
+    private static final double DRIFT_DECAY = 0.95;
+
+    private static final Future<Void> ACQUIRED = Future.succeededFuture();
+    private static final OverloadedException OVERLOADED = new OverloadedException();
+
+    private final Vertx vertx;
+    private final int minLimit;
+    private final int maxLimit;
+    private final int queueSize;
+    private final long queueTimeoutMillis;
+    private final ArrayDeque<Waiter> queue = new ArrayDeque<>();
+    private final Counter shed;
+
+    private double limit;
+    private double longRttNanos;
+    private int inFlight;
+    private volatile int permits;
+    private volatile int queued;
+
+    private ConcurrencyLimiter(Vertx vertx, String upstream, AppConfig config, MeterRegistry meterRegistry) {
+        this.vertx = vertx;
+        this.minLimit = config.upstreamLimitMin();
+        this.maxLimit = config.upstreamLimitMax();
+        this.queueSize = config.upstreamLimitQueueSize();
+        this.queueTimeoutMillis = config.upstreamLimitQueueTimeoutMs();
+        this.limit = config.upstreamLimitInitial();
+        this.permits = config.upstreamLimitInitial();
+        this.shed = meterRegistry.counter(JSONRPC_UPSTREAM_SHED_TOTAL, TAG_UPSTREAM, upstream);
+        Gauge.builder(JSONRPC_UPSTREAM_CONCURRENCY_LIMIT, this, limiter -> limiter.permits)
+                .tag(TAG_UPSTREAM, upstream)
+                .register(meterRegistry);
+        Gauge.builder(JSONRPC_UPSTREAM_QUEUE_DEPTH, this, limiter -> limiter.queued)
+                .tag(TAG_UPSTREAM, upstream)
+                .register(meterRegistry);
+    }
+
+    public static ConcurrencyLimiter create(Vertx vertx, String upstream, AppConfig config, MeterRegistry meterRegistry) {
+        return new ConcurrencyLimiter(vertx, upstream, config, meterRegistry);
+    }
+
+    /**
+     * Completes, on the caller's context, once the request may be sent; fails with {@link OverloadedException}
+     * when the queue is full or the slot did not free up within the queue timeout. Every successful acquire must
+     * be paired with one {@link #release(long, boolean)} or {@link #release()}.
+     */
+    public Future<Void> acquire() {
+        Waiter waiter;
+        synchronized (this) {
+            if (inFlight < permits) {
+                inFlight++;
+                return ACQUIRED;
+            }
+            if (queue.size() >= queueSize) {
+                shed.increment();
+                return Future.failedFuture(OVERLOADED);
+            }
+            waiter = new Waiter(vertx.getOrCreateContext());
+            queue.addLast(waiter);
+            queued = queue.size();
+            waiter.timerId = vertx.setTimer(queueTimeoutMillis, id -> expire(waiter));
+        }
+        return waiter.promise.future();
+    }
+
+    /** Frees the slot of a completed request and feeds its round trip into the limit. */
+    public void release(long rttNanos, boolean failed) {
+        synchronized (this) {
+            int sampledInFlight = inFlight;
+            inFlight--;
+            adjust(rttNanos, failed, sampledInFlight);
+            grantWaiters();
+        }
+    }
+
+    /** Frees the slot of a cancelled request without taking its round trip into account. */
+    public void release() {
+        synchronized (this) {
+            inFlight--;
+            grantWaiters();
+        }
+    }
+
+    private void adjust(long rttNanos, boolean failed, int sampledInFlight) {
+        if (failed) {
+            limit = Math.max(minLimit, limit * BACKOFF);
+            permits = (int) limit;
+            return;
+        }
+        longRttNanos = longRttNanos == 0
+                ? rttNanos
+                : longRttNanos + (rttNanos - longRttNanos) / LONG_RTT_WINDOW;
+        if (longRttNanos / rttNanos > DRIFT_RATIO) {
+            // the baseline lags a lasting improvement; let it catch up
+            longRttNanos *= DRIFT_DECAY;
+        }
+        if (sampledInFlight < limit / 2) {
+            // too little traffic to tell whether the upstream could take more
+            return;
+        }
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, TOLERANCE * longRttNanos / rttNanos));
+        double target = limit * gradient + Math.sqrt(limit);
+        limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - SMOOTHING) + target * SMOOTHING));
+        permits = (int) limit;
+    }
+
+    private void grantWaiters() {
+        while (inFlight < permits && !queue.isEmpty()) {
+            Waiter waiter = queue.pollFirst();
+            vertx.cancelTimer(waiter.timerId);
+            inFlight++;
+            waiter.context.runOnContext(v -> waiter.promise.complete());
+        }
+        queued = queue.size();
+    }
+
+    private void expire(Waiter waiter) {
+        synchronized (this) {
+            if (!queue.remove(waiter)) return;
+            queued = queue.size();
+        }
+        shed.increment();
+        waiter.promise.fail(OVERLOADED);
+    }
+
+    private static final class Waiter {
+        private final Context context;
+        private final Promise<Void> promise = Promise.promise();
+        private long timerId;
+
+        private Waiter(Context context) {
+            this.context = context;
+        }
+    }
+
+    /** The upstream is at its concurrency limit and the request could not be queued in time. */
+    public static final class OverloadedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private OverloadedException() {
+            super("Upstream concurrency limit reached", null, false, false);
+        }
+    }
+}
@@ -0,0 +1,502 @@
+package com.github.olegLevochkin.gateway.rpc;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.github.olegLevochkin.gateway.config.AppConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import static com.github.olegLevochkin.gateway.metrics.MetricsNames.JSONRPC_DISK_CACHE_BYTES;
+import static com.github.olegLevochkin.gateway.metrics.MetricsNames.JSONRPC_DISK_CACHE_CORRUPT_TOTAL;
+import static com.github.olegLevochkin.gateway.metrics.MetricsNames.JSONRPC_DISK_CACHE_GETS_TOTAL;
+import static com.github.olegLevochkin.gateway.metrics.MetricsNames.TAG_RESULT;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Persistent tier below the {@link ResponseCache} for results that belong to finalized blocks, i.e. at least
+ * {@code disk.cache.finality.blocks} below the head seen by the {@link HeadTracker}. Records are appended to
+ * memory-mapped segment files ({@code segment-N.dat}) and located through an open-addressing hash index held in
+ * a direct buffer, so neither keys nor results stay on the heap. When the newest segment is full a new one is
+ * started and the oldest beyond {@code disk.cache.max.segments} is deleted; index slots pointing into deleted
+ * segments are reused. Every record carries a CRC32C of its key and value; records that fail it are skipped
+ * when the segments are re-indexed at startup and treated as misses when read.
+ * <p>
+ * Nothing here runs on an event loop: lookups go to the worker pool, and appends, roll-overs and re-indexing to
+ * one writer thread behind a bounded queue (a write that finds it full is dropped; the result stays in memory).
+ * Lookups share a read lock that the writer only takes exclusively to change the index or the segment set.
+ */
+@Slf4j
+public final class DiskCache implements AutoCloseable {
+
+    private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d+)\\.dat");
+    private static final String SEGMENT_FORMAT = "segment-%d.dat";
+
+    /** Record layout: key length, value length, CRC32C of key and value, key bytes, value bytes. */
+    private static final int RECORD_HEADER_BYTES = 12;
+    private static final int VALUE_LENGTH_OFFSET = 4;
+    private static final int CHECKSUM_OFFSET = 8;
+
+    /** Index slot layout: key hash (0 = empty), then segment number and offset of the record. */
+    private static final int SLOT_BYTES = 16;
+    private static final int AVERAGE_RECORD_BYTES = 1024;
+    private static final int MAX_SLOTS = 1 << 26;
+    private static final double MAX_LOAD = 0.75;
+
+    private static final int WRITE_QUEUE_CAPACITY = 1024;
+    private static final long CLOSE_TIMEOUT_SECONDS = 10;
+    private static final String WRITER_THREAD_NAME = "disk-cache-writer";
+
+    private static final String FIELD_BLOCK_NUMBER = "blockNumber";
+    private static final String FIELD_NUMBER = "number";
+
+    private final Vertx vertx;
+    private final Path dir;
+    private final int segmentBytes;
+    private final int maxSegments;
+    private final int finalityBlocks;
+    private final HeadTracker tracker;
+    private final TreeMap<Integer, Segment> segments = new TreeMap<>();
+    private final ByteBuffer index;
+    private final int slotMask;
+    private final int maxUsedSlots;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ThreadPoolExecutor writer;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter corrupt;
+
+    private int usedSlots;
+    private volatile long bytes;
+
+    private DiskCache(Vertx vertx, AppConfig config, HeadTracker tracker, MeterRegistry meterRegistry) {
+        this.vertx = vertx;
+        this.dir = Paths.get(config.diskCacheDir());
+        this.segmentBytes = config.diskCacheSegmentBytes();
+        this.maxSegments = config.diskCacheMaxSegments();
+        this.finalityBlocks = config.diskCacheFinalityBlocks();
+        this.tracker = tracker;
+        long expectedRecords = (long) segmentBytes * maxSegments / AVERAGE_RECORD_BYTES;
+        int slots = (int) Math.min(MAX_SLOTS, Long.highestOneBit(Math.max(16, (long) (expectedRecords / MAX_LOAD)) * 2 - 1));
+        this.index = ByteBuffer.allocateDirect(slots * SLOT_BYTES);
+        this.slotMask = slots - 1;
+        this.maxUsedSlots = (int) (slots * MAX_LOAD);
+        this.hits = meterRegistry.counter(JSONRPC_DISK_CACHE_GETS_TOTAL, TAG_RESULT, "hit");
+        this.misses = meterRegistry.counter(JSONRPC_DISK_CACHE_GETS_TOTAL, TAG_RESULT, "miss");
+        this.corrupt = meterRegistry.counter(JSONRPC_DISK_CACHE_CORRUPT_TOTAL);
+        Gauge.builder(JSONRPC_DISK_CACHE_BYTES, this, cache -> cache.bytes).register(meterRegistry);
+        this.writer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(WRITE_QUEUE_CAPACITY),
+                task -> {
+                    Thread thread = new Thread(task, WRITER_THREAD_NAME);
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    public static DiskCache open(Vertx vertx, AppConfig config, HeadTracker tracker, MeterRegistry meterRegistry) {
+        DiskCache cache = new DiskCache(vertx, config, tracker, meterRegistry);
+        try {
+            cache.load();
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to open disk cache " + cache.dir, e);
+        }
+        return cache;
+    }
+
+    /** Looks the keys up on the worker pool; a {@code null} key, or one not on disk, gives a {@code null} result. */
+    public Future<List<Buffer>> getAll(List<String> keys) {
+        return vertx.executeBlocking(() -> {
+            List<Buffer> results = new ArrayList<>(keys.size());
+            for (String key : keys) {
+                results.add(key != null ? get(key) : null);
+            }
+            return results;
+        }, false);
+    }
+
+    /** Blocks on the mapped files: call off the event loop. */
+    Buffer get(String key) {
+        byte[] keyBytes = key.getBytes(UTF_8);
+        Buffer value;
+        Lock read = lock.readLock();
+        read.lock();
+        try {
+            value = read(find(hash(keyBytes)), keyBytes);
+        } finally {
+            read.unlock();
+        }
+        (value != null ? hits : misses).increment();
+        return value;
+    }
+
+    /**
+     * Queues the result for the writer thread, which appends it unless it is not a block-scoped object or its block
+     * is not final yet. {@code result} must not change afterwards.
+     */
+    public void putIfFinalized(String key, Buffer result) {
+        HeadTracker.Head head = tracker.head();
+        if (head == null) return;
+        long finalized = head.number() - finalityBlocks;
+        writer.execute(() -> {
+            long number = blockNumberOf(result);
+            if (number < 0 || number > finalized) return;
+            try {
+                append(key.getBytes(UTF_8), result.getBytes());
+            } catch (IOException e) {
+                log.warn("Disk cache write failed: {}", e.toString());
+            }
+        });
+    }
+
+    /** Runs on the writer thread, the only one that changes segments or the index. */
+    private void append(byte[] key, byte[] value) throws IOException {
+        int size = RECORD_HEADER_BYTES + key.length + value.length;
+        if (size > segmentBytes) return;
+        Segment segment = segments.lastEntry().getValue();
+        if (segment.writeOffset + size > segment.capacity()) {
+            segment = withWriteLock(this::roll);
+        }
+        int offset = segment.writeOffset;
+        MappedByteBuffer map = segment.map;
+        map.put(offset + RECORD_HEADER_BYTES, key);
+        map.put(offset + RECORD_HEADER_BYTES + key.length, value);
+        map.putInt(offset + CHECKSUM_OFFSET, checksum(key, value));
+        map.putInt(offset + VALUE_LENGTH_OFFSET, value.length);
+        // the key length goes last: a record is only visible once it is complete
+        map.putInt(offset, key.length);
+        segment.writeOffset += size;
+        bytes += size;
+        long location = location(segment.number, offset);
+        withWriteLock(() -> {
+            insert(hash(key), location);
+            if (usedSlots > maxUsedSlots) {
+                reindex();
+            }
+            return null;
+        });
+    }
+
+    private <T> T withWriteLock(IoAction<T> action) throws IOException {
+        Lock write = lock.writeLock();
+        write.lock();
+        try {
+            return action.run();
+        } finally {
+            write.unlock();
+        }
+    }
+
+    private void load() throws IOException {
+        Files.createDirectories(dir);
+        TreeMap<Integer, Path> files = new TreeMap<>();
+        try (Stream<Path> listing = Files.list(dir)) {
+            listing.forEach(file -> {
+                Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    files.put(Integer.parseInt(matcher.group(1)), file);
+                }
+            });
+        }
+        while (files.size() > maxSegments) {
+            Files.deleteIfExists(files.pollFirstEntry().getValue());
+        }
+        boolean clean = false;
+        for (Map.Entry<Integer, Path> file : files.entrySet()) {
+            Segment segment = Segment.open(file.getValue(), file.getKey(), 0);
+            segments.put(segment.number, segment);
+            clean = scan(segment, true);
+            bytes += segment.writeOffset;
+        }
+        if (segments.isEmpty() || !clean) {
+            // never append behind a torn record
+            roll();
+        }
+        if (usedSlots > maxUsedSlots) {
+            reindex();
+        }
+        log.info("Disk cache {}: {} segments, {} bytes", dir, segments.size(), bytes);
+    }
+
+    /**
+     * Indexes the valid records of a segment and sets its write offset behind the last one; returns whether the
+     * segment ended cleanly and may be appended to. Invalid records are counted when {@code loading}.
+     */
+    private boolean scan(Segment segment, boolean loading) {
+        MappedByteBuffer map = segment.map;
+        int capacity = segment.capacity();
+        int offset = 0;
+        while (offset + RECORD_HEADER_BYTES <= capacity) {
+            int keyLength = map.getInt(offset);
+            if (keyLength == 0) break;
+            int valueLength = map.getInt(offset + VALUE_LENGTH_OFFSET);
+            long end = (long) offset + RECORD_HEADER_BYTES + keyLength + valueLength;
+            if (keyLength < 0 || valueLength < 0 || end > capacity) {
+                if (loading) corrupt.increment();
+                segment.writeOffset = offset;
+                return false;
+            }
+            byte[] key = bytesAt(map, offset + RECORD_HEADER_BYTES, keyLength);
+            byte[] value = bytesAt(map, offset + RECORD_HEADER_BYTES + keyLength, valueLength);
+            if (map.getInt(offset + CHECKSUM_OFFSET) == checksum(key, value)) {
+                insert(hash(key), location(segment.number, offset));
+            } else if (loading) {
+                corrupt.increment();
+            }
+            offset = (int) end;
+        }
+        segment.writeOffset = offset;
+        return true;
+    }
+
+    private Segment roll() throws IOException {
+        int number = segments.isEmpty() ? 0 : segments.lastKey() + 1;
+        Segment segment = Segment.open(dir.resolve(String.format(SEGMENT_FORMAT, number)), number, segmentBytes);
+        segments.put(number, segment);
+        while (segments.size() > maxSegments) {
+            dropOldest();
+        }
+        return segment;
+    }
+
+    private Buffer read(long location, byte[] key) {
+        Segment segment = location >= 0 ? segments.get(segmentOf(location)) : null;
+        if (segment == null) return null;
+        int offset = offsetOf(location);
+        MappedByteBuffer map = segment.map;
+        int keyLength = map.getInt(offset);
+        int valueLength = map.getInt(offset + VALUE_LENGTH_OFFSET);
+        if (keyLength != key.length || valueLength < 0
+                || (long) offset + RECORD_HEADER_BYTES + keyLength + valueLength > segment.capacity()) {
+            corrupt.increment();
+            return null;
+        }
+        byte[] storedKey = bytesAt(map, offset + RECORD_HEADER_BYTES, keyLength);
+        if (!Arrays.equals(storedKey, key)) return null;
+        byte[] value = bytesAt(map, offset + RECORD_HEADER_BYTES + keyLength, valueLength);
+        if (map.getInt(offset + CHECKSUM_OFFSET) != checksum(key, value)) {
+            corrupt.increment();
+            return null;
+        }
+        return Buffer.buffer(value);
+    }
+
+    private long find(long hash) {
+        for (int slot = (int) hash & slotMask; ; slot = (slot + 1) & slotMask) {
+            long slotHash = index.getLong(slot * SLOT_BYTES);
+            if (slotHash == 0) return -1;
+            long location = index.getLong(slot * SLOT_BYTES + Long.BYTES);
+            if (slotHash == hash && !isStale(location)) return location;
+        }
+    }
+
+    private void insert(long hash, long location) {
+        int reusable = -1;
+        int slot = (int) hash & slotMask;
+        for (; ; slot = (slot + 1) & slotMask) {
+            long slotHash = index.getLong(slot * SLOT_BYTES);
+            if (slotHash == 0) break;
+            long slotLocation = index.getLong(slot * SLOT_BYTES + Long.BYTES);
+            if (isStale(slotLocation)) {
+                if (reusable < 0) reusable = slot;
+            } else if (slotHash == hash) {
+                index.putLong(slot * SLOT_BYTES + Long.BYTES, location);
+                return;
+            }
+        }
+        if (reusable >= 0) {
+            slot = reusable;
+        } else if (usedSlots == slotMask) {
+            // keep one empty slot so that probing terminates; reindex() makes room
+            return;
+        } else {
+            usedSlots++;
+        }
+        index.putLong(slot * SLOT_BYTES, hash);
+        index.putLong(slot * SLOT_BYTES + Long.BYTES, location);
+    }
+
+    /** Rebuilds the index without stale slots, dropping the oldest segments while the live records overfill it. */
+    private void reindex() {
+        rebuildIndex();
+        while (usedSlots > maxUsedSlots && segments.size() > 1) {
+            dropOldest();
+            rebuildIndex();
+        }
+    }
+
+    private void rebuildIndex() {
+        index.clear();
+        while (index.hasRemaining()) {
+            index.putLong(0);
+        }
+        usedSlots = 0;
+        for (Segment segment : segments.values()) {
+            scan(segment, false);
+        }
+    }
+
+    private void dropOldest() {
+        Segment oldest = segments.pollFirstEntry().getValue();
+        bytes -= oldest.writeOffset;
+        oldest.close();
+        try {
+            Files.deleteIfExists(oldest.file);
+        } catch (IOException e) {
+            log.warn("Unable to delete disk cache segment {}: {}", oldest.file, e.toString());
+        }
+    }
+
+    private boolean isStale(long location) {
+        return segmentOf(location) < segments.firstKey();
+    }
+
+    private static int checksum(byte[] key, byte[] value) {
+        CRC32C checksum = new CRC32C();
+        checksum.update(key);
+        checksum.update(value);
+        return (int) checksum.getValue();
+    }
+
+    /**
+     * The top-level {@code blockNumber} of an object result, else its {@code number}, or -1. Read token by token:
+     * nested values such as a block's transactions are skipped, not decoded.
+     */
+    static long blockNumberOf(Buffer result) {
+        if (result.length() == 0 || result.getByte(0) != '{') return -1;
+        try (JsonParser parser = JsonTokens.createParser(result)) {
+            parser.nextToken();
+            String number = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (FIELD_BLOCK_NUMBER.equals(field)) {
+                    return value == JsonToken.VALUE_STRING ? HeadTracker.parseHex(parser.getText()) : -1;
+                }
+                if (FIELD_NUMBER.equals(field) && value == JsonToken.VALUE_STRING) {
+                    number = parser.getText();
+                }
+                parser.skipChildren();
+            }
+            return HeadTracker.parseHex(number);
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private static byte[] bytesAt(MappedByteBuffer map, int offset, int length) {
+        byte[] bytes = new byte[length];
+        map.get(offset, bytes);
+        return bytes;
+    }
+
+    /** {@link KeyHash} of the key, never 0, which marks an empty slot. */
+    private static long hash(byte[] key) {
+        long hash = KeyHash.of(key);
+        return hash != 0 ? hash : 1;
+    }
+
+    private static long location(int segment, int offset) {
+        return (long) segment << Integer.SIZE | offset;
+    }
+
+    private static int segmentOf(long location) {
+        return (int) (location >>> Integer.SIZE);
+    }
+
+    private static int offsetOf(long location) {
+        return (int) location;
+    }
+
+    /** Lets the writer finish the queued appends, then flushes and closes the segments. */
+    @Override
+    public void close() {
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                log.warn("Disk cache writer did not finish within {} s", CLOSE_TIMEOUT_SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Lock write = lock.writeLock();
+        write.lock();
+        try {
+            for (Segment segment : segments.values()) {
+                segment.map.force();
+                segment.close();
+            }
+        } finally {
+            write.unlock();
+        }
+    }
+
+    @FunctionalInterface
+    private interface IoAction<T> {
+        T run() throws IOException;
+    }
+
+    private static final class Segment {
+        private final Path file;
+        private final int number;
+        private final FileChannel channel;
+        private final MappedByteBuffer map;
+        private int writeOffset;
+
+        private Segment(Path file, int number, FileChannel channel, MappedByteBuffer map) {
+            this.file = file;
+            this.number = number;
+            this.channel = channel;
+            this.map = map;
+        }
+
+        /** Maps the whole file, or {@code size} bytes of a new one. */
+        private static Segment open(Path file, int number, int size) throws IOException {
+            FileChannel channel = FileChannel.open(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long length = size > 0 ? size : Math.min(channel.size(), Integer.MAX_VALUE);
+            return new Segment(file, number, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, length));
+        }
+
+        private int capacity() {
+            return map.capacity();
+        }
+
+        private void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Unable to close disk cache segment {}: {}", file, e.toString());
+            }
+        }
+    }
+}
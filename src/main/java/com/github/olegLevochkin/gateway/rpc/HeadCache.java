@@ -0,0 +1,110 @@
+package com.github.olegLevochkin.gateway.rpc;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.olegLevochkin.gateway.config.AppConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.Json;
+import io.vertx.core.json.JsonArray;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.github.olegLevochkin.gateway.metrics.MetricsNames.CACHE_JSONRPC_LATEST_RESPONSES;
+
+/**
+ * Results of {@code "latest"}-tagged state queries for the current head block. A call is pinned to the head by
+ * replacing its {@code "latest"} (or omitted) block tag with the head number, and is keyed by the head hash and
+ * the pinned {@link CanonicalCallKey}; every head change published by the {@link HeadTracker}, reorgs included, empties
+ * the cache.
+ */
+public record HeadCache(Cache<String, Buffer> cache, Set<String> methods, HeadTracker tracker) implements AutoCloseable {
+
+    public static final String ETH_BLOCK_NUMBER = "eth_blockNumber";
+
+    private static final String TAG_LATEST = "latest";
+    private static final int ENTRY_OVERHEAD_BYTES = 64;
+
+    /** Index of the block tag in the params of each supported method. */
+    private static final Map<String, Integer> BLOCK_TAG_POSITIONS = Map.of(
+            "eth_call", 1,
+            "eth_getBalance", 1,
+            "eth_getBlockByNumber", 0,
+            "eth_getCode", 1,
+            "eth_getStorageAt", 2,
+            "eth_getTransactionCount", 1);
+
+    /** A call rewritten to the given head and its cache key. */
+    public record Pinned(JsonRpcCall call, String key) {
+    }
+
+    public static HeadCache create(Vertx vertx, AppConfig config, List<UpstreamNode> nodes, MeterRegistry meterRegistry) {
+        Cache<String, Buffer> cache = Caffeine.newBuilder()
+                .maximumWeight(config.headCacheMaxBytes())
+                .weigher((String key, Buffer result) -> ENTRY_OVERHEAD_BYTES + 2 * key.length() + result.length())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_JSONRPC_LATEST_RESPONSES);
+        HeadTracker tracker = HeadTracker.create(vertx, config, nodes, meterRegistry, head -> cache.invalidateAll());
+        return new HeadCache(cache, config.headCacheMethods(), tracker);
+    }
+
+    public HeadTracker.Head head() {
+        return tracker.head();
+    }
+
+    public boolean handles(JsonRpcCall call) {
+        return call.hasId() && methods.contains(call.method());
+    }
+
+    /**
+     * Rewrites the block tag of {@code call} to {@code head}, or returns {@code null} when the call targets
+     * another block or its params cannot be read.
+     */
+    public Pinned pin(JsonRpcCall call, HeadTracker.Head head) {
+        Integer position = BLOCK_TAG_POSITIONS.get(call.method());
+        if (position == null) return null;
+        JsonArray params = paramsOf(call);
+        if (params == null) return null;
+        String number = HeadTracker.toHex(head.number());
+        if (params.size() > position) {
+            if (!TAG_LATEST.equals(params.getValue(position))) return null;
+            params.set(position, number);
+        } else if (params.size() == position && position > 0) {
+            params.add(number);
+        } else {
+            return null;
+        }
+        JsonRpcCall pinned = call.withParams(params.toBuffer());
+        return new Pinned(pinned, head.hash() + CanonicalCallKey.of(pinned));
+    }
+
+    private static JsonArray paramsOf(JsonRpcCall call) {
+        if (!call.hasParams()) return new JsonArray();
+        try {
+            return Json.decodeValue(call.params()) instanceof JsonArray array ? array : null;
+        } catch (DecodeException e) {
+            return null;
+        }
+    }
+
+    public Buffer get(String key) {
+        return cache.getIfPresent(key);
+    }
+
+    /** Keeps the result unless it is an error or null, or the head moved on while the call was in flight. */
+    public void put(String key, HeadTracker.Head head, JsonRpcReply reply) {
+        if (reply.hasError() || reply.hasNullResult() || tracker.head() != head) return;
+        cache.put(key, reply.result().copy());
+    }
+
+    @Override
+    public void close() {
+        tracker.close();
+    }
+}
@@ -0,0 +1,99 @@
+package com.github.olegLevochkin.gateway.rpc;
+
+import io.vertx.core.Future;
+import io.vertx.core.buffer.Buffer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import static com.github.olegLevochkin.gateway.rpc.HeadCache.ETH_BLOCK_NUMBER;
+
+/**
+ * Answers {@code eth_blockNumber} from the tracked head and {@code "latest"} state queries from the
+ * {@link HeadCache}; misses are sent pinned to the head block. A pinned call answered by a node that has not seen
+ * the head block yet (a null result or a "header/block not found" error) is retried once as the caller sent it,
+ * within what is left of the call's timeout; any other error, such as a reverted {@code eth_call}, is answered as
+ * is. Until a head is known every call passes through unchanged.
+ */
+public record HeadCachingDispatcher(JsonRpcDispatcher delegate, HeadCache cache) implements JsonRpcDispatcher {
+
+    private static final Pattern BLOCK_NOT_FOUND = Pattern.compile("(?i)^(header|block) not found\\b");
+
+    @Override
+    public Future<List<JsonRpcReply>> dispatch(List<JsonRpcCall> calls, int timeoutMillis) {
+        HeadTracker.Head head = cache.head();
+        if (head == null) {
+            return delegate.dispatch(calls, timeoutMillis);
+        }
+
+        long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        int size = calls.size();
+        JsonRpcReply[] replies = new JsonRpcReply[size];
+        String[] keys = new String[size];
+        int[] missIndexes = new int[size];
+        List<JsonRpcCall> misses = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) {
+            JsonRpcCall call = calls.get(i);
+            if (!cache.handles(call)) {
+                missIndexes[misses.size()] = i;
+                misses.add(call);
+                continue;
+            }
+            if (ETH_BLOCK_NUMBER.equals(call.method())) {
+                replies[i] = JsonRpcReply.ofResult(call.id(), head.numberJson());
+                continue;
+            }
+            HeadCache.Pinned pinned = cache.pin(call, head);
+            Buffer cached = pinned != null ? cache.get(pinned.key()) : null;
+            if (cached != null) {
+                replies[i] = JsonRpcReply.ofResult(call.id(), cached);
+            } else {
+                keys[i] = pinned != null ? pinned.key() : null;
+                missIndexes[misses.size()] = i;
+                misses.add(pinned != null ? pinned.call() : call);
+            }
+        }
+
+        if (misses.isEmpty()) {
+            return Future.succeededFuture(Arrays.asList(replies));
+        }
+
+        return delegate.dispatch(misses, timeoutMillis).compose(missReplies -> {
+            List<Integer> retryIndexes = new ArrayList<>();
+            List<JsonRpcCall> retries = new ArrayList<>();
+            for (int j = 0; j < missReplies.size(); j++) {
+                int i = missIndexes[j];
+                JsonRpcReply reply = missReplies.get(j);
+                replies[i] = reply;
+                if (keys[i] == null || reply == null) continue;
+                if (isBehindHead(reply)) {
+                    retryIndexes.add(i);
+                    retries.add(calls.get(i));
+                } else {
+                    cache.put(keys[i], head, reply);
+                }
+            }
+            long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+            if (retries.isEmpty() || remainingMillis <= 0) {
+                return Future.succeededFuture(Arrays.asList(replies));
+            }
+            return delegate.dispatch(retries, (int) remainingMillis).map(retryReplies -> {
+                for (int j = 0; j < retryReplies.size(); j++) {
+                    replies[retryIndexes.get(j)] = retryReplies.get(j);
+                }
+                return Arrays.asList(replies);
+            });
+        });
+    }
+
+    /** Whether {@code reply} looks like it came from a node that does not have the pinned block yet. */
+    private static boolean isBehindHead(JsonRpcReply reply) {
+        if (!reply.hasError()) return reply.hasNullResult();
+        String message = reply.errorMessage();
+        return message != null && BLOCK_NOT_FOUND.matcher(message).find();
+    }
+}
@@ -0,0 +1,190 @@
+package com.github.olegLevochkin.gateway.rpc;
+
+import com.github.olegLevochkin.gateway.config.AppConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.JsonObject;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static com.github.olegLevochkin.gateway.metrics.MetricsNames.JSONRPC_HEAD_BLOCK;
+import static com.github.olegLevochkin.gateway.metrics.MetricsNames.JSONRPC_HEAD_REORGS_TOTAL;
+
+/**
+ * Follows the chain head by polling {@code eth_blockNumber} through its own {@link UpstreamPool} every
+ * {@code head.poll.interval.ms}. When the number changes the new head block is fetched, and its parent hash is
+ * checked against the hash remembered for the previous height; a mismatch, or a head that moved backwards or was
+ * replaced at the same height, is reported as a reorg. Polls run on the tracker's own context; the current head is
+ * published through a volatile field for all event loops.
+ */
+@Slf4j
+public final class HeadTracker implements AutoCloseable {
+
+    private static final String HEX_PREFIX = "0x";
+    private static final String FIELD_RESULT = "result";
+    private static final String FIELD_NUMBER = "number";
+    private static final String FIELD_HASH = "hash";
+    private static final String FIELD_PARENT_HASH = "parentHash";
+    private static final Buffer BLOCK_NUMBER_REQUEST =
+            Buffer.buffer("{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"eth_blockNumber\"}");
+    private static final int REMEMBERED_BLOCKS = 128;
+
+    /** A head block; {@code numberJson} is the quoted hex number, ready to be used as a result. */
+    public record Head(long number, String hash, Buffer numberJson) {
+    }
+
+    private final Context context;
+    private final UpstreamPool pool;
+    private final long intervalMillis;
+    private final int timeoutMillis;
+    private final Counter reorgs;
+    private final Map<Long, String> hashes = new HashMap<>();
+    private final Consumer<Head> listener;
+
+    private volatile Head head;
+    private volatile long timerId = -1;
+    private boolean polling;
+
+    private HeadTracker(Vertx vertx, AppConfig config, List<UpstreamNode> nodes, MeterRegistry meterRegistry,
+                        Consumer<Head> listener) {
+        this.context = vertx.getOrCreateContext();
+        this.pool = UpstreamPool.create(vertx, config, nodes);
+        this.intervalMillis = config.headPollIntervalMs();
+        this.timeoutMillis = config.requestTimeoutMs();
+        this.listener = listener;
+        this.reorgs = meterRegistry.counter(JSONRPC_HEAD_REORGS_TOTAL);
+        Gauge.builder(JSONRPC_HEAD_BLOCK, this, tracker -> {
+            Head current = tracker.head;
+            return current != null ? current.number() : Double.NaN;
+        }).register(meterRegistry);
+    }
+
+    /**
+     * Starts polling. {@code listener} is called on the tracker context with every new head, including one that
+     * replaced reorged blocks, and with {@code null} once the head can no longer be read.
+     */
+    public static HeadTracker create(Vertx vertx, AppConfig config, List<UpstreamNode> nodes, MeterRegistry meterRegistry,
+                                     Consumer<Head> listener) {
+        HeadTracker tracker = new HeadTracker(vertx, config, nodes, meterRegistry, listener);
+        tracker.context.runOnContext(v -> {
+            tracker.timerId = vertx.setPeriodic(0, tracker.intervalMillis, id -> tracker.poll());
+        });
+        return tracker;
+    }
+
+    /** The last head seen, or {@code null} until the first poll succeeded or while the upstream is unreadable. */
+    public Head head() {
+        return head;
+    }
+
+    private void poll() {
+        if (polling) return;
+        polling = true;
+        pool.forward(BLOCK_NUMBER_REQUEST, timeoutMillis)
+                .map(HeadTracker::parseNumber)
+                .compose(number -> {
+                    Head current = head;
+                    if (current != null && current.number() == number) {
+                        return Future.succeededFuture();
+                    }
+                    return pool.forward(blockRequest(number), timeoutMillis)
+                            .map(body -> {
+                                advance(number, body);
+                                return null;
+                            });
+                })
+                .onFailure(err -> {
+                    if (head != null) {
+                        log.warn("Lost track of the chain head: {}", err.toString());
+                        publish(null);
+                    }
+                })
+                .onComplete(ar -> polling = false);
+    }
+
+    private void advance(long number, Buffer body) {
+        JsonObject block = resultObject(body);
+        if (block == null || parseHex(block.getString(FIELD_NUMBER)) != number) {
+            throw new IllegalStateException("Block " + number + " not available upstream yet");
+        }
+        String hash = block.getString(FIELD_HASH);
+        String parentHash = block.getString(FIELD_PARENT_HASH);
+        Head previous = head;
+        String knownParent = hashes.get(number - 1);
+        String knownSame = hashes.get(number);
+        boolean reorg = (knownParent != null && !knownParent.equals(parentHash))
+                || (knownSame != null && !knownSame.equals(hash))
+                || (previous != null && number < previous.number());
+        if (reorg) {
+            reorgs.increment();
+            log.info("Reorg detected at block {} (parent {}, remembered {})", number, parentHash, knownParent);
+            hashes.keySet().removeIf(height -> height >= number);
+        }
+        hashes.put(number, hash);
+        hashes.put(number - 1, parentHash);
+        hashes.keySet().removeIf(height -> height <= number - REMEMBERED_BLOCKS);
+        publish(new Head(number, hash, Buffer.buffer('"' + toHex(number) + '"')));
+    }
+
+    private void publish(Head next) {
+        head = next;
+        listener.accept(next);
+    }
+
+    private static Buffer blockRequest(long number) {
+        return Buffer.buffer("{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"eth_getBlockByNumber\",\"params\":[\""
+                + toHex(number) + "\",false]}");
+    }
+
+    private static long parseNumber(Buffer body) {
+        JsonObject reply = decode(body);
+        Object result = reply != null ? reply.getValue(FIELD_RESULT) : null;
+        long number = result instanceof String hex ? parseHex(hex) : -1;
+        if (number < 0) {
+            throw new IllegalStateException("Unexpected eth_blockNumber reply");
+        }
+        return number;
+    }
+
+    private static JsonObject resultObject(Buffer body) {
+        JsonObject reply = decode(body);
+        return reply != null && reply.getValue(FIELD_RESULT) instanceof JsonObject block ? block : null;
+    }
+
+    private static JsonObject decode(Buffer body) {
+        try {
+            return body != null ? new JsonObject(body) : null;
+        } catch (DecodeException | ClassCastException e) {
+            return null;
+        }
+    }
+
+    static long parseHex(String hex) {
+        if (hex == null || !hex.startsWith(HEX_PREFIX) || hex.length() == HEX_PREFIX.length()) return -1;
+        try {
+            return Long.parseLong(hex.substring(HEX_PREFIX.length()), 16);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    static String toHex(long number) {
+        return HEX_PREFIX + Long.toHexString(number);
+    }
+
+    @Override
+    public void close() {
+        context.owner().cancelTimer(timerId);
+        pool.close();
+    }
+}
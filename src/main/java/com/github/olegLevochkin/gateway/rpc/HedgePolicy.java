@@ -0,0 +1,113 @@
+package com.github.olegLevochkin.gateway.rpc;
+
+import com.github.olegLevochkin.gateway.config.AppConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.github.olegLevochkin.gateway.metrics.MetricsNames.JSONRPC_HEDGES_TOTAL;
+import static com.github.olegLevochkin.gateway.metrics.MetricsNames.JSONRPC_HEDGE_WINS_TOTAL;
+
+/**
+ * When and how often calls may be hedged; shared by all verticle instances. The hedge delay of a method is a
+ * percentile of its recently observed latency, and hedges are paid for from a token bucket that every dispatched
+ * request tops up by {@code hedging.budget.percent}, so hedges never exceed that share of upstream traffic.
+ */
+public final class HedgePolicy {
+
+    public static final long NO_HEDGE = -1;
+
+    private static final int SAMPLES = 512;
+    private static final int MIN_SAMPLES = 32;
+    private static final int RECOMPUTE_EVERY = 64;
+    private static final long TOKEN = 1_000;
+    private static final long MAX_TOKENS = 10 * TOKEN;
+
+    private final Map<String, LatencyWindow> windows;
+    private final int percentile;
+    private final long minDelayMillis;
+    private final long depositPerRequest;
+    private final AtomicLong tokens = new AtomicLong();
+    private final Counter hedges;
+    private final Counter wins;
+
+    private HedgePolicy(AppConfig config, MeterRegistry meterRegistry) {
+        this.windows = config.hedgingMethods().stream()
+                .collect(Collectors.toUnmodifiableMap(Function.identity(), method -> new LatencyWindow()));
+        this.percentile = config.hedgingPercentile();
+        this.minDelayMillis = config.hedgingMinDelayMs();
+        this.depositPerRequest = TOKEN * config.hedgingBudgetPercent() / 100;
+        this.hedges = meterRegistry.counter(JSONRPC_HEDGES_TOTAL);
+        this.wins = meterRegistry.counter(JSONRPC_HEDGE_WINS_TOTAL);
+    }
+
+    public static HedgePolicy create(AppConfig config, MeterRegistry meterRegistry) {
+        return new HedgePolicy(config, meterRegistry);
+    }
+
+    /**
+     * Delay after which the calls may be hedged, or {@link #NO_HEDGE} if any of them is not allow-listed or has
+     * too few latency samples yet.
+     */
+    public long delayMillis(List<JsonRpcCall> calls) {
+        long delay = minDelayMillis;
+        for (JsonRpcCall call : calls) {
+            LatencyWindow window = windows.get(call.method());
+            long quantile = window != null ? window.quantileMillis() : NO_HEDGE;
+            if (quantile == NO_HEDGE) return NO_HEDGE;
+            delay = Math.max(delay, quantile);
+        }
+        return delay;
+    }
+
+    public void record(String method, long latencyMillis) {
+        LatencyWindow window = windows.get(method);
+        if (window != null) {
+            window.add(latencyMillis, percentile);
+        }
+    }
+
+    public void deposit() {
+        tokens.getAndUpdate(current -> Math.min(MAX_TOKENS, current + depositPerRequest));
+    }
+
+    public boolean tryAcquire() {
+        long current;
+        do {
+            current = tokens.get();
+            if (current < TOKEN) return false;
+        } while (!tokens.compareAndSet(current, current - TOKEN));
+        hedges.increment();
+        return true;
+    }
+
+    public void recordWin() {
+        wins.increment();
+    }
+
+    private static final class LatencyWindow {
+        private final long[] samples = new long[SAMPLES];
+        private long count;
+        private volatile long quantileMillis = NO_HEDGE;
+
+        long quantileMillis() {
+            return quantileMillis;
+        }
+
+        synchronized void add(long latencyMillis, int percentile) {
+            samples[(int) (count % SAMPLES)] = latencyMillis;
+            count++;
+            if (count == MIN_SAMPLES || count > MIN_SAMPLES && count % RECOMPUTE_EVERY == 0) {
+                long[] sorted = Arrays.copyOf(samples, (int) Math.min(count, SAMPLES));
+                Arrays.sort(sorted);
+                quantileMillis = sorted[(sorted.length - 1) * percentile / 100];
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.github.olegLevochkin.gateway.rpc;
+
+import com.github.olegLevochkin.gateway.metrics.RpcMetrics;
+import io.vertx.core.Future;
+import io.vertx.core.buffer.Buffer;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Terminal stage that sends calls through the {@link UpstreamPool}, hedging them when every method is
+ * allow-listed by the {@link HedgePolicy}. Single-call latencies feed the per-method hedge delay.
+ */
+public record HedgingDispatcher(UpstreamPool pool, HedgePolicy policy, RpcMetrics metrics) implements JsonRpcDispatcher {
+
+    @Override
+    public Future<List<JsonRpcReply>> dispatch(List<JsonRpcCall> calls, int timeoutMillis) {
+        policy.deposit();
+        long startedAt = System.nanoTime();
+        Buffer body = JsonRpcBodies.encodeRequest(calls);
+        long hedgeDelay = policy.delayMillis(calls);
+        Future<Buffer> response = hedgeDelay == HedgePolicy.NO_HEDGE || hedgeDelay >= timeoutMillis
+                ? pool.forward(body, timeoutMillis)
+                : pool.forwardHedged(body, timeoutMillis, hedgeDelay, policy);
+
+        if (calls.size() == 1) {
+            String method = calls.get(0).method();
+            response = response.onSuccess(buf ->
+                    policy.record(method, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt)));
+        }
+        return response.map(buf -> UpstreamDispatcher.alignReplies(metrics, calls, buf, startedAt));
+    }
+}
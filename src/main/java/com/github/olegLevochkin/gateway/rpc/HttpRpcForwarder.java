@@ -0,0 +1,164 @@
+package com.github.olegLevochkin.gateway.rpc;
+
+import com.github.olegLevochkin.gateway.config.AppConfig;
+import io.vertx.circuitbreaker.CircuitBreaker;
+import io.vertx.circuitbreaker.CircuitBreakerOptions;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.http.HttpClientRequest;
+import io.vertx.core.http.HttpClientResponse;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpVersion;
+import io.vertx.core.http.PoolOptions;
+import io.vertx.core.http.RequestOptions;
+import lombok.extern.slf4j.Slf4j;
+
+import static io.netty.handler.codec.http.HttpHeaderValues.APPLICATION_JSON;
+import static io.netty.handler.codec.http.HttpHeaderValues.IDENTITY;
+import static io.vertx.core.http.HttpHeaders.ACCEPT_ENCODING;
+import static io.vertx.core.http.HttpHeaders.CONTENT_ENCODING;
+import static io.vertx.core.http.HttpHeaders.CONTENT_TYPE;
+
+@Slf4j
+public record HttpRpcForwarder(HttpClient client, String targetUrl, CircuitBreaker circuitBreaker)
+        implements RpcForwarder {
+
+    private static final int DEFAULT_MAX_POOL_SIZE = 200;
+    /** TLS verification towards upstreams, over HTTP here and over WebSocket in {@link SubscriptionHub}. */
+    static final boolean TRUST_ALL_CERTIFICATES = true;
+    static final boolean VERIFY_HOSTNAME = false;
+    private static final String CIRCUIT_BREAKER_NAME = "upstream-rpc";
+
+    public static HttpRpcForwarder of(Vertx vertx, AppConfig config, String targetUrl, CircuitBreaker circuitBreaker) {
+        return of(vertx, config, targetUrl, circuitBreaker, DEFAULT_MAX_POOL_SIZE);
+    }
+
+    /** A forwarder whose client opens at most {@code maxPoolSize} connections to {@code targetUrl}. */
+    public static HttpRpcForwarder of(Vertx vertx, AppConfig config, String targetUrl, CircuitBreaker circuitBreaker,
+                                      int maxPoolSize) {
+        HttpClientOptions options = new HttpClientOptions()
+                .setKeepAlive(true)
+                .setTcpNoDelay(config.tcpNoDelay())
+                .setTrustAll(TRUST_ALL_CERTIFICATES)
+                .setVerifyHost(VERIFY_HOSTNAME);
+        PoolOptions poolOptions = new PoolOptions().setHttp1MaxSize(maxPoolSize);
+
+        if (config.upstreamHttp2Enabled()) {
+            // ALPN for https, prior knowledge for plain http; https upstreams without h2 fall back to HTTP/1.1.
+            options.setProtocolVersion(HttpVersion.HTTP_2)
+                    .setUseAlpn(true)
+                    .setHttp2ClearTextUpgrade(false)
+                    .setHttp2MultiplexingLimit(config.upstreamHttp2MaxStreams());
+            poolOptions.setHttp2MaxSize(Math.min(maxPoolSize, config.upstreamHttp2MaxConnections()));
+        }
+
+        HttpClient httpClient = vertx.createHttpClient(options, poolOptions);
+
+        return new HttpRpcForwarder(httpClient, targetUrl, circuitBreaker);
+    }
+
+    public static CircuitBreaker createCircuitBreaker(Vertx vertx, AppConfig config, String upstreamName) {
+        return createCircuitBreaker(vertx, config, upstreamName, config.requestTimeoutMs());
+    }
+
+    public static CircuitBreaker createCircuitBreaker(Vertx vertx, AppConfig config, String upstreamName,
+                                                      int timeoutMs) {
+        if (!config.circuitBreakerEnabled()) {
+            return null;
+        }
+        return CircuitBreaker.create(CIRCUIT_BREAKER_NAME + "-" + upstreamName, vertx, new CircuitBreakerOptions()
+                .setMaxFailures(config.circuitBreakerFailuresThreshold())
+                .setResetTimeout(config.circuitBreakerResetTimeoutMs())
+                .setTimeout(timeoutMs)
+                .setFallbackOnFailure(false));
+    }
+
+    @Override
+    public Future<Buffer> forward(Buffer jsonBody, int timeoutMillis) {
+        return forward(jsonBody, timeoutMillis, null);
+    }
+
+    /**
+     * Same as {@link #forward(Buffer, int)}, but the request is reset once {@code cancellation} completes.
+     * A cancelled request completes with {@code null} rather than failing, so it never trips the breaker.
+     */
+    public Future<Buffer> forward(Buffer jsonBody, int timeoutMillis, Future<Void> cancellation) {
+        return forwardEncoded(jsonBody, timeoutMillis, null, cancellation)
+                .map(body -> body != null ? body.bytes() : null);
+    }
+
+    /**
+     * Same as {@link #forward(Buffer, int, Future)}, but asks for {@code acceptEncoding} (when not {@code null})
+     * and returns the body without decompressing it.
+     */
+    public Future<UpstreamBody> forwardEncoded(Buffer jsonBody, int timeoutMillis, String acceptEncoding,
+                                               Future<Void> cancellation) {
+        if (circuitBreaker == null) {
+            return doRequest(jsonBody, timeoutMillis, acceptEncoding, cancellation)
+                    .recover(err -> recoverCancelled(err, cancellation))
+                    .onFailure(this::logUpstreamFailure);
+        }
+
+        return circuitBreaker.<UpstreamBody>execute(promise ->
+                doRequest(jsonBody, timeoutMillis, acceptEncoding, cancellation)
+                        .recover(err -> recoverCancelled(err, cancellation))
+                        .onSuccess(promise::complete)
+                        .onFailure(promise::fail)
+        ).onFailure(this::logUpstreamFailure);
+    }
+
+    /** Opens a request whose body the caller streams in and whose response the caller consumes. */
+    public Future<HttpClientRequest> open(int timeoutMillis) {
+        return client.request(requestOptions(timeoutMillis));
+    }
+
+    private Future<UpstreamBody> doRequest(Buffer jsonBody, int timeoutMillis, String acceptEncoding,
+                                           Future<Void> cancellation) {
+        RequestOptions options = requestOptions(timeoutMillis);
+        if (acceptEncoding != null) {
+            options.putHeader(ACCEPT_ENCODING, acceptEncoding);
+        }
+        return client.request(options).compose(request -> {
+            if (cancellation != null) {
+                cancellation.onComplete(v -> request.reset());
+            }
+            return request.send(jsonBody).compose(response -> response.body()
+                    .map(body -> new UpstreamBody(body, contentEncoding(response))));
+        });
+    }
+
+    private static String contentEncoding(HttpClientResponse response) {
+        String encoding = response.getHeader(CONTENT_ENCODING);
+        return encoding == null || IDENTITY.contentEqualsIgnoreCase(encoding) ? null : encoding;
+    }
+
+    private RequestOptions requestOptions(int timeoutMillis) {
+        return new RequestOptions()
+                .setMethod(HttpMethod.POST)
+                .setAbsoluteURI(targetUrl)
+                .setTimeout(timeoutMillis)
+                .putHeader(CONTENT_TYPE, APPLICATION_JSON);
+    }
+
+    private static <T> Future<T> recoverCancelled(Throwable error, Future<Void> cancellation) {
+        return cancellation != null && cancellation.isComplete()
+                ? Future.succeededFuture()
+                : Future.failedFuture(error);
+    }
+
+    private void logUpstreamFailure(Throwable error) {
+        log.warn("Upstream call to {} failed: {}", targetUrl, error.toString());
+    }
+
+    @Override
+    public void close() {
+        try {
+            client.close();
+        } catch (Exception e) {
+            log.warn("HttpClient close failed", e);
+        }
+    }
+}
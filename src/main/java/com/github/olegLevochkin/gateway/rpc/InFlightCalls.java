@@ -0,0 +1,40 @@
+package com.github.olegLevochkin.gateway.rpc;
+
+import com.github.olegLevochkin.gateway.config.AppConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.vertx.core.Future;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.github.olegLevochkin.gateway.metrics.MetricsNames.JSONRPC_COALESCED_TOTAL;
+import static com.github.olegLevochkin.gateway.metrics.MetricsNames.TAG_METHOD;
+
+/**
+ * Upstream calls currently in flight, keyed by {@link CanonicalCallKey}. Shared by all verticle instances
+ * so that identical calls arriving on different event loops still collapse into one upstream request.
+ */
+public record InFlightCalls(
+        ConcurrentMap<String, Future<JsonRpcReply>> calls,
+        Map<String, Counter> coalescedByMethod
+) {
+
+    public static InFlightCalls create(AppConfig config, MeterRegistry meterRegistry) {
+        Map<String, Counter> counters = config.coalescingMethods().stream()
+                .collect(Collectors.toUnmodifiableMap(Function.identity(),
+                        method -> meterRegistry.counter(JSONRPC_COALESCED_TOTAL, TAG_METHOD, method)));
+        return new InFlightCalls(new ConcurrentHashMap<>(), counters);
+    }
+
+    public String keyOf(JsonRpcCall call) {
+        return call.hasId() && coalescedByMethod.containsKey(call.method()) ? CanonicalCallKey.of(call) : null;
+    }
+
+    public void recordCoalesced(String method) {
+        coalescedByMethod.get(method).increment();
+    }
+}
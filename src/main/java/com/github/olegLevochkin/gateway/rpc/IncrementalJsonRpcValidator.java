@@ -0,0 +1,190 @@
+package com.github.olegLevochkin.gateway.rpc;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteBufferFeeder;
+import io.netty.buffer.ByteBuf;
+import io.vertx.core.buffer.Buffer;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * Push-style counterpart of {@link StreamingJsonRpcValidator} for bodies that arrive in chunks: each chunk is fed
+ * to Jackson's non-blocking parser and checked token by token, so the body never has to be held in memory.
+ * Applies the same rules (version {@code "2.0"}, non-blank {@code method}, non-empty batch, no trailing content)
+ * and reports the method of every complete call.
+ * <p>
+ * The non-blocking parser lets a trailing comma through when a chunk ends between the comma and the closing
+ * bracket, so the bytes are also checked for a closing bracket right after a comma outside strings.
+ */
+final class IncrementalJsonRpcValidator {
+
+    private static final String FIELD_JSONRPC = "jsonrpc";
+    private static final String FIELD_METHOD = "method";
+    private static final String JSONRPC_2_0 = "2.0";
+    private static final byte QUOTE = '"';
+    private static final byte BACKSLASH = '\\';
+    private static final byte COMMA = ',';
+    private static final byte END_OBJECT = '}';
+    private static final byte END_ARRAY = ']';
+
+    private final JsonParser parser;
+    private final ByteBufferFeeder feeder;
+    private final Consumer<String> onCall;
+
+    private int depth;
+    private int callDepth;
+    private int calls;
+    private String field;
+    private boolean versionValid;
+    private String method;
+    private boolean ended;
+    private boolean failed;
+    private boolean inString;
+    private boolean escaped;
+    private byte lastSignificant;
+
+    IncrementalJsonRpcValidator(Consumer<String> onCall) {
+        try {
+            this.parser = JsonTokens.createNonBlockingParser();
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to create non-blocking JSON parser", e);
+        }
+        this.feeder = (ByteBufferFeeder) parser.getNonBlockingInputFeeder();
+        this.onCall = onCall;
+    }
+
+    /** Returns {@code false} as soon as the bytes seen so far cannot be a valid JSON-RPC body. */
+    boolean feed(Buffer chunk) {
+        if (failed) return false;
+        try {
+            ByteBuf buf = JsonTokens.byteBuf(chunk);
+            if (!hasNoTrailingComma(buf)) {
+                failed = true;
+                return false;
+            }
+            feeder.feedInput(buf.nioBuffer());
+            return drain();
+        } catch (IOException | RuntimeException e) {
+            failed = true;
+            return false;
+        }
+    }
+
+    /** Signals the end of the body; returns whether the whole body was valid. */
+    boolean finish() {
+        if (failed) return false;
+        try {
+            feeder.endOfInput();
+            return drain() && ended;
+        } catch (IOException | RuntimeException e) {
+            failed = true;
+            return false;
+        } finally {
+            closeQuietly();
+        }
+    }
+
+    private boolean hasNoTrailingComma(ByteBuf buf) {
+        for (int i = buf.readerIndex(); i < buf.writerIndex(); i++) {
+            byte b = buf.getByte(i);
+            if (inString) {
+                if (escaped) {
+                    escaped = false;
+                } else if (b == BACKSLASH) {
+                    escaped = true;
+                } else if (b == QUOTE) {
+                    inString = false;
+                }
+                continue;
+            }
+            if (JsonTokens.isWhitespace(b)) continue;
+            if ((b == END_OBJECT || b == END_ARRAY) && lastSignificant == COMMA) return false;
+            inString = b == QUOTE;
+            lastSignificant = b;
+        }
+        return true;
+    }
+
+    private boolean drain() throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            if (!accept(token)) {
+                failed = true;
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean accept(JsonToken token) throws IOException {
+        if (ended) return false;
+
+        if (depth == 0) {
+            depth = 1;
+            if (token == JsonToken.START_ARRAY) {
+                callDepth = 2;
+                return true;
+            }
+            callDepth = 1;
+            return token == JsonToken.START_OBJECT && startCall();
+        }
+
+        if (depth == callDepth - 1) {
+            if (token == JsonToken.START_OBJECT) {
+                depth++;
+                return startCall();
+            }
+            ended = token == JsonToken.END_ARRAY;
+            return ended && calls > 0;
+        }
+
+        if (depth == callDepth) {
+            if (field == null) {
+                if (token == JsonToken.FIELD_NAME) {
+                    field = parser.currentName();
+                    return true;
+                }
+                depth--;
+                ended = depth == 0;
+                return token == JsonToken.END_OBJECT && endCall();
+            }
+            switch (field) {
+                case FIELD_JSONRPC -> versionValid = token == JsonToken.VALUE_STRING && JSONRPC_2_0.equals(parser.getText());
+                case FIELD_METHOD -> method = token == JsonToken.VALUE_STRING ? parser.getText() : null;
+                default -> {
+                }
+            }
+            field = null;
+        }
+
+        if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+            depth++;
+        } else if (token == JsonToken.END_OBJECT || token == JsonToken.END_ARRAY) {
+            depth--;
+        }
+        return true;
+    }
+
+    private boolean startCall() {
+        versionValid = false;
+        method = null;
+        return true;
+    }
+
+    private boolean endCall() {
+        if (!versionValid || method == null || method.isBlank()) return false;
+        calls++;
+        onCall.accept(method);
+        return true;
+    }
+
+    private void closeQuietly() {
+        try {
+            parser.close();
+        } catch (IOException ignore) {
+            // nothing buffered worth reporting
+        }
+    }
+}
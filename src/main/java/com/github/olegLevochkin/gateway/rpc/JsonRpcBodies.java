@@ -0,0 +1,102 @@
+package com.github.olegLevochkin.gateway.rpc;
+
+import io.vertx.core.buffer.Buffer;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class JsonRpcBodies {
+
+    private static final byte ARRAY_START = '[';
+    private static final byte ARRAY_END = ']';
+    private static final byte SEPARATOR = ',';
+
+    public static boolean isBatch(Buffer body) {
+        return JsonTokens.isArray(body);
+    }
+
+    public static Buffer encodeRequest(List<JsonRpcCall> calls) {
+        if (calls.size() == 1) {
+            return calls.get(0).raw();
+        }
+        int size = 2 + calls.size();
+        for (JsonRpcCall call : calls) {
+            size += call.end() - call.start();
+        }
+        Buffer body = Buffer.buffer(size).appendByte(ARRAY_START);
+        for (int i = 0; i < calls.size(); i++) {
+            if (i > 0) body.appendByte(SEPARATOR);
+            JsonRpcCall call = calls.get(i);
+            body.appendBuffer(call.source(), call.start(), call.end() - call.start());
+        }
+        return body.appendByte(ARRAY_END);
+    }
+
+    public static Buffer encodeResponse(boolean batch, List<JsonRpcReply> replies) {
+        if (!batch) {
+            JsonRpcReply reply = replies.isEmpty() ? null : replies.get(0);
+            return reply != null ? reply.raw() : Buffer.buffer();
+        }
+        int size = 2 + replies.size();
+        boolean empty = true;
+        for (JsonRpcReply reply : replies) {
+            if (reply != null) {
+                size += reply.end() - reply.start();
+                empty = false;
+            }
+        }
+        if (empty) {
+            return Buffer.buffer();
+        }
+        Buffer body = Buffer.buffer(size).appendByte(ARRAY_START);
+        boolean first = true;
+        for (JsonRpcReply reply : replies) {
+            if (reply == null) continue;
+            if (!first) body.appendByte(SEPARATOR);
+            body.appendBuffer(reply.source(), reply.start(), reply.end() - reply.start());
+            first = false;
+        }
+        return body.appendByte(ARRAY_END);
+    }
+
+    public static List<JsonRpcReply> alignReplies(List<JsonRpcCall> calls, Buffer upstreamBody) {
+        if (calls.stream().noneMatch(JsonRpcCall::hasId)) {
+            return Collections.nCopies(calls.size(), null);
+        }
+
+        List<JsonRpcReply> parsed = new ArrayList<>(calls.size());
+        if (!JsonRpcResponseParser.forEach(upstreamBody, parsed::add)) {
+            throw new IllegalStateException("Malformed upstream JSON-RPC response");
+        }
+
+        if (calls.size() == 1) {
+            return Collections.singletonList(parsed.isEmpty()
+                    ? JsonRpcErrors.upstreamUnavailableReply(calls.get(0).id())
+                    : parsed.get(0));
+        }
+
+        Map<String, ArrayDeque<JsonRpcReply>> byId = new HashMap<>(parsed.size() * 2);
+        for (JsonRpcReply reply : parsed) {
+            byId.computeIfAbsent(reply.id(), id -> new ArrayDeque<>(1)).add(reply);
+        }
+
+        List<JsonRpcReply> aligned = new ArrayList<>(calls.size());
+        for (JsonRpcCall call : calls) {
+            if (!call.hasId()) {
+                aligned.add(null);
+                continue;
+            }
+            ArrayDeque<JsonRpcReply> candidates = byId.get(call.id());
+            JsonRpcReply reply = candidates != null ? candidates.poll() : null;
+            aligned.add(reply != null ? reply : JsonRpcErrors.upstreamUnavailableReply(call.id()));
+        }
+        return aligned;
+    }
+}
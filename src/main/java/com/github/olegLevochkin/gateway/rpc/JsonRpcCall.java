@@ -0,0 +1,87 @@
+package com.github.olegLevochkin.gateway.rpc;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.Json;
+import io.vertx.core.json.JsonObject;
+
+import static com.github.olegLevochkin.gateway.rpc.JsonTokens.ABSENT;
+
+/**
+ * A validated JSON-RPC call located inside the original request body. Only the method is decoded;
+ * the element, its {@code id} and its {@code params} are kept as offsets into {@code source}.
+ */
+public record JsonRpcCall(
+        Buffer source,
+        String method,
+        int start,
+        int end,
+        int idStart,
+        int idEnd,
+        int paramsStart,
+        int paramsEnd
+) {
+    private static final String FIELD_METHOD = "method";
+    private static final String FIELD_PARAMS = "params";
+    private static final String FIELD_ID = "id";
+
+    private static final String PREFIX_METHOD = "{\"jsonrpc\":\"2.0\",\"method\":";
+    private static final String PREFIX_PARAMS = ",\"params\":";
+    private static final String PREFIX_ID = ",\"id\":";
+    private static final String SUFFIX = "}";
+
+    public static JsonRpcCall of(JsonObject object) {
+        return encode(object.getString(FIELD_METHOD),
+                object.containsKey(FIELD_PARAMS) ? Json.encodeToBuffer(object.getValue(FIELD_PARAMS)) : null,
+                object.containsKey(FIELD_ID) ? Json.encode(object.getValue(FIELD_ID)) : null);
+    }
+
+    public JsonRpcCall withId(String id) {
+        return encode(method, params(), id);
+    }
+
+    public JsonRpcCall withParams(Buffer params) {
+        return encode(method, params, id());
+    }
+
+    public Buffer raw() {
+        return source.slice(start, end);
+    }
+
+    public boolean hasId() {
+        return idStart != ABSENT;
+    }
+
+    public String id() {
+        return hasId() ? source.getString(idStart, idEnd) : null;
+    }
+
+    public boolean hasParams() {
+        return paramsStart != ABSENT;
+    }
+
+    public Buffer params() {
+        return hasParams() ? source.slice(paramsStart, paramsEnd) : null;
+    }
+
+    private static JsonRpcCall encode(String method, Buffer params, String id) {
+        Buffer source = Buffer.buffer().appendString(PREFIX_METHOD).appendString(Json.encode(method));
+        int paramsStart = ABSENT;
+        int paramsEnd = ABSENT;
+        if (params != null) {
+            source.appendString(PREFIX_PARAMS);
+            paramsStart = source.length();
+            source.appendBuffer(params);
+            paramsEnd = source.length();
+        }
+        int idStart = ABSENT;
+        int idEnd = ABSENT;
+        if (id != null) {
+            source.appendString(PREFIX_ID);
+            idStart = source.length();
+            source.appendString(id);
+            idEnd = source.length();
+        }
+        source.appendString(SUFFIX);
+        return new JsonRpcCall(source, method, 0, source.length(), idStart, idEnd, paramsStart, paramsEnd);
+    }
+}
@@ -0,0 +1,15 @@
+package com.github.olegLevochkin.gateway.rpc;
+
+import io.vertx.core.Future;
+
+import java.util.List;
+
+/**
+ * One stage of the per-call pipeline between {@link RpcHandler} and the upstream. The returned list is aligned
+ * with {@code calls}: element {@code i} answers call {@code i}, and is {@code null} for notifications.
+ */
+@FunctionalInterface
+public interface JsonRpcDispatcher {
+
+    Future<List<JsonRpcReply>> dispatch(List<JsonRpcCall> calls, int timeoutMillis);
+}
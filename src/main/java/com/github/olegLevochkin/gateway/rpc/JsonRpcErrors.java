@@ -1,5 +1,6 @@
 package com.github.olegLevochkin.gateway.rpc;
 
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.json.JsonObject;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
@@ -16,10 +17,19 @@ public final class JsonRpcErrors {
     private static final String JSONRPC_VERSION_2_0 = "2.0";
 
     private static final String MSG_INVALID_REQUEST = "Invalid Request";
+    private static final String MSG_INVALID_PARAMS = "Invalid params";
     private static final String MSG_UPSTREAM_UNAVAILABLE = "Upstream unavailable";
+    private static final String MSG_LIMIT_EXCEEDED = "Rate limit exceeded";
 
     public static final int CODE_INVALID_REQUEST = -32600;
+    public static final int CODE_INVALID_PARAMS = -32602;
     public static final int CODE_UPSTREAM_UNAVAILABLE = -32000;
+    public static final int CODE_LIMIT_EXCEEDED = -32005;
+
+    private static final Buffer UPSTREAM_UNAVAILABLE_ERROR =
+            errorObject(CODE_UPSTREAM_UNAVAILABLE, MSG_UPSTREAM_UNAVAILABLE).toBuffer();
+    private static final Buffer INVALID_PARAMS_ERROR =
+            errorObject(CODE_INVALID_PARAMS, MSG_INVALID_PARAMS).toBuffer();
 
     public static JsonObject invalidRequest(Object id) {
         return error(CODE_INVALID_REQUEST, MSG_INVALID_REQUEST, id);
@@ -29,12 +39,26 @@ public final class JsonRpcErrors {
         return error(CODE_UPSTREAM_UNAVAILABLE, MSG_UPSTREAM_UNAVAILABLE, id);
     }
 
+    public static JsonObject limitExceeded(Object id) {
+        return error(CODE_LIMIT_EXCEEDED, MSG_LIMIT_EXCEEDED, id);
+    }
+
+    public static JsonRpcReply upstreamUnavailableReply(String rawId) {
+        return JsonRpcReply.ofError(rawId, UPSTREAM_UNAVAILABLE_ERROR);
+    }
+
+    public static JsonRpcReply errorReply(String rawId, int code, String message) {
+        return JsonRpcReply.ofError(rawId, errorObject(code, message).toBuffer());
+    }
+
+    public static JsonRpcReply invalidParamsReply(String rawId) {
+        return JsonRpcReply.ofError(rawId, INVALID_PARAMS_ERROR);
+    }
+
     private static JsonObject error(int code, String message, Object id) {
         JsonObject payload = new JsonObject()
                 .put(FIELD_JSONRPC, JSONRPC_VERSION_2_0)
-                .put(FIELD_ERROR, new JsonObject()
-                        .put(FIELD_CODE, code)
-                        .put(FIELD_MESSAGE, message));
+                .put(FIELD_ERROR, errorObject(code, message));
 
         if (id == null) {
             payload.putNull(FIELD_ID);
@@ -43,4 +67,10 @@ public final class JsonRpcErrors {
         }
         return payload;
     }
+
+    private static JsonObject errorObject(int code, String message) {
+        return new JsonObject()
+                .put(FIELD_CODE, code)
+                .put(FIELD_MESSAGE, message);
+    }
 }
@@ -0,0 +1,135 @@
+package com.github.olegLevochkin.gateway.rpc;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.vertx.core.buffer.Buffer;
+
+import java.io.IOException;
+
+import static com.github.olegLevochkin.gateway.rpc.JsonTokens.ABSENT;
+
+/**
+ * A JSON-RPC response element located inside an upstream (or synthesized) body. Like {@link JsonRpcCall},
+ * {@code id}, {@code result} and {@code error} are kept as offsets into {@code source}.
+ */
+public record JsonRpcReply(
+        Buffer source,
+        int start,
+        int end,
+        int idStart,
+        int idEnd,
+        int resultStart,
+        int resultEnd,
+        int errorStart,
+        int errorEnd
+) {
+    private static final String NULL = "null";
+    private static final String FIELD_CODE = "code";
+    private static final String FIELD_MESSAGE = "message";
+
+    private static final String PREFIX_ID = "{\"jsonrpc\":\"2.0\",\"id\":";
+    private static final String PREFIX_RESULT = ",\"result\":";
+    private static final String PREFIX_ERROR = ",\"error\":";
+    private static final String SUFFIX = "}";
+
+    public static JsonRpcReply ofResult(String id, Buffer result) {
+        return encode(id, PREFIX_RESULT, result, false);
+    }
+
+    public static JsonRpcReply ofError(String id, Buffer error) {
+        return encode(id, PREFIX_ERROR, error, true);
+    }
+
+    public Buffer raw() {
+        return source.slice(start, end);
+    }
+
+    public String id() {
+        return idStart != ABSENT ? source.getString(idStart, idEnd) : null;
+    }
+
+    public boolean hasResult() {
+        return resultStart != ABSENT;
+    }
+
+    public Buffer result() {
+        return hasResult() ? source.slice(resultStart, resultEnd) : null;
+    }
+
+    public boolean hasNullResult() {
+        return !hasResult() || (resultEnd - resultStart == NULL.length() && source.getByte(resultStart) == 'n');
+    }
+
+    public boolean hasError() {
+        return errorStart != ABSENT;
+    }
+
+    public Buffer error() {
+        return hasError() ? source.slice(errorStart, errorEnd) : null;
+    }
+
+    /** {@code error.code} of this reply, or {@code null} if there is no error or the code is not an integer. */
+    public Integer errorCode() {
+        try (JsonParser parser = errorField(FIELD_CODE)) {
+            return parser != null && parser.currentToken() == JsonToken.VALUE_NUMBER_INT ? parser.getIntValue() : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /** {@code error.message} of this reply, or {@code null} if there is no error or the message is not a string. */
+    public String errorMessage() {
+        try (JsonParser parser = errorField(FIELD_MESSAGE)) {
+            return parser != null && parser.currentToken() == JsonToken.VALUE_STRING ? parser.getText() : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /** A parser over {@link #error()} positioned on the value of {@code field}, or {@code null} if it is absent. */
+    private JsonParser errorField(String field) throws IOException {
+        if (!hasError()) return null;
+        JsonParser parser = JsonTokens.createParser(error());
+        try {
+            if (parser.nextToken() == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String name = parser.currentName();
+                    parser.nextToken();
+                    if (field.equals(name)) return parser;
+                    parser.skipChildren();
+                }
+            }
+        } catch (IOException e) {
+            parser.close();
+            throw e;
+        }
+        parser.close();
+        return null;
+    }
+
+    public JsonRpcReply withId(String id) {
+        if (id != null && id.equals(id())) {
+            return this;
+        }
+        return hasError() ? ofError(id, error()) : ofResult(id, result());
+    }
+
+    private static JsonRpcReply encode(String id, String prefix, Buffer value, boolean error) {
+        String idText = id != null ? id : NULL;
+        Buffer source = Buffer.buffer(PREFIX_ID.length() + idText.length() + prefix.length()
+                        + value.length() + SUFFIX.length())
+                .appendString(PREFIX_ID);
+        int idStart = source.length();
+        source.appendString(idText);
+        int idEnd = source.length();
+        source.appendString(prefix);
+        int valueStart = source.length();
+        source.appendBuffer(value);
+        int valueEnd = source.length();
+        source.appendString(SUFFIX);
+
+        return error
+                ? new JsonRpcReply(source, 0, source.length(), idStart, idEnd, ABSENT, ABSENT, valueStart, valueEnd)
+                : new JsonRpcReply(source, 0, source.length(), idStart, idEnd, valueStart, valueEnd, ABSENT, ABSENT);
+    }
+}
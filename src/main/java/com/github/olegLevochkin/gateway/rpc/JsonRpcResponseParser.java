@@ -0,0 +1,84 @@
+package com.github.olegLevochkin.gateway.rpc;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.vertx.core.buffer.Buffer;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+import static com.github.olegLevochkin.gateway.rpc.JsonTokens.ABSENT;
+import static com.github.olegLevochkin.gateway.rpc.JsonTokens.offset;
+import static com.github.olegLevochkin.gateway.rpc.JsonTokens.valueEnd;
+
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class JsonRpcResponseParser {
+
+    private static final String FIELD_ID = "id";
+    private static final String FIELD_RESULT = "result";
+    private static final String FIELD_ERROR = "error";
+
+    public static boolean forEach(Buffer body, Consumer<JsonRpcReply> consumer) {
+        if (body == null || body.length() == 0) return false;
+
+        try (JsonParser parser = JsonTokens.createParser(body)) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_ARRAY) {
+                while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                    if (token != JsonToken.START_OBJECT) return false;
+                    JsonRpcReply reply = readReply(parser, body);
+                    if (reply == null) return false;
+                    consumer.accept(reply);
+                }
+                return parser.nextToken() == null;
+            }
+
+            if (token != JsonToken.START_OBJECT) return false;
+            JsonRpcReply reply = readReply(parser, body);
+            if (reply == null || parser.nextToken() != null) return false;
+            consumer.accept(reply);
+            return true;
+        } catch (Exception ignore) {
+            return false;
+        }
+    }
+
+    private static JsonRpcReply readReply(JsonParser parser, Buffer body) throws IOException {
+        int start = offset(parser);
+        int idStart = ABSENT;
+        int idEnd = ABSENT;
+        int resultStart = ABSENT;
+        int resultEnd = ABSENT;
+        int errorStart = ABSENT;
+        int errorEnd = ABSENT;
+
+        JsonToken token;
+        while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case FIELD_ID -> {
+                    idStart = offset(parser);
+                    idEnd = valueEnd(parser, body, value);
+                }
+                case FIELD_RESULT -> {
+                    resultStart = offset(parser);
+                    resultEnd = valueEnd(parser, body, value);
+                }
+                case FIELD_ERROR -> {
+                    errorStart = offset(parser);
+                    errorEnd = valueEnd(parser, body, value);
+                }
+                default -> parser.skipChildren();
+            }
+        }
+
+        if (token != JsonToken.END_OBJECT || (resultStart == ABSENT && errorStart == ABSENT)) {
+            return null;
+        }
+        return new JsonRpcReply(body, start, offset(parser) + 1, idStart, idEnd,
+                resultStart, resultEnd, errorStart, errorEnd);
+    }
+}
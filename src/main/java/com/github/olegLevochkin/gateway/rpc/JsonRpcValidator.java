@@ -42,9 +42,9 @@ public final class JsonRpcValidator {
         }
     }
 
+    /** {@code getString} would turn numbers into strings, so the types are checked on the raw values. */
     private static boolean isInvalidObject(JsonObject object) {
-        if (!JSONRPC_2_0.equals(object.getString(FIELD_JSONRPC))) return true;
-        String method = object.getString(FIELD_METHOD);
-        return method == null || method.isBlank();
+        if (!JSONRPC_2_0.equals(object.getValue(FIELD_JSONRPC))) return true;
+        return !(object.getValue(FIELD_METHOD) instanceof String method) || method.isBlank();
     }
 }
@@ -0,0 +1,87 @@
+package com.github.olegLevochkin.gateway.rpc;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.Unpooled;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.buffer.impl.BufferImpl;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class JsonTokens {
+
+    static final int ABSENT = -1;
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final byte QUOTE = '"';
+    private static final byte BACKSLASH = '\\';
+
+    static JsonParser createParser(Buffer body) throws IOException {
+        ByteBuf buf = byteBuf(body);
+        if (buf.hasArray()) {
+            return JSON_FACTORY.createParser(buf.array(), buf.arrayOffset() + buf.readerIndex(), buf.readableBytes());
+        }
+        return JSON_FACTORY.createParser((InputStream) new ByteBufInputStream(buf.duplicate()));
+    }
+
+    /**
+     * The Netty buffer behind {@code body}, without a copy unless {@code body} is not Vert.x's own implementation.
+     * It is shared with {@code body}: read it without moving its indexes.
+     */
+    static ByteBuf byteBuf(Buffer body) {
+        return body instanceof BufferImpl impl ? impl.byteBuf() : Unpooled.wrappedBuffer(body.getBytes());
+    }
+
+    static JsonParser createNonBlockingParser() throws IOException {
+        return JSON_FACTORY.createNonBlockingByteBufferParser();
+    }
+
+    static int offset(JsonParser parser) {
+        return (int) parser.currentTokenLocation().getByteOffset();
+    }
+
+    static int valueEnd(JsonParser parser, Buffer body, JsonToken value) throws IOException {
+        if (value == JsonToken.START_ARRAY || value == JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return offset(parser) + 1;
+        }
+        int position = offset(parser);
+        if (value == JsonToken.VALUE_STRING) {
+            position++;
+            while (body.getByte(position) != QUOTE) {
+                position += body.getByte(position) == BACKSLASH ? 2 : 1;
+            }
+            return position + 1;
+        }
+        while (position < body.length() && isScalarByte(body.getByte(position))) {
+            position++;
+        }
+        return position;
+    }
+
+    static boolean isArray(Buffer body) {
+        for (int i = 0; i < body.length(); i++) {
+            byte b = body.getByte(i);
+            if (!isWhitespace(b)) {
+                return b == '[';
+            }
+        }
+        return false;
+    }
+
+    private static boolean isScalarByte(byte b) {
+        return b != ',' && b != '}' && b != ']' && !isWhitespace(b);
+    }
+
+    static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+}
@@ -0,0 +1,35 @@
+package com.github.olegLevochkin.gateway.rpc;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 64-bit hash of {@link CanonicalCallKey}s and node ids: FNV-1a over the UTF-8 bytes, finished with the MurmurHash3
+ * mixer so that similar keys spread over the whole range. Shared by the cluster's hash ring and the disk cache index.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class KeyHash {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    public static long of(String key) {
+        return of(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static long of(byte[] key) {
+        long hash = FNV_OFFSET_BASIS;
+        for (byte b : key) {
+            hash ^= b & 0xff;
+            hash *= FNV_PRIME;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,268 @@
+package com.github.olegLevochkin.gateway.rpc;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.Json;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import static com.github.olegLevochkin.gateway.rpc.JsonRpcErrors.CODE_LIMIT_EXCEEDED;
+
+/**
+ * Answers {@code eth_getLogs} calls whose block range is wider than {@code windowBlocks} by querying the range in
+ * windows, at most {@code maxConcurrency} at a time per call. A window the provider refuses with one of the
+ * result-size messages in {@link #TOO_LARGE} is halved and retried, and the windows still to come use the smaller
+ * size. Each window answers in block and log-index order, so the result arrays are joined in range order byte for
+ * byte, without decoding the logs, and answered with the caller's id. Any other error ends the call with that error.
+ * {@code "latest"} bounds are resolved through the {@link HeadTracker} when there is one; calls by {@code blockHash}
+ * or with other tags pass through, and so do ranges that would need more than {@code maxWindows} windows. One call
+ * never sends more than {@code maxWindows} window requests, halved ones included, and all of them share the call's
+ * timeout.
+ * <p>
+ * The reply is still one buffer: a window is appended to it as soon as every earlier window is in, and dropped
+ * then, so a call holds its result about once rather than twice. A call whose result grows past {@code maxBytes}
+ * fails with {@code -32005}.
+ */
+public record LogsSplittingDispatcher(
+        JsonRpcDispatcher delegate,
+        HeadTracker tracker,
+        int windowBlocks,
+        int maxConcurrency,
+        int maxWindows,
+        int maxBytes
+) implements JsonRpcDispatcher {
+
+    private static final String METHOD_GET_LOGS = "eth_getLogs";
+    private static final String FIELD_FROM_BLOCK = "fromBlock";
+    private static final String FIELD_TO_BLOCK = "toBlock";
+    private static final String FIELD_BLOCK_HASH = "blockHash";
+    private static final String TAG_LATEST = "latest";
+    private static final String TAG_EARLIEST = "earliest";
+    private static final String MSG_TOO_MANY_WINDOWS = "Log range needs more windows than allowed";
+    private static final String MSG_TOO_MANY_BYTES = "Log result larger than allowed";
+    /** Messages of providers refusing a window for the size of its result or range. */
+    private static final Pattern TOO_LARGE = Pattern.compile("(?i)"
+            + "query returned more than \\d+ results"      // geth, Infura
+            + "|log response size exceeded"                 // Alchemy
+            + "|block range (is )?too (large|wide)"         // Erigon, Ankr
+            + "|exceeds? (the )?maximum (block )?range"     // geth, Besu
+            + "|limited to a [\\d,]+ (block )?range");      // QuickNode
+
+    @Override
+    public Future<List<JsonRpcReply>> dispatch(List<JsonRpcCall> calls, int timeoutMillis) {
+        int size = calls.size();
+        JsonRpcReply[] replies = new JsonRpcReply[size];
+        List<Future<?>> pending = new ArrayList<>();
+        int[] otherIndexes = new int[size];
+        List<JsonRpcCall> others = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) {
+            JsonRpcCall call = calls.get(i);
+            Split split = split(call, timeoutMillis);
+            if (split != null) {
+                int index = i;
+                pending.add(split.start().onSuccess(reply -> replies[index] = reply));
+            } else {
+                otherIndexes[others.size()] = i;
+                others.add(call);
+            }
+        }
+
+        if (pending.isEmpty()) {
+            return delegate.dispatch(calls, timeoutMillis);
+        }
+        if (!others.isEmpty()) {
+            pending.add(delegate.dispatch(others, timeoutMillis).onSuccess(otherReplies -> {
+                for (int j = 0; j < otherReplies.size(); j++) {
+                    replies[otherIndexes[j]] = otherReplies.get(j);
+                }
+            }));
+        }
+        return Future.all(pending).map(all -> Arrays.asList(replies));
+    }
+
+    /** A split of {@code call}, or {@code null} when it is not an {@code eth_getLogs} over more than one window. */
+    private Split split(JsonRpcCall call, int timeoutMillis) {
+        if (!METHOD_GET_LOGS.equals(call.method()) || !call.hasId() || !call.hasParams()) return null;
+        JsonObject filter;
+        try {
+            filter = Json.decodeValue(call.params()) instanceof JsonArray params
+                    && params.size() == 1
+                    && params.getValue(0) instanceof JsonObject object ? object : null;
+        } catch (DecodeException e) {
+            return null;
+        }
+        if (filter == null || filter.containsKey(FIELD_BLOCK_HASH)) return null;
+        long from = blockOf(filter.getValue(FIELD_FROM_BLOCK));
+        long to = blockOf(filter.getValue(FIELD_TO_BLOCK));
+        if (from < 0 || to < from || to - from < windowBlocks) return null;
+        if ((to - from) / windowBlocks + 1 > maxWindows) return null;
+        return new Split(call, filter, from, to, timeoutMillis);
+    }
+
+    private long blockOf(Object tag) {
+        if (tag == null || TAG_LATEST.equals(tag)) {
+            HeadTracker.Head head = tracker != null ? tracker.head() : null;
+            return head != null ? head.number() : -1;
+        }
+        if (TAG_EARLIEST.equals(tag)) return 0;
+        return tag instanceof String hex ? HeadTracker.parseHex(hex) : -1;
+    }
+
+    private static boolean isTooLarge(JsonRpcReply reply) {
+        String message = reply.errorMessage();
+        return message != null && TOO_LARGE.matcher(message).find();
+    }
+
+    private static boolean isArray(Buffer result) {
+        return result != null && result.length() >= 2 && result.getByte(0) == '[';
+    }
+
+    /** The logs of a window that ends at block {@code last}. */
+    private record Window(long last, Buffer logs) {
+    }
+
+    private final class Split {
+
+        private final JsonRpcCall call;
+        private final JsonObject filter;
+        private final long to;
+        private final long deadlineNanos;
+        private final ArrayDeque<long[]> halves = new ArrayDeque<>();
+        /** Windows that came back before an earlier one, by first block. */
+        private final Map<Long, Window> held = new HashMap<>();
+        private final Buffer merged = Buffer.buffer().appendByte((byte) '[');
+        private final Promise<JsonRpcReply> promise = Promise.promise();
+
+        private long next;
+        private long mergedTo;
+        private long heldBytes;
+        private boolean empty = true;
+        private long window = windowBlocks;
+        private int inFlight;
+        private int sent;
+        private boolean done;
+
+        private Split(JsonRpcCall call, JsonObject filter, long from, long to, int timeoutMillis) {
+            this.call = call;
+            this.filter = filter;
+            this.next = from;
+            this.mergedTo = from;
+            this.to = to;
+            this.deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        }
+
+        private Future<JsonRpcReply> start() {
+            launch();
+            return promise.future();
+        }
+
+        private void launch() {
+            while (!done && inFlight < maxConcurrency) {
+                long first;
+                long last;
+                if (!halves.isEmpty()) {
+                    long[] range = halves.pollFirst();
+                    first = range[0];
+                    last = range[1];
+                } else if (next <= to) {
+                    first = next;
+                    last = Math.min(to, next + window - 1);
+                    next = last + 1;
+                } else {
+                    break;
+                }
+                if (sent == maxWindows) {
+                    // halving would need more windows than allowed
+                    finish(JsonRpcErrors.errorReply(call.id(), CODE_LIMIT_EXCEEDED, MSG_TOO_MANY_WINDOWS));
+                    return;
+                }
+                long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+                if (remainingMillis <= 0) {
+                    finish(JsonRpcErrors.upstreamUnavailableReply(call.id()));
+                    return;
+                }
+                query(first, last, (int) remainingMillis);
+            }
+            if (!done && inFlight == 0) {
+                finish(JsonRpcReply.ofResult(call.id(), merged.appendByte((byte) ']')));
+            }
+        }
+
+        private void query(long first, long last, int timeoutMillis) {
+            inFlight++;
+            sent++;
+            JsonObject windowFilter = filter.copy()
+                    .put(FIELD_FROM_BLOCK, HeadTracker.toHex(first))
+                    .put(FIELD_TO_BLOCK, HeadTracker.toHex(last));
+            JsonRpcCall windowCall = call.withParams(new JsonArray().add(windowFilter).toBuffer());
+            delegate.dispatch(List.of(windowCall), timeoutMillis).onComplete(ar -> {
+                inFlight--;
+                if (done) return;
+                onWindow(first, last, ar);
+                launch();
+            });
+        }
+
+        private void onWindow(long first, long last, AsyncResult<List<JsonRpcReply>> ar) {
+            if (ar.failed()) {
+                finish(JsonRpcErrors.upstreamUnavailableReply(call.id()));
+                return;
+            }
+            JsonRpcReply reply = ar.result().get(0);
+            if (reply.hasError() && last > first && isTooLarge(reply)) {
+                long middle = first + (last - first) / 2;
+                window = Math.max(1, Math.min(window, middle - first + 1));
+                halves.addFirst(new long[]{middle + 1, last});
+                halves.addFirst(new long[]{first, middle});
+                return;
+            }
+            if (reply.hasError() || !isArray(reply.result())) {
+                finish(reply.withId(call.id()));
+                return;
+            }
+            Buffer logs = reply.result();
+            held.put(first, new Window(last, logs));
+            heldBytes += logs.length();
+            Window ready;
+            while ((ready = held.remove(mergedTo)) != null) {
+                heldBytes -= ready.logs().length();
+                append(ready.logs());
+                mergedTo = ready.last() + 1;
+            }
+            if (merged.length() + heldBytes > maxBytes) {
+                finish(JsonRpcErrors.errorReply(call.id(), CODE_LIMIT_EXCEEDED, MSG_TOO_MANY_BYTES));
+            }
+        }
+
+        private void finish(JsonRpcReply reply) {
+            done = true;
+            held.clear();
+            promise.complete(reply);
+        }
+
+        /** Appends the elements of a window's array to {@link #merged}. */
+        private void append(Buffer logs) {
+            int start = 1;
+            int end = logs.length() - 1;
+            while (start < end && Character.isWhitespace(logs.getByte(start))) start++;
+            while (end > start && Character.isWhitespace(logs.getByte(end - 1))) end--;
+            if (start == end) return;
+            if (!empty) merged.appendByte((byte) ',');
+            merged.appendBuffer(logs, start, end - start);
+            empty = false;
+        }
+    }
+}
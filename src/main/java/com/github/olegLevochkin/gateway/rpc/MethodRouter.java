@@ -0,0 +1,94 @@
+package com.github.olegLevochkin.gateway.rpc;
+
+import com.github.olegLevochkin.gateway.config.AppConfig;
+import com.github.olegLevochkin.gateway.config.UpstreamGroup;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.vertx.circuitbreaker.CircuitBreaker;
+import io.vertx.core.Vertx;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The routing table of {@code upstream.groups}, shared by all verticle instances: maps a method to the first group
+ * whose patterns match it and holds each group's {@link UpstreamNode}s, so that the breakers, limiters and latency
+ * of a group are separate from those of the main upstreams and of every other group.
+ */
+@Slf4j
+public final class MethodRouter implements AutoCloseable {
+
+    /** Route of the methods no group claims: the main upstream pool. */
+    public static final int DEFAULT_ROUTE = -1;
+
+    private final List<UpstreamGroup> groups;
+    private final List<List<UpstreamNode>> nodes;
+    private final Map<String, Integer> exact = new HashMap<>();
+    private final List<String> prefixes = new ArrayList<>();
+    private final List<Integer> prefixRoutes = new ArrayList<>();
+
+    private MethodRouter(List<UpstreamGroup> groups, List<List<UpstreamNode>> nodes) {
+        this.groups = groups;
+        this.nodes = nodes;
+        for (int route = 0; route < groups.size(); route++) {
+            for (String pattern : groups.get(route).methods()) {
+                if (pattern.endsWith(UpstreamGroup.WILDCARD)) {
+                    prefixes.add(pattern.substring(0, pattern.length() - UpstreamGroup.WILDCARD.length()));
+                    prefixRoutes.add(route);
+                } else {
+                    exact.putIfAbsent(pattern, route);
+                }
+            }
+        }
+    }
+
+    public static MethodRouter create(Vertx vertx, AppConfig config, MeterRegistry meterRegistry) {
+        List<List<UpstreamNode>> nodes = new ArrayList<>(config.upstreamGroups().size());
+        for (UpstreamGroup group : config.upstreamGroups()) {
+            nodes.add(UpstreamNode.createAll(vertx, config, group, meterRegistry));
+        }
+        return new MethodRouter(config.upstreamGroups(), List.copyOf(nodes));
+    }
+
+    /**
+     * The index of the group serving {@code method}, or {@link #DEFAULT_ROUTE}. An exact name wins over a prefix;
+     * among matching prefixes the group listed first wins.
+     */
+    public int route(String method) {
+        Integer route = exact.get(method);
+        if (route != null) {
+            return route;
+        }
+        for (int i = 0; i < prefixes.size(); i++) {
+            if (method.startsWith(prefixes.get(i))) {
+                return prefixRoutes.get(i);
+            }
+        }
+        return DEFAULT_ROUTE;
+    }
+
+    public List<UpstreamGroup> groups() {
+        return groups;
+    }
+
+    public List<UpstreamNode> nodes(int route) {
+        return nodes.get(route);
+    }
+
+    @Override
+    public void close() {
+        for (List<UpstreamNode> groupNodes : nodes) {
+            for (UpstreamNode node : groupNodes) {
+                CircuitBreaker circuitBreaker = node.circuitBreaker();
+                if (circuitBreaker == null) continue;
+                try {
+                    circuitBreaker.close();
+                } catch (Exception e) {
+                    log.warn("Circuit breaker close failed", e);
+                }
+            }
+        }
+    }
+}
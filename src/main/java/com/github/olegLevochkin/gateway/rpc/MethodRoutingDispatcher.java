@@ -0,0 +1,68 @@
+package com.github.olegLevochkin.gateway.rpc;
+
+import io.vertx.core.Future;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Terminal stage that sends each call to the dispatcher of its {@link MethodRouter} group, or to {@code fallback}
+ * when no group claims the method. Group calls run with the group's timeout. A batch spanning several groups is
+ * split into one sub-batch per group, sent concurrently and reassembled in request order; a failed sub-batch only
+ * turns its own calls into JSON-RPC errors.
+ */
+public record MethodRoutingDispatcher(
+        JsonRpcDispatcher fallback,
+        MethodRouter router,
+        List<JsonRpcDispatcher> groups
+) implements JsonRpcDispatcher {
+
+    @Override
+    public Future<List<JsonRpcReply>> dispatch(List<JsonRpcCall> calls, int timeoutMillis) {
+        int size = calls.size();
+        int[] routes = new int[size];
+        boolean mixed = false;
+        for (int i = 0; i < size; i++) {
+            routes[i] = router.route(calls.get(i).method());
+            mixed |= routes[i] != routes[0];
+        }
+        if (!mixed) {
+            return dispatch(size > 0 ? routes[0] : MethodRouter.DEFAULT_ROUTE, calls, timeoutMillis);
+        }
+
+        JsonRpcReply[] replies = new JsonRpcReply[size];
+        List<Future<?>> pending = new ArrayList<>();
+        boolean[] seen = new boolean[groups.size() + 1];
+        for (int i = 0; i < size; i++) {
+            int route = routes[i];
+            if (seen[route + 1]) continue;
+            seen[route + 1] = true;
+            int[] indexes = new int[size];
+            List<JsonRpcCall> part = new ArrayList<>();
+            for (int j = i; j < size; j++) {
+                if (routes[j] == route) {
+                    indexes[part.size()] = j;
+                    part.add(calls.get(j));
+                }
+            }
+            pending.add(dispatch(route, part, timeoutMillis).andThen(ar -> {
+                for (int k = 0; k < part.size(); k++) {
+                    replies[indexes[k]] = ar.succeeded() ? ar.result().get(k) : failedReply(part.get(k));
+                }
+            }).otherwiseEmpty());
+        }
+        return Future.all(pending).map(all -> Arrays.asList(replies));
+    }
+
+    private Future<List<JsonRpcReply>> dispatch(int route, List<JsonRpcCall> calls, int timeoutMillis) {
+        if (route == MethodRouter.DEFAULT_ROUTE) {
+            return fallback.dispatch(calls, timeoutMillis);
+        }
+        return groups.get(route).dispatch(calls, router.groups().get(route).timeoutMs());
+    }
+
+    private static JsonRpcReply failedReply(JsonRpcCall call) {
+        return call.hasId() ? JsonRpcErrors.upstreamUnavailableReply(call.id()) : null;
+    }
+}
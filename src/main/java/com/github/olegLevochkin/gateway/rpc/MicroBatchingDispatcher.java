@@ -0,0 +1,106 @@
+package com.github.olegLevochkin.gateway.rpc;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.github.olegLevochkin.gateway.metrics.MetricsNames.JSONRPC_UPSTREAM_BATCH_SIZE;
+
+/**
+ * Packs single calls arriving on one event loop within {@code windowMs} (or until {@code maxBatchSize} calls)
+ * into one upstream batch. Ids are replaced with batch positions on the way out and restored on the way back.
+ * One instance per verticle; all state is confined to its event loop.
+ */
+public final class MicroBatchingDispatcher implements JsonRpcDispatcher {
+
+    private final JsonRpcDispatcher delegate;
+    private final Vertx vertx;
+    private final int windowMs;
+    private final int maxBatchSize;
+    private final DistributionSummary batchSizes;
+
+    private List<Pending> pending;
+    private long timerId = -1;
+
+    private record Pending(JsonRpcCall call, int timeoutMillis, Promise<List<JsonRpcReply>> promise) {
+    }
+
+    public MicroBatchingDispatcher(JsonRpcDispatcher delegate,
+                                   Vertx vertx,
+                                   int windowMs,
+                                   int maxBatchSize,
+                                   MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.vertx = vertx;
+        this.windowMs = windowMs;
+        this.maxBatchSize = maxBatchSize;
+        this.batchSizes = DistributionSummary.builder(JSONRPC_UPSTREAM_BATCH_SIZE)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(1.0)
+                .maximumExpectedValue((double) maxBatchSize)
+                .register(meterRegistry);
+        this.pending = new ArrayList<>(maxBatchSize);
+    }
+
+    @Override
+    public Future<List<JsonRpcReply>> dispatch(List<JsonRpcCall> calls, int timeoutMillis) {
+        if (calls.size() != 1 || !calls.get(0).hasId()) {
+            return delegate.dispatch(calls, timeoutMillis);
+        }
+
+        Promise<List<JsonRpcReply>> promise = Promise.promise();
+        pending.add(new Pending(calls.get(0), timeoutMillis, promise));
+        if (pending.size() >= maxBatchSize) {
+            flush();
+        } else if (timerId < 0) {
+            timerId = vertx.setTimer(windowMs, id -> {
+                timerId = -1;
+                flush();
+            });
+        }
+        return promise.future();
+    }
+
+    private void flush() {
+        if (timerId >= 0) {
+            vertx.cancelTimer(timerId);
+            timerId = -1;
+        }
+        List<Pending> batch = pending;
+        pending = new ArrayList<>(maxBatchSize);
+        if (batch.isEmpty()) return;
+
+        batchSizes.record(batch.size());
+        if (batch.size() == 1) {
+            Pending single = batch.get(0);
+            delegate.dispatch(Collections.singletonList(single.call()), single.timeoutMillis())
+                    .onComplete(single.promise());
+            return;
+        }
+
+        List<JsonRpcCall> calls = new ArrayList<>(batch.size());
+        int timeoutMillis = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            Pending entry = batch.get(i);
+            calls.add(entry.call().withId(Integer.toString(i)));
+            timeoutMillis = Math.max(timeoutMillis, entry.timeoutMillis());
+        }
+
+        delegate.dispatch(calls, timeoutMillis).onComplete(ar -> {
+            for (int i = 0; i < batch.size(); i++) {
+                Pending entry = batch.get(i);
+                if (ar.succeeded()) {
+                    entry.promise().complete(Collections.singletonList(ar.result().get(i).withId(entry.call().id())));
+                } else {
+                    entry.promise().fail(ar.cause());
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,98 @@
+package com.github.olegLevochkin.gateway.rpc;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.olegLevochkin.gateway.config.AppConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.vertx.core.Future;
+import io.vertx.core.buffer.Buffer;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+
+import static com.github.olegLevochkin.gateway.metrics.MetricsNames.CACHE_JSONRPC_RESPONSES;
+
+/**
+ * Results of immutable methods keyed by {@link CanonicalCallKey}, bounded by a byte budget with Caffeine's
+ * W-TinyLFU eviction. Only the {@code result} bytes are kept; the response is rebuilt with the caller's id.
+ * Results of pending transactions (a {@code blockHash} of {@code null}) are not kept, as they change once mined.
+ * With a {@link DiskCache} below it, results of finalized blocks are also written to disk, and memory misses
+ * are looked up there (see {@link #getFromDisk}) before going upstream.
+ */
+public record ResponseCache(Cache<String, Buffer> cache, Set<String> methods, DiskCache disk) implements AutoCloseable {
+
+    private static final int ENTRY_OVERHEAD_BYTES = 64;
+    private static final String FIELD_BLOCK_HASH = "blockHash";
+
+    /** {@code disk} may be {@code null}. */
+    public static ResponseCache create(AppConfig config, DiskCache disk, MeterRegistry meterRegistry) {
+        Cache<String, Buffer> cache = Caffeine.newBuilder()
+                .maximumWeight(config.cacheMaxBytes())
+                .weigher((String key, Buffer result) -> ENTRY_OVERHEAD_BYTES + 2 * key.length() + result.length())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_JSONRPC_RESPONSES);
+        return new ResponseCache(cache, config.cacheMethods(), disk);
+    }
+
+    public String keyOf(JsonRpcCall call) {
+        return call.hasId() && methods.contains(call.method()) ? CanonicalCallKey.of(call) : null;
+    }
+
+    public Buffer get(String key) {
+        return cache.getIfPresent(key);
+    }
+
+    /**
+     * Looks memory misses up on disk, off the event loop, and keeps the results found in memory; {@code null} keys
+     * and results not on disk give {@code null}. Needs a {@link DiskCache}.
+     */
+    public Future<List<Buffer>> getFromDisk(List<String> keys) {
+        return disk.getAll(keys).onSuccess(results -> {
+            for (int i = 0; i < results.size(); i++) {
+                if (results.get(i) != null) {
+                    cache.put(keys.get(i), results.get(i));
+                }
+            }
+        });
+    }
+
+    public void put(String key, JsonRpcReply reply) {
+        if (reply.hasError() || reply.hasNullResult() || isPending(reply.result())) return;
+        Buffer result = reply.result().copy();
+        cache.put(key, result);
+        if (disk != null) {
+            disk.putIfFinalized(key, result);
+        }
+    }
+
+    /** Whether {@code result} is an object whose top-level {@code blockHash} is {@code null}. */
+    static boolean isPending(Buffer result) {
+        if (result.length() == 0 || result.getByte(0) != '{') return false;
+        try (JsonParser parser = JsonTokens.createParser(result)) {
+            parser.nextToken();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (FIELD_BLOCK_HASH.equals(field)) {
+                    return value == JsonToken.VALUE_NULL;
+                }
+                parser.skipChildren();
+            }
+            return false;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (disk != null) {
+            disk.close();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.github.olegLevochkin.gateway.rpc;
+
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.http.HttpServerResponse;
+
+import java.util.Locale;
+
+import static io.netty.handler.codec.http.HttpHeaderValues.DEFLATE;
+import static io.netty.handler.codec.http.HttpHeaderValues.GZIP;
+import static io.netty.handler.codec.http.HttpHeaderValues.IDENTITY;
+import static io.vertx.core.http.HttpHeaders.ACCEPT_ENCODING;
+import static io.vertx.core.http.HttpHeaders.CONTENT_ENCODING;
+
+/**
+ * Response side of the server's gzip/deflate compression. The server compresses every response the client accepts
+ * compressed unless it already carries a {@code Content-Encoding}; this marks bodies below {@code minBytes} as
+ * {@code identity} (which the server strips again) and negotiates the codings to request from the upstream, so that
+ * an upstream body compressed in one of them can be relayed byte for byte instead of being decompressed and
+ * compressed again.
+ */
+public record ResponseCompression(int minBytes) {
+
+    private static final String QUALITY_PREFIX = "q=";
+    private static final String GZIP_AND_DEFLATE = GZIP + ", " + DEFLATE;
+
+    /** Sends a body of {@code length} bytes uncompressed when it is below the threshold. */
+    public void skipIfSmall(HttpServerResponse response, long length) {
+        if (length >= 0 && length < minBytes) {
+            response.putHeader(CONTENT_ENCODING, IDENTITY);
+        }
+    }
+
+    /**
+     * The {@code Accept-Encoding} to send upstream: the subset of gzip and deflate the client accepts, or
+     * {@code null} when it accepts neither and the upstream must answer uncompressed.
+     */
+    public String upstreamAcceptEncoding(HttpServerRequest request) {
+        String header = request.getHeader(ACCEPT_ENCODING);
+        if (header == null || header.isEmpty()) return null;
+        boolean gzip = false;
+        boolean deflate = false;
+        for (String element : header.split(",")) {
+            int params = element.indexOf(';');
+            String coding = (params < 0 ? element : element.substring(0, params)).trim().toLowerCase(Locale.ROOT);
+            if (params >= 0 && isZeroQuality(element.substring(params + 1))) continue;
+            switch (coding) {
+                case "gzip", "x-gzip" -> gzip = true;
+                case "deflate" -> deflate = true;
+                case "*" -> gzip = deflate = true;
+                default -> {
+                }
+            }
+        }
+        if (gzip && deflate) return GZIP_AND_DEFLATE;
+        if (gzip) return GZIP.toString();
+        return deflate ? DEFLATE.toString() : null;
+    }
+
+    /** Whether an upstream body in {@code contentEncoding} may be relayed to a client that was negotiated {@code accepted}. */
+    public static boolean isRelayable(String accepted, String contentEncoding) {
+        if (contentEncoding == null || IDENTITY.contentEqualsIgnoreCase(contentEncoding)) return true;
+        if (accepted == null) return false;
+        String coding = contentEncoding.trim();
+        return (GZIP.contentEqualsIgnoreCase(coding) && accepted.contains(GZIP))
+                || (DEFLATE.contentEqualsIgnoreCase(coding) && accepted.contains(DEFLATE));
+    }
+
+    private static boolean isZeroQuality(String params) {
+        for (String param : params.split(";")) {
+            String trimmed = param.trim();
+            if (trimmed.startsWith(QUALITY_PREFIX)) {
+                try {
+                    return Double.parseDouble(trimmed.substring(QUALITY_PREFIX.length())) <= 0;
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+}
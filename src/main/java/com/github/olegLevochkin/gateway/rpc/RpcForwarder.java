@@ -0,0 +1,20 @@
+package com.github.olegLevochkin.gateway.rpc;
+
+import io.vertx.core.Future;
+import io.vertx.core.buffer.Buffer;
+
+public interface RpcForwarder extends AutoCloseable {
+
+    Future<Buffer> forward(Buffer jsonBody, int timeoutMillis);
+
+    /**
+     * Forwards with the given {@code Accept-Encoding} and returns the body as received, possibly compressed.
+     * Forwarders that cannot relay compressed bodies ignore {@code acceptEncoding}.
+     */
+    default Future<UpstreamBody> forwardEncoded(Buffer jsonBody, int timeoutMillis, String acceptEncoding) {
+        return forward(jsonBody, timeoutMillis).map(body -> new UpstreamBody(body, null));
+    }
+
+    @Override
+    void close();
+}
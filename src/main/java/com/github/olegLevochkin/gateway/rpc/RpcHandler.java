@@ -1,24 +1,48 @@
 package com.github.olegLevochkin.gateway.rpc;
 
-import io.micrometer.core.instrument.MeterRegistry;
+import com.github.olegLevochkin.gateway.metrics.RpcMetrics;
+import com.github.olegLevochkin.gateway.ratelimit.FairScheduler;
+import com.github.olegLevochkin.gateway.ratelimit.RateLimiter;
+import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.RoutingContext;
 
-import static com.github.olegLevochkin.gateway.metrics.MetricsNames.JSONRPC_CALLS_TOTAL;
-import static com.github.olegLevochkin.gateway.metrics.MetricsNames.TAG_METHOD;
+import java.util.ArrayList;
+import java.util.List;
+
 import static io.netty.handler.codec.http.HttpHeaderValues.APPLICATION_JSON;
 import static io.netty.handler.codec.http.HttpResponseStatus.BAD_GATEWAY;
 import static io.netty.handler.codec.http.HttpResponseStatus.BAD_REQUEST;
+import static io.netty.handler.codec.http.HttpResponseStatus.TOO_MANY_REQUESTS;
+import static io.vertx.core.http.HttpHeaders.CONTENT_ENCODING;
 import static io.vertx.core.http.HttpHeaders.CONTENT_TYPE;
+import static io.vertx.core.http.HttpHeaders.RETRY_AFTER;
 
+/**
+ * Buffered {@code /rpc} handler. Bodies of at least {@code offloadMinBytes} (0 = never) are validated and split
+ * into calls on the worker pool, so a large batch does not hold up the other connections of the event loop;
+ * everything else, including smaller bodies, runs on the event loop. With a {@link FairScheduler} a request waits
+ * for its client's turn before it is sent upstream.
+ */
 public record RpcHandler(
-        WebClientRpcForwarder forwarder,
-        MeterRegistry meterRegistry,
-        int timeoutMs
+        RpcForwarder forwarder,
+        JsonRpcDispatcher dispatcher,
+        RpcMetrics metrics,
+        int timeoutMs,
+        boolean streamingValidation,
+        int offloadMinBytes,
+        RateLimiter rateLimiter,
+        FairScheduler scheduler,
+        ResponseCompression compression
 ) implements Handler<RoutingContext> {
 
+    /** Routing context entry with the JSON-RPC methods of the request, for the access log. */
+    public static final String CONTEXT_METHODS = "rpcMethods";
+    /** Routing context entry with the nanoseconds spent waiting for the upstream, for the access log. */
+    public static final String CONTEXT_UPSTREAM_NANOS = "upstreamNanos";
+
     private static final String FIELD_METHOD = "method";
 
     @Override
@@ -29,33 +53,153 @@ public record RpcHandler(
             return;
         }
 
-        String source = body.toString();
-        boolean valid = JsonRpcValidator.forEachValid(source, obj -> trackMethod(obj.getString(FIELD_METHOD)));
-        if (!valid) {
+        metrics.recordRequestBytes(body.length());
+        if (offloadMinBytes > 0 && body.length() >= offloadMinBytes) {
+            context.vertx().executeBlocking(() -> parse(body), false)
+                    .onComplete(ar -> handle(context, body, ar.succeeded() ? ar.result() : null));
+            return;
+        }
+        handle(context, body, parse(body));
+    }
+
+    private void handle(RoutingContext context, Buffer body, List<JsonRpcCall> calls) {
+        if (calls == null) {
             respondJson(context, BAD_REQUEST.code(), JsonRpcErrors.invalidRequest(null));
             return;
         }
+        metrics.recordBatchSize(calls.size());
+        context.put(CONTEXT_METHODS, calls.stream().map(JsonRpcCall::method).toList());
+        if (rateLimiter != null && !chargeWeights(context, calls)) {
+            return;
+        }
 
-        forwarder.forward(body, timeoutMs)
-                .onSuccess(buf -> respondOk(context, buf))
+        if (scheduler == null) {
+            forward(context, body, calls);
+            return;
+        }
+        long cost = 0;
+        for (JsonRpcCall call : calls) {
+            cost += scheduler.weightOf(call.method());
+        }
+        scheduler.acquire(context.get(RateLimiter.CONTEXT_KEY), cost).onComplete(ar -> {
+            if (ar.failed()) {
+                context.response().putHeader(RETRY_AFTER, Long.toString(scheduler.retryAfterSeconds()));
+                respondJson(context, TOO_MANY_REQUESTS.code(), JsonRpcErrors.limitExceeded(null));
+            } else if (context.response().closed()) {
+                scheduler.release();
+            } else {
+                forward(context, body, calls).onComplete(done -> scheduler.release());
+            }
+        });
+    }
+
+    /** Sends the calls upstream and answers the client; completes once the upstream part is over. */
+    private Future<?> forward(RoutingContext context, Buffer body, List<JsonRpcCall> calls) {
+        if (dispatcher == null) {
+            String acceptEncoding = compression != null ? compression.upstreamAcceptEncoding(context.request()) : null;
+            long startedAt = System.nanoTime();
+            return forwarder.forwardEncoded(body, timeoutMs, acceptEncoding)
+                    .onComplete(ar -> context.put(CONTEXT_UPSTREAM_NANOS, System.nanoTime() - startedAt))
+                    .onSuccess(reply -> relay(context, calls, reply, acceptEncoding, startedAt))
+                    .onFailure(err -> respondJson(context, BAD_GATEWAY.code(), JsonRpcErrors.upstreamUnavailable(null)));
+        }
+
+        boolean batch = JsonRpcBodies.isBatch(body);
+        long startedAt = System.nanoTime();
+        return dispatcher.dispatch(calls, timeoutMs)
+                .onComplete(ar -> context.put(CONTEXT_UPSTREAM_NANOS, System.nanoTime() - startedAt))
+                .onSuccess(replies -> respondOk(context, JsonRpcBodies.encodeResponse(batch, replies)))
                 .onFailure(err -> respondJson(context, BAD_GATEWAY.code(), JsonRpcErrors.upstreamUnavailable(null)));
     }
 
-    private void trackMethod(String method) {
-        if (meterRegistry == null || method == null || method.isBlank()) return;
-        meterRegistry.counter(JSONRPC_CALLS_TOTAL, TAG_METHOD, method).increment();
+    /** The calls of a valid body, or {@code null} if it is not a valid request. */
+    private List<JsonRpcCall> parse(Buffer body) {
+        List<JsonRpcCall> calls = new ArrayList<>();
+        boolean valid;
+        if (streamingValidation) {
+            valid = StreamingJsonRpcValidator.forEachValid(body, call -> {
+                metrics.method(call.method()).recordCall();
+                calls.add(call);
+            });
+        } else {
+            valid = JsonRpcValidator.forEachValid(body.toString(), obj -> {
+                metrics.method(obj.getString(FIELD_METHOD)).recordCall();
+                calls.add(JsonRpcCall.of(obj));
+            });
+        }
+        return valid ? calls : null;
+    }
+
+    /**
+     * The first token was taken by {@code RateLimitHandler} before the body was read; charges what the
+     * parsed methods cost beyond that, capped at the burst, and answers 429 if the client cannot afford it.
+     */
+    private boolean chargeWeights(RoutingContext context, List<JsonRpcCall> calls) {
+        String key = context.get(RateLimiter.CONTEXT_KEY);
+        if (key == null) return true;
+        long cost = 0;
+        for (JsonRpcCall call : calls) {
+            cost += rateLimiter.weightOf(call.method());
+        }
+        long extra = rateLimiter.chargeOf(cost) - 1;
+        if (extra <= 0) return true;
+        long waitNanos = rateLimiter.tryAcquire(key, extra);
+        if (waitNanos == RateLimiter.ALLOWED) return true;
+        context.response().putHeader(RETRY_AFTER, Long.toString(RateLimiter.retryAfterSeconds(waitNanos)));
+        respondJson(context, TOO_MANY_REQUESTS.code(), JsonRpcErrors.limitExceeded(null));
+        return false;
+    }
+
+    /**
+     * The upstream body is relayed untouched. An uncompressed one is parsed for the per-method error meters; a
+     * compressed one is passed through as-is, so only latencies are recorded for it.
+     */
+    private void relay(RoutingContext context, List<JsonRpcCall> calls, UpstreamBody reply, String acceptEncoding,
+                       long startedAt) {
+        if (!reply.encoded()) {
+            recordUpstream(calls, reply.bytes(), startedAt);
+            respondOk(context, reply.bytes());
+            return;
+        }
+        UpstreamDispatcher.recordLatencies(metrics, calls, startedAt);
+        if (!ResponseCompression.isRelayable(acceptEncoding, reply.contentEncoding())) {
+            respondJson(context, BAD_GATEWAY.code(), JsonRpcErrors.upstreamUnavailable(null));
+            return;
+        }
+        metrics.recordResponseBytes(reply.bytes().length());
+        context.response()
+                .putHeader(CONTENT_TYPE.toString(), APPLICATION_JSON.toString())
+                .putHeader(CONTENT_ENCODING, reply.contentEncoding())
+                .end(reply.bytes());
+    }
+
+    /** Parsing the relayed body is only needed for the per-method meters. */
+    private void recordUpstream(List<JsonRpcCall> calls, Buffer body, long startedAt) {
+        try {
+            UpstreamDispatcher.alignReplies(metrics, calls, body, startedAt);
+        } catch (IllegalStateException e) {
+            // malformed upstream body: relayed as-is, latencies are already recorded
+        }
     }
 
     private void respondOk(RoutingContext context, Buffer payload) {
+        metrics.recordResponseBytes(payload.length());
+        if (compression != null) {
+            compression.skipIfSmall(context.response(), payload.length());
+        }
         context.response()
                 .putHeader(CONTENT_TYPE.toString(), APPLICATION_JSON.toString())
                 .end(payload);
     }
 
     private void respondJson(RoutingContext context, int statusCode, JsonObject payload) {
+        Buffer encoded = payload.toBuffer();
+        if (compression != null) {
+            compression.skipIfSmall(context.response(), encoded.length());
+        }
         context.response()
                 .setStatusCode(statusCode)
                 .putHeader(CONTENT_TYPE.toString(), APPLICATION_JSON.toString())
-                .end(payload.encode());
+                .end(encoded);
     }
 }
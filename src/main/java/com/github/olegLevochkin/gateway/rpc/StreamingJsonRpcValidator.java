@@ -0,0 +1,99 @@
+package com.github.olegLevochkin.gateway.rpc;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.vertx.core.buffer.Buffer;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+import static com.github.olegLevochkin.gateway.rpc.JsonTokens.ABSENT;
+import static com.github.olegLevochkin.gateway.rpc.JsonTokens.offset;
+import static com.github.olegLevochkin.gateway.rpc.JsonTokens.valueEnd;
+
+/**
+ * Single-pass token validator working on the raw request bytes: no String decode and no JSON tree.
+ * Reads {@code jsonrpc}, {@code method} and the position of {@code id}; {@code params} are skipped.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class StreamingJsonRpcValidator {
+
+    private static final String FIELD_JSONRPC = "jsonrpc";
+    private static final String FIELD_METHOD = "method";
+    private static final String FIELD_ID = "id";
+    private static final String FIELD_PARAMS = "params";
+    private static final char[] JSONRPC_2_0 = {'2', '.', '0'};
+
+    public static boolean forEachValid(Buffer body, Consumer<JsonRpcCall> consumer) {
+        if (body == null || body.length() == 0) return false;
+
+        try (JsonParser parser = JsonTokens.createParser(body)) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_ARRAY) {
+                int count = 0;
+                while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                    if (token != JsonToken.START_OBJECT) return false;
+                    JsonRpcCall call = readCall(parser, body);
+                    if (call == null) return false;
+                    consumer.accept(call);
+                    count++;
+                }
+                return count > 0 && parser.nextToken() == null;
+            }
+
+            if (token != JsonToken.START_OBJECT) return false;
+            JsonRpcCall call = readCall(parser, body);
+            if (call == null || parser.nextToken() != null) return false;
+            consumer.accept(call);
+            return true;
+        } catch (Exception ignore) {
+            return false;
+        }
+    }
+
+    private static JsonRpcCall readCall(JsonParser parser, Buffer body) throws IOException {
+        int start = offset(parser);
+        boolean versionValid = false;
+        String method = null;
+        int idStart = ABSENT;
+        int idEnd = ABSENT;
+        int paramsStart = ABSENT;
+        int paramsEnd = ABSENT;
+
+        JsonToken token;
+        while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case FIELD_JSONRPC -> versionValid = value == JsonToken.VALUE_STRING && isVersion2(parser);
+                case FIELD_METHOD -> method = value == JsonToken.VALUE_STRING ? parser.getText() : null;
+                case FIELD_ID -> {
+                    idStart = offset(parser);
+                    idEnd = valueEnd(parser, body, value);
+                }
+                case FIELD_PARAMS -> {
+                    paramsStart = offset(parser);
+                    paramsEnd = valueEnd(parser, body, value);
+                }
+                default -> parser.skipChildren();
+            }
+        }
+
+        if (token != JsonToken.END_OBJECT || !versionValid || method == null || method.isBlank()) {
+            return null;
+        }
+        return new JsonRpcCall(body, method, start, offset(parser) + 1, idStart, idEnd, paramsStart, paramsEnd);
+    }
+
+    private static boolean isVersion2(JsonParser parser) throws IOException {
+        if (parser.getTextLength() != JSONRPC_2_0.length) return false;
+        char[] chars = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        for (int i = 0; i < JSONRPC_2_0.length; i++) {
+            if (chars[offset + i] != JSONRPC_2_0[i]) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,192 @@
+package com.github.olegLevochkin.gateway.rpc;
+
+import com.github.olegLevochkin.gateway.metrics.RpcMetrics;
+import io.vertx.core.Handler;
+import io.vertx.core.Promise;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpClientRequest;
+import io.vertx.core.http.HttpClientResponse;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.RoutingContext;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.netty.handler.codec.http.HttpHeaderValues.APPLICATION_JSON;
+import static io.netty.handler.codec.http.HttpResponseStatus.BAD_GATEWAY;
+import static io.netty.handler.codec.http.HttpResponseStatus.BAD_REQUEST;
+import static io.netty.handler.codec.http.HttpResponseStatus.REQUEST_ENTITY_TOO_LARGE;
+import static io.vertx.core.http.HttpHeaders.ACCEPT_ENCODING;
+import static io.vertx.core.http.HttpHeaders.CONTENT_ENCODING;
+import static io.vertx.core.http.HttpHeaders.CONTENT_LENGTH;
+import static io.vertx.core.http.HttpHeaders.CONTENT_TYPE;
+
+/**
+ * Pass-through {@code POST /rpc} that never aggregates a body: request chunks are validated incrementally and
+ * written to the upstream as they arrive, and the upstream response is piped back with back-pressure. Heap use per
+ * request is bounded by the chunk size rather than the payload size. Per-call stages (cache, coalescing, batch
+ * splitting, hedging) do not apply in this mode, and per-method latency and error codes are not recorded. With
+ * compression enabled the upstream is asked for the codings the client accepts and a compressed response is piped
+ * through without being recompressed.
+ */
+@Slf4j
+public record StreamingRpcHandler(
+        UpstreamPool pool,
+        RpcMetrics metrics,
+        int timeoutMs,
+        long maxBodyBytes,
+        ResponseCompression compression
+) implements Handler<RoutingContext> {
+
+    @Override
+    public void handle(RoutingContext context) {
+        HttpServerRequest request = context.request();
+        request.pause();
+        Promise<Void> cancellation = Promise.promise();
+        pool.open(timeoutMs, cancellation.future()).onComplete(ar -> {
+            if (ar.failed()) {
+                request.resume();
+                respondJson(context, BAD_GATEWAY.code(), JsonRpcErrors.upstreamUnavailable(null));
+                return;
+            }
+            new Exchange(context, ar.result(), cancellation).start();
+        });
+    }
+
+    private void respondJson(RoutingContext context, int statusCode, JsonObject payload) {
+        if (context.response().headWritten()) {
+            context.response().reset();
+            return;
+        }
+        Buffer encoded = payload.toBuffer();
+        if (compression != null) {
+            compression.skipIfSmall(context.response(), encoded.length());
+        }
+        context.response()
+                .setStatusCode(statusCode)
+                .putHeader(CONTENT_TYPE.toString(), APPLICATION_JSON.toString())
+                .end(encoded);
+    }
+
+    private final class Exchange {
+        private final RoutingContext context;
+        private final HttpServerRequest request;
+        private final HttpClientRequest upstream;
+        private final Promise<Void> cancellation;
+        private final IncrementalJsonRpcValidator validator;
+        private final long startedAt = System.nanoTime();
+        private final List<String> methods = new ArrayList<>();
+        private String acceptEncoding;
+        private long received;
+
+        private Exchange(RoutingContext context, HttpClientRequest upstream, Promise<Void> cancellation) {
+            this.context = context;
+            this.request = context.request();
+            this.upstream = upstream;
+            this.cancellation = cancellation;
+            this.validator = new IncrementalJsonRpcValidator(this::trackCall);
+        }
+
+        void start() {
+            String contentLength = request.getHeader(CONTENT_LENGTH);
+            if (contentLength != null) {
+                upstream.putHeader(CONTENT_LENGTH, contentLength);
+            } else {
+                upstream.setChunked(true);
+            }
+            if (compression != null) {
+                acceptEncoding = compression.upstreamAcceptEncoding(request);
+                if (acceptEncoding != null) {
+                    upstream.putHeader(ACCEPT_ENCODING, acceptEncoding);
+                }
+            }
+            upstream.response()
+                    .onSuccess(this::relay)
+                    .onFailure(err -> {
+                        if (cancellation.future().isComplete()) return;
+                        respondJson(context, BAD_GATEWAY.code(), JsonRpcErrors.upstreamUnavailable(null));
+                    });
+
+            request.handler(this::onChunk);
+            request.endHandler(v -> onEnd());
+            request.exceptionHandler(err -> abort());
+            request.resume();
+        }
+
+        private void onChunk(Buffer chunk) {
+            if (cancellation.future().isComplete()) return;
+            received += chunk.length();
+            if (received > maxBodyBytes) {
+                abort();
+                respondJson(context, REQUEST_ENTITY_TOO_LARGE.code(), JsonRpcErrors.invalidRequest(null));
+                return;
+            }
+            if (!validator.feed(chunk)) {
+                abort();
+                respondJson(context, BAD_REQUEST.code(), JsonRpcErrors.invalidRequest(null));
+                return;
+            }
+            upstream.write(chunk);
+            if (upstream.writeQueueFull()) {
+                request.pause();
+                upstream.drainHandler(v -> request.resume());
+            }
+        }
+
+        private void onEnd() {
+            if (cancellation.future().isComplete()) return;
+            if (!validator.finish()) {
+                abort();
+                respondJson(context, BAD_REQUEST.code(), JsonRpcErrors.invalidRequest(null));
+                return;
+            }
+            metrics.recordRequestBytes(received);
+            metrics.recordBatchSize(methods.size());
+            context.put(RpcHandler.CONTEXT_METHODS, methods);
+            upstream.end();
+        }
+
+        private void trackCall(String method) {
+            methods.add(method);
+            metrics.method(method).recordCall();
+        }
+
+        private void relay(HttpClientResponse response) {
+            if (cancellation.future().isComplete()) return;
+            context.put(RpcHandler.CONTEXT_UPSTREAM_NANOS, System.nanoTime() - startedAt);
+            String contentEncoding = response.getHeader(CONTENT_ENCODING);
+            if (!ResponseCompression.isRelayable(acceptEncoding, contentEncoding)) {
+                abort();
+                respondJson(context, BAD_GATEWAY.code(), JsonRpcErrors.upstreamUnavailable(null));
+                return;
+            }
+            HttpServerResponse out = context.response();
+            out.setStatusCode(response.statusCode());
+            String contentType = response.getHeader(CONTENT_TYPE);
+            out.putHeader(CONTENT_TYPE, contentType != null ? contentType : APPLICATION_JSON.toString());
+            String contentLength = response.getHeader(CONTENT_LENGTH);
+            if (contentLength != null) {
+                out.putHeader(CONTENT_LENGTH, contentLength);
+            } else {
+                out.setChunked(true);
+            }
+            if (contentEncoding != null) {
+                out.putHeader(CONTENT_ENCODING, contentEncoding);
+            } else if (compression != null && contentLength != null) {
+                compression.skipIfSmall(out, Long.parseLong(contentLength));
+            }
+            out.endHandler(v -> metrics.recordResponseBytes(out.bytesWritten()));
+            response.pipeTo(out)
+                    .onFailure(err -> log.debug("Streaming response from upstream aborted: {}", err.toString()));
+        }
+
+        private void abort() {
+            if (cancellation.tryComplete()) {
+                upstream.reset();
+            }
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package com.github.olegLevochkin.gateway.rpc;
+
+import com.github.olegLevochkin.gateway.config.AppConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.WebSocket;
+import io.vertx.core.http.WebSocketClient;
+import io.vertx.core.http.WebSocketClientOptions;
+import io.vertx.core.http.WebSocketConnectOptions;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+import static com.github.olegLevochkin.gateway.metrics.MetricsNames.JSONRPC_WS_EVENTS_TOTAL;
+import static com.github.olegLevochkin.gateway.metrics.MetricsNames.JSONRPC_WS_UPSTREAM_SUBSCRIPTIONS;
+
+/**
+ * One upstream WebSocket shared by every client connection. Clients issuing the same {@code eth_subscribe}
+ * (compared by {@link CanonicalCallKey}) join one upstream subscription and share its id, so each event is
+ * serialized once and the same frame is handed to every {@link Subscriber}. All state is confined to the hub's
+ * own context; subscriptions are re-established after the upstream connection drops.
+ */
+@Slf4j
+public final class SubscriptionHub implements AutoCloseable {
+
+    public static final String METHOD_SUBSCRIBE = "eth_subscribe";
+    public static final String METHOD_UNSUBSCRIBE = "eth_unsubscribe";
+
+    private static final String METHOD_SUBSCRIPTION = "eth_subscription";
+    private static final String FIELD_JSONRPC = "jsonrpc";
+    private static final String FIELD_ID = "id";
+    private static final String FIELD_METHOD = "method";
+    private static final String FIELD_PARAMS = "params";
+    private static final String FIELD_RESULT = "result";
+    private static final String FIELD_ERROR = "error";
+    private static final String FIELD_SUBSCRIPTION = "subscription";
+    private static final String JSONRPC_VERSION_2_0 = "2.0";
+    private static final Buffer TRUE = Buffer.buffer("true");
+    private static final Buffer FALSE = Buffer.buffer("false");
+    private static final long RECONNECT_DELAY_MS = 1_000;
+
+    /** Receives already serialized {@code eth_subscription} notifications. Called on the hub context. */
+    public interface Subscriber {
+        void deliver(String frame);
+    }
+
+    private final Vertx vertx;
+    private final Context context;
+    private final WebSocketClient client;
+    private final WebSocketConnectOptions connectOptions;
+    private final int timeoutMs;
+    private final Counter events;
+
+    private final Map<String, Topic> topicsByKey = new HashMap<>();
+    private final Map<String, Topic> topicsById = new HashMap<>();
+    private final Map<String, Topic> topicsByUpstreamId = new HashMap<>();
+    private final Map<Subscriber, Set<Topic>> topicsBySubscriber = new HashMap<>();
+    private final Map<Long, Promise<JsonObject>> pending = new HashMap<>();
+    private Future<WebSocket> connection;
+    private long nextRequestId;
+    private long nextTopicId = ThreadLocalRandom.current().nextLong() >>> 1;
+    private boolean reconnectScheduled;
+
+    private SubscriptionHub(Vertx vertx, AppConfig config, MeterRegistry meterRegistry) {
+        this.vertx = vertx;
+        this.context = vertx.getOrCreateContext();
+        this.client = vertx.createWebSocketClient(new WebSocketClientOptions()
+                .setTrustAll(HttpRpcForwarder.TRUST_ALL_CERTIFICATES)
+                .setVerifyHost(HttpRpcForwarder.VERIFY_HOSTNAME)
+                .setMaxMessageSize(config.maxBodyBytes()));
+        this.connectOptions = new WebSocketConnectOptions()
+                .setAbsoluteURI(config.websocketUpstreamUrl())
+                .setConnectTimeout(config.requestTimeoutMs());
+        this.timeoutMs = config.requestTimeoutMs();
+        this.events = meterRegistry.counter(JSONRPC_WS_EVENTS_TOTAL);
+        Gauge.builder(JSONRPC_WS_UPSTREAM_SUBSCRIPTIONS, topicsByKey, Map::size).register(meterRegistry);
+    }
+
+    public static SubscriptionHub create(Vertx vertx, AppConfig config, MeterRegistry meterRegistry) {
+        return new SubscriptionHub(vertx, config, meterRegistry);
+    }
+
+    /** Joins (or opens) the upstream subscription for {@code call} and replies with the shared subscription id. */
+    public Future<JsonRpcReply> subscribe(JsonRpcCall call, Subscriber subscriber) {
+        JsonArray params = paramsOf(call);
+        if (params == null) {
+            return Future.succeededFuture(JsonRpcErrors.invalidParamsReply(call.id()));
+        }
+        String key = CanonicalCallKey.of(call);
+        return onContext(() -> {
+            Topic topic = topicsByKey.get(key);
+            if (topic == null) {
+                topic = new Topic(key, params, "0x" + Long.toHexString(nextTopicId++));
+                topicsByKey.put(key, topic);
+                topicsById.put(topic.id, topic);
+                topic.ready = subscribeUpstream(topic);
+            }
+            Topic joined = topic;
+            joined.subscribers.add(subscriber);
+            topicsBySubscriber.computeIfAbsent(subscriber, s -> new HashSet<>()).add(joined);
+            return joined.ready.map(reply -> {
+                if (reply.containsKey(FIELD_ERROR)) {
+                    return JsonRpcReply.ofError(call.id(), reply.getJsonObject(FIELD_ERROR).toBuffer());
+                }
+                return JsonRpcReply.ofResult(call.id(), Buffer.buffer('"' + joined.id + '"'));
+            });
+        }).recover(err -> Future.succeededFuture(JsonRpcErrors.upstreamUnavailableReply(call.id())));
+    }
+
+    /** Leaves the subscription named in {@code call}; replies {@code false} if the subscriber was not in it. */
+    public Future<JsonRpcReply> unsubscribe(JsonRpcCall call, Subscriber subscriber) {
+        JsonArray params = paramsOf(call);
+        if (params == null) {
+            return Future.succeededFuture(JsonRpcErrors.invalidParamsReply(call.id()));
+        }
+        String id = params.isEmpty() ? null : String.valueOf(params.getValue(0));
+        return onContext(() -> {
+            Topic topic = topicsById.get(id);
+            boolean removed = topic != null && leave(topic, subscriber);
+            Set<Topic> joined = topicsBySubscriber.get(subscriber);
+            if (removed && joined != null) {
+                joined.remove(topic);
+                if (joined.isEmpty()) topicsBySubscriber.remove(subscriber);
+            }
+            return Future.succeededFuture(JsonRpcReply.ofResult(call.id(), removed ? TRUE : FALSE));
+        });
+    }
+
+    /** Drops every subscription of a closed client connection. */
+    public void removeAll(Subscriber subscriber) {
+        context.runOnContext(v -> {
+            Set<Topic> joined = topicsBySubscriber.remove(subscriber);
+            if (joined != null) {
+                joined.forEach(topic -> leave(topic, subscriber));
+            }
+        });
+    }
+
+    private boolean leave(Topic topic, Subscriber subscriber) {
+        if (!topic.subscribers.remove(subscriber)) return false;
+        if (topic.subscribers.isEmpty() && topic.ready.isComplete()) {
+            close(topic);
+        }
+        return true;
+    }
+
+    private void close(Topic topic) {
+        topicsByKey.remove(topic.key, topic);
+        topicsById.remove(topic.id, topic);
+        if (topic.upstreamId != null) {
+            topicsByUpstreamId.remove(topic.upstreamId);
+            send(METHOD_UNSUBSCRIBE, new JsonArray().add(topic.upstreamId));
+        }
+    }
+
+    private Future<JsonObject> subscribeUpstream(Topic topic) {
+        return send(METHOD_SUBSCRIBE, topic.params).andThen(ar -> {
+            if (ar.succeeded() && ar.result().containsKey(FIELD_RESULT)) {
+                topic.upstreamId = String.valueOf(ar.result().getValue(FIELD_RESULT));
+                topicsByUpstreamId.put(topic.upstreamId, topic);
+                if (topic.subscribers.isEmpty()) close(topic);
+            } else if (topicsByKey.get(topic.key) == topic) {
+                close(topic);
+                topic.subscribers.forEach(subscriber -> {
+                    Set<Topic> joined = topicsBySubscriber.get(subscriber);
+                    if (joined != null) joined.remove(topic);
+                });
+            }
+        });
+    }
+
+    private Future<JsonObject> send(String method, JsonArray params) {
+        return connect().compose(ws -> {
+            long id = nextRequestId++;
+            Promise<JsonObject> promise = Promise.promise();
+            pending.put(id, promise);
+            long timer = vertx.setTimer(timeoutMs, t -> {
+                Promise<JsonObject> timedOut = pending.remove(id);
+                if (timedOut != null) timedOut.fail("Upstream subscription request timed out");
+            });
+            ws.writeFinalTextFrame(new JsonObject()
+                    .put(FIELD_JSONRPC, JSONRPC_VERSION_2_0)
+                    .put(FIELD_ID, id)
+                    .put(FIELD_METHOD, method)
+                    .put(FIELD_PARAMS, params)
+                    .encode());
+            return promise.future().andThen(ar -> vertx.cancelTimer(timer));
+        });
+    }
+
+    private Future<WebSocket> connect() {
+        if (connection == null) {
+            connection = client.connect(connectOptions).onComplete(ar -> {
+                if (ar.failed()) {
+                    log.warn("Upstream WebSocket {} unavailable: {}", connectOptions.getURI(), ar.cause().toString());
+                    connection = null;
+                    return;
+                }
+                WebSocket ws = ar.result();
+                ws.textMessageHandler(this::onMessage);
+                ws.exceptionHandler(err -> log.warn("Upstream WebSocket error: {}", err.toString()));
+                ws.closeHandler(v -> onClosed());
+            });
+        }
+        return connection;
+    }
+
+    private void onMessage(String text) {
+        JsonObject message;
+        try {
+            message = new JsonObject(text);
+        } catch (RuntimeException e) {
+            log.warn("Ignoring malformed upstream WebSocket message");
+            return;
+        }
+
+        if (METHOD_SUBSCRIPTION.equals(message.getString(FIELD_METHOD))) {
+            JsonObject params = message.getJsonObject(FIELD_PARAMS);
+            Topic topic = params != null ? topicsByUpstreamId.get(String.valueOf(params.getValue(FIELD_SUBSCRIPTION))) : null;
+            if (topic == null) return;
+            params.put(FIELD_SUBSCRIPTION, topic.id);
+            String frame = message.encode();
+            events.increment();
+            for (Subscriber subscriber : topic.subscribers) {
+                subscriber.deliver(frame);
+            }
+            return;
+        }
+
+        Object id = message.getValue(FIELD_ID);
+        Promise<JsonObject> promise = id instanceof Number number ? pending.remove(number.longValue()) : null;
+        if (promise != null) promise.complete(message);
+    }
+
+    private void onClosed() {
+        connection = null;
+        Map<Long, Promise<JsonObject>> failed = new HashMap<>(pending);
+        pending.clear();
+        failed.values().forEach(promise -> promise.tryFail("Upstream WebSocket closed"));
+        topicsByUpstreamId.clear();
+        topicsByKey.values().forEach(topic -> topic.upstreamId = null);
+        scheduleResubscribe();
+    }
+
+    private void scheduleResubscribe() {
+        if (reconnectScheduled || topicsByKey.isEmpty()) return;
+        reconnectScheduled = true;
+        vertx.setTimer(RECONNECT_DELAY_MS, t -> {
+            reconnectScheduled = false;
+            for (Topic topic : Set.copyOf(topicsByKey.values())) {
+                if (topic.upstreamId != null) continue;
+                send(METHOD_SUBSCRIBE, topic.params).onComplete(ar -> {
+                    if (ar.succeeded() && ar.result().containsKey(FIELD_RESULT) && topicsByKey.get(topic.key) == topic) {
+                        topic.upstreamId = String.valueOf(ar.result().getValue(FIELD_RESULT));
+                        topicsByUpstreamId.put(topic.upstreamId, topic);
+                        if (topic.subscribers.isEmpty()) close(topic);
+                    } else if (topicsByKey.get(topic.key) == topic) {
+                        scheduleResubscribe();
+                    }
+                });
+            }
+        });
+    }
+
+    private <T> Future<T> onContext(Supplier<Future<T>> action) {
+        Promise<T> promise = Promise.promise();
+        context.runOnContext(v -> {
+            try {
+                action.get().onComplete(promise);
+            } catch (RuntimeException e) {
+                promise.fail(e);
+            }
+        });
+        return promise.future();
+    }
+
+    /** Positional params of a subscription call, or {@code null} when they are not an array. */
+    private static JsonArray paramsOf(JsonRpcCall call) {
+        if (!call.hasParams()) {
+            return new JsonArray();
+        }
+        if (!JsonTokens.isArray(call.params())) {
+            return null;
+        }
+        try {
+            return new JsonArray(call.params());
+        } catch (DecodeException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void close() {
+        client.close();
+    }
+
+    private static final class Topic {
+        private final String key;
+        private final JsonArray params;
+        private final String id;
+        private final Set<Subscriber> subscribers = new LinkedHashSet<>();
+        private Future<JsonObject> ready;
+        private String upstreamId;
+
+        private Topic(String key, JsonArray params, String id) {
+            this.key = key;
+            this.params = params;
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.github.olegLevochkin.gateway.rpc;
+
+import io.vertx.core.buffer.Buffer;
+
+/** Raw upstream response body and its {@code Content-Encoding}, {@code null} when it was sent uncompressed. */
+public record UpstreamBody(Buffer bytes, String contentEncoding) {
+
+    public boolean encoded() {
+        return contentEncoding != null;
+    }
+}
@@ -0,0 +1,42 @@
+package com.github.olegLevochkin.gateway.rpc;
+
+import com.github.olegLevochkin.gateway.metrics.RpcMetrics;
+import io.vertx.core.Future;
+import io.vertx.core.buffer.Buffer;
+
+import java.util.List;
+
+public record UpstreamDispatcher(RpcForwarder forwarder, RpcMetrics metrics) implements JsonRpcDispatcher {
+
+    @Override
+    public Future<List<JsonRpcReply>> dispatch(List<JsonRpcCall> calls, int timeoutMillis) {
+        long startedAt = System.nanoTime();
+        return forwarder.forward(JsonRpcBodies.encodeRequest(calls), timeoutMillis)
+                .map(body -> alignReplies(metrics, calls, body, startedAt));
+    }
+
+    /**
+     * Aligns the upstream replies with {@code calls} and records, per method, the round trip since
+     * {@code startedAt} and the error code of every error reply.
+     */
+    static List<JsonRpcReply> alignReplies(RpcMetrics metrics, List<JsonRpcCall> calls, Buffer body, long startedAt) {
+        recordLatencies(metrics, calls, startedAt);
+        List<JsonRpcReply> replies = JsonRpcBodies.alignReplies(calls, body);
+        for (int i = 0; i < calls.size(); i++) {
+            JsonRpcReply reply = replies.get(i);
+            Integer code = reply != null ? reply.errorCode() : null;
+            if (code != null) {
+                metrics.method(calls.get(i).method()).recordError(code);
+            }
+        }
+        return replies;
+    }
+
+    /** Records, per method, the round trip since {@code startedAt} without looking at the replies. */
+    static void recordLatencies(RpcMetrics metrics, List<JsonRpcCall> calls, long startedAt) {
+        long elapsed = System.nanoTime() - startedAt;
+        for (JsonRpcCall call : calls) {
+            metrics.method(call.method()).recordLatency(elapsed);
+        }
+    }
+}
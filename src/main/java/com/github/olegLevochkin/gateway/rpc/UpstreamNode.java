@@ -0,0 +1,162 @@
+package com.github.olegLevochkin.gateway.rpc;
+
+import com.github.olegLevochkin.gateway.config.AppConfig;
+import com.github.olegLevochkin.gateway.config.UpstreamGroup;
+import com.github.olegLevochkin.gateway.config.UpstreamTarget;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.vertx.circuitbreaker.CircuitBreaker;
+import io.vertx.circuitbreaker.CircuitBreakerState;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.github.olegLevochkin.gateway.metrics.MetricsNames.JSONRPC_UPSTREAM_IN_FLIGHT;
+import static com.github.olegLevochkin.gateway.metrics.MetricsNames.JSONRPC_UPSTREAM_LATENCY;
+import static com.github.olegLevochkin.gateway.metrics.MetricsNames.JSONRPC_UPSTREAM_SELECTIONS_TOTAL;
+import static com.github.olegLevochkin.gateway.metrics.MetricsNames.TAG_UPSTREAM;
+
+/**
+ * Health and load of one upstream, shared by all verticle instances: its circuit breaker, in-flight count and
+ * a peak-EWMA of observed latency. The EWMA jumps to any slower sample and decays towards faster ones;
+ * failures count as at least {@code FAILURE_PENALTY_NANOS} so that fast connection errors do not attract traffic.
+ * With {@code upstream.limit.enabled} every request must first {@link #acquire()} a slot from its
+ * {@link ConcurrencyLimiter}.
+ */
+public final class UpstreamNode {
+
+    private static final double DECAY_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private static final long FAILURE_PENALTY_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final Future<Void> ADMITTED = Future.succeededFuture();
+
+    private final String name;
+    private final String url;
+    private final int weight;
+    private final CircuitBreaker circuitBreaker;
+    private final ConcurrencyLimiter limiter;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Timer latency;
+    private final Counter selections;
+
+    private double ewmaNanos;
+    private long lastObservedNanos = System.nanoTime();
+
+    private UpstreamNode(String name, UpstreamTarget target, CircuitBreaker circuitBreaker, ConcurrencyLimiter limiter,
+                         MeterRegistry meterRegistry) {
+        this.name = name;
+        this.url = target.url();
+        this.weight = target.weight();
+        this.circuitBreaker = circuitBreaker;
+        this.limiter = limiter;
+        this.latency = Timer.builder(JSONRPC_UPSTREAM_LATENCY)
+                .tag(TAG_UPSTREAM, name)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.selections = meterRegistry.counter(JSONRPC_UPSTREAM_SELECTIONS_TOTAL, TAG_UPSTREAM, name);
+        Gauge.builder(JSONRPC_UPSTREAM_IN_FLIGHT, inFlight, AtomicInteger::get)
+                .tag(TAG_UPSTREAM, name)
+                .register(meterRegistry);
+    }
+
+    public static List<UpstreamNode> createAll(Vertx vertx, AppConfig config, MeterRegistry meterRegistry) {
+        return createAll(vertx, config, config.upstreams(), "", config.requestTimeoutMs(), meterRegistry);
+    }
+
+    /** The nodes of an upstream group; their names, and so their breakers and meters, carry the group name. */
+    public static List<UpstreamNode> createAll(Vertx vertx, AppConfig config, UpstreamGroup group,
+                                               MeterRegistry meterRegistry) {
+        return createAll(vertx, config, group.upstreams(), group.name() + "-", group.timeoutMs(), meterRegistry);
+    }
+
+    private static List<UpstreamNode> createAll(Vertx vertx, AppConfig config, List<UpstreamTarget> targets,
+                                                String namePrefix, int timeoutMs, MeterRegistry meterRegistry) {
+        List<UpstreamNode> nodes = new ArrayList<>(targets.size());
+        for (int i = 0; i < targets.size(); i++) {
+            UpstreamTarget target = targets.get(i);
+            String name = namePrefix + nameOf(targets, i);
+            nodes.add(new UpstreamNode(name, target,
+                    HttpRpcForwarder.createCircuitBreaker(vertx, config, name, timeoutMs),
+                    config.upstreamLimitEnabled() ? ConcurrencyLimiter.create(vertx, name, config, meterRegistry) : null,
+                    meterRegistry));
+        }
+        return List.copyOf(nodes);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public String url() {
+        return url;
+    }
+
+    public CircuitBreaker circuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public boolean isAvailable() {
+        return circuitBreaker == null || circuitBreaker.state() != CircuitBreakerState.OPEN;
+    }
+
+    public synchronized double cost() {
+        return ewmaNanos * (inFlight.get() + 1) / weight;
+    }
+
+    /** Completes once the concurrency limit admits another request; see {@link ConcurrencyLimiter#acquire()}. */
+    public Future<Void> acquire() {
+        return limiter != null ? limiter.acquire() : ADMITTED;
+    }
+
+    public long begin() {
+        selections.increment();
+        inFlight.incrementAndGet();
+        return System.nanoTime();
+    }
+
+    public void end(long startedAtNanos, boolean failed) {
+        long now = System.nanoTime();
+        long rttNanos = now - startedAtNanos;
+        inFlight.decrementAndGet();
+        latency.record(rttNanos, TimeUnit.NANOSECONDS);
+        observe(failed ? Math.max(rttNanos, FAILURE_PENALTY_NANOS) : rttNanos, now);
+        if (limiter != null) {
+            limiter.release(rttNanos, failed);
+        }
+    }
+
+    /** Ends a request that was cancelled, so its latency says nothing about the upstream. */
+    public void release() {
+        inFlight.decrementAndGet();
+        if (limiter != null) {
+            limiter.release();
+        }
+    }
+
+    private synchronized void observe(long rttNanos, long now) {
+        double decay = Math.exp(-(now - lastObservedNanos) / DECAY_NANOS);
+        lastObservedNanos = now;
+        ewmaNanos = rttNanos > ewmaNanos ? rttNanos : ewmaNanos * decay + rttNanos * (1.0 - decay);
+    }
+
+    private static String nameOf(List<UpstreamTarget> targets, int index) {
+        String host = hostOf(targets.get(index).url());
+        long sameHost = targets.stream().filter(t -> hostOf(t.url()).equals(host)).count();
+        return sameHost > 1 ? host + "-" + index : host;
+    }
+
+    private static String hostOf(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            return host != null ? host : url;
+        } catch (IllegalArgumentException e) {
+            return url;
+        }
+    }
+}
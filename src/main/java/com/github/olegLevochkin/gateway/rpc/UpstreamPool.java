@@ -0,0 +1,246 @@
+package com.github.olegLevochkin.gateway.rpc;
+
+import com.github.olegLevochkin.gateway.config.AppConfig;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpClientRequest;
+import io.vertx.core.http.HttpClientResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * Per-verticle view over the shared {@link UpstreamNode}s, each with its own {@link HttpRpcForwarder}
+ * (connection pool and breaker). Picks the cheaper of two random available nodes (power of two choices over
+ * peak-EWMA cost) and fails over to the remaining nodes unless the failure was a timeout. Hedged requests
+ * additionally race a second node once the primary is slower than the given delay. A node that sheds a request
+ * at its concurrency limit counts as a failure, so the request moves on to the next node.
+ */
+public final class UpstreamPool implements RpcForwarder {
+
+    private final Vertx vertx;
+    private final List<UpstreamNode> nodes;
+    private final List<HttpRpcForwarder> forwarders;
+
+    private UpstreamPool(Vertx vertx, List<UpstreamNode> nodes, List<HttpRpcForwarder> forwarders) {
+        this.vertx = vertx;
+        this.nodes = nodes;
+        this.forwarders = forwarders;
+    }
+
+    public static UpstreamPool create(Vertx vertx, AppConfig config, List<UpstreamNode> nodes) {
+        List<HttpRpcForwarder> forwarders = new ArrayList<>(nodes.size());
+        for (UpstreamNode node : nodes) {
+            forwarders.add(HttpRpcForwarder.of(vertx, config, node.url(), node.circuitBreaker()));
+        }
+        return new UpstreamPool(vertx, nodes, List.copyOf(forwarders));
+    }
+
+    /** A pool whose forwarders each open at most {@code maxPoolSize} connections. */
+    public static UpstreamPool create(Vertx vertx, AppConfig config, List<UpstreamNode> nodes, int maxPoolSize) {
+        List<HttpRpcForwarder> forwarders = new ArrayList<>(nodes.size());
+        for (UpstreamNode node : nodes) {
+            forwarders.add(HttpRpcForwarder.of(vertx, config, node.url(), node.circuitBreaker(), maxPoolSize));
+        }
+        return new UpstreamPool(vertx, nodes, List.copyOf(forwarders));
+    }
+
+    @Override
+    public Future<Buffer> forward(Buffer jsonBody, int timeoutMillis) {
+        return attempt(jsonBody, timeoutMillis, 0L);
+    }
+
+    /** Same failover as {@link #forward(Buffer, int)}; the body is returned as the upstream encoded it. */
+    @Override
+    public Future<UpstreamBody> forwardEncoded(Buffer jsonBody, int timeoutMillis, String acceptEncoding) {
+        return attempt(0L, index -> track(index, null,
+                forwarder -> forwarder.forwardEncoded(jsonBody, timeoutMillis, acceptEncoding, null)));
+    }
+
+    /**
+     * Sends the body to one node and, if no response has arrived after {@code hedgeDelayMillis} and the policy
+     * grants a hedge, to a second one (a different node when there is more than one). The first success wins
+     * and the other request is reset.
+     */
+    public Future<Buffer> forwardHedged(Buffer jsonBody, int timeoutMillis, long hedgeDelayMillis, HedgePolicy policy) {
+        return new Hedge(jsonBody, timeoutMillis, policy).start(hedgeDelayMillis);
+    }
+
+    /**
+     * Opens a streaming request on the cheapest node. The node's latency is observed when the response ends;
+     * once {@code cancellation} completes the request counts as abandoned instead. There is no failover, as the
+     * body is not retained.
+     */
+    public Future<HttpClientRequest> open(int timeoutMillis, Future<Void> cancellation) {
+        int index = select(0L);
+        UpstreamNode node = nodes.get(index);
+        return node.acquire().compose(admitted -> {
+            long startedAt = node.begin();
+            return forwarders.get(index).open(timeoutMillis)
+                    .andThen(ar -> {
+                        Future<Void> done = ar.succeeded()
+                                ? ar.result().response().compose(HttpClientResponse::end)
+                                : Future.failedFuture(ar.cause());
+                        done.onComplete(end -> {
+                            if (cancellation.isComplete()) {
+                                node.release();
+                            } else {
+                                node.end(startedAt, end.failed());
+                            }
+                        });
+                    });
+        });
+    }
+
+    private Future<Buffer> attempt(Buffer jsonBody, int timeoutMillis, long triedMask) {
+        return attempt(triedMask, index -> send(index, jsonBody, timeoutMillis, null));
+    }
+
+    private <T> Future<T> attempt(long triedMask, IntFunction<Future<T>> sender) {
+        int index = select(triedMask);
+        return sender.apply(index)
+                .recover(err -> {
+                    long tried = triedMask | (1L << index);
+                    if (isTimeout(err) || Long.bitCount(tried) >= nodes.size()) {
+                        return Future.failedFuture(err);
+                    }
+                    return attempt(tried, sender);
+                });
+    }
+
+    private Future<Buffer> send(int index, Buffer jsonBody, int timeoutMillis, Future<Void> cancellation) {
+        return track(index, cancellation, forwarder -> forwarder.forward(jsonBody, timeoutMillis, cancellation));
+    }
+
+    /** Runs {@code call} on the node's forwarder and feeds the outcome into the node's load and latency stats. */
+    private <T> Future<T> track(int index, Future<Void> cancellation, Function<HttpRpcForwarder, Future<T>> call) {
+        UpstreamNode node = nodes.get(index);
+        return node.acquire().compose(admitted -> {
+            long startedAt = node.begin();
+            return call.apply(forwarders.get(index))
+                    .andThen(ar -> {
+                        if (cancellation != null && cancellation.isComplete()) {
+                            node.release();
+                        } else {
+                            node.end(startedAt, ar.failed());
+                        }
+                    });
+        });
+    }
+
+    private int select(long triedMask) {
+        int[] candidates = new int[nodes.size()];
+        int count = collect(candidates, triedMask, true);
+        if (count == 0) {
+            count = collect(candidates, triedMask, false);
+        }
+        if (count == 1) {
+            return candidates[0];
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(count);
+        int second = random.nextInt(count - 1);
+        if (second >= first) second++;
+        UpstreamNode a = nodes.get(candidates[first]);
+        UpstreamNode b = nodes.get(candidates[second]);
+        return a.cost() <= b.cost() ? candidates[first] : candidates[second];
+    }
+
+    private int collect(int[] candidates, long triedMask, boolean availableOnly) {
+        int count = 0;
+        for (int i = 0; i < nodes.size(); i++) {
+            if ((triedMask & (1L << i)) != 0) continue;
+            if (availableOnly && !nodes.get(i).isAvailable()) continue;
+            candidates[count++] = i;
+        }
+        return count;
+    }
+
+    private static boolean isTimeout(Throwable error) {
+        return error instanceof TimeoutException || error instanceof io.vertx.circuitbreaker.TimeoutException;
+    }
+
+    private final class Hedge {
+        private final Buffer jsonBody;
+        private final int timeoutMillis;
+        private final HedgePolicy policy;
+        private final Promise<Buffer> result = Promise.promise();
+        private final Promise<Void> cancelPrimary = Promise.promise();
+        private final Promise<Void> cancelHedge = Promise.promise();
+        private int primary;
+        private long timerId;
+        private long hedgeDelayMillis;
+        private boolean hedged;
+        private int failures;
+
+        Hedge(Buffer jsonBody, int timeoutMillis, HedgePolicy policy) {
+            this.jsonBody = jsonBody;
+            this.timeoutMillis = timeoutMillis;
+            this.policy = policy;
+        }
+
+        Future<Buffer> start(long delayMillis) {
+            hedgeDelayMillis = delayMillis;
+            primary = select(0L);
+            timerId = vertx.setTimer(delayMillis, id -> launchHedge());
+            send(primary, jsonBody, timeoutMillis, cancelPrimary.future()).onComplete(this::onPrimary);
+            return result.future();
+        }
+
+        private void onPrimary(AsyncResult<Buffer> ar) {
+            if (ar.succeeded()) {
+                win(ar.result(), cancelHedge, false);
+            } else if (!hedged) {
+                vertx.cancelTimer(timerId);
+                if (isTimeout(ar.cause()) || nodes.size() == 1) {
+                    result.tryFail(ar.cause());
+                } else {
+                    attempt(jsonBody, timeoutMillis, 1L << primary).onComplete(result);
+                }
+            } else {
+                lose(ar.cause());
+            }
+        }
+
+        private void launchHedge() {
+            if (result.future().isComplete() || !policy.tryAcquire()) return;
+            hedged = true;
+            int index = nodes.size() > 1 ? select(1L << primary) : primary;
+            int remainingMillis = (int) Math.max(1, timeoutMillis - hedgeDelayMillis);
+            send(index, jsonBody, remainingMillis, cancelHedge.future()).onComplete(ar -> {
+                if (ar.succeeded()) {
+                    win(ar.result(), cancelPrimary, true);
+                } else {
+                    lose(ar.cause());
+                }
+            });
+        }
+
+        private void win(Buffer body, Promise<Void> loser, boolean hedgeWon) {
+            vertx.cancelTimer(timerId);
+            if (result.tryComplete(body)) {
+                loser.tryComplete();
+                if (hedgeWon) policy.recordWin();
+            }
+        }
+
+        private void lose(Throwable error) {
+            if (++failures == 2) {
+                result.tryFail(error);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        forwarders.forEach(HttpRpcForwarder::close);
+    }
+}
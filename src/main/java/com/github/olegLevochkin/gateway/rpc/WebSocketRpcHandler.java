@@ -0,0 +1,188 @@
+package com.github.olegLevochkin.gateway.rpc;
+
+import com.github.olegLevochkin.gateway.metrics.RpcMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.ServerWebSocket;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.github.olegLevochkin.gateway.metrics.MetricsNames.JSONRPC_WS_CONNECTIONS;
+import static com.github.olegLevochkin.gateway.metrics.MetricsNames.JSONRPC_WS_SLOW_CONSUMERS_TOTAL;
+import static com.github.olegLevochkin.gateway.rpc.SubscriptionHub.METHOD_SUBSCRIBE;
+import static com.github.olegLevochkin.gateway.rpc.SubscriptionHub.METHOD_UNSUBSCRIBE;
+
+/**
+ * JSON-RPC over WebSocket on {@code /ws}. Ordinary calls go through the same dispatcher chain as {@code POST /rpc};
+ * {@code eth_subscribe}/{@code eth_unsubscribe} are served by the shared {@link SubscriptionHub}.
+ * Each connection reads at most {@code maxPendingRequests} messages ahead and stops reading while its outbound
+ * queue is full; a connection that cannot keep up with subscription events is closed rather than buffered.
+ */
+@Slf4j
+public final class WebSocketRpcHandler implements Handler<ServerWebSocket> {
+
+    public static final String PATH_WS = "/ws";
+
+    private static final short STATUS_POLICY_VIOLATION = 1008;
+    private static final String REASON_SLOW_CONSUMER = "Slow consumer";
+    private static final AtomicInteger CONNECTIONS = new AtomicInteger();
+
+    private final JsonRpcDispatcher dispatcher;
+    private final SubscriptionHub hub;
+    private final RpcMetrics metrics;
+    private final int timeoutMs;
+    private final int maxQueueBytes;
+    private final int maxPendingRequests;
+    private final Counter slowConsumers;
+
+    public WebSocketRpcHandler(JsonRpcDispatcher dispatcher, SubscriptionHub hub, RpcMetrics metrics,
+                               MeterRegistry meterRegistry, int timeoutMs, int maxQueueBytes, int maxPendingRequests) {
+        this.dispatcher = dispatcher;
+        this.hub = hub;
+        this.metrics = metrics;
+        this.timeoutMs = timeoutMs;
+        this.maxQueueBytes = maxQueueBytes;
+        this.maxPendingRequests = maxPendingRequests;
+        this.slowConsumers = meterRegistry.counter(JSONRPC_WS_SLOW_CONSUMERS_TOTAL);
+        meterRegistry.gauge(JSONRPC_WS_CONNECTIONS, CONNECTIONS);
+    }
+
+    @Override
+    public void handle(ServerWebSocket ws) {
+        if (!PATH_WS.equals(ws.path())) {
+            ws.reject();
+            return;
+        }
+        new Connection(ws, Vertx.currentContext()).start();
+    }
+
+    private final class Connection implements SubscriptionHub.Subscriber {
+        private final ServerWebSocket ws;
+        private final Context context;
+        private int pending;
+        private boolean paused;
+
+        private Connection(ServerWebSocket ws, Context context) {
+            this.ws = ws;
+            this.context = context;
+        }
+
+        void start() {
+            CONNECTIONS.incrementAndGet();
+            ws.setWriteQueueMaxSize(maxQueueBytes);
+            ws.textMessageHandler(text -> onMessage(Buffer.buffer(text)));
+            ws.binaryMessageHandler(this::onMessage);
+            ws.drainHandler(v -> updateFlow());
+            ws.exceptionHandler(err -> log.debug("WebSocket client error: {}", err.toString()));
+            ws.closeHandler(v -> {
+                CONNECTIONS.decrementAndGet();
+                hub.removeAll(this);
+            });
+        }
+
+        @Override
+        public void deliver(String frame) {
+            if (ws.isClosed()) return;
+            if (ws.writeQueueFull()) {
+                slowConsumers.increment();
+                ws.close(STATUS_POLICY_VIOLATION, REASON_SLOW_CONSUMER);
+                return;
+            }
+            ws.writeTextMessage(frame);
+        }
+
+        private void onMessage(Buffer body) {
+            metrics.recordRequestBytes(body.length());
+            List<JsonRpcCall> calls = new ArrayList<>();
+            boolean valid = body.length() > 0 && StreamingJsonRpcValidator.forEachValid(body, call -> {
+                metrics.method(call.method()).recordCall();
+                calls.add(call);
+            });
+            if (!valid) {
+                ws.writeTextMessage(JsonRpcErrors.invalidRequest(null).encode());
+                return;
+            }
+            metrics.recordBatchSize(calls.size());
+
+            pending++;
+            updateFlow();
+            boolean batch = JsonRpcBodies.isBatch(body);
+            Future<List<JsonRpcReply>> replies;
+            try {
+                replies = dispatch(calls);
+            } catch (RuntimeException e) {
+                // answered below like an upstream failure, so that the pending slot is released
+                replies = Future.failedFuture(e);
+            }
+            replies.onComplete(ar -> context.runOnContext(v -> {
+                pending--;
+                if (ar.succeeded()) {
+                    Buffer response = JsonRpcBodies.encodeResponse(batch, ar.result());
+                    if (response.length() > 0 && !ws.isClosed()) {
+                        metrics.recordResponseBytes(response.length());
+                        ws.writeTextMessage(response.toString());
+                    }
+                } else if (!ws.isClosed()) {
+                    ws.writeTextMessage(JsonRpcErrors.upstreamUnavailable(null).encode());
+                }
+                updateFlow();
+            }));
+        }
+
+        private Future<List<JsonRpcReply>> dispatch(List<JsonRpcCall> calls) {
+            List<JsonRpcCall> forwarded = new ArrayList<>(calls.size());
+            List<Future<JsonRpcReply>> local = new ArrayList<>(calls.size());
+            for (JsonRpcCall call : calls) {
+                boolean subscribe = METHOD_SUBSCRIBE.equals(call.method());
+                if ((subscribe || METHOD_UNSUBSCRIBE.equals(call.method())) && !call.hasId()) {
+                    local.add(Future.succeededFuture());
+                } else if (subscribe) {
+                    local.add(hub.subscribe(call, this));
+                } else if (METHOD_UNSUBSCRIBE.equals(call.method())) {
+                    local.add(hub.unsubscribe(call, this));
+                } else {
+                    local.add(null);
+                    forwarded.add(call);
+                }
+            }
+            if (forwarded.size() == calls.size()) {
+                return dispatcher.dispatch(calls, timeoutMs);
+            }
+
+            Future<List<JsonRpcReply>> upstream = forwarded.isEmpty()
+                    ? Future.succeededFuture(List.of())
+                    : dispatcher.dispatch(forwarded, timeoutMs);
+            List<Future<?>> all = new ArrayList<>(local.size() + 1);
+            local.stream().filter(Objects::nonNull).forEach(all::add);
+            all.add(upstream);
+            return Future.all(all).map(done -> {
+                List<JsonRpcReply> replies = new ArrayList<>(calls.size());
+                int next = 0;
+                for (Future<JsonRpcReply> reply : local) {
+                    replies.add(reply != null ? reply.result() : upstream.result().get(next++));
+                }
+                return replies;
+            });
+        }
+
+        private void updateFlow() {
+            boolean shouldPause = pending >= maxPendingRequests || ws.writeQueueFull();
+            if (shouldPause && !paused) {
+                ws.pause();
+                paused = true;
+            } else if (!shouldPause && paused) {
+                ws.resume();
+                paused = false;
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.github.olegLevochkin.gateway.metrics;
+
+import com.github.olegLevochkin.gateway.config.AppConfig;
+import com.github.olegLevochkin.gateway.config.ConfigLoader;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static com.github.olegLevochkin.gateway.metrics.MetricsNames.JSONRPC_BLOCKED_THREAD_DURATION;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Vert.x checks for blocked threads every 100 ms, the same as the threshold, as the application configures it. */
+class EventLoopMonitorTest {
+
+    private static final int THRESHOLD_MILLIS = 100;
+    private static final long WAIT_MILLIS = 5_000;
+
+    private Vertx vertx;
+    private Context context;
+    private SimpleMeterRegistry registry;
+    private EventLoopMonitor monitor;
+
+    @BeforeEach
+    void setUp() {
+        vertx = Vertx.vertx(new VertxOptions()
+                .setMaxEventLoopExecuteTime(THRESHOLD_MILLIS)
+                .setMaxEventLoopExecuteTimeUnit(TimeUnit.MILLISECONDS)
+                .setBlockedThreadCheckInterval(THRESHOLD_MILLIS));
+        context = vertx.getOrCreateContext();
+        Properties overrides = new Properties();
+        overrides.setProperty("eventloop.blocked.threshold.ms", Integer.toString(THRESHOLD_MILLIS));
+        AppConfig config = ConfigLoader.load(overrides);
+        registry = new SimpleMeterRegistry();
+        monitor = EventLoopMonitor.start(vertx, config, registry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        monitor.close();
+        vertx.close().toCompletionStage().toCompletableFuture().join();
+    }
+
+    @Test
+    void recordsEachStallOnceWithItsLength() throws Exception {
+        block(1_000);
+        await(() -> stalls() != null && stalls().count() == 1);
+        Thread.sleep(5 * THRESHOLD_MILLIS);
+
+        assertThat(stalls().count()).isEqualTo(1);
+        assertThat(stalls().totalTime(TimeUnit.MILLISECONDS)).isBetween(700.0, 1_000.0);
+
+        block(500);
+        await(() -> stalls().count() == 2);
+        assertThat(stalls().max(TimeUnit.MILLISECONDS)).isBetween(700.0, 1_000.0);
+        assertThat(stalls().totalTime(TimeUnit.MILLISECONDS)).isBetween(900.0, 1_500.0);
+    }
+
+    /** Blocks the same event loop each time. */
+    private void block(long millis) {
+        context.runOnContext(ignored -> {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+    }
+
+    private Timer stalls() {
+        return registry.find(JSONRPC_BLOCKED_THREAD_DURATION).timer();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("waiting for a stall").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.github.olegLevochkin.gateway.ratelimit;
+
+import com.github.olegLevochkin.gateway.config.ConfigLoader;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/** One upstream slot, so that each release hands the slot to exactly one waiting request. */
+class FairSchedulerTest {
+
+    private static final long WAIT_MILLIS = 5_000;
+
+    private Vertx vertx;
+    private FairScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        vertx = Vertx.vertx();
+    }
+
+    @AfterEach
+    void tearDown() {
+        vertx.close().toCompletionStage().toCompletableFuture().join();
+    }
+
+    @Test
+    void takesTurnsBetweenClientsWithEqualCosts() throws Exception {
+        scheduler = scheduler(1, 10, 60_000);
+        occupySlot();
+        Map<String, Future<Void>> waiting = new LinkedHashMap<>();
+        for (int i = 1; i <= 3; i++) {
+            waiting.put("a" + i, scheduler.acquire("a", 1));
+            waiting.put("b" + i, scheduler.acquire("b", 1));
+        }
+
+        assertThat(grantOrder(waiting)).containsExactly("a1", "b1", "a2", "b2", "a3", "b3");
+    }
+
+    @Test
+    void sharesSlotsByCostNotByRequestCount() throws Exception {
+        scheduler = scheduler(10, 10, 60_000);
+        occupySlot();
+        Map<String, Future<Void>> waiting = new LinkedHashMap<>();
+        for (int i = 1; i <= 3; i++) {
+            waiting.put("big" + i, scheduler.acquire("big", 10));
+        }
+        for (int i = 1; i <= 3; i++) {
+            waiting.put("small" + i, scheduler.acquire("small", 1));
+        }
+
+        // each round gives both clients a cost of 10: one big request, or every small one
+        assertThat(grantOrder(waiting)).containsExactly("big1", "small1", "small2", "small3", "big2", "big3");
+    }
+
+    @Test
+    void skipsRoundsUntilTheClosestClientCanAffordItsRequest() throws Exception {
+        scheduler = scheduler(1, 10, 60_000);
+        occupySlot();
+        Map<String, Future<Void>> waiting = new LinkedHashMap<>();
+        waiting.put("heavy", scheduler.acquire("heavy", 1_000_000_000L));
+        waiting.put("lighter", scheduler.acquire("lighter", 600_000_000L));
+
+        // a quantum of 1 would otherwise take hundreds of millions of turns per grant
+        assertThat(grantOrder(waiting)).containsExactly("lighter", "heavy");
+    }
+
+    @Test
+    void rejectsWhenTheClientQueueIsFullOrTheWaitTimesOut() {
+        scheduler = scheduler(1, 1, 50);
+        occupySlot();
+        Future<Void> queued = scheduler.acquire("a", 1);
+        Future<Void> overflow = scheduler.acquire("a", 1);
+
+        assertThat(overflow.failed()).isTrue();
+        assertThat(overflow.cause()).isInstanceOf(FairScheduler.RejectedException.class);
+        assertThatThrownBy(() -> join(queued)).hasCauseInstanceOf(FairScheduler.RejectedException.class);
+        assertThat(scheduler.acquire("b", 1).isComplete()).isFalse();
+    }
+
+    private void occupySlot() {
+        assertThat(scheduler.acquire("first", 1).succeeded()).isTrue();
+    }
+
+    /** Releases the slot once per waiting request and records which request each release admitted. */
+    private List<String> grantOrder(Map<String, Future<Void>> waiting) throws Exception {
+        List<String> order = new ArrayList<>();
+        Map<String, Future<Void>> pending = new LinkedHashMap<>(waiting);
+        while (!pending.isEmpty()) {
+            scheduler.release();
+            long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+            String granted = null;
+            while (granted == null) {
+                assertThat(System.currentTimeMillis()).as("waiting for a grant").isLessThan(deadline);
+                for (Map.Entry<String, Future<Void>> entry : pending.entrySet()) {
+                    if (entry.getValue().succeeded()) granted = entry.getKey();
+                }
+                if (granted == null) Thread.sleep(1);
+            }
+            pending.remove(granted);
+            order.add(granted);
+            assertThat(pending.values()).noneMatch(Future::isComplete);
+        }
+        return order;
+    }
+
+    private FairScheduler scheduler(int quantum, int queueSize, int queueTimeoutMillis) {
+        Properties overrides = new Properties();
+        overrides.setProperty("fair.max.in.flight", "1");
+        overrides.setProperty("fair.quantum", Integer.toString(quantum));
+        overrides.setProperty("fair.queue.size", Integer.toString(queueSize));
+        overrides.setProperty("fair.queue.timeout.ms", Integer.toString(queueTimeoutMillis));
+        return FairScheduler.create(vertx, ConfigLoader.load(overrides), new SimpleMeterRegistry());
+    }
+
+    private static void join(Future<Void> future) throws Exception {
+        future.toCompletionStage().toCompletableFuture().get(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,233 @@
+package com.github.olegLevochkin.gateway.rpc;
+
+import com.github.olegLevochkin.gateway.cluster.ClusterPeers;
+import com.github.olegLevochkin.gateway.config.AppConfig;
+import com.github.olegLevochkin.gateway.config.ConfigLoader;
+import com.github.olegLevochkin.gateway.metrics.RpcMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.Json;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static com.github.olegLevochkin.gateway.metrics.MetricsNames.JSONRPC_CLUSTER_NODES_UP;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Three clustered nodes on localhost ports, each answering calls with its own node id as the result. */
+class ClusterDispatcherTest {
+
+    private static final String HOST = "127.0.0.1";
+    private static final int NODES = 3;
+    private static final int CALLS = 30;
+    private static final int TIMEOUT_MILLIS = 2000;
+    private static final long WAIT_MILLIS = 10_000;
+
+    private final List<Node> nodes = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < NODES; i++) {
+            ids.add(HOST + ":" + freePort());
+        }
+        for (String id : ids) {
+            nodes.add(Node.start(id, ids));
+        }
+        for (Node node : nodes) {
+            await(() -> node.nodesUp() == NODES);
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (Node node : nodes) {
+            node.stop();
+        }
+    }
+
+    @Test
+    void routesEachCallToItsOwner() throws Exception {
+        Node node = nodes.get(0);
+        List<JsonRpcCall> calls = calls();
+
+        List<JsonRpcReply> replies = node.dispatch(calls);
+
+        assertThat(replies).hasSize(CALLS);
+        for (int i = 0; i < CALLS; i++) {
+            assertThat(replies.get(i).id()).isEqualTo(calls.get(i).id());
+            assertThat(servedBy(replies.get(i))).isEqualTo(node.ownerOf(calls.get(i)));
+        }
+        assertThat(replies.stream().map(ClusterDispatcherTest::servedBy).distinct()).hasSize(NODES);
+    }
+
+    @Test
+    void movesKeysOfStoppedNodeToTheOthers() throws Exception {
+        Node node = nodes.get(0);
+        Node stopped = nodes.get(NODES - 1);
+        List<JsonRpcCall> calls = calls();
+        Map<Integer, String> ownersBefore = new HashMap<>();
+        for (int i = 0; i < CALLS; i++) {
+            ownersBefore.put(i, node.ownerOf(calls.get(i)));
+        }
+
+        stopped.stop();
+        await(() -> node.nodesUp() == NODES - 1);
+        List<JsonRpcReply> replies = node.dispatch(calls);
+
+        for (int i = 0; i < CALLS; i++) {
+            String servedBy = servedBy(replies.get(i));
+            assertThat(servedBy).isNotEqualTo(stopped.id);
+            if (!ownersBefore.get(i).equals(stopped.id)) {
+                assertThat(servedBy).isEqualTo(ownersBefore.get(i));
+            }
+        }
+    }
+
+    @Test
+    void sumsCallCountsOfEveryNode() throws Exception {
+        nodes.get(0).record("eth_call", 2);
+        nodes.get(1).record("eth_call", 3);
+        nodes.get(1).record("eth_chainId", 1);
+        nodes.get(2).record("eth_chainId", 4);
+        Node node = nodes.get(0);
+
+        Map<String, Long> total = node.callCounts();
+
+        assertThat(total).containsOnly(Map.entry("eth_call", 5L), Map.entry("eth_chainId", 5L));
+    }
+
+    private static List<JsonRpcCall> calls() {
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 0; i < CALLS; i++) {
+            if (i > 0) body.append(',');
+            body.append("{\"jsonrpc\":\"2.0\",\"id\":").append(i)
+                    .append(",\"method\":\"eth_getBlockByHash\",\"params\":[\"0x").append(Integer.toHexString(i))
+                    .append("\",false]}");
+        }
+        List<JsonRpcCall> calls = new ArrayList<>();
+        assertThat(StreamingJsonRpcValidator.forEachValid(Buffer.buffer(body.append(']').toString()), calls::add))
+                .isTrue();
+        return calls;
+    }
+
+    private static String servedBy(JsonRpcReply reply) {
+        return Json.decodeValue(reply.result()).toString();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("waiting for the cluster").isLessThan(deadline);
+            Thread.sleep(50);
+        }
+    }
+
+    private static <T> T join(Future<T> future) throws Exception {
+        return future.toCompletionStage().toCompletableFuture().get(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private static final class Node {
+        private final String id;
+        private final Vertx vertx;
+        private final SimpleMeterRegistry registry;
+        private final RpcMetrics metrics;
+        private final ClusterPeers peers;
+        private final ResponseCache cache;
+        private final ClusterDispatcher dispatcher;
+        private boolean stopped;
+
+        private Node(String id, Vertx vertx, AppConfig config) {
+            this.id = id;
+            this.vertx = vertx;
+            this.registry = new SimpleMeterRegistry();
+            this.metrics = RpcMetrics.create(config, registry);
+            this.peers = ClusterPeers.create(vertx, config, metrics, registry);
+            this.cache = ResponseCache.create(config, null, registry);
+            JsonRpcDispatcher self = answeringAs(id);
+            ClusterDispatcher.serve(peers, self);
+            this.dispatcher = new ClusterDispatcher(self, peers, cache, null);
+        }
+
+        static Node start(String id, List<String> ids) throws Exception {
+            String[] hostPort = id.split(":");
+            Properties overrides = new Properties();
+            overrides.setProperty("cluster.enabled", "true");
+            overrides.setProperty("cluster.host", hostPort[0]);
+            overrides.setProperty("cluster.port", hostPort[1]);
+            overrides.setProperty("cluster.peers", String.join(",", ids));
+            overrides.setProperty("cluster.ping.interval.ms", "500");
+            overrides.setProperty("cache.methods", "eth_getBlockByHash");
+            AppConfig config = ConfigLoader.load(overrides);
+            VertxOptions options = new VertxOptions();
+            options.getEventBusOptions().setHost(config.clusterHost()).setPort(config.clusterPort());
+            Vertx vertx = join(Vertx.builder()
+                    .with(options)
+                    .withClusterManager(ClusterPeers.clusterManager(config))
+                    .buildClustered());
+            return new Node(id, vertx, config);
+        }
+
+        private static JsonRpcDispatcher answeringAs(String id) {
+            Buffer result = Buffer.buffer(Json.encode(id));
+            return (calls, timeoutMillis) -> {
+                List<JsonRpcReply> replies = new ArrayList<>(calls.size());
+                for (JsonRpcCall call : calls) {
+                    replies.add(JsonRpcReply.ofResult(call.id(), result));
+                }
+                return Future.succeededFuture(replies);
+            };
+        }
+
+        List<JsonRpcReply> dispatch(List<JsonRpcCall> calls) throws Exception {
+            return join(Future.<List<JsonRpcReply>>future(promise -> vertx.runOnContext(ignored ->
+                    dispatcher.dispatch(calls, TIMEOUT_MILLIS).onComplete(promise))));
+        }
+
+        /** Asks from a context, as the metrics endpoint does, so that every reply is merged on one thread. */
+        Map<String, Long> callCounts() throws Exception {
+            return join(Future.<Map<String, Long>>future(promise -> vertx.runOnContext(ignored ->
+                    peers.callCounts(metrics.callCounts()).onComplete(promise))));
+        }
+
+        String ownerOf(JsonRpcCall call) {
+            return peers.ownerOf(cache.keyOf(call));
+        }
+
+        double nodesUp() {
+            return registry.get(JSONRPC_CLUSTER_NODES_UP).gauge().value();
+        }
+
+        void record(String method, int calls) {
+            for (int i = 0; i < calls; i++) {
+                metrics.method(method).recordCall();
+            }
+        }
+
+        void stop() throws Exception {
+            if (stopped) return;
+            stopped = true;
+            peers.close();
+            join(vertx.close());
+        }
+    }
+}
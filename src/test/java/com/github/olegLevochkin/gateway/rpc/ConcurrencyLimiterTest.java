@@ -0,0 +1,144 @@
+package com.github.olegLevochkin.gateway.rpc;
+
+import com.github.olegLevochkin.gateway.config.ConfigLoader;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.olegLevochkin.gateway.metrics.MetricsNames.JSONRPC_UPSTREAM_CONCURRENCY_LIMIT;
+import static com.github.olegLevochkin.gateway.metrics.MetricsNames.JSONRPC_UPSTREAM_QUEUE_DEPTH;
+import static com.github.olegLevochkin.gateway.metrics.MetricsNames.JSONRPC_UPSTREAM_SHED_TOTAL;
+import static com.github.olegLevochkin.gateway.metrics.MetricsNames.TAG_UPSTREAM;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConcurrencyLimiterTest {
+
+    private static final String UPSTREAM = "test";
+    private static final long FAST_RTT_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW_RTT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long WAIT_MILLIS = 5_000;
+
+    private Vertx vertx;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        vertx = Vertx.vertx();
+        registry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        vertx.close().toCompletionStage().toCompletableFuture().join();
+    }
+
+    @Test
+    void queuesOverTheLimitInOrderAndShedsWhenTheQueueIsFull() throws Exception {
+        ConcurrencyLimiter limiter = limiter(2, 1, 10, 2, 60_000);
+        assertThat(limiter.acquire().succeeded()).isTrue();
+        assertThat(limiter.acquire().succeeded()).isTrue();
+        Future<Void> first = limiter.acquire();
+        Future<Void> second = limiter.acquire();
+        Future<Void> third = limiter.acquire();
+
+        assertThat(third.failed()).isTrue();
+        assertThat(third.cause()).isInstanceOf(ConcurrencyLimiter.OverloadedException.class);
+        assertThat(gauge(JSONRPC_UPSTREAM_QUEUE_DEPTH)).isEqualTo(2);
+        assertThat(registry.counter(JSONRPC_UPSTREAM_SHED_TOTAL, TAG_UPSTREAM, UPSTREAM).count()).isEqualTo(1);
+
+        limiter.release();
+        join(first);
+        assertThat(second.isComplete()).isFalse();
+        limiter.release();
+        join(second);
+        assertThat(gauge(JSONRPC_UPSTREAM_QUEUE_DEPTH)).isZero();
+    }
+
+    @Test
+    void shedsRequestsThatWaitLongerThanTheQueueTimeout() throws Exception {
+        ConcurrencyLimiter limiter = limiter(1, 1, 10, 4, 50);
+        assertThat(limiter.acquire().succeeded()).isTrue();
+        Future<Void> waiting = limiter.acquire();
+
+        assertThatThrownBy(() -> join(waiting)).hasCauseInstanceOf(ConcurrencyLimiter.OverloadedException.class);
+        assertThat(gauge(JSONRPC_UPSTREAM_QUEUE_DEPTH)).isZero();
+
+        limiter.release();
+        assertThat(limiter.acquire().succeeded()).isTrue();
+    }
+
+    @Test
+    void growsWhileRoundTripsStayFlatAndShrinksWhenTheyRise() {
+        ConcurrencyLimiter limiter = limiter(4, 1, 100, 0, 1_000);
+        for (int round = 0; round < 20; round++) {
+            runFullRound(limiter, FAST_RTT_NANOS);
+        }
+        double grown = gauge(JSONRPC_UPSTREAM_CONCURRENCY_LIMIT);
+        assertThat(grown).isGreaterThan(4);
+
+        for (int round = 0; round < 20; round++) {
+            runFullRound(limiter, SLOW_RTT_NANOS);
+        }
+        assertThat(gauge(JSONRPC_UPSTREAM_CONCURRENCY_LIMIT)).isLessThan(grown);
+    }
+
+    @Test
+    void keepsTheLimitWhileTrafficIsLight() {
+        ConcurrencyLimiter limiter = limiter(10, 1, 100, 0, 1_000);
+        for (int i = 0; i < 50; i++) {
+            assertThat(limiter.acquire().succeeded()).isTrue();
+            limiter.release(FAST_RTT_NANOS, false);
+        }
+        assertThat(gauge(JSONRPC_UPSTREAM_CONCURRENCY_LIMIT)).isEqualTo(10);
+    }
+
+    @Test
+    void backsOffOnFailuresDownToTheMinimum() {
+        ConcurrencyLimiter limiter = limiter(10, 8, 100, 0, 1_000);
+        assertThat(limiter.acquire().succeeded()).isTrue();
+        limiter.release(FAST_RTT_NANOS, true);
+        assertThat(gauge(JSONRPC_UPSTREAM_CONCURRENCY_LIMIT)).isEqualTo(9);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.acquire().succeeded()).isTrue();
+            limiter.release(FAST_RTT_NANOS, true);
+        }
+        assertThat(gauge(JSONRPC_UPSTREAM_CONCURRENCY_LIMIT)).isEqualTo(8);
+    }
+
+    /** Fills every permit, then completes all of them with {@code rttNanos}. */
+    private void runFullRound(ConcurrencyLimiter limiter, long rttNanos) {
+        int permits = (int) gauge(JSONRPC_UPSTREAM_CONCURRENCY_LIMIT);
+        for (int i = 0; i < permits; i++) {
+            assertThat(limiter.acquire().succeeded()).isTrue();
+        }
+        for (int i = 0; i < permits; i++) {
+            limiter.release(rttNanos, false);
+        }
+    }
+
+    private ConcurrencyLimiter limiter(int initial, int min, int max, int queueSize, int queueTimeoutMillis) {
+        Properties overrides = new Properties();
+        overrides.setProperty("upstream.limit.initial", Integer.toString(initial));
+        overrides.setProperty("upstream.limit.min", Integer.toString(min));
+        overrides.setProperty("upstream.limit.max", Integer.toString(max));
+        overrides.setProperty("upstream.limit.queue.size", Integer.toString(queueSize));
+        overrides.setProperty("upstream.limit.queue.timeout.ms", Integer.toString(queueTimeoutMillis));
+        return ConcurrencyLimiter.create(vertx, UPSTREAM, ConfigLoader.load(overrides), registry);
+    }
+
+    private double gauge(String name) {
+        return registry.get(name).gauge().value();
+    }
+
+    private static void join(Future<Void> future) throws Exception {
+        future.toCompletionStage().toCompletableFuture().get(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+}
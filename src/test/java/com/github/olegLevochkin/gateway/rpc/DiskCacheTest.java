@@ -0,0 +1,191 @@
+package com.github.olegLevochkin.gateway.rpc;
+
+import com.github.olegLevochkin.gateway.config.AppConfig;
+import com.github.olegLevochkin.gateway.config.ConfigLoader;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static com.github.olegLevochkin.gateway.metrics.MetricsNames.JSONRPC_DISK_CACHE_CORRUPT_TOTAL;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DiskCacheTest {
+
+    private static final long HEAD = 1000;
+    private static final int SEGMENT_BYTES = 4096;
+    private static final int HEADER_BYTES = 12;
+
+    @TempDir
+    Path dir;
+
+    private Vertx vertx;
+    private HeadTracker tracker;
+    private SimpleMeterRegistry registry;
+    private DiskCache cache;
+
+    @BeforeEach
+    void setUp() {
+        vertx = Vertx.vertx();
+        tracker = mock(HeadTracker.class);
+        when(tracker.head()).thenReturn(new HeadTracker.Head(HEAD, "0xhead", Buffer.buffer("\"0x3e8\"")));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (cache != null) {
+            cache.close();
+        }
+        vertx.close().toCompletionStage().toCompletableFuture().join();
+    }
+
+    @Test
+    void finalizedResultsSurviveReopen() throws Exception {
+        open(8);
+        cache.putIfFinalized("a", result(1, "first"));
+        cache.putIfFinalized("b", result(2, "second"));
+        reopen(8);
+
+        assertThat(cache.get("a")).isEqualTo(result(1, "first"));
+        assertThat(cache.get("b")).isEqualTo(result(2, "second"));
+        assertThat(cache.get("c")).isNull();
+        List<Buffer> all = cache.getAll(Arrays.asList("b", null, "c"))
+                .toCompletionStage().toCompletableFuture().get(5, TimeUnit.SECONDS);
+        assertThat(all).containsExactly(result(2, "second"), null, null);
+    }
+
+    @Test
+    void skipsResultsOfBlocksNotFinalYet() {
+        open(8);
+        cache.putIfFinalized("recent", result(HEAD, "recent"));
+        cache.putIfFinalized("scalar", Buffer.buffer("\"0x1\""));
+        cache.putIfFinalized("block", Buffer.buffer("{\"number\":\"0x2\",\"transactions\":[{\"blockNumber\":\"0x3e8\"}]}"));
+        reopen(8);
+
+        assertThat(cache.get("recent")).isNull();
+        assertThat(cache.get("scalar")).isNull();
+        assertThat(cache.get("block")).isNotNull();
+    }
+
+    @Test
+    void readsTopLevelBlockNumberOnly() {
+        assertThat(DiskCache.blockNumberOf(Buffer.buffer("{\"hash\":\"0x1\",\"blockNumber\":\"0x10\"}"))).isEqualTo(16);
+        assertThat(DiskCache.blockNumberOf(Buffer.buffer("{\"logs\":[{\"blockNumber\":\"0x10\"}],\"number\":\"0x2\"}")))
+                .isEqualTo(2);
+        assertThat(DiskCache.blockNumberOf(Buffer.buffer("{\"blockNumber\":null,\"number\":\"0x2\"}"))).isEqualTo(-1);
+        assertThat(DiskCache.blockNumberOf(Buffer.buffer("{\"inner\":{\"number\":\"0x2\"}}"))).isEqualTo(-1);
+        assertThat(DiskCache.blockNumberOf(Buffer.buffer("{\"blockNumber\":"))).isEqualTo(-1);
+    }
+
+    @Test
+    void skipsRecordsThatFailTheirChecksum() throws IOException {
+        open(8);
+        cache.putIfFinalized("a", result(1, "first"));
+        cache.putIfFinalized("b", result(2, "second"));
+        cache.close();
+        cache = null;
+        try (RandomAccessFile file = new RandomAccessFile(segment(0).toFile(), "rw")) {
+            long valueStart = HEADER_BYTES + "a".length();
+            file.seek(valueStart + 1);
+            int b = file.read();
+            file.seek(valueStart + 1);
+            file.write(b ^ 0x01);
+        }
+        open(8);
+
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.get("b")).isEqualTo(result(2, "second"));
+        assertThat(corrupt()).isEqualTo(1);
+    }
+
+    @Test
+    void appendsToNewSegmentAfterTornTail() throws IOException {
+        open(8);
+        Buffer first = result(1, "first");
+        cache.putIfFinalized("a", first);
+        cache.close();
+        cache = null;
+        try (RandomAccessFile file = new RandomAccessFile(segment(0).toFile(), "rw")) {
+            // a header whose record runs past the end of the segment, as a crash mid-append leaves it
+            file.seek(HEADER_BYTES + "a".length() + first.length());
+            file.writeInt(1);
+            file.writeInt(SEGMENT_BYTES);
+        }
+        open(8);
+        assertThat(corrupt()).isEqualTo(1);
+        assertThat(cache.get("a")).isEqualTo(first);
+
+        cache.putIfFinalized("b", result(2, "second"));
+        reopen(8);
+
+        assertThat(segment(1)).exists();
+        assertThat(cache.get("a")).isEqualTo(first);
+        assertThat(cache.get("b")).isEqualTo(result(2, "second"));
+    }
+
+    @Test
+    void rollsOverAndDeletesOldestSegments() throws IOException {
+        open(2);
+        // about 1 KiB per record: three fit in a segment, so ten fill segments 0 to 3
+        String pad = "x".repeat(1000);
+        for (int i = 0; i < 10; i++) {
+            cache.putIfFinalized("key-" + i, result(i, pad));
+        }
+        reopen(2);
+
+        try (Stream<Path> files = Files.list(dir)) {
+            assertThat(files.map(file -> file.getFileName().toString()))
+                    .containsExactlyInAnyOrder("segment-2.dat", "segment-3.dat");
+        }
+        assertThat(cache.get("key-0")).isNull();
+        assertThat(cache.get("key-5")).isNull();
+        assertThat(cache.get("key-6")).isEqualTo(result(6, pad));
+        assertThat(cache.get("key-9")).isEqualTo(result(9, pad));
+    }
+
+    private void open(int maxSegments) {
+        Properties overrides = new Properties();
+        overrides.setProperty("disk.cache.enabled", "true");
+        overrides.setProperty("disk.cache.dir", dir.toString());
+        overrides.setProperty("disk.cache.segment.bytes", Integer.toString(SEGMENT_BYTES));
+        overrides.setProperty("disk.cache.max.segments", Integer.toString(maxSegments));
+        AppConfig config = ConfigLoader.load(overrides);
+        registry = new SimpleMeterRegistry();
+        cache = DiskCache.open(vertx, config, tracker, registry);
+    }
+
+    /** Closing waits for the queued appends, so everything put before is on disk afterwards. */
+    private void reopen(int maxSegments) {
+        cache.close();
+        open(maxSegments);
+    }
+
+    private double corrupt() {
+        return registry.counter(JSONRPC_DISK_CACHE_CORRUPT_TOTAL).count();
+    }
+
+    private Path segment(int number) {
+        return dir.resolve("segment-" + number + ".dat");
+    }
+
+    private static Buffer result(long blockNumber, String payload) {
+        return Buffer.buffer(("{\"blockNumber\":\"0x" + Long.toHexString(blockNumber) + "\",\"payload\":\""
+                + payload + "\"}").getBytes(UTF_8));
+    }
+}
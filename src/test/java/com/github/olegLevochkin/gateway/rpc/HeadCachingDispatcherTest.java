@@ -0,0 +1,270 @@
+package com.github.olegLevochkin.gateway.rpc;
+
+import com.github.olegLevochkin.gateway.config.AppConfig;
+import com.github.olegLevochkin.gateway.config.ConfigLoader;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+import static com.github.olegLevochkin.gateway.metrics.MetricsNames.JSONRPC_HEAD_REORGS_TOTAL;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A real {@link HeadTracker} follows a stub upstream whose head block the tests move; the dispatcher under test
+ * forwards to a scripted delegate that records what it was sent.
+ */
+class HeadCachingDispatcherTest {
+
+    private static final int TIMEOUT_MILLIS = 1_000;
+    private static final long WAIT_MILLIS = 5_000;
+    private static final Buffer BALANCE = Buffer.buffer("\"0x64\"");
+    private static final Buffer HEADER_NOT_FOUND = Buffer.buffer("{\"code\":-32000,\"message\":\"header not found\"}");
+    private static final Buffer REVERTED = Buffer.buffer("{\"code\":3,\"message\":\"execution reverted\",\"data\":\"0x\"}");
+
+    private Vertx vertx;
+    private HttpServer upstream;
+    private SimpleMeterRegistry registry;
+    private HeadCache headCache;
+    private volatile JsonObject headBlock;
+    private final List<Sent> sent = new CopyOnWriteArrayList<>();
+
+    /** One dispatch to the delegate. */
+    private record Sent(List<JsonRpcCall> calls, int timeoutMillis) {
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        vertx = Vertx.vertx();
+        setHead(0x10, "0xa10", "0xa0f");
+        upstream = join(vertx.createHttpServer()
+                .requestHandler(request -> request.body().onSuccess(body -> {
+                    JsonObject call = body.toJsonObject();
+                    Object result = "eth_blockNumber".equals(call.getString("method"))
+                            ? headBlock.getString("number")
+                            : headBlock;
+                    request.response().end(new JsonObject()
+                            .put("jsonrpc", "2.0")
+                            .put("id", call.getValue("id"))
+                            .put("result", result)
+                            .toBuffer());
+                }))
+                .listen(0, "127.0.0.1"));
+
+        Properties overrides = new Properties();
+        overrides.setProperty("target.rpc.url", "http://127.0.0.1:" + upstream.actualPort());
+        overrides.setProperty("head.poll.interval.ms", "20");
+        AppConfig config = ConfigLoader.load(overrides);
+        registry = new SimpleMeterRegistry();
+        headCache = HeadCache.create(vertx, config, UpstreamNode.createAll(vertx, config, registry), registry);
+        awaitHead(0x10);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        headCache.close();
+        join(vertx.close());
+    }
+
+    @Test
+    void answersBlockNumberFromTheHead() throws Exception {
+        List<JsonRpcReply> replies = dispatch(call(1, "eth_blockNumber", null), call -> BALANCE);
+
+        assertThat(replies.get(0).result().toString()).isEqualTo("\"0x10\"");
+        assertThat(sent).isEmpty();
+    }
+
+    @Test
+    void replacesTheLatestTagAndServesRepeatsFromTheCache() throws Exception {
+        List<JsonRpcReply> first = dispatch(call(1, "eth_getBalance", "[\"0xabc\",\"latest\"]"), call -> BALANCE);
+        List<JsonRpcReply> second = dispatch(call(2, "eth_getBalance", "[\"0xabc\",\"latest\"]"), call -> BALANCE);
+
+        assertThat(sent).hasSize(1);
+        assertThat(paramsSent(0)).isEqualTo(new JsonArray().add("0xabc").add("0x10"));
+        assertThat(first.get(0).result()).isEqualTo(BALANCE);
+        assertThat(second.get(0).id()).isEqualTo("2");
+        assertThat(second.get(0).result()).isEqualTo(BALANCE);
+    }
+
+    @Test
+    void appendsTheHeadWhenTheTagIsOmitted() throws Exception {
+        dispatch(call(1, "eth_call", "[{\"to\":\"0x1\"}]"), call -> BALANCE);
+
+        assertThat(paramsSent(0)).isEqualTo(new JsonArray().add(new JsonObject().put("to", "0x1")).add("0x10"));
+    }
+
+    @Test
+    void passesCallsForOtherBlocksThrough() throws Exception {
+        dispatch(call(1, "eth_getBalance", "[\"0xabc\",\"0x5\"]"), call -> BALANCE);
+        dispatch(call(2, "eth_getBalance", "[\"0xabc\",\"0x5\"]"), call -> BALANCE);
+
+        assertThat(sent).hasSize(2);
+        assertThat(paramsSent(1)).isEqualTo(new JsonArray().add("0xabc").add("0x5"));
+        assertThat(headCache.cache().estimatedSize()).isZero();
+    }
+
+    @Test
+    void emptiesTheCacheOnANewHead() throws Exception {
+        dispatch(call(1, "eth_getBalance", "[\"0xabc\",\"latest\"]"), call -> BALANCE);
+        assertThat(headCache.cache().estimatedSize()).isEqualTo(1);
+
+        setHead(0x11, "0xa11", "0xa10");
+        awaitHead(0x11);
+        awaitEmptyCache();
+
+        dispatch(call(2, "eth_getBalance", "[\"0xabc\",\"latest\"]"), call -> BALANCE);
+        assertThat(paramsSent(1)).isEqualTo(new JsonArray().add("0xabc").add("0x11"));
+        assertThat(registry.counter(JSONRPC_HEAD_REORGS_TOTAL).count()).isZero();
+    }
+
+    @Test
+    void emptiesTheCacheOnAReorg() throws Exception {
+        dispatch(call(1, "eth_getBalance", "[\"0xabc\",\"latest\"]"), call -> BALANCE);
+
+        setHead(0x11, "0xb11", "0xb10");
+        awaitHead(0x11);
+        awaitEmptyCache();
+
+        assertThat(registry.counter(JSONRPC_HEAD_REORGS_TOTAL).count()).isEqualTo(1);
+        assertThat(headCache.head().hash()).isEqualTo("0xb11");
+    }
+
+    @Test
+    void retriesUnpinnedWhenTheNodeHasNotSeenTheHead() throws Exception {
+        Buffer unpinned = Buffer.buffer("\"0x1\"");
+        List<JsonRpcReply> replies = dispatch(call(1, "eth_getBalance", "[\"0xabc\",\"latest\"]"),
+                call -> paramsOf(call).getValue(1).equals("latest") ? unpinned : null);
+
+        assertThat(sent).hasSize(2);
+        assertThat(paramsSent(1)).isEqualTo(new JsonArray().add("0xabc").add("latest"));
+        assertThat(replies.get(0).result()).isEqualTo(unpinned);
+        assertThat(headCache.cache().estimatedSize()).isZero();
+    }
+
+    @Test
+    void retriesUnpinnedOnHeaderNotFound() throws Exception {
+        List<JsonRpcReply> replies = dispatch(call(1, "eth_call", "[{\"to\":\"0x1\"},\"latest\"]"),
+                call -> paramsOf(call).getValue(1).equals("latest") ? BALANCE : HEADER_NOT_FOUND);
+
+        assertThat(sent).hasSize(2);
+        assertThat(replies.get(0).result()).isEqualTo(BALANCE);
+    }
+
+    @Test
+    void answersOtherErrorsWithoutRetrying() throws Exception {
+        List<JsonRpcReply> replies = dispatch(call(1, "eth_call", "[{\"to\":\"0x1\"},\"latest\"]"), call -> REVERTED);
+
+        assertThat(sent).hasSize(1);
+        assertThat(replies.get(0).error()).isEqualTo(REVERTED);
+        assertThat(headCache.cache().estimatedSize()).isZero();
+    }
+
+    @Test
+    void retriesWithinTheTimeLeft() throws Exception {
+        JsonRpcDispatcher delegate = slowDelegate(300, call -> paramsOf(call).getValue(1).equals("latest")
+                ? BALANCE
+                : HEADER_NOT_FOUND);
+
+        join(new HeadCachingDispatcher(delegate, headCache)
+                .dispatch(List.of(call(1, "eth_getBalance", "[\"0xabc\",\"latest\"]")), TIMEOUT_MILLIS));
+
+        assertThat(sent).hasSize(2);
+        assertThat(sent.get(0).timeoutMillis()).isEqualTo(TIMEOUT_MILLIS);
+        assertThat(sent.get(1).timeoutMillis()).isPositive().isLessThanOrEqualTo(TIMEOUT_MILLIS - 300);
+    }
+
+    @Test
+    void doesNotRetryOnceTheTimeIsUp() throws Exception {
+        JsonRpcDispatcher delegate = slowDelegate(150, call -> HEADER_NOT_FOUND);
+
+        List<JsonRpcReply> replies = join(new HeadCachingDispatcher(delegate, headCache)
+                .dispatch(List.of(call(1, "eth_getBalance", "[\"0xabc\",\"latest\"]")), 100));
+
+        assertThat(sent).hasSize(1);
+        assertThat(replies.get(0).error()).isEqualTo(HEADER_NOT_FOUND);
+    }
+
+    private List<JsonRpcReply> dispatch(JsonRpcCall call, Function<JsonRpcCall, Buffer> answer) throws Exception {
+        JsonRpcDispatcher delegate = (calls, timeoutMillis) -> {
+            sent.add(new Sent(calls, timeoutMillis));
+            return Future.succeededFuture(calls.stream().map(each -> reply(each, answer)).toList());
+        };
+        return join(new HeadCachingDispatcher(delegate, headCache).dispatch(List.of(call), TIMEOUT_MILLIS));
+    }
+
+    /** A delegate that answers after {@code delayMillis}. */
+    private JsonRpcDispatcher slowDelegate(long delayMillis, Function<JsonRpcCall, Buffer> answer) {
+        return (calls, timeoutMillis) -> {
+            sent.add(new Sent(calls, timeoutMillis));
+            Promise<List<JsonRpcReply>> promise = Promise.promise();
+            vertx.setTimer(delayMillis, id -> promise.complete(calls.stream().map(each -> reply(each, answer)).toList()));
+            return promise.future();
+        };
+    }
+
+    /** A result reply, or an error reply when the answer is a JSON object. */
+    private static JsonRpcReply reply(JsonRpcCall call, Function<JsonRpcCall, Buffer> answer) {
+        Buffer value = answer.apply(call);
+        if (value == null) return JsonRpcReply.ofResult(call.id(), Buffer.buffer("null"));
+        return value.getByte(0) == '{' ? JsonRpcReply.ofError(call.id(), value) : JsonRpcReply.ofResult(call.id(), value);
+    }
+
+    private JsonArray paramsSent(int dispatch) {
+        return paramsOf(sent.get(dispatch).calls().get(0));
+    }
+
+    private static JsonArray paramsOf(JsonRpcCall call) {
+        return new JsonArray(call.params());
+    }
+
+    private static JsonRpcCall call(int id, String method, String params) {
+        String body = "{\"jsonrpc\":\"2.0\",\"id\":" + id + ",\"method\":\"" + method + "\""
+                + (params != null ? ",\"params\":" + params : "") + "}";
+        List<JsonRpcCall> calls = new ArrayList<>();
+        assertThat(StreamingJsonRpcValidator.forEachValid(Buffer.buffer(body), calls::add)).isTrue();
+        return calls.get(0);
+    }
+
+    private void setHead(long number, String hash, String parentHash) {
+        headBlock = new JsonObject()
+                .put("number", HeadTracker.toHex(number))
+                .put("hash", hash)
+                .put("parentHash", parentHash);
+    }
+
+    private void awaitHead(long number) throws InterruptedException {
+        await(() -> headCache.head() != null && headCache.head().number() == number);
+    }
+
+    /** The head is published just before the cache is emptied, on the tracker's context. */
+    private void awaitEmptyCache() throws InterruptedException {
+        await(() -> headCache.cache().estimatedSize() == 0);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("waiting for the head").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private static <T> T join(Future<T> future) throws Exception {
+        return future.toCompletionStage().toCompletableFuture().get(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+}
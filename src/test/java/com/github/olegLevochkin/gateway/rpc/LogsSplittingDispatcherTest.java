@@ -0,0 +1,229 @@
+package com.github.olegLevochkin.gateway.rpc;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+import static com.github.olegLevochkin.gateway.rpc.JsonRpcErrors.CODE_LIMIT_EXCEEDED;
+import static com.github.olegLevochkin.gateway.rpc.JsonRpcErrors.CODE_UPSTREAM_UNAVAILABLE;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** The dispatcher runs on one Vert.x context in front of a scripted upstream that records each window it gets. */
+class LogsSplittingDispatcherTest {
+
+    private static final int TIMEOUT_MILLIS = 5_000;
+    private static final long WAIT_MILLIS = 10_000;
+
+    private Vertx vertx;
+    private final List<Sent> sent = new CopyOnWriteArrayList<>();
+
+    /** One {@code eth_getLogs} request sent upstream. */
+    private record Sent(JsonRpcCall call, long from, long to, int timeoutMillis) {
+    }
+
+    @BeforeEach
+    void setUp() {
+        vertx = Vertx.vertx();
+    }
+
+    @AfterEach
+    void tearDown() {
+        vertx.close().toCompletionStage().toCompletableFuture().join();
+    }
+
+    @Test
+    void splitsIntoWindowsAndJoinsTheLogsInBlockOrder() throws Exception {
+        // later windows answer first, and the second one has no logs
+        JsonRpcDispatcher upstream = upstream(window -> window.from() == 10 ? Buffer.buffer("[ ]") : logs(window),
+                window -> 100 - 2 * window.from());
+
+        JsonRpcReply reply = dispatch(splitter(upstream, 4, 50, Integer.MAX_VALUE), getLogs(0, 35), TIMEOUT_MILLIS);
+
+        assertThat(ranges()).containsExactly(List.of(0L, 9L), List.of(10L, 19L), List.of(20L, 29L), List.of(30L, 35L));
+        assertThat(reply.id()).isEqualTo("7");
+        assertThat(reply.result().toString())
+                .isEqualTo(logs(0, 9).copy().addAll(logs(20, 35)).encode());
+    }
+
+    @Test
+    void passesNarrowRangesThrough() throws Exception {
+        JsonRpcCall call = getLogs(0, 9);
+
+        dispatch(splitter(upstream(this::logs, window -> 0), 4, 50, Integer.MAX_VALUE), call, TIMEOUT_MILLIS);
+
+        assertThat(sent).hasSize(1);
+        assertThat(sent.get(0).call()).isSameAs(call);
+    }
+
+    @Test
+    void passesRangesNeedingMoreThanMaxWindowsThrough() throws Exception {
+        JsonRpcCall call = getLogs(0, 50);
+
+        dispatch(splitter(upstream(this::logs, window -> 0), 4, 5, Integer.MAX_VALUE), call, TIMEOUT_MILLIS);
+
+        assertThat(sent).hasSize(1);
+        assertThat(sent.get(0).call()).isSameAs(call);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "query returned more than 10000 results",
+            "Log response size exceeded. You can make eth_getLogs requests with up to a 2K block range",
+            "block range is too wide",
+            "exceed maximum block range: 5000",
+            "Requested range exceeds maximum range limit",
+            "eth_getLogs is limited to a 10,000 range",
+    })
+    void halvesRefusedWindowsAndKeepsTheSmallerSize(String message) throws Exception {
+        JsonRpcDispatcher upstream = upstream(window -> window.to() - window.from() >= 5
+                ? error(-32005, message)
+                : logs(window), window -> 0);
+
+        JsonRpcReply reply = dispatch(splitter(upstream, 1, 50, Integer.MAX_VALUE), getLogs(0, 29), TIMEOUT_MILLIS);
+
+        assertThat(ranges()).containsExactly(List.of(0L, 9L), List.of(0L, 4L), List.of(5L, 9L),
+                List.of(10L, 14L), List.of(15L, 19L), List.of(20L, 24L), List.of(25L, 29L));
+        assertThat(reply.result().toString()).isEqualTo(logs(0, 29).encode());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "project ID request rate exceeded",
+            "invalid block range params",
+            "execution aborted (timeout = 5s)",
+    })
+    void endsTheCallOnOtherErrors(String message) throws Exception {
+        Buffer error = error(-32005, message);
+
+        JsonRpcReply reply = dispatch(splitter(upstream(window -> error, window -> 0), 1, 50, Integer.MAX_VALUE),
+                getLogs(0, 29), TIMEOUT_MILLIS);
+
+        assertThat(sent).hasSize(1);
+        assertThat(reply.id()).isEqualTo("7");
+        assertThat(reply.error()).isEqualTo(error);
+    }
+
+    @Test
+    void stopsHalvingAtMaxWindows() throws Exception {
+        JsonRpcDispatcher upstream = upstream(window -> window.to() - window.from() >= 2
+                ? error(-32000, "query returned more than 10000 results")
+                : logs(window), window -> 0);
+
+        JsonRpcReply reply = dispatch(splitter(upstream, 1, 4, Integer.MAX_VALUE), getLogs(0, 19), TIMEOUT_MILLIS);
+
+        assertThat(ranges()).containsExactly(List.of(0L, 9L), List.of(0L, 4L), List.of(0L, 2L), List.of(0L, 1L));
+        assertThat(reply.errorCode()).isEqualTo(CODE_LIMIT_EXCEEDED);
+    }
+
+    @Test
+    void sharesOneDeadlineAcrossWindows() throws Exception {
+        int timeoutMillis = 350;
+        JsonRpcReply reply = dispatch(splitter(upstream(this::logs, window -> 100), 1, 50, Integer.MAX_VALUE),
+                getLogs(0, 99), timeoutMillis);
+
+        assertThat(reply.errorCode()).isEqualTo(CODE_UPSTREAM_UNAVAILABLE);
+        assertThat(sent.size()).isBetween(2, 4);
+        // every window gets what is left after the earlier ones took 100 ms each
+        assertThat(sent.get(0).timeoutMillis()).isGreaterThan(timeoutMillis - 100);
+        for (int i = 0; i < sent.size(); i++) {
+            assertThat(sent.get(i).timeoutMillis()).isPositive().isLessThanOrEqualTo(timeoutMillis - 100 * i);
+        }
+    }
+
+    @Test
+    void failsOnceTheLogsPassMaxBytes() throws Exception {
+        int maxBytes = logs(0, 19).toBuffer().length();
+
+        JsonRpcReply reply = dispatch(splitter(upstream(this::logs, window -> 0), 1, 50, maxBytes),
+                getLogs(0, 29), TIMEOUT_MILLIS);
+
+        assertThat(reply.errorCode()).isEqualTo(CODE_LIMIT_EXCEEDED);
+        assertThat(sent).hasSize(3);
+    }
+
+    private LogsSplittingDispatcher splitter(JsonRpcDispatcher upstream, int maxConcurrency, int maxWindows,
+                                             int maxBytes) {
+        return new LogsSplittingDispatcher(upstream, null, 10, maxConcurrency, maxWindows, maxBytes);
+    }
+
+    /** An upstream answering each window with {@code answer} after {@code delayMillis}. */
+    private JsonRpcDispatcher upstream(Function<Sent, Buffer> answer, ToLongFunction<Sent> delayMillis) {
+        return (calls, timeoutMillis) -> {
+            JsonRpcCall call = calls.get(0);
+            JsonObject filter = new JsonArray(call.params()).getJsonObject(0);
+            Sent window = new Sent(call, HeadTracker.parseHex(filter.getString("fromBlock")),
+                    HeadTracker.parseHex(filter.getString("toBlock")), timeoutMillis);
+            sent.add(window);
+            Buffer value = answer.apply(window);
+            JsonRpcReply reply = value.getByte(0) == '{'
+                    ? JsonRpcReply.ofError(call.id(), value)
+                    : JsonRpcReply.ofResult(call.id(), value);
+            long delay = delayMillis.applyAsLong(window);
+            if (delay <= 0) return Future.succeededFuture(List.of(reply));
+            Promise<List<JsonRpcReply>> promise = Promise.promise();
+            vertx.setTimer(delay, id -> promise.complete(List.of(reply)));
+            return promise.future();
+        };
+    }
+
+    private JsonRpcReply dispatch(JsonRpcDispatcher dispatcher, JsonRpcCall call, int timeoutMillis) throws Exception {
+        Context context = vertx.getOrCreateContext();
+        return Future.<List<JsonRpcReply>>future(promise -> context.runOnContext(ignored ->
+                        dispatcher.dispatch(List.of(call), timeoutMillis).onComplete(promise)))
+                .toCompletionStage().toCompletableFuture().get(WAIT_MILLIS, TimeUnit.MILLISECONDS).get(0);
+    }
+
+    private List<List<Long>> ranges() {
+        return sent.stream().map(window -> List.of(window.from(), window.to())).toList();
+    }
+
+    private Buffer logs(Sent window) {
+        return logs(window.from(), window.to()).toBuffer();
+    }
+
+    /** One log for every third block of the range. */
+    private static JsonArray logs(long from, long to) {
+        JsonArray logs = new JsonArray();
+        for (long block = from; block <= to; block++) {
+            if (block % 3 == 0) {
+                logs.add(new JsonObject().put("blockNumber", HeadTracker.toHex(block)).put("logIndex", "0x0"));
+            }
+        }
+        return logs;
+    }
+
+    private static Buffer error(int code, String message) {
+        return new JsonObject().put("code", code).put("message", message).toBuffer();
+    }
+
+    private static JsonRpcCall getLogs(long from, long to) {
+        String body = new JsonObject()
+                .put("jsonrpc", "2.0")
+                .put("id", 7)
+                .put("method", "eth_getLogs")
+                .put("params", new JsonArray().add(new JsonObject()
+                        .put("address", "0x1")
+                        .put("fromBlock", HeadTracker.toHex(from))
+                        .put("toBlock", HeadTracker.toHex(to))))
+                .encode();
+        List<JsonRpcCall> calls = new ArrayList<>();
+        assertThat(StreamingJsonRpcValidator.forEachValid(Buffer.buffer(body), calls::add)).isTrue();
+        return calls.get(0);
+    }
+}
@@ -0,0 +1,49 @@
+package com.github.olegLevochkin.gateway.rpc;
+
+import com.github.olegLevochkin.gateway.config.ConfigLoader;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.core.buffer.Buffer;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseCacheTest {
+
+    private final ResponseCache cache = ResponseCache.create(ConfigLoader.load(), null, new SimpleMeterRegistry());
+
+    @Test
+    void keepsMinedTransactions() {
+        cache.put("mined", reply("{\"hash\":\"0x1\",\"blockHash\":\"0xb\",\"blockNumber\":\"0x2\"}"));
+
+        assertThat(cache.get("mined")).isNotNull();
+    }
+
+    @Test
+    void skipsPendingTransactions() {
+        cache.put("pending", reply("{\"hash\":\"0x1\",\"blockHash\":null,\"blockNumber\":null}"));
+
+        assertThat(cache.get("pending")).isNull();
+    }
+
+    @Test
+    void looksAtTopLevelBlockHashOnly() {
+        cache.put("block", reply("{\"hash\":\"0xb\",\"transactions\":[{\"blockHash\":null}],\"number\":\"0x2\"}"));
+        cache.put("scalar", reply("\"0x1\""));
+
+        assertThat(cache.get("block")).isNotNull();
+        assertThat(cache.get("scalar")).isNotNull();
+    }
+
+    @Test
+    void skipsErrorsAndNullResults() {
+        cache.put("error", JsonRpcReply.ofError("1", Buffer.buffer("{\"code\":-32000,\"message\":\"x\"}")));
+        cache.put("null", reply("null"));
+
+        assertThat(cache.get("error")).isNull();
+        assertThat(cache.get("null")).isNull();
+    }
+
+    private static JsonRpcReply reply(String result) {
+        return JsonRpcReply.ofResult("1", Buffer.buffer(result));
+    }
+}
@@ -0,0 +1,102 @@
+package com.github.olegLevochkin.gateway.rpc;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The token validators must accept and reject exactly what {@link JsonRpcValidator} does on a decoded tree, and
+ * report the same methods in the same order.
+ */
+class StreamingJsonRpcValidatorTest {
+
+    private static final int[] CHUNK_BYTES = {Integer.MAX_VALUE, 1, 2, 3, 7};
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "{\"jsonrpc\":\"2.0\",\"method\":\"eth_chainId\",\"id\":1}",
+            "  {\"jsonrpc\":\"2.0\",\"method\":\"eth_chainId\"}\n",
+            "{\"method\":\"eth_call\",\"params\":[{\"to\":\"0x1\"},\"latest\"],\"id\":\"a\",\"jsonrpc\":\"2.0\"}",
+            "{\"jsonrpc\":\"2.0\",\"method\":\"eth_call\",\"params\":{\"method\":\"\",\"jsonrpc\":1},\"id\":null}",
+            "{\"jsonrpc\":\"2.0\",\"method\":\"x\",\"extra\":[[{}],{\"a\":[1,2]}],\"id\":1}",
+            "{\"jsonrpc\":\"1.0\",\"method\":\"x\",\"jsonrpc\":\"2.0\"}",
+            "{\"jsonrpc\":\"2.0\",\"method\":\"a\\\"b\",\"id\":\"\\\\\"}",
+            "[{\"jsonrpc\":\"2.0\",\"method\":\"a\",\"id\":1},{\"jsonrpc\":\"2.0\",\"method\":\"b\",\"id\":2}]",
+            "[{\"jsonrpc\":\"2.0\",\"method\":\"a\"}]",
+            "",
+            "   ",
+            "null",
+            "1",
+            "\"2.0\"",
+            "[]",
+            "[1]",
+            "[[{\"jsonrpc\":\"2.0\",\"method\":\"a\"}]]",
+            "{}",
+            "{\"jsonrpc\":\"2.0\"}",
+            "{\"jsonrpc\":\"2.0\",\"method\":\"\"}",
+            "{\"jsonrpc\":\"2.0\",\"method\":\"  \"}",
+            "{\"jsonrpc\":\"2.0\",\"method\":null}",
+            "{\"jsonrpc\":\"2.0\",\"method\":1}",
+            "{\"jsonrpc\":2.0,\"method\":\"a\"}",
+            "{\"jsonrpc\":\"2.00\",\"method\":\"a\"}",
+            "{\"method\":\"a\"}",
+            "{\"jsonrpc\":\"2.0\",\"method\":\"x\",\"jsonrpc\":\"1.0\"}",
+            "[{\"jsonrpc\":\"2.0\",\"method\":\"a\"},{\"jsonrpc\":\"2.0\"}]",
+            "[{\"jsonrpc\":\"2.0\",\"method\":\"a\"},null]",
+            "{\"jsonrpc\":\"2.0\",\"method\":\"a\"}{}",
+            "{\"jsonrpc\":\"2.0\",\"method\":\"a\"} x",
+            "[{\"jsonrpc\":\"2.0\",\"method\":\"a\"}]]",
+            "{\"jsonrpc\":\"2.0\",\"method\":\"a\"",
+            "[{\"jsonrpc\":\"2.0\",\"method\":\"a\"}",
+            "{\"jsonrpc\":\"2.0\",\"method\":\"a\",}",
+            "{'jsonrpc':'2.0','method':'a'}",
+            "[{\"jsonrpc\":\"2.0\",\"method\":\"a\"},]",
+            "[{\"jsonrpc\":\"2.0\",\"method\":\"a\"} , ]",
+            "{\"jsonrpc\":\"2.0\",\"method\":\"a\",\"params\":[1,]}",
+            "{\"jsonrpc\":\"2.0\",\"method\":\"a\",\"params\":[\",]\",\",}\\\\\",\"\\\",]\"]}",
+    })
+    void agreesWithTreeValidator(String body) {
+        List<String> expected = new ArrayList<>();
+        boolean valid = JsonRpcValidator.forEachValid(body, object -> expected.add(methodOf(object)));
+
+        List<String> streamed = new ArrayList<>();
+        assertThat(StreamingJsonRpcValidator.forEachValid(Buffer.buffer(body), call -> streamed.add(call.method())))
+                .as("streaming").isEqualTo(valid);
+
+        if (valid) {
+            assertThat(streamed).isEqualTo(expected);
+        }
+
+        for (int chunkBytes : CHUNK_BYTES) {
+            List<String> fed = new ArrayList<>();
+            assertThat(incremental(body, chunkBytes, fed)).as("incremental, chunks of %d", chunkBytes).isEqualTo(valid);
+            if (valid) {
+                assertThat(fed).isEqualTo(expected);
+            }
+        }
+    }
+
+    private static boolean incremental(String body, int chunkBytes, List<String> methods) {
+        IncrementalJsonRpcValidator validator = new IncrementalJsonRpcValidator(methods::add);
+        byte[] bytes = body.getBytes(UTF_8);
+        for (int start = 0; start < bytes.length; start += chunkBytes) {
+            int end = (int) Math.min(bytes.length, (long) start + chunkBytes);
+            if (!validator.feed(Buffer.buffer().appendBytes(bytes, start, end - start))) {
+                validator.finish();
+                return false;
+            }
+        }
+        return validator.finish();
+    }
+
+    private static String methodOf(JsonObject object) {
+        return object.getString("method");
+    }
+}